@@ -0,0 +1,170 @@
+package com.insurtech.claim.batch.listener;
+
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import com.insurtech.claim.repository.ClaimItemRepository;
+import com.insurtech.claim.repository.ClaimRepository;
+import com.insurtech.claim.service.triage.ClaimTriageEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Mapa de identidad por chunk para el job de reclamaciones
+ *
+ * Registra los IDs que lee el reader y, al procesar el primer elemento del chunk,
+ * carga todas las reclamaciones y sus ítems con dos consultas IN. El procesador
+ * y el writer consultan este mapa en lugar de ir a la base de datos por cada
+ * reclamación. También conserva el estado original de cada reclamación para que
+ * el writer detecte cambios sin volver a leerla.
+ *
+ * Tiene ámbito de step: cada partición usa su propia instancia.
+ */
+public class ClaimChunkCache implements ItemReadListener<Claim>, ChunkListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimChunkCache.class);
+
+    // Los IN de Oracle admiten como máximo 1000 elementos
+    private static final int MAX_IN_SIZE = 1000;
+
+    @Autowired
+    private ClaimRepository claimRepository;
+
+    @Autowired
+    private ClaimItemRepository claimItemRepository;
+
+    @Autowired
+    private ClaimTriageEngine triageEngine;
+
+    private final Set<Long> pendingIds = new LinkedHashSet<>();
+    private final Map<Long, Claim> claims = new HashMap<>();
+    private final Map<Long, List<ClaimItem>> itemsByClaim = new HashMap<>();
+    private final Map<Long, ClaimSnapshot> originals = new HashMap<>();
+    private final Map<String, Long> customerClaimCounts = new HashMap<>();
+    private final List<ClaimItem> approvedItems = new ArrayList<>();
+
+    /**
+     * Valores de la reclamación tal como se leyeron de la base de datos
+     */
+    public record ClaimSnapshot(Claim.ClaimStatus status, BigDecimal estimatedAmount, BigDecimal approvedAmount,
+                                String handlerComments) {
+    }
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        clear();
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        clear();
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        clear();
+    }
+
+    @Override
+    public void afterRead(Claim item) {
+        pendingIds.add(item.getId());
+    }
+
+    /**
+     * Devuelve la reclamación completa, cargando el chunk pendiente si hace falta
+     */
+    public Optional<Claim> getClaim(Long claimId) {
+        ensureLoaded(claimId);
+        return Optional.ofNullable(claims.get(claimId));
+    }
+
+    public List<ClaimItem> getItems(Long claimId) {
+        ensureLoaded(claimId);
+        return itemsByClaim.getOrDefault(claimId, Collections.emptyList());
+    }
+
+    public Optional<ClaimSnapshot> getOriginal(Long claimId) {
+        return Optional.ofNullable(originals.get(claimId));
+    }
+
+    /**
+     * Reclamaciones del cliente en la ventana de frecuencia de las reglas de triaje
+     */
+    public long getCustomerClaimCount(String customerNumber) {
+        return customerNumber != null ? customerClaimCounts.getOrDefault(customerNumber, 0L) : 0L;
+    }
+
+    /**
+     * Registra un ítem aprobado por el triaje para que el writer lo guarde
+     */
+    public void addApprovedItem(ClaimItem item) {
+        approvedItems.add(item);
+    }
+
+    public List<ClaimItem> getApprovedItems() {
+        return approvedItems;
+    }
+
+    private void ensureLoaded(Long claimId) {
+        if (claims.containsKey(claimId) || originals.containsKey(claimId)) {
+            return;
+        }
+        // Elementos que no pasaron por afterRead (p. ej. reprocesados tras un reintento)
+        pendingIds.add(claimId);
+
+        List<Long> ids = new ArrayList<>(pendingIds);
+        pendingIds.clear();
+
+        for (int start = 0; start < ids.size(); start += MAX_IN_SIZE) {
+            List<Long> slice = ids.subList(start, Math.min(start + MAX_IN_SIZE, ids.size()));
+
+            for (Claim claim : claimRepository.findAllById(slice)) {
+                claims.put(claim.getId(), claim);
+                originals.put(claim.getId(), new ClaimSnapshot(
+                        claim.getStatus(), claim.getEstimatedAmount(), claim.getApprovedAmount(),
+                        claim.getHandlerComments()));
+            }
+            for (ClaimItem item : claimItemRepository.findByClaimIdIn(slice)) {
+                itemsByClaim.computeIfAbsent(item.getClaim().getId(), id -> new ArrayList<>()).add(item);
+            }
+        }
+
+        // Frecuencia por cliente con una consulta agrupada, sólo si alguna regla la usa
+        if (triageEngine.usesCustomerFrequency()) {
+            List<String> customers = ids.stream()
+                    .map(claims::get)
+                    .filter(Objects::nonNull)
+                    .map(Claim::getCustomerNumber)
+                    .filter(Objects::nonNull)
+                    .filter(customer -> !customerClaimCounts.containsKey(customer))
+                    .distinct()
+                    .toList();
+            LocalDateTime since = triageEngine.frequencyWindowStart();
+            for (int start = 0; start < customers.size(); start += MAX_IN_SIZE) {
+                List<String> slice = customers.subList(start, Math.min(start + MAX_IN_SIZE, customers.size()));
+                slice.forEach(customer -> customerClaimCounts.put(customer, 0L));
+                for (ClaimRepository.CustomerClaimCount count : claimRepository.countByCustomerNumbersSince(slice, since)) {
+                    customerClaimCounts.put(count.getCustomerNumber(), count.getClaimCount());
+                }
+            }
+        }
+
+        log.debug("Precargadas {} reclamaciones y sus ítems para el chunk", ids.size());
+    }
+
+    private void clear() {
+        pendingIds.clear();
+        claims.clear();
+        itemsByClaim.clear();
+        originals.clear();
+        customerClaimCounts.clear();
+        approvedItems.clear();
+    }
+}
@@ -0,0 +1,97 @@
+package com.insurtech.claim.batch.listener;
+
+import com.insurtech.claim.batch.partitioner.ClaimPartitioner;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Registra la carga de cada partición del job de reclamaciones
+ *
+ * En los steps worker publica el número de elementos leídos y la duración de la
+ * partición (métricas claim.batch.partition.items y claim.batch.partition.duration)
+ * y los compara con los esperados por el particionador. En el step principal
+ * resume el reparto: duración máxima frente a la media y partición más cargada.
+ */
+public class PartitionLoadListener implements StepExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionLoadListener.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        if (stepExecution.getExecutionContext().containsKey(ClaimPartitioner.MIN_VALUE_KEY)) {
+            recordPartition(stepExecution);
+        } else {
+            summarize(stepExecution);
+        }
+        return stepExecution.getExitStatus();
+    }
+
+    private void recordPartition(StepExecution stepExecution) {
+        Duration duration = durationOf(stepExecution);
+        long expected = stepExecution.getExecutionContext().getLong(ClaimPartitioner.EXPECTED_COUNT_KEY, -1L);
+
+        Timer.builder("claim.batch.partition.duration")
+                .tag("step", stepExecution.getStepName())
+                .description("Duración de cada partición del job de reclamaciones")
+                .register(meterRegistry)
+                .record(duration);
+        DistributionSummary.builder("claim.batch.partition.items")
+                .tag("step", stepExecution.getStepName())
+                .description("Reclamaciones leídas por partición")
+                .register(meterRegistry)
+                .record(stepExecution.getReadCount());
+
+        log.info("Partición {} [{} - {}]: {} leídas (esperadas {}), {} escritas, {} ms",
+                stepExecution.getStepName(),
+                stepExecution.getExecutionContext().getLong(ClaimPartitioner.MIN_VALUE_KEY),
+                stepExecution.getExecutionContext().getLong(ClaimPartitioner.MAX_VALUE_KEY),
+                stepExecution.getReadCount(), expected, stepExecution.getWriteCount(), duration.toMillis());
+    }
+
+    private void summarize(StepExecution managerExecution) {
+        List<StepExecution> partitions = managerExecution.getJobExecution().getStepExecutions().stream()
+                .filter(execution -> execution.getExecutionContext().containsKey(ClaimPartitioner.MIN_VALUE_KEY))
+                .toList();
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        long totalMillis = 0;
+        long maxMillis = 0;
+        StepExecution slowest = partitions.get(0);
+        for (StepExecution partition : partitions) {
+            long millis = durationOf(partition).toMillis();
+            totalMillis += millis;
+            if (millis > maxMillis) {
+                maxMillis = millis;
+                slowest = partition;
+            }
+        }
+        double averageMillis = (double) totalMillis / partitions.size();
+
+        log.info("Reparto de {} particiones: media {} ms, máxima {} ms ({} con {} elementos), desequilibrio {}",
+                partitions.size(), Math.round(averageMillis), maxMillis, slowest.getStepName(),
+                slowest.getReadCount(),
+                averageMillis > 0 ? String.format("%.2f", maxMillis / averageMillis) : "n/a");
+    }
+
+    private Duration durationOf(StepExecution stepExecution) {
+        LocalDateTime start = stepExecution.getStartTime();
+        LocalDateTime end = stepExecution.getEndTime() != null ? stepExecution.getEndTime() : LocalDateTime.now();
+        return start != null ? Duration.between(start, end) : Duration.ZERO;
+    }
+}
@@ -9,54 +9,82 @@ import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Particionador del job de reclamaciones basado en la distribución real de filas
+ *
+ * En lugar de dividir MIN(ID)..MAX(ID) de toda la tabla en tramos iguales, calcula
+ * con NTILE los límites que reparten las reclamaciones pendientes (SUBMITTED /
+ * UNDER_REVIEW) en gridSize grupos de tamaño similar. Como las pendientes se
+ * concentran en los IDs recientes, esto evita que una partición reciba casi todo
+ * el trabajo mientras las demás terminan al instante.
+ *
+ * Los rangos son contiguos (cada uno empieza tras el máximo del anterior), de modo
+ * que las filas que pasen a ser elegibles entre el particionado y la lectura
+ * también quedan cubiertas.
+ */
 public class ClaimPartitioner implements Partitioner {
 
     private static final Logger log = LoggerFactory.getLogger(ClaimPartitioner.class);
 
+    public static final String MIN_VALUE_KEY = "minValue";
+    public static final String MAX_VALUE_KEY = "maxValue";
+    public static final String EXPECTED_COUNT_KEY = "expectedCount";
+
+    // Consulta específica para Oracle; el filtro debe coincidir con el de ClaimReader
+    private static final String BOUNDARIES_QUERY =
+            "SELECT BUCKET, MIN(ID) AS MIN_ID, MAX(ID) AS MAX_ID, COUNT(*) AS ITEMS FROM (" +
+            "  SELECT ID, NTILE(?) OVER (ORDER BY ID) AS BUCKET FROM CLAIMS " +
+            "  WHERE STATUS IN ('UNDER_REVIEW', 'SUBMITTED')" +
+            ") GROUP BY BUCKET ORDER BY BUCKET";
+
     @Autowired
     private DataSource dataSource;
 
+    private record Boundary(long minId, long maxId, long items) {
+    }
+
     @Override
     public Map<String, ExecutionContext> partition(int gridSize) {
         log.info("Particionando job de procesamiento de reclamaciones en {} particiones", gridSize);
 
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-
-        // Consultas específicas para Oracle
-        Long minId = jdbcTemplate.queryForObject(
-                "SELECT NVL(MIN(id), 1) FROM CLAIMS", Long.class);
-        Long maxId = jdbcTemplate.queryForObject(
-                "SELECT NVL(MAX(id), 1) FROM CLAIMS", Long.class);
-
-        // Calcular el tamaño de cada partición
-        long targetSize = (maxId - minId) / gridSize + 1;
-
-        log.info("Datos a particionar: minId={}, maxId={}, targetSize={}", minId, maxId, targetSize);
+        List<Boundary> boundaries = jdbcTemplate.query(BOUNDARIES_QUERY,
+                (rs, rowNum) -> new Boundary(rs.getLong("MIN_ID"), rs.getLong("MAX_ID"), rs.getLong("ITEMS")),
+                Math.max(gridSize, 1));
 
         Map<String, ExecutionContext> result = new HashMap<>();
 
-        long number = 0;
-        long start = minId;
-        long end = Math.min(start + targetSize - 1, maxId);
-
-        // Crear particiones
-        while (start <= maxId) {
-            ExecutionContext context = new ExecutionContext();
-            result.put("partition" + number, context);
-
-            context.putLong("minValue", start);
-            context.putLong("maxValue", end);
+        if (boundaries.isEmpty()) {
+            // Sin reclamaciones pendientes: una única partición vacía
+            log.info("No hay reclamaciones pendientes que particionar");
+            result.put("partition0", context(1, 0, 0));
+            return result;
+        }
 
-            log.debug("Creada partición: partition{}, minValue={}, maxValue={}", number, start, end);
+        long start = boundaries.get(0).minId();
+        for (int number = 0; number < boundaries.size(); number++) {
+            Boundary boundary = boundaries.get(number);
+            result.put("partition" + number, context(start, boundary.maxId(), boundary.items()));
 
-            start += targetSize;
-            end = Math.min(start + targetSize - 1, maxId);
-            number++;
+            log.debug("Creada partición: partition{}, minValue={}, maxValue={}, elementos={}",
+                    number, start, boundary.maxId(), boundary.items());
+            start = boundary.maxId() + 1;
         }
 
-        log.info("Creadas {} particiones", result.size());
+        log.info("Creadas {} particiones para {} reclamaciones pendientes (IDs {} - {})",
+                result.size(), boundaries.stream().mapToLong(Boundary::items).sum(),
+                boundaries.get(0).minId(), boundaries.get(boundaries.size() - 1).maxId());
         return result;
     }
-}
\ No newline at end of file
+
+    private ExecutionContext context(long minValue, long maxValue, long expectedCount) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(MIN_VALUE_KEY, minValue);
+        context.putLong(MAX_VALUE_KEY, maxValue);
+        context.putLong(EXPECTED_COUNT_KEY, expectedCount);
+        return context;
+    }
+}
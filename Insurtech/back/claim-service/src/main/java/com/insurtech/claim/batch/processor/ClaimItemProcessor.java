@@ -1,9 +1,10 @@
 package com.insurtech.claim.batch.processor;
 
+import com.insurtech.claim.batch.listener.ClaimChunkCache;
 import com.insurtech.claim.model.entity.Claim;
 import com.insurtech.claim.model.entity.ClaimItem;
-import com.insurtech.claim.repository.ClaimItemRepository;
-import com.insurtech.claim.repository.ClaimRepository;
+import com.insurtech.claim.service.triage.ClaimTriageEngine;
+import com.insurtech.claim.service.triage.TriageResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ItemProcessor;
@@ -17,31 +18,48 @@ public class ClaimItemProcessor implements ItemProcessor<Claim, Claim> {
 
     private static final Logger log = LoggerFactory.getLogger(ClaimItemProcessor.class);
 
+    // Reclamaciones e ítems del chunk actual, precargados en bloque
     @Autowired
-    private ClaimRepository claimRepository;
+    private ClaimChunkCache chunkCache;
 
     @Autowired
-    private ClaimItemRepository claimItemRepository;
+    private ClaimTriageEngine triageEngine;
 
     @Override
     public Claim process(Claim claim) throws Exception {
         log.info("Procesando reclamación: {}", claim.getClaimNumber());
 
         try {
-            // Cargar la reclamación completa desde la base de datos
-            Claim fullClaim = claimRepository.findById(claim.getId())
+            // Obtener la reclamación completa del chunk precargado
+            Claim fullClaim = chunkCache.getClaim(claim.getId())
                     .orElseThrow(() -> new RuntimeException("Reclamación no encontrada: " + claim.getId()));
 
-            // Cargar los ítems de la reclamación
-            List<ClaimItem> items = claimItemRepository.findByClaimId(claim.getId());
+            // Ítems de la reclamación
+            List<ClaimItem> items = chunkCache.getItems(claim.getId());
             log.debug("Reclamación {} tiene {} ítems", claim.getClaimNumber(), items.size());
 
-            // Si la reclamación está en estado SUBMITTED, pasarla a UNDER_REVIEW
+            // Las reclamaciones en estado SUBMITTED pasan por el triaje: aprobación automática,
+            // marca de sospecha o revisión; si ninguna regla decide, pasan a UNDER_REVIEW
             if (fullClaim.getStatus() == Claim.ClaimStatus.SUBMITTED) {
-                fullClaim.setStatus(Claim.ClaimStatus.UNDER_REVIEW);
-                fullClaim.setUpdatedAt(LocalDateTime.now());
-                fullClaim.setUpdatedBy("batch-processor");
-                log.info("Reclamación {} cambiada a estado UNDER_REVIEW", claim.getClaimNumber());
+                TriageResult triage = triageEngine.evaluate(fullClaim, items,
+                        chunkCache.getCustomerClaimCount(fullClaim.getCustomerNumber()));
+                // En el lote no hay un gestor que confirme la cobertura declarada por el cliente:
+                // las aprobaciones que dependen de ella pasan a revisión, como en el alta
+                if (triageEngine.dependsOnItemCoverage(triage)) {
+                    triage = triageEngine.withUnverifiedCoverage(triage);
+                }
+                if (triageEngine.apply(fullClaim, items, triage)) {
+                    if (triage.decision() == TriageResult.Decision.AUTO_APPROVE) {
+                        items.forEach(chunkCache::addApprovedItem);
+                    }
+                    log.info("Reclamación {} clasificada por triaje como {} ({})",
+                            claim.getClaimNumber(), triage.decision(), triage.ruleIds());
+                } else {
+                    fullClaim.setStatus(Claim.ClaimStatus.UNDER_REVIEW);
+                    fullClaim.setUpdatedAt(LocalDateTime.now());
+                    fullClaim.setUpdatedBy("batch-processor");
+                    log.info("Reclamación {} cambiada a estado UNDER_REVIEW", claim.getClaimNumber());
+                }
             }
 
             // Si la reclamación ha estado en UNDER_REVIEW por más de 7 días, marcarla para revisión
@@ -3,7 +3,9 @@ package com.insurtech.claim.batch.reader;
 import com.insurtech.claim.model.entity.Claim;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 
@@ -13,52 +15,109 @@ import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.List;
 
-public class ClaimReader implements ItemReader<Claim> {
+/**
+ * Lector de reclamaciones pendientes para una partición del job de reclamaciones
+ *
+ * Recorre el rango de IDs [minValue, maxValue] de su partición mediante paginación
+ * por clave (keyset) sobre ID: cada página trae como máximo {@code pageSize} filas
+ * con ID mayor que el último leído, de modo que la memoria por worker se limita a
+ * un chunk y ninguna consulta mantiene un cursor abierto entre commits.
+ *
+ * El último ID leído se guarda en el contexto de ejecución del step; al reiniciar
+ * un job fallido la lectura continúa tras ese ID. Se usa el ID y no un contador de
+ * elementos porque el procesador cambia el estado de las reclamaciones leídas y
+ * éstas dejan de cumplir el filtro, lo que desplazaría cualquier offset.
+ */
+public class ClaimReader implements ItemStreamReader<Claim> {
 
     private static final Logger log = LoggerFactory.getLogger(ClaimReader.class);
 
+    private static final String LAST_ID_KEY = "ClaimReader.lastId";
+    private static final String READ_COUNT_KEY = "ClaimReader.readCount";
+
+    // Consulta específica para Oracle
+    private static final String PAGE_QUERY =
+            "SELECT ID, CLAIM_NUMBER, POLICY_ID, POLICY_NUMBER, CUSTOMER_ID, CUSTOMER_NUMBER, " +
+            "INCIDENT_DATE, INCIDENT_DESCRIPTION, STATUS, CLAIM_TYPE FROM CLAIMS " +
+            "WHERE ID > ? AND ID <= ? AND STATUS IN ('UNDER_REVIEW', 'SUBMITTED') " +
+            "ORDER BY ID FETCH FIRST ? ROWS ONLY";
+
     private final JdbcTemplate jdbcTemplate;
     private final Long minValue;
     private final Long maxValue;
-    private Iterator<Claim> claimsIterator;
+    private final int pageSize;
+    private final ClaimRowMapper rowMapper = new ClaimRowMapper();
 
-    public ClaimReader(DataSource dataSource, Long minValue, Long maxValue) {
+    private Iterator<Claim> page;
+    private long lastId;
+    private long readCount;
+    private boolean exhausted;
+
+    public ClaimReader(DataSource dataSource, Long minValue, Long maxValue, int pageSize) {
         this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(pageSize);
         this.minValue = minValue;
         this.maxValue = maxValue;
+        this.pageSize = pageSize;
         log.info("Inicializado lector de reclamaciones para rango: {} - {}", minValue, maxValue);
     }
 
     @Override
-    public Claim read() throws Exception {
-        if (claimsIterator == null) {
-            claimsIterator = initializeIterator();
+    public void open(ExecutionContext executionContext) throws ItemStreamException {
+        if (minValue == null || maxValue == null) {
+            throw new ItemStreamException("La partición no define minValue/maxValue");
         }
 
-        if (claimsIterator.hasNext()) {
-            Claim claim = claimsIterator.next();
-            log.debug("Leyendo reclamación: {}", claim.getClaimNumber());
-            return claim;
+        if (executionContext.containsKey(LAST_ID_KEY)) {
+            lastId = executionContext.getLong(LAST_ID_KEY);
+            readCount = executionContext.getLong(READ_COUNT_KEY, 0L);
+            log.info("Reanudando partición {} - {} tras ID {} ({} leídas)", minValue, maxValue, lastId, readCount);
+        } else {
+            lastId = minValue - 1;
+            readCount = 0;
         }
-
-        log.debug("No hay más reclamaciones para leer en este rango");
-        return null; // Señala el fin de los datos para este reader
+        page = null;
+        exhausted = false;
     }
 
-    private Iterator<Claim> initializeIterator() {
-        log.info("Cargando reclamaciones para partición: {} - {}", minValue, maxValue);
+    @Override
+    public Claim read() {
+        if (page == null || !page.hasNext()) {
+            if (exhausted) {
+                log.debug("No hay más reclamaciones para leer en este rango");
+                return null; // Señala el fin de los datos para este reader
+            }
+            page = fetchNextPage();
+            if (!page.hasNext()) {
+                return null;
+            }
+        }
 
-        // Consulta específica para Oracle
-        String query = "SELECT * FROM CLAIMS WHERE id BETWEEN ? AND ? AND " +
-                "(status = 'UNDER_REVIEW' OR status = 'SUBMITTED') " +
-                "ORDER BY id";
+        Claim claim = page.next();
+        lastId = claim.getId();
+        readCount++;
+        log.debug("Leyendo reclamación: {}", claim.getClaimNumber());
+        return claim;
+    }
 
-        List<Claim> claims = jdbcTemplate.query(
-                query,
-                new Object[]{minValue, maxValue},
-                new ClaimRowMapper());
+    @Override
+    public void update(ExecutionContext executionContext) throws ItemStreamException {
+        executionContext.putLong(LAST_ID_KEY, lastId);
+        executionContext.putLong(READ_COUNT_KEY, readCount);
+    }
+
+    @Override
+    public void close() throws ItemStreamException {
+        log.info("Partición {} - {} finalizada: {} reclamaciones leídas", minValue, maxValue, readCount);
+        page = null;
+    }
 
-        log.info("Cargadas {} reclamaciones para procesamiento", claims.size());
+    private Iterator<Claim> fetchNextPage() {
+        List<Claim> claims = jdbcTemplate.query(PAGE_QUERY, rowMapper, lastId, maxValue, pageSize);
+        // Una página incompleta indica que no quedan filas en el rango
+        exhausted = claims.size() < pageSize;
+        log.debug("Cargadas {} reclamaciones de la partición {} - {} tras ID {}",
+                claims.size(), minValue, maxValue, lastId);
         return claims.iterator();
     }
 
@@ -99,4 +158,4 @@ public class ClaimReader implements ItemReader<Claim> {
             return claim;
         }
     }
-}
\ No newline at end of file
+}
@@ -1,63 +1,214 @@
 package com.insurtech.claim.batch.writer;
 
+import com.insurtech.claim.batch.listener.ClaimChunkCache;
 import com.insurtech.claim.model.entity.Claim;
-import com.insurtech.claim.model.entity.ClaimStatusHistory;
-import com.insurtech.claim.repository.ClaimRepository;
-import com.insurtech.claim.repository.ClaimStatusHistoryRepository;
+import com.insurtech.claim.model.entity.ClaimItem;
+import com.insurtech.claim.service.exposure.ClaimExposureLedger;
+import com.insurtech.claim.service.lifecycle.ClaimLifecycleMetrics;
+import com.insurtech.claim.service.reporting.ClaimReportingEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.Chunk;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
+/**
+ * Writer del job de reclamaciones
+ *
+ * Escribe con sentencias JDBC por lotes dentro de la transacción del chunk: una
+ * actualización por reclamación modificada (con control de versión optimista) y
+ * un insert por cada cambio de estado en CLAIM_STATUS_HISTORY, además de los ítems
+ * aprobados por el triaje. El estado original se obtiene del mapa del chunk, sin
+ * volver a leer las reclamaciones. Los cambios de estado mueven también los totales
+ * de exposición en la misma transacción, y al confirmarse descartan los informes en
+ * caché y se suman a las métricas de ciclo de vida.
+ *
+ * UPDATED_AT se fija siempre con SYSTIMESTAMP en la propia sentencia, también cuando
+ * sólo cambian importes o comentarios: la fecha leída al inicio del chunk está
+ * obsoleta y los índices incrementales dependen de esa columna.
+ */
 public class ClaimWriter implements ItemWriter<Claim> {
 
     private static final Logger log = LoggerFactory.getLogger(ClaimWriter.class);
 
+    // Sentencias específicas para Oracle
+    private static final String UPDATE_CLAIM_SQL =
+            "UPDATE CLAIMS SET STATUS = ?, ESTIMATED_AMOUNT = ?, APPROVED_AMOUNT = ?, APPROVAL_DATE = ?, " +
+            "HANDLER_COMMENTS = ?, UPDATED_AT = SYSTIMESTAMP, UPDATED_BY = ?, VERSION = NVL(VERSION, 0) + 1 " +
+            "WHERE ID = ? AND NVL(VERSION, 0) = ?";
+
+    private static final String APPROVE_ITEM_SQL =
+            "UPDATE CLAIM_ITEMS SET APPROVED_AMOUNT = ?, UPDATED_AT = SYSTIMESTAMP, UPDATED_BY = ?, " +
+            "VERSION = NVL(VERSION, 0) + 1 WHERE ID = ?";
+
+    private static final String INSERT_STATUS_HISTORY_SQL =
+            "INSERT INTO CLAIM_STATUS_HISTORY (ID, CLAIM_ID, PREVIOUS_STATUS, NEW_STATUS, CHANGE_REASON, " +
+            "CREATED_AT, CREATED_BY) VALUES (SEQ_CLAIM_STATUS_HISTORY.NEXTVAL, ?, ?, ?, ?, ?, ?)";
+
+    private static final String LAST_STATUS_CHANGES_SQL =
+            "SELECT CLAIM_ID, MAX(CREATED_AT) AS LAST_CHANGE FROM CLAIM_STATUS_HISTORY " +
+            "WHERE CLAIM_ID IN (:claimIds) GROUP BY CLAIM_ID";
+
+    private static final String BATCH_USER = "batch-processor";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClaimChunkCache chunkCache;
+
+    @Autowired
+    private ClaimExposureLedger exposureLedger;
+
     @Autowired
-    private ClaimRepository claimRepository;
+    private ClaimReportingEngine reportingEngine;
 
     @Autowired
-    private ClaimStatusHistoryRepository statusHistoryRepository;
+    private ClaimLifecycleMetrics lifecycleMetrics;
 
     @Override
     public void write(Chunk<? extends Claim> chunk) throws Exception {
-        List<Claim> claims = new ArrayList<>(chunk.getItems());
-        log.info("Escribiendo lote de {} reclamaciones", claims.size());
+        log.info("Escribiendo lote de {} reclamaciones", chunk.size());
 
-        List<ClaimStatusHistory> statusHistories = new ArrayList<>();
+        List<Object[]> claimUpdates = new ArrayList<>();
+        List<Object[]> statusHistories = new ArrayList<>();
+        List<Claim> updatedClaims = new ArrayList<>();
+        List<ClaimExposureLedger.Move> exposureMoves = new ArrayList<>();
+        List<Claim> statusChanges = new ArrayList<>();
+        LocalDateTime changedAt = LocalDateTime.now();
+        Timestamp now = Timestamp.valueOf(changedAt);
 
-        // Para cada reclamación, verificar si cambió el estado y crear historial
-        for (Claim claim : claims) {
-            Claim existingClaim = claimRepository.findById(claim.getId()).orElse(null);
+        for (Claim claim : chunk.getItems()) {
+            ClaimChunkCache.ClaimSnapshot original = chunkCache.getOriginal(claim.getId()).orElse(null);
 
-            // Si existe y ha cambiado el estado, crear historial
-            if (existingClaim != null && existingClaim.getStatus() != claim.getStatus()) {
-                ClaimStatusHistory statusHistory = new ClaimStatusHistory();
-                statusHistory.setClaim(claim);
-                statusHistory.setPreviousStatus(existingClaim.getStatus());
-                statusHistory.setNewStatus(claim.getStatus());
-                statusHistory.setChangeReason("Actualización automática por procesamiento por lotes");
-                statusHistory.setCreatedBy("batch-processor");
-                statusHistories.add(statusHistory);
+            // Si ha cambiado el estado, crear historial
+            if (original != null && original.status() != claim.getStatus()) {
+                statusHistories.add(new Object[]{
+                        claim.getId(),
+                        original.status().name(),
+                        claim.getStatus().name(),
+                        "Actualización automática por procesamiento por lotes",
+                        now,
+                        BATCH_USER});
 
                 log.info("Cambio de estado detectado para reclamación {}: {} -> {}",
-                        claim.getClaimNumber(), existingClaim.getStatus(), claim.getStatus());
+                        claim.getClaimNumber(), original.status(), claim.getStatus());
+                statusChanges.add(claim);
+
+                ClaimExposureLedger.ExposureKey exposure = ClaimExposureLedger.ExposureKey.of(claim);
+                if (exposure != null) {
+                    exposureMoves.add(new ClaimExposureLedger.Move(claim.getId(),
+                            exposure.withStatus(original.status()), exposure));
+                }
+            }
+
+            if (original == null || isModified(original, claim)) {
+                claimUpdates.add(new Object[]{
+                        claim.getStatus().name(),
+                        claim.getEstimatedAmount(),
+                        claim.getApprovedAmount(),
+                        claim.getApprovalDate() != null ? Timestamp.valueOf(claim.getApprovalDate()) : null,
+                        claim.getHandlerComments(),
+                        claim.getUpdatedBy() != null ? claim.getUpdatedBy() : BATCH_USER,
+                        claim.getId(),
+                        claim.getVersion() != null ? claim.getVersion() : 0L});
+                updatedClaims.add(claim);
             }
         }
 
-        // Guardar todas las reclamaciones en un único batch
-        claimRepository.saveAll(claims);
-        log.info("Guardadas {} reclamaciones", claims.size());
+        if (!claimUpdates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_CLAIM_SQL, claimUpdates);
+            for (int i = 0; i < counts.length; i++) {
+                // Oracle puede devolver SUCCESS_NO_INFO (-2) en lotes; sólo 0 indica conflicto
+                if (counts[i] == 0) {
+                    throw new OptimisticLockingFailureException(
+                            "La reclamación " + updatedClaims.get(i).getClaimNumber() + " fue modificada concurrentemente");
+                }
+            }
+            log.info("Guardadas {} reclamaciones", claimUpdates.size());
+        }
 
-        // Guardar historiales de estado si hay
+        // Ítems aprobados por el triaje automático
+        List<Object[]> itemApprovals = new ArrayList<>();
+        for (ClaimItem item : chunkCache.getApprovedItems()) {
+            itemApprovals.add(new Object[]{
+                    item.getApprovedAmount(),
+                    item.getUpdatedBy() != null ? item.getUpdatedBy() : BATCH_USER,
+                    item.getId()});
+        }
+        if (!itemApprovals.isEmpty()) {
+            jdbcTemplate.batchUpdate(APPROVE_ITEM_SQL, itemApprovals);
+            log.info("Guardados {} ítems aprobados por triaje", itemApprovals.size());
+        }
+
+        // Guardar historiales de estado si hay; la duración se mide desde el cambio anterior
         if (!statusHistories.isEmpty()) {
-            statusHistoryRepository.saveAll(statusHistories);
+            Map<Long, LocalDateTime> lastChanges = findLastStatusChanges(statusChanges);
+            jdbcTemplate.batchUpdate(INSERT_STATUS_HISTORY_SQL, statusHistories);
             log.info("Guardados {} registros de historial de estado", statusHistories.size());
+
+            List<ClaimLifecycleMetrics.Transition> transitions = new ArrayList<>(statusChanges.size());
+            for (Claim claim : statusChanges) {
+                LocalDateTime enteredAt = lastChanges.get(claim.getId());
+                if (enteredAt == null) {
+                    enteredAt = claim.getSubmissionDate() != null ? claim.getSubmissionDate() : claim.getCreatedAt();
+                }
+                transitions.add(new ClaimLifecycleMetrics.Transition(
+                        chunkCache.getOriginal(claim.getId()).map(ClaimChunkCache.ClaimSnapshot::status).orElse(null),
+                        claim.getStatus(), claim.getClaimType(), enteredAt, changedAt));
+            }
+            lifecycleMetrics.recordAfterCommit(transitions);
+        }
+
+        exposureLedger.recordMoves(exposureMoves);
+
+        // Informes en caché de esta instancia, al confirmarse el chunk
+        if (!claimUpdates.isEmpty() || !itemApprovals.isEmpty()) {
+            reportingEngine.invalidateAfterCommit();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Último cambio de estado de cada reclamación, con una consulta por cada 1000
+     */
+    private Map<Long, LocalDateTime> findLastStatusChanges(List<Claim> claims) {
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        List<Long> ids = claims.stream().map(Claim::getId).toList();
+        Map<Long, LocalDateTime> lastChanges = new HashMap<>();
+        // Los IN de Oracle admiten como máximo 1000 elementos
+        for (int start = 0; start < ids.size(); start += 1000) {
+            namedJdbcTemplate.query(LAST_STATUS_CHANGES_SQL,
+                    Map.of("claimIds", ids.subList(start, Math.min(start + 1000, ids.size()))),
+                    rs -> {
+                        Timestamp lastChange = rs.getTimestamp("LAST_CHANGE");
+                        if (lastChange != null) {
+                            lastChanges.put(rs.getLong("CLAIM_ID"), lastChange.toLocalDateTime());
+                        }
+                    });
+        }
+        return lastChanges;
+    }
+
+    private boolean isModified(ClaimChunkCache.ClaimSnapshot original, Claim claim) {
+        return original.status() != claim.getStatus()
+                || !sameAmount(original.estimatedAmount(), claim.getEstimatedAmount())
+                || !sameAmount(original.approvedAmount(), claim.getApprovedAmount())
+                || !Objects.equals(original.handlerComments(), claim.getHandlerComments());
+    }
+
+    private boolean sameAmount(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+}
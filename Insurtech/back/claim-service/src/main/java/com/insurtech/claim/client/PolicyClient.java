@@ -3,7 +3,10 @@ package com.insurtech.claim.client;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.List;
 
@@ -16,6 +19,9 @@ public interface PolicyClient {
     @GetMapping("/api/policies/number/{policyNumber}")
     Map<String, Object> getPolicyByNumber(@PathVariable String policyNumber);
 
+    @PostMapping("/api/policies/numbers")
+    List<Map<String, Object>> getPoliciesByNumbers(@RequestBody Collection<String> policyNumbers);
+
     @GetMapping("/api/policies/customer/{customerId}")
     List<Map<String, Object>> getPoliciesByCustomerId(@PathVariable Long customerId);
 
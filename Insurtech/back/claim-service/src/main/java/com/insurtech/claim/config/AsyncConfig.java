@@ -12,6 +12,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.lang.reflect.Method;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
@@ -43,6 +44,135 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * Executor dedicado a las etapas de validación y persistencia de la importación CSV
+     *
+     * La cola es pequeña y, cuando se llena, el hilo que lee el fichero ejecuta él mismo
+     * el siguiente lote: así el parseo nunca adelanta a la persistencia más de unos
+     * pocos lotes y la memoria se mantiene constante.
+     */
+    @Bean(name = "claimImportExecutor")
+    public Executor claimImportExecutor(@Value("${app.claims.import.workers:4}") int workers) {
+        log.info("Creando executor de importación de reclamaciones con {} workers", workers);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("claim-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Executor que coordina las importaciones CSV: cada hilo lee un fichero y reparte sus
+     * lotes en claimImportExecutor
+     *
+     * Con la cola llena la importación se rechaza en lugar de ejecutarse en el pool común;
+     * además, cuando claimImportExecutor aplica CallerRunsPolicy, los lotes se ejecutan en
+     * estos hilos dedicados y no en hilos compartidos con el resto de la aplicación.
+     */
+    @Bean(name = "claimImportJobExecutor")
+    public Executor claimImportJobExecutor(@Value("${app.claims.import.max-concurrent:2}") int maxConcurrent,
+                                           @Value("${app.claims.import.queue-capacity:4}") int queueCapacity) {
+        log.info("Creando executor de coordinación de importaciones con {} hilos y cola de {}", maxConcurrent, queueCapacity);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrent);
+        executor.setMaxPoolSize(maxConcurrent);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("claim-import-job-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Executor de las consultas masivas a policy-service; su tamaño limita cuántos
+     * lotes de pólizas se piden en paralelo
+     */
+    @Bean(name = "policyEnrichmentExecutor")
+    public Executor policyEnrichmentExecutor(@Value("${app.claims.policy-enrichment.max-concurrency:4}") int maxConcurrency) {
+        log.info("Creando executor de enriquecimiento de pólizas con {} hilos", maxConcurrency);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrency);
+        executor.setMaxPoolSize(maxConcurrency);
+        executor.setThreadNamePrefix("policy-enrichment-");
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Executor de las exportaciones de reclamaciones
+     *
+     * Pocos hilos y cola acotada: cada exportación mantiene abierto un cursor sobre
+     * CLAIMS, así que cuando la cola está llena la petición se rechaza en lugar de
+     * acumularse o de ocupar los hilos del resto de tareas asíncronas.
+     */
+    @Bean(name = "claimExportExecutor")
+    public Executor claimExportExecutor(@Value("${app.claims.export.workers:2}") int workers,
+                                        @Value("${app.claims.export.queue-capacity:8}") int queueCapacity) {
+        log.info("Creando executor de exportación de reclamaciones con {} workers y cola de {}", workers, queueCapacity);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("claim-export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Executor de las estadísticas e informes de reclamaciones; separado del común
+     * para que los informes largos no retrasen el resto de tareas asíncronas
+     */
+    @Bean(name = "claimReportingExecutor")
+    public Executor claimReportingExecutor(@Value("${app.claims.reporting.workers:2}") int workers,
+                                           @Value("${app.claims.reporting.queue-capacity:16}") int queueCapacity) {
+        log.info("Creando executor de informes de reclamaciones con {} workers y cola de {}", workers, queueCapacity);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("claim-reporting-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Executor de las tareas de mantenimiento lanzadas a mano (reconstrucción de índices,
+     * recargas y reconciliaciones)
+     *
+     * Cada tarea recorre tablas completas, así que se ejecutan en hilos propios y con la
+     * cola llena se rechazan, en lugar de ocupar el pool común de la JVM.
+     */
+    @Bean(name = "claimMaintenanceExecutor")
+    public Executor claimMaintenanceExecutor(@Value("${app.claims.maintenance.workers:2}") int workers,
+                                             @Value("${app.claims.maintenance.queue-capacity:4}") int queueCapacity) {
+        log.info("Creando executor de mantenimiento de reclamaciones con {} workers y cola de {}", workers, queueCapacity);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("claim-maintenance-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
     @Override
     public Executor getAsyncExecutor() {
         return taskExecutor();
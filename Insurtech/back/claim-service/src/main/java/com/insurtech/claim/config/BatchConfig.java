@@ -1,22 +1,28 @@
 package com.insurtech.claim.config;
 
+import com.insurtech.claim.batch.listener.ClaimChunkCache;
+import com.insurtech.claim.batch.listener.PartitionLoadListener;
 import com.insurtech.claim.batch.processor.ClaimItemProcessor;
 import com.insurtech.claim.batch.reader.ClaimReader;
 import com.insurtech.claim.batch.writer.ClaimWriter;
 import com.insurtech.claim.batch.partitioner.ClaimPartitioner;
 import com.insurtech.claim.model.entity.Claim;
 import jakarta.persistence.EntityManagerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.batch.core.job.builder.JobBuilder;
 import org.springframework.batch.core.launch.support.RunIdIncrementer;
 import org.springframework.batch.core.repository.JobRepository;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
-import org.springframework.batch.item.ItemReader;
 import org.springframework.batch.item.ItemWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,8 +33,16 @@ import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
 
+/**
+ * Configuración del job de procesamiento de reclamaciones
+ *
+ * En modo local (por defecto) las particiones se ejecutan en el batchTaskExecutor
+ * de esta instancia. Con batch.claim.remote-partitioning.enabled=true los steps
+ * los define RemotePartitioningConfig y las particiones se reparten por Kafka entre
+ * todas las instancias; esta clase sigue aportando reader, processor y writer.
+ */
 @Configuration
-@ConditionalOnProperty(name = "spring.batch.job.enabled", havingValue = "true", matchIfMissing = false)
+@ConditionalOnExpression("${spring.batch.job.enabled:false} or ${batch.claim.remote-partitioning.enabled:false}")
 public class BatchConfig {
 
     @Autowired
@@ -67,6 +81,30 @@ public class BatchConfig {
         return new ClaimPartitioner();
     }
 
+    /**
+     * Lector con ámbito de step: cada partición recibe su propio rango de IDs
+     */
+    @Bean
+    @StepScope
+    public ClaimReader claimReader(@Value("#{stepExecutionContext['minValue']}") Long minValue,
+                                   @Value("#{stepExecutionContext['maxValue']}") Long maxValue) {
+        return new ClaimReader(dataSource, minValue, maxValue, chunkSize);
+    }
+
+    /**
+     * Mapa de identidad por chunk compartido por el procesador y el writer
+     */
+    @Bean
+    @StepScope
+    public ClaimChunkCache claimChunkCache() {
+        return new ClaimChunkCache();
+    }
+
+    @Bean
+    public PartitionLoadListener partitionLoadListener() {
+        return new PartitionLoadListener();
+    }
+
     @Bean
     public ItemProcessor<Claim, Claim> claimProcessor() {
         return new ClaimItemProcessor();
@@ -78,30 +116,37 @@ public class BatchConfig {
     }
 
     @Bean
+    @ConditionalOnProperty(name = "batch.claim.remote-partitioning.enabled", havingValue = "false", matchIfMissing = true)
     public Step claimProcessingStep() {
+        ClaimChunkCache chunkCache = claimChunkCache();
         return new StepBuilder("claimProcessingStep", jobRepository)
                 .<Claim, Claim>chunk(chunkSize, batchTransactionManager())
-                .reader(new ClaimReader(dataSource, 1L, 100L)) // Valores por defecto
+                .reader(claimReader(null, null)) // Rango resuelto desde el contexto de la partición
                 .processor(claimProcessor())
                 .writer(claimWriter())
+                .listener((ItemReadListener<Claim>) chunkCache)
+                .listener((ChunkListener) chunkCache)
+                .listener(partitionLoadListener())
                 .build();
     }
 
     @Bean
+    @ConditionalOnProperty(name = "batch.claim.remote-partitioning.enabled", havingValue = "false", matchIfMissing = true)
     public Step partitionStep() {
         return new StepBuilder("partitionStep", jobRepository)
                 .partitioner("claimProcessingStep", claimPartitioner())
                 .step(claimProcessingStep())
                 .taskExecutor(batchTaskExecutor())
                 .gridSize(gridSize)
+                .listener(partitionLoadListener())
                 .build();
     }
 
     @Bean
-    public Job processClaimsJob() {
+    public Job processClaimsJob(@Qualifier("partitionStep") Step partitionStep) {
         return new JobBuilder("processClaimsJob", jobRepository)
                 .incrementer(new RunIdIncrementer())
-                .flow(partitionStep())
+                .flow(partitionStep)
                 .end()
                 .build();
     }
@@ -0,0 +1,35 @@
+package com.insurtech.claim.config;
+
+import jakarta.annotation.PostConstruct;
+import org.apache.poi.util.DefaultTempFileCreationStrategy;
+import org.apache.poi.util.TempFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+import java.nio.file.Paths;
+
+/**
+ * Directorio de los temporales de Apache POI
+ *
+ * La estrategia de ficheros temporales de POI es global a la JVM, así que se fija
+ * una sola vez al arrancar: las filas que SXSSF vuelca a disco durante las
+ * exportaciones a Excel van a {@code <app.claims.export.dir>/tmp}.
+ */
+@Configuration
+public class ExportConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportConfig.class);
+
+    @Value("${app.claims.export.dir}")
+    private String exportDir;
+
+    @PostConstruct
+    public void configureTempFiles() {
+        File tempDir = Paths.get(exportDir).toAbsolutePath().normalize().resolve("tmp").toFile();
+        TempFile.setTempFileCreationStrategy(new DefaultTempFileCreationStrategy(tempDir));
+        log.info("Temporales de exportación a Excel en {}", tempDir);
+    }
+}
@@ -0,0 +1,211 @@
+package com.insurtech.claim.config;
+
+import com.insurtech.claim.batch.listener.ClaimChunkCache;
+import com.insurtech.claim.batch.listener.PartitionLoadListener;
+import com.insurtech.claim.batch.partitioner.ClaimPartitioner;
+import com.insurtech.claim.batch.reader.ClaimReader;
+import com.insurtech.claim.model.entity.Claim;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.integration.config.annotation.EnableBatchIntegration;
+import org.springframework.batch.integration.partition.RemotePartitioningManagerStepBuilderFactory;
+import org.springframework.batch.integration.partition.RemotePartitioningWorkerStepBuilderFactory;
+import org.springframework.batch.integration.partition.StepExecutionRequest;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.kafka.dsl.Kafka;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Particionado remoto del job de reclamaciones sobre Kafka
+ *
+ * El step principal (manager) publica una petición por partición en el topic
+ * configurado y espera, consultando el job repository, a que todas terminen. Cada
+ * instancia de claim-service con el modo activado consume peticiones del mismo
+ * grupo y ejecuta el step worker correspondiente; el estado de cada partición se
+ * guarda en el job repository compartido, de modo que añadir instancias reparte
+ * las particiones entre ellas.
+ *
+ * El job sólo se lanza en las instancias con spring.batch.job.enabled=true; el resto
+ * actúan únicamente como workers.
+ */
+@Configuration
+@EnableBatchIntegration
+@ConditionalOnProperty(name = "batch.claim.remote-partitioning.enabled", havingValue = "true")
+public class RemotePartitioningConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(RemotePartitioningConfig.class);
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${batch.claim.remote-partitioning.topic:claim.batch.partitions}")
+    private String topic;
+
+    @Value("${batch.claim.remote-partitioning.topic-partitions:16}")
+    private int topicPartitions;
+
+    @Value("${batch.claim.remote-partitioning.consumer-group:claim-batch-workers}")
+    private String consumerGroup;
+
+    @Value("${batch.claim.remote-partitioning.worker-concurrency:2}")
+    private int workerConcurrency;
+
+    @Value("${batch.claim.remote-partitioning.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${batch.claim.remote-partitioning.timeout-ms:14400000}")
+    private long timeoutMs;
+
+    @Value("${batch.claim.chunk-size:100}")
+    private int chunkSize;
+
+    @Value("${batch.claim.grid-size:4}")
+    private int gridSize;
+
+    @Bean
+    public NewTopic claimPartitionRequestsTopic() {
+        // Las particiones del topic limitan el número de workers que trabajan a la vez
+        return TopicBuilder.name(topic).partitions(topicPartitions).replicas(1).build();
+    }
+
+    // ---------------------------------------------------------------------
+    // Manager: publica las peticiones de partición
+    // ---------------------------------------------------------------------
+
+    @Bean
+    public DirectChannel partitionRequests() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    public KafkaTemplate<String, String> partitionRequestKafkaTemplate() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(configProps));
+    }
+
+    @Bean
+    public IntegrationFlow partitionRequestsOutboundFlow() {
+        return IntegrationFlow.from(partitionRequests())
+                .transform(StepExecutionRequest.class, RemotePartitioningConfig::encode)
+                .handle(Kafka.outboundChannelAdapter(partitionRequestKafkaTemplate())
+                        .topic(topic)
+                        // La clave reparte las peticiones entre las particiones del topic
+                        .messageKey(message -> String.valueOf(decode((String) message.getPayload()).getStepExecutionId()))
+                        .sync(true))
+                .get();
+    }
+
+    @Bean
+    public Step partitionStep(RemotePartitioningManagerStepBuilderFactory managerStepBuilderFactory,
+                              ClaimPartitioner claimPartitioner,
+                              PartitionLoadListener partitionLoadListener) {
+        log.info("Particionado remoto activado: topic={}, gridSize={}", topic, gridSize);
+        return managerStepBuilderFactory.get("partitionStep")
+                .outputChannel(partitionRequests())
+                .pollInterval(pollIntervalMs)
+                .timeout(timeoutMs)
+                .partitioner("claimProcessingStep", claimPartitioner)
+                .gridSize(gridSize)
+                .listener(partitionLoadListener)
+                .build();
+    }
+
+    // ---------------------------------------------------------------------
+    // Worker: consume y ejecuta las particiones
+    // ---------------------------------------------------------------------
+
+    @Bean
+    public DirectChannel workerRequests() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    public ConsumerFactory<String, String> partitionRequestConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, consumerGroup);
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Cada partición se ejecuta en el hilo del consumidor: una petición por poll y
+        // margen suficiente para que el broker no lo dé por caído mientras procesa
+        configProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1);
+        configProps.put(ConsumerConfig.MAX_POLL_INTERVAL_MS_CONFIG, (int) Math.min(timeoutMs, Integer.MAX_VALUE));
+        return new DefaultKafkaConsumerFactory<>(configProps);
+    }
+
+    @Bean
+    public IntegrationFlow partitionRequestsInboundFlow() {
+        return IntegrationFlow.from(Kafka.messageDrivenChannelAdapter(partitionRequestConsumerFactory(), topic)
+                        .configureListenerContainer(container -> container
+                                .concurrency(workerConcurrency)
+                                .ackMode(ContainerProperties.AckMode.RECORD)))
+                .transform(String.class, RemotePartitioningConfig::decode)
+                .channel(workerRequests())
+                .get();
+    }
+
+    @Bean
+    public Step claimProcessingStep(RemotePartitioningWorkerStepBuilderFactory workerStepBuilderFactory,
+                                    @Qualifier("batchTransactionManager") PlatformTransactionManager transactionManager,
+                                    ClaimReader claimReader,
+                                    ItemProcessor<Claim, Claim> claimProcessor,
+                                    ItemWriter<Claim> claimWriter,
+                                    ClaimChunkCache claimChunkCache,
+                                    PartitionLoadListener partitionLoadListener) {
+        return workerStepBuilderFactory.get("claimProcessingStep")
+                .inputChannel(workerRequests())
+                .<Claim, Claim>chunk(chunkSize, transactionManager)
+                .reader(claimReader) // Proxy con ámbito de step: rango resuelto desde el contexto de la partición
+                .processor(claimProcessor)
+                .writer(claimWriter)
+                .listener((ItemReadListener<Claim>) claimChunkCache)
+                .listener((ChunkListener) claimChunkCache)
+                .listener(partitionLoadListener)
+                .build();
+    }
+
+    /**
+     * Formato de la petición en el topic: jobExecutionId:stepExecutionId:stepName
+     */
+    static String encode(StepExecutionRequest request) {
+        return request.getJobExecutionId() + ":" + request.getStepExecutionId() + ":" + request.getStepName();
+    }
+
+    static StepExecutionRequest decode(String payload) {
+        String[] parts = payload.split(":", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Petición de partición no válida: " + payload);
+        }
+        return new StepExecutionRequest(parts[2], Long.valueOf(parts[0]), Long.valueOf(parts[1]));
+    }
+}
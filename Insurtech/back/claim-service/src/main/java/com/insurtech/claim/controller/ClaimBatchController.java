@@ -1,15 +1,26 @@
 package com.insurtech.claim.controller;
 
+import com.insurtech.claim.exception.BusinessValidationException;
 import com.insurtech.claim.model.dto.BatchProcessingRequestDto;
 import com.insurtech.claim.model.dto.ClaimDto;
 import com.insurtech.claim.model.entity.Claim;
 import com.insurtech.claim.service.ClaimBatchService;
+import com.insurtech.claim.service.assignment.ClaimAssignmentEngine;
+import com.insurtech.claim.service.duplicate.ClaimSimilarityIndex;
+import com.insurtech.claim.service.export.ClaimExportWriter;
+import com.insurtech.claim.service.exposure.ClaimExposureLedger;
+import com.insurtech.claim.service.lifecycle.ClaimLifecycleMetrics;
+import com.insurtech.claim.service.search.ClaimSearchIndex;
+import com.insurtech.claim.service.triage.ClaimTriageEngine;
+import com.insurtech.claim.service.triage.TriageRule;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -17,13 +28,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/claims/batch")
@@ -35,6 +51,18 @@ public class ClaimBatchController {
     private static final Logger log = LoggerFactory.getLogger(ClaimBatchController.class);
 
     private final ClaimBatchService batchService;
+    private final ClaimLifecycleMetrics lifecycleMetrics;
+    private final ClaimAssignmentEngine assignmentEngine;
+    private final ClaimTriageEngine triageEngine;
+    private final ClaimSimilarityIndex similarityIndex;
+    private final ClaimExposureLedger exposureLedger;
+
+    @Autowired(required = false)
+    private ClaimSearchIndex searchIndex;
+
+    @Autowired
+    @Qualifier("claimMaintenanceExecutor")
+    private Executor maintenanceExecutor;
 
     @PostMapping("/process")
     @PreAuthorize("hasRole('ADMIN')")
@@ -47,6 +75,81 @@ public class ClaimBatchController {
         return new ResponseEntity<>("Procesamiento de lote iniciado con ID: " + batchId, HttpStatus.ACCEPTED);
     }
 
+    @PostMapping("/search-index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reconstruir índice de búsqueda", description = "Reconstruye en segundo plano el índice local de búsqueda de reclamaciones")
+    public ResponseEntity<String> rebuildSearchIndex() {
+        if (searchIndex == null) {
+            return new ResponseEntity<>("El índice de búsqueda está desactivado", HttpStatus.NOT_FOUND);
+        }
+        log.info("Reconstruyendo índice de búsqueda de reclamaciones");
+
+        runMaintenance(searchIndex::rebuild);
+
+        return new ResponseEntity<>("Reconstrucción del índice de búsqueda iniciada", HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/lifecycle-stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reconstruir métricas de ciclo de vida", description = "Recalcula en segundo plano los agregados de duración de transiciones desde el historial de estados")
+    public ResponseEntity<String> rebuildLifecycleStats() {
+        if (!lifecycleMetrics.isAvailable()) {
+            return new ResponseEntity<>("Las métricas de ciclo de vida están desactivadas", HttpStatus.NOT_FOUND);
+        }
+        log.info("Reconstruyendo métricas de ciclo de vida de reclamaciones");
+
+        runMaintenance(lifecycleMetrics::rebuild);
+
+        return new ResponseEntity<>("Reconstrucción de métricas de ciclo de vida iniciada", HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/duplicate-index/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recargar índice de duplicados", description = "Vuelve a cargar en segundo plano el índice local de posibles reclamaciones duplicadas")
+    public ResponseEntity<String> rebuildDuplicateIndex() {
+        if (!similarityIndex.isEnabled()) {
+            return new ResponseEntity<>("La detección de duplicados está desactivada", HttpStatus.NOT_FOUND);
+        }
+        log.info("Recargando índice de reclamaciones duplicadas");
+
+        runMaintenance(similarityIndex::rebuild);
+
+        return new ResponseEntity<>("Recarga del índice de duplicados iniciada", HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/report/lifecycle")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Informe de ciclo de vida", description = "Duración de las transiciones de estado (media, mínimo, máximo y percentiles en segundos)")
+    public ResponseEntity<Map<String, ClaimLifecycleMetrics.TransitionStats>> getLifecycleReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        LocalDate end = endDate != null ? endDate : LocalDate.now();
+        LocalDate start = startDate != null ? startDate : end.minusYears(1);
+        return ResponseEntity.ok(lifecycleMetrics.getTransitionStats(start, end));
+    }
+
+    @GetMapping("/report/exposure")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Informe de exposición", description = "Importe reclamado, pagado y pendiente por tipo, estado y mes del incidente; con 'at', reconstruido a ese momento")
+    public ResponseEntity<ClaimExposureLedger.ExposureReport> getExposureReport(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(at != null ? exposureLedger.getExposureAt(at) : exposureLedger.getExposure());
+    }
+
+    @PostMapping("/exposure/reconcile")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Reconciliar exposición", description = "Recalcula en segundo plano los totales de exposición desde reclamaciones, ítems y pagos")
+    public ResponseEntity<String> reconcileExposure() {
+        if (!exposureLedger.isAvailable()) {
+            return new ResponseEntity<>("La agregación de exposición está desactivada", HttpStatus.NOT_FOUND);
+        }
+        log.info("Reconciliando totales de exposición de reclamaciones");
+
+        runMaintenance(exposureLedger::reconcile);
+
+        return new ResponseEntity<>("Reconciliación de exposición iniciada", HttpStatus.ACCEPTED);
+    }
+
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Cargar CSV de reclamaciones", description = "Carga y procesa un archivo CSV con datos de reclamaciones")
@@ -76,7 +179,7 @@ public class ClaimBatchController {
     @GetMapping("/exports")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Exportar reclamaciones", description = "Exporta reclamaciones a un formato específico (CSV, Excel, etc.)")
-    public CompletableFuture<ResponseEntity<byte[]>> exportClaims(
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> exportClaims(
             @RequestParam(required = false) List<String> claimNumbers,
             @RequestParam(required = false) List<Claim.ClaimStatus> statuses,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
@@ -85,21 +188,54 @@ public class ClaimBatchController {
 
         log.info("Exportando reclamaciones en formato {}", format);
 
+        // El fichero se descarta en cuanto se ha enviado
         return batchService.exportClaimsAsync(claimNumbers, statuses, startDate, endDate, format)
-                .thenApply(data -> {
-                    String contentType = "text/csv";
-                    String filename = "claims-export.csv";
+                .thenApply(file -> streamExportFile(file, true));
+    }
+
+    @PostMapping("/exports")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Iniciar exportación de reclamaciones", description = "Genera la exportación en segundo plano; el progreso se consulta en /status/{batchId}")
+    public ResponseEntity<String> startExport(
+            @RequestParam(required = false) List<String> claimNumbers,
+            @RequestParam(required = false) List<Claim.ClaimStatus> statuses,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false, defaultValue = "csv") String format) {
+
+        log.info("Iniciando exportación de reclamaciones en formato {}", format);
+
+        String batchId = batchService.startClaimsExport(claimNumbers, statuses, startDate, endDate, format);
+
+        return new ResponseEntity<>("Exportación iniciada con ID de lote: " + batchId, HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/exports/{batchId}/file")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Descargar exportación", description = "Descarga el fichero de una exportación terminada")
+    public ResponseEntity<StreamingResponseBody> downloadExport(@PathVariable String batchId) {
+        log.info("Descargando exportación del lote: {}", batchId);
+
+        return batchService.getExportFile(batchId)
+                .map(file -> streamExportFile(file, false))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
-                    if ("excel".equalsIgnoreCase(format)) {
-                        contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-                        filename = "claims-export.xlsx";
-                    }
+    private ResponseEntity<StreamingResponseBody> streamExportFile(ClaimExportWriter.ExportFile file, boolean discard) {
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file.path(), out);
+            } finally {
+                if (discard) {
+                    batchService.discardExport(file.batchId());
+                }
+            }
+        };
 
-                    return ResponseEntity.ok()
-                            .contentType(MediaType.parseMediaType(contentType))
-                            .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-                            .body(data);
-                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(file.format().contentType()))
+                .header("Content-Disposition", "attachment; filename=\"" + file.filename() + "\"")
+                .body(body);
     }
 
     @GetMapping("/status/{batchId}")
@@ -130,18 +266,50 @@ public class ClaimBatchController {
 
     @PostMapping("/mass-assign")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Asignación masiva", description = "Asigna múltiples reclamaciones a un tramitador")
+    @Operation(summary = "Asignación masiva", description = "Reparte múltiples reclamaciones entre los tramitadores indicados equilibrando su carga")
     public ResponseEntity<String> massAssignClaims(
             @RequestBody BatchProcessingRequestDto request,
-            @RequestParam String assignedTo) {
+            @RequestParam List<String> assignedTo) {
 
-        log.info("Asignando reclamaciones al tramitador: {}", assignedTo);
+        log.info("Asignando reclamaciones a los tramitadores: {}", assignedTo);
 
         String batchId = batchService.massAssignClaims(request, assignedTo);
 
         return new ResponseEntity<>("Asignación masiva iniciada con ID de lote: " + batchId, HttpStatus.ACCEPTED);
     }
 
+    @GetMapping("/assignment/load")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Carga de tramitadores", description = "Reclamaciones abiertas y peso asignado a cada tramitador")
+    public ResponseEntity<List<ClaimAssignmentEngine.HandlerLoad>> getHandlerLoads() {
+        return ResponseEntity.ok(assignmentEngine.getLoads());
+    }
+
+    @GetMapping("/triage/rules")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Reglas de triaje", description = "Reglas de triaje vigentes con sus coincidencias acumuladas")
+    public ResponseEntity<ClaimTriageEngine.RuleSetInfo> getTriageRules() {
+        return ResponseEntity.ok(triageEngine.getRuleSetInfo());
+    }
+
+    @PutMapping("/triage/rules")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Sustituir reglas de triaje", description = "Valida, compila y activa sin reinicio un nuevo conjunto de reglas en esta instancia")
+    public ResponseEntity<ClaimTriageEngine.RuleSetInfo> replaceTriageRules(@RequestBody TriageRule.RuleSet ruleSet) {
+        log.info("Sustituyendo reglas de triaje: {} reglas", ruleSet.rules() != null ? ruleSet.rules().size() : 0);
+
+        return ResponseEntity.ok(triageEngine.replaceRules(ruleSet));
+    }
+
+    @PostMapping("/triage/rules/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Recargar reglas de triaje", description = "Vuelve a cargar las reglas desde el fichero configurado")
+    public ResponseEntity<ClaimTriageEngine.RuleSetInfo> reloadTriageRules() throws IOException {
+        log.info("Recargando reglas de triaje");
+
+        return ResponseEntity.ok(triageEngine.reload());
+    }
+
     @GetMapping("/report/performance")
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(summary = "Informe de rendimiento", description = "Genera un informe de rendimiento de reclamaciones")
@@ -154,4 +322,15 @@ public class ClaimBatchController {
         return batchService.generatePerformanceReportAsync(startDate, endDate)
                 .thenApply(ResponseEntity::ok);
     }
-}
\ No newline at end of file
+
+    /**
+     * Lanza una tarea de mantenimiento en su executor; si ya hay demasiadas en curso se rechaza
+     */
+    private void runMaintenance(Runnable task) {
+        try {
+            maintenanceExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw new BusinessValidationException("Demasiadas tareas de mantenimiento en curso, inténtelo de nuevo más tarde");
+        }
+    }
+}
@@ -14,6 +14,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -69,37 +71,46 @@ public class ClaimController {
 
     @PostMapping("/search")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
-    @Operation(summary = "Búsqueda avanzada de reclamaciones", description = "Realiza una búsqueda avanzada de reclamaciones")
-    public ResponseEntity<List<ClaimDto>> advancedSearch(@RequestBody ClaimSearchRequestDto searchRequest) {
+    @Operation(summary = "Búsqueda avanzada de reclamaciones", description = "Realiza una búsqueda avanzada de reclamaciones paginada por cursor")
+    public ResponseEntity<ClaimSearchPageDto> advancedSearch(@RequestBody ClaimSearchRequestDto searchRequest) {
         log.info("Realizando búsqueda avanzada de reclamaciones");
-        List<ClaimDto> claims = claimService.advancedSearch(searchRequest);
+        ClaimSearchPageDto claims = claimService.advancedSearch(searchRequest);
         return ResponseEntity.ok(claims);
     }
 
     @GetMapping("/customer/{customerNumber}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or hasRole('USER')")
-    @Operation(summary = "Obtener reclamaciones por cliente", description = "Obtiene todas las reclamaciones de un cliente")
-    public ResponseEntity<List<ClaimDto>> getClaimsByCustomerNumber(@PathVariable String customerNumber) {
+    @Operation(summary = "Obtener reclamaciones por cliente", description = "Obtiene una página de reclamaciones de un cliente")
+    public ResponseEntity<Page<ClaimSummaryDto>> getClaimsByCustomerNumber(
+            @PathVariable String customerNumber,
+            @RequestParam(defaultValue = "false") boolean includeItemTotals,
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.DESC) Pageable pageable) {
         log.info("Obteniendo reclamaciones para cliente número: {}", customerNumber);
-        List<ClaimDto> claims = claimService.getClaimsByCustomerNumber(customerNumber);
+        Page<ClaimSummaryDto> claims = claimService.getClaimsByCustomerNumber(customerNumber, includeItemTotals, pageable);
         return ResponseEntity.ok(claims);
     }
 
     @GetMapping("/customer/email/{email}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or hasRole('USER')")
-    @Operation(summary = "Obtener reclamaciones por email del cliente", description = "Obtiene todas las reclamaciones de un cliente por su email")
-    public ResponseEntity<List<ClaimDto>> getClaimsByCustomerEmail(@PathVariable String email) {
+    @Operation(summary = "Obtener reclamaciones por email del cliente", description = "Obtiene una página de reclamaciones de un cliente por su email")
+    public ResponseEntity<Page<ClaimSummaryDto>> getClaimsByCustomerEmail(
+            @PathVariable String email,
+            @RequestParam(defaultValue = "false") boolean includeItemTotals,
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.DESC) Pageable pageable) {
         log.info("Obteniendo reclamaciones para cliente con email: {}", email);
-        List<ClaimDto> claims = claimService.getClaimsByCustomerEmail(email);
+        Page<ClaimSummaryDto> claims = claimService.getClaimsByCustomerEmail(email, includeItemTotals, pageable);
         return ResponseEntity.ok(claims);
     }
 
     @GetMapping("/policy/{policyNumber}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or hasRole('USER')")
-    @Operation(summary = "Obtener reclamaciones por póliza", description = "Obtiene todas las reclamaciones de una póliza")
-    public ResponseEntity<List<ClaimDto>> getClaimsByPolicyNumber(@PathVariable String policyNumber) {
+    @Operation(summary = "Obtener reclamaciones por póliza", description = "Obtiene una página de reclamaciones de una póliza")
+    public ResponseEntity<Page<ClaimSummaryDto>> getClaimsByPolicyNumber(
+            @PathVariable String policyNumber,
+            @RequestParam(defaultValue = "false") boolean includeItemTotals,
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.DESC) Pageable pageable) {
         log.info("Obteniendo reclamaciones para póliza número: {}", policyNumber);
-        List<ClaimDto> claims = claimService.getClaimsByPolicyNumber(policyNumber);
+        Page<ClaimSummaryDto> claims = claimService.getClaimsByPolicyNumber(policyNumber, includeItemTotals, pageable);
         return ResponseEntity.ok(claims);
     }
 
@@ -133,21 +144,26 @@ public class ClaimController {
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
-    @Operation(summary = "Obtener reclamaciones por estado", description = "Obtiene todas las reclamaciones en un estado específico")
-    public ResponseEntity<List<ClaimDto>> getClaimsByStatus(@PathVariable Claim.ClaimStatus status) {
+    @Operation(summary = "Obtener reclamaciones por estado", description = "Obtiene una página de reclamaciones en un estado específico")
+    public ResponseEntity<Page<ClaimSummaryDto>> getClaimsByStatus(
+            @PathVariable Claim.ClaimStatus status,
+            @RequestParam(defaultValue = "false") boolean includeItemTotals,
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.DESC) Pageable pageable) {
         log.info("Obteniendo reclamaciones con estado: {}", status);
-        List<ClaimDto> claims = claimService.getClaimsByStatus(status);
+        Page<ClaimSummaryDto> claims = claimService.getClaimsByStatus(status, includeItemTotals, pageable);
         return ResponseEntity.ok(claims);
     }
 
     @GetMapping("/incident-date")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
     @Operation(summary = "Obtener reclamaciones por fecha de incidente", description = "Obtiene reclamaciones que ocurrieron en un rango de fechas")
-    public ResponseEntity<List<ClaimDto>> getClaimsByIncidentDateRange(
+    public ResponseEntity<Page<ClaimSummaryDto>> getClaimsByIncidentDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "false") boolean includeItemTotals,
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.DESC) Pageable pageable) {
         log.info("Obteniendo reclamaciones con fecha de incidente entre {} y {}", startDate, endDate);
-        List<ClaimDto> claims = claimService.getClaimsByIncidentDateRange(startDate, endDate);
+        Page<ClaimSummaryDto> claims = claimService.getClaimsByIncidentDateRange(startDate, endDate, includeItemTotals, pageable);
         return ResponseEntity.ok(claims);
     }
 
@@ -213,12 +229,14 @@ public class ClaimController {
     @GetMapping("/summary")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
     @Operation(summary = "Resumen de reclamaciones", description = "Obtiene un resumen de reclamaciones con filtros opcionales")
-    public ResponseEntity<List<ClaimSummaryDto>> getClaimsSummary(
+    public ResponseEntity<Page<ClaimSummaryDto>> getClaimsSummary(
             @RequestParam(required = false) Claim.ClaimStatus status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean includeItemTotals,
+            @PageableDefault(size = 50, sort = "id", direction = Sort.Direction.DESC) Pageable pageable) {
         log.info("Obteniendo resumen de reclamaciones");
-        List<ClaimSummaryDto> summary = claimService.getClaimsSummary(status, from, to);
+        Page<ClaimSummaryDto> summary = claimService.getClaimsSummary(status, from, to, includeItemTotals, pageable);
         return ResponseEntity.ok(summary);
     }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -85,7 +86,7 @@ public class ClaimDocumentController {
     @GetMapping("/download/claim/{claimNumber}/title/{title}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or hasRole('USER')")
     @Operation(summary = "Descargar documento", description = "Descarga un documento por número de reclamación y título")
-    public ResponseEntity<byte[]> downloadDocumentByClaimNumberAndTitle(
+    public ResponseEntity<Resource> downloadDocumentByClaimNumberAndTitle(
             @PathVariable String claimNumber,
             @PathVariable String title) {
         log.info("Descargando documento con título: {} para reclamación número: {}", title, claimNumber);
@@ -95,12 +96,20 @@ public class ClaimDocumentController {
                     .orElseThrow(() -> new ResourceNotFoundException(
                             "Documento no encontrado con título: " + title + " para reclamación: " + claimNumber));
 
-            byte[] fileContent = documentService.downloadDocumentByClaimNumberAndTitle(claimNumber, title);
+            Resource fileContent = documentService.downloadDocumentByClaimNumberAndTitle(claimNumber, title);
 
-            return ResponseEntity.ok()
+            // Spring escribe el recurso en streaming y atiende las cabeceras Range (206 / 416)
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                     .contentType(MediaType.parseMediaType(document.getMimeType()))
-                    .header("Content-Disposition", "attachment; filename=\"" + document.getFileName() + "\"")
-                    .body(fileContent);
+                    .header("Content-Disposition", "attachment; filename=\"" + document.getFileName() + "\"");
+
+            // El hash del contenido es una ETag fuerte: permite respuestas 304 sin releer el fichero
+            String contentHash = documentService.getContentHash(document);
+            if (contentHash != null) {
+                response.eTag(contentHash);
+            }
+
+            return response.body(fileContent);
         } catch (Exception e) {
             log.error("Error al descargar documento", e);
             throw new RuntimeException("Error al descargar documento: " + e.getMessage());
@@ -0,0 +1,111 @@
+package com.insurtech.claim.event.consumer;
+
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.service.assignment.ClaimAssignmentEngine;
+import com.insurtech.claim.service.dashboard.ClaimDashboardAggregator;
+import com.insurtech.claim.service.duplicate.ClaimSimilarityIndex;
+import com.insurtech.claim.service.reporting.ClaimReportingEngine;
+import com.insurtech.claim.service.search.ClaimSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene al día las cachés e índices locales de esta instancia con los cambios de
+ * reclamaciones hechos en cualquier instancia
+ *
+ * Todas las instancias deben recibir todos los eventos, así que cada una consume con su
+ * propio grupo, derivado de {@code app.claims.instance-id}. El identificador debe ser
+ * estable entre reinicios (nombre del pod, del host...): así el grupo conserva sus
+ * offsets y al arrancar se procesan los eventos publicados mientras la instancia estaba
+ * parada, en lugar de crear un grupo nuevo en cada arranque. Aplicar un mismo evento
+ * dos veces no tiene efecto, porque cada destino vuelve a leer la reclamación o sólo
+ * invalida su caché.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true", matchIfMissing = false)
+public class ClaimLocalCacheEventConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimLocalCacheEventConsumer.class);
+
+    @Autowired
+    private ClaimDashboardAggregator dashboardAggregator;
+
+    @Autowired
+    private ClaimReportingEngine reportingEngine;
+
+    @Autowired
+    private ClaimAssignmentEngine assignmentEngine;
+
+    @Autowired
+    private ClaimSimilarityIndex similarityIndex;
+
+    // Sólo existe con app.claims.search.index.enabled=true
+    @Autowired(required = false)
+    private ClaimSearchIndex searchIndex;
+
+    @KafkaListener(topics = {"claim.created", "claim.updated", "claim.status.changed", "claim.item.added"},
+            groupId = "${spring.kafka.consumer.group-id}-local-${app.claims.instance-id}",
+            concurrency = "1",
+            containerFactory = "kafkaListenerContainerFactory")
+    public void consumeClaimEvent(Map<String, Object> event) {
+        log.debug("Actualizando cachés locales por evento {} de la reclamación {}",
+                event.get("eventType"), event.get("claimNumber"));
+
+        // Cachés de agregados: basta con descartarlas
+        dashboardAggregator.invalidate();
+        reportingEngine.invalidate();
+
+        Object claimId = event.get("claimId");
+        if (!(claimId instanceof Number number)) {
+            return;
+        }
+        Long id = number.longValue();
+
+        Claim.ClaimStatus newStatus = null;
+        Object status = event.get("newStatus");
+        if (status != null) {
+            try {
+                newStatus = Claim.ClaimStatus.valueOf(status.toString());
+            } catch (IllegalArgumentException e) {
+                log.warn("Estado desconocido {} en evento de la reclamación {}", status, claimId);
+            }
+        }
+
+        if (searchIndex != null) {
+            try {
+                searchIndex.reindex(List.of(id));
+            } catch (Exception e) {
+                // El refresco periódico por marca de agua la recoge más tarde
+                log.warn("No se pudo reindexar la reclamación {}: {}", claimId, e.getMessage());
+            }
+        }
+
+        try {
+            if (newStatus != null) {
+                // Cambio de estado: sólo afecta si deja de contar como reclamación existente
+                similarityIndex.onStatusChanged(id, newStatus);
+            } else {
+                similarityIndex.refresh(id);
+            }
+        } catch (Exception e) {
+            // La recarga completa nocturna corrige la entrada
+            log.warn("No se pudo actualizar la reclamación {} en el índice de duplicados: {}", claimId, e.getMessage());
+        }
+
+        if (newStatus != null) {
+            try {
+                assignmentEngine.onStatusChanged(id, newStatus);
+            } catch (Exception e) {
+                // La recarga periódica de cargas de trabajo lo corrige
+                log.warn("No se pudo actualizar la carga de trabajo por la reclamación {}: {}", claimId, e.getMessage());
+            }
+        }
+    }
+}
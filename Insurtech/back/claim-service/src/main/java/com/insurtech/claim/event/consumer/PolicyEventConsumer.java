@@ -1,15 +1,17 @@
 package com.insurtech.claim.event.consumer;
 
-import com.insurtech.claim.model.entity.Claim;
-import com.insurtech.claim.repository.ClaimRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.List;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Component
@@ -18,8 +20,39 @@ public class PolicyEventConsumer {
 
     private static final Logger log = LoggerFactory.getLogger(PolicyEventConsumer.class);
 
+    private static final String EVENT_USER = "policy-events";
+    private static final String NOTE_TITLE_PREFIX = "Póliza cancelada ";
+
+    // Sentencias específicas para Oracle: reclamaciones abiertas de la póliza aún sin nota de este evento
+    private static final String OPEN_CLAIMS_WITHOUT_MARKER =
+            "c.POLICY_NUMBER = ? AND c.STATUS NOT IN ('CLOSED', 'PAID', 'CANCELLED') " +
+            "AND NOT EXISTS (SELECT 1 FROM CLAIM_NOTES n WHERE n.CLAIM_ID = c.ID AND n.TITLE = ?)";
+
+    // HANDLER_COMMENTS admite 2000 caracteres: se conserva el final, que incluye la nota nueva
+    private static final String APPEND_COMMENT_SQL =
+            "UPDATE CLAIMS c SET " +
+            "HANDLER_COMMENTS = CASE WHEN c.HANDLER_COMMENTS IS NULL THEN ? " +
+            "  WHEN LENGTH(c.HANDLER_COMMENTS) + LENGTH(?) + 1 > 2000 " +
+            "  THEN SUBSTR(c.HANDLER_COMMENTS || CHR(10) || ?, -2000) " +
+            "  ELSE c.HANDLER_COMMENTS || CHR(10) || ? END, " +
+            "UPDATED_AT = ?, UPDATED_BY = ?, VERSION = NVL(c.VERSION, 0) + 1 " +
+            "WHERE " + OPEN_CLAIMS_WITHOUT_MARKER;
+
+    private static final String INSERT_NOTE_SQL =
+            "INSERT INTO CLAIM_NOTES (ID, CLAIM_ID, NOTE_TYPE, TITLE, CONTENT, IS_IMPORTANT, IS_INTERNAL, " +
+            "IS_SYSTEM_GENERATED, CREATED_AT, UPDATED_AT, CREATED_BY, UPDATED_BY) " +
+            "SELECT SEQ_CLAIM_NOTES.NEXTVAL, c.ID, 'SYSTEM', ?, ?, 1, 1, 1, ?, ?, '" + EVENT_USER + "', '" + EVENT_USER + "' " +
+            "FROM CLAIMS c WHERE " + OPEN_CLAIMS_WITHOUT_MARKER;
+
     @Autowired
-    private ClaimRepository claimRepository;
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 
     @KafkaListener(topics = "policy.cancelled", groupId = "${spring.kafka.consumer.group-id}",
             containerFactory = "kafkaListenerContainerFactory")
@@ -33,38 +66,30 @@ public class PolicyEventConsumer {
                 return;
             }
 
-            // Obtener reclamaciones abiertas asociadas a esta póliza
-            List<Claim> openClaims = claimRepository.findByPolicyNumber(policyNumber).stream()
-                    .filter(claim -> isOpenClaim(claim.getStatus()))
-                    .toList();
+            // La marca identifica el evento en las notas generadas: un reenvío no vuelve a aplicarse
+            Object eventId = event.get("eventId");
+            String marker = NOTE_TITLE_PREFIX + (eventId != null ? eventId : policyNumber);
+            String comment = "La póliza asociada a esta reclamación ha sido cancelada: " + policyNumber;
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
 
-            if (openClaims.isEmpty()) {
-                log.info("No hay reclamaciones abiertas para la póliza cancelada: {}", policyNumber);
-                return;
-            }
-
-            log.info("Actualizando {} reclamaciones abiertas de la póliza cancelada: {}",
-                    openClaims.size(), policyNumber);
-
-            // Actualizar cada reclamación
-            for (Claim claim : openClaims) {
-                // Añadir nota sobre cancelación de póliza
-                String comments = claim.getHandlerComments() != null ? claim.getHandlerComments() : "";
-                comments += "\nLa póliza asociada a esta reclamación ha sido cancelada: " + policyNumber;
-                claim.setHandlerComments(comments);
+            int updated = transactionTemplate.execute(status -> {
+                // Primero las reclamaciones (aún sin nota de este evento) y después sus notas
+                int claims = jdbcTemplate.update(APPEND_COMMENT_SQL,
+                        comment, comment, comment, comment, now, EVENT_USER, policyNumber, marker);
+                if (claims > 0) {
+                    jdbcTemplate.update(INSERT_NOTE_SQL, marker, comment, now, now, policyNumber, marker);
+                }
+                return claims;
+            });
 
-                claimRepository.save(claim);
-
-                log.info("Actualizada reclamación {} con nota sobre póliza cancelada", claim.getClaimNumber());
+            if (updated == 0) {
+                log.info("No hay reclamaciones abiertas pendientes de actualizar para la póliza cancelada: {}",
+                        policyNumber);
+            } else {
+                log.info("Actualizadas {} reclamaciones abiertas de la póliza cancelada: {}", updated, policyNumber);
             }
         } catch (Exception e) {
             log.error("Error procesando evento de póliza cancelada", e);
         }
     }
-
-    private boolean isOpenClaim(Claim.ClaimStatus status) {
-        return status != Claim.ClaimStatus.CLOSED &&
-                status != Claim.ClaimStatus.PAID &&
-                status != Claim.ClaimStatus.CANCELLED;
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,254 @@
+package com.insurtech.claim.event.journal;
+
+import com.insurtech.claim.model.entity.ClaimEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Diario de eventos de reclamación (tabla CLAIM_EVENTS) con escritura por lotes
+ *
+ * Los eventos se acumulan en una cola acotada y un único hilo los inserta con
+ * sentencias JDBC por lotes cuando se alcanzan {@code batchSize} eventos o cada
+ * {@code flushIntervalMs}, fuera de la transacción de quien los genera. {@link #append}
+ * nunca escribe en el hilo llamante, que suele ser el del productor de Kafka: si la
+ * cola está llena, la escritura del evento se encarga al mismo hilo del diario.
+ *
+ * {@link #append} devuelve un futuro que se completa cuando el evento está en base
+ * de datos; el modo síncrono de ClaimEventProducer pide la escritura inmediata al
+ * encolar y espera a ese futuro.
+ *
+ * Métricas: claim.events.journal.pending (eventos en cola), claim.events.journal.lag
+ * (tiempo desde que se encola hasta que se escribe), claim.events.journal.flush.size
+ * y claim.events.journal.failed.
+ */
+@Component
+public class ClaimEventJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimEventJournal.class);
+
+    // Sentencia específica para Oracle
+    private static final String INSERT_EVENT_SQL =
+            "INSERT INTO CLAIM_EVENTS (ID, CLAIM_ID, EVENT_TYPE, DETAILS, OLD_STATUS, NEW_STATUS, EVENT_ID, " +
+            "CREATED_AT, CREATED_BY) VALUES (SEQ_CLAIM_EVENTS.NEXTVAL, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final BlockingQueue<Entry> queue;
+    private final ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final Timer lagTimer;
+    private final DistributionSummary flushSize;
+    private final Counter failedCounter;
+
+    private static final class Entry {
+        private final ClaimEvent event;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        private int attempts;
+
+        private Entry(ClaimEvent event) {
+            this.event = event;
+        }
+    }
+
+    public ClaimEventJournal(JdbcTemplate jdbcTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.events.journal.batch-size:200}") int batchSize,
+                             @Value("${app.events.journal.flush-interval-ms:500}") long flushIntervalMs,
+                             @Value("${app.events.journal.capacity:10000}") int capacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.lagTimer = Timer.builder("claim.events.journal.lag")
+                .description("Tiempo entre la generación de un evento y su escritura en CLAIM_EVENTS")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("claim.events.journal.flush.size")
+                .description("Eventos escritos por lote")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("claim.events.journal.failed")
+                .description("Eventos descartados tras agotar los reintentos de escritura")
+                .register(meterRegistry);
+        Gauge.builder("claim.events.journal.pending", queue, BlockingQueue::size)
+                .description("Eventos pendientes de escribir")
+                .register(meterRegistry);
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claim-event-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encola un evento; el futuro se completa cuando está escrito en base de datos
+     */
+    public CompletableFuture<Void> append(ClaimEvent event) {
+        return append(event, false);
+    }
+
+    /**
+     * Encola un evento y, con {@code flushNow}, adelanta la escritura de lo pendiente
+     * una vez encolado (modo síncrono)
+     */
+    public CompletableFuture<Void> append(ClaimEvent event, boolean flushNow) {
+        if (event.getCreatedAt() == null) {
+            event.setCreatedAt(LocalDateTime.now());
+        }
+
+        Entry entry = new Entry(event);
+        if (!queue.offer(entry)) {
+            // Cola llena: se escribe en el hilo del diario, sin bloquear al llamante ni perder el evento
+            log.warn("Cola del diario de eventos llena, escribiendo evento {} aparte", event.getEventId());
+            try {
+                flusher.execute(() -> writeOverflow(entry));
+            } catch (RejectedExecutionException e) {
+                discard(entry, new IllegalStateException("Diario de eventos detenido", e));
+            }
+            return entry.written;
+        }
+
+        if (flushNow || queue.size() >= batchSize) {
+            requestFlush();
+        }
+        return entry.written;
+    }
+
+    /**
+     * Adelanta la escritura de los eventos pendientes; tras la parada no hace nada,
+     * porque el cierre ya escribe lo que quede en la cola
+     */
+    public void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+                log.debug("Diario de eventos detenido, se omite la escritura adelantada");
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Escribir lo que quede antes de parar
+        flushSafely();
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Error inesperado al vaciar el diario de eventos", e);
+        }
+    }
+
+    private void writeOverflow(Entry entry) {
+        try {
+            // Si la cola ya tiene hueco, el evento sigue el camino normal por lotes
+            if (queue.offer(entry)) {
+                return;
+            }
+            for (Entry failed : write(List.of(entry))) {
+                discard(failed, new IllegalStateException("No se pudo escribir el evento en el diario"));
+            }
+        } catch (Exception e) {
+            discard(entry, e);
+        }
+    }
+
+    private void flush() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            List<Entry> failed = write(batch);
+            batch = new ArrayList<>(batchSize);
+
+            // Los fallidos se reintentan en la siguiente pasada programada
+            for (Entry entry : failed) {
+                if (!queue.offer(entry)) {
+                    discard(entry, new IllegalStateException("Cola del diario de eventos llena"));
+                }
+            }
+            if (!failed.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Escribe un lote y devuelve las entradas que deben reintentarse
+     */
+    private List<Entry> write(List<Entry> batch) {
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (Entry entry : batch) {
+            ClaimEvent event = entry.event;
+            rows.add(new Object[]{
+                    event.getClaimId(),
+                    event.getEventType().name(),
+                    event.getDetails(),
+                    event.getOldStatus() != null ? event.getOldStatus().name() : null,
+                    event.getNewStatus() != null ? event.getNewStatus().name() : null,
+                    event.getEventId(),
+                    Timestamp.valueOf(event.getCreatedAt()),
+                    event.getCreatedBy()});
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, rows);
+        } catch (Exception e) {
+            log.error("Error al escribir {} eventos en el diario: {}", batch.size(), e.getMessage());
+            List<Entry> retry = new ArrayList<>();
+            for (Entry entry : batch) {
+                if (++entry.attempts < MAX_ATTEMPTS) {
+                    retry.add(entry);
+                } else {
+                    discard(entry, e);
+                }
+            }
+            return retry;
+        }
+
+        long now = System.nanoTime();
+        flushSize.record(batch.size());
+        for (Entry entry : batch) {
+            lagTimer.record(now - entry.enqueuedAt, TimeUnit.NANOSECONDS);
+            entry.written.complete(null);
+        }
+        log.debug("Escritos {} eventos en el diario", batch.size());
+        return List.of();
+    }
+
+    private void discard(Entry entry, Exception cause) {
+        failedCounter.increment();
+        log.error("Evento {} de la reclamación {} descartado del diario tras {} intentos",
+                entry.event.getEventId(), entry.event.getClaimId(), entry.attempts);
+        entry.written.completeExceptionally(cause);
+    }
+}
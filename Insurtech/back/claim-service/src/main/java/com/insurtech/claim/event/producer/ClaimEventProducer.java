@@ -1,20 +1,25 @@
 package com.insurtech.claim.event.producer;
 
+import com.insurtech.claim.event.journal.ClaimEventJournal;
 import com.insurtech.claim.model.entity.Claim;
 import com.insurtech.claim.model.entity.ClaimEvent;
 import com.insurtech.claim.model.entity.ClaimItem;
-import com.insurtech.claim.repository.ClaimEventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ClaimEventProducer {
@@ -26,7 +31,7 @@ public class ClaimEventProducer {
     private static final String CLAIM_STATUS_CHANGED_TOPIC = "claim.status.changed";
     private static final String CLAIM_ITEM_ADDED_TOPIC = "claim.item.added";
 
-    private final ClaimEventRepository claimEventRepository;
+    private final ClaimEventJournal eventJournal;
     private KafkaTemplate<String, Object> kafkaTemplate;
 
     @Value("${app.events.enabled:false}")
@@ -35,12 +40,20 @@ public class ClaimEventProducer {
     @Value("${kafka.enabled:false}")
     private boolean kafkaEnabled;
 
+    // Modo síncrono: quien publica espera a la confirmación de Kafka y a la escritura en el diario,
+    // y recibe el fallo si no se confirma
+    @Value("${app.events.journal.synchronous:false}")
+    private boolean synchronousJournal;
+
+    @Value("${app.events.journal.sync-timeout-ms:5000}")
+    private long syncTimeoutMs;
+
     @Autowired
     public ClaimEventProducer(
             @Autowired(required = false) KafkaTemplate<String, Object> kafkaTemplate,
-            ClaimEventRepository claimEventRepository) {
+            ClaimEventJournal eventJournal) {
         this.kafkaTemplate = kafkaTemplate;
-        this.claimEventRepository = claimEventRepository;
+        this.eventJournal = eventJournal;
     }
 
     public void publishClaimCreated(Claim claim) {
@@ -70,16 +83,20 @@ public class ClaimEventProducer {
         event.put("claimType", claim.getClaimType() != null ? claim.getClaimType().name() : null);
         event.put("timestamp", System.currentTimeMillis());
 
+        CompletableFuture<Void> journaled;
         try {
-            kafkaTemplate.send(CLAIM_CREATED_TOPIC, claim.getClaimNumber(), event);
-            log.debug("Evento de reclamación creada publicado exitosamente");
+            CompletableFuture<SendResult<String, Object>> sent =
+                    kafkaTemplate.send(CLAIM_CREATED_TOPIC, claim.getClaimNumber(), event);
+            log.debug("Evento de reclamación creada enviado a Kafka");
 
-            // Registrar el evento en la base de datos
-            persistEvent(claim, ClaimEvent.EventType.CLAIM_CREATED,
+            // Registrar el evento en el diario cuando Kafka confirme (o rechace) el envío
+            journaled = journalAfterSend(sent, claim, ClaimEvent.EventType.CLAIM_CREATED,
                     "Reclamación creada", null, claim.getStatus(), eventId);
         } catch (Exception e) {
-            log.error("Error al publicar evento de reclamación creada - continuando sin interrumpir el flujo", e);
+            log.error("Error al publicar evento de reclamación creada", e);
+            journaled = CompletableFuture.failedFuture(e);
         }
+        awaitIfSynchronous(journaled, eventId);
     }
 
     public void publishClaimUpdated(Claim claim) {
@@ -107,16 +124,20 @@ public class ClaimEventProducer {
         event.put("timestamp", System.currentTimeMillis());
         event.put("updatedBy", claim.getUpdatedBy());
 
+        CompletableFuture<Void> journaled;
         try {
-            kafkaTemplate.send(CLAIM_UPDATED_TOPIC, claim.getClaimNumber(), event);
-            log.debug("Evento de reclamación actualizada publicado exitosamente");
+            CompletableFuture<SendResult<String, Object>> sent =
+                    kafkaTemplate.send(CLAIM_UPDATED_TOPIC, claim.getClaimNumber(), event);
+            log.debug("Evento de reclamación actualizada enviado a Kafka");
 
-            // Registrar el evento en la base de datos
-            persistEvent(claim, ClaimEvent.EventType.CLAIM_UPDATED,
+            // Registrar el evento en el diario cuando Kafka confirme (o rechace) el envío
+            journaled = journalAfterSend(sent, claim, ClaimEvent.EventType.CLAIM_UPDATED,
                     "Reclamación actualizada", null, null, eventId);
         } catch (Exception e) {
-            log.error("Error al publicar evento de reclamación actualizada - continuando sin interrumpir el flujo", e);
+            log.error("Error al publicar evento de reclamación actualizada", e);
+            journaled = CompletableFuture.failedFuture(e);
         }
+        awaitIfSynchronous(journaled, eventId);
     }
 
     public void publishClaimStatusChanged(Claim claim, Claim.ClaimStatus oldStatus) {
@@ -145,16 +166,20 @@ public class ClaimEventProducer {
         event.put("timestamp", System.currentTimeMillis());
         event.put("updatedBy", claim.getUpdatedBy());
 
+        CompletableFuture<Void> journaled;
         try {
-            kafkaTemplate.send(CLAIM_STATUS_CHANGED_TOPIC, claim.getClaimNumber(), event);
-            log.debug("Evento de cambio de estado publicado exitosamente");
+            CompletableFuture<SendResult<String, Object>> sent =
+                    kafkaTemplate.send(CLAIM_STATUS_CHANGED_TOPIC, claim.getClaimNumber(), event);
+            log.debug("Evento de cambio de estado enviado a Kafka");
 
-            // Registrar el evento en la base de datos
-            persistEvent(claim, ClaimEvent.EventType.STATUS_CHANGED,
+            // Registrar el evento en el diario cuando Kafka confirme (o rechace) el envío
+            journaled = journalAfterSend(sent, claim, ClaimEvent.EventType.STATUS_CHANGED,
                     "Estado cambiado", oldStatus, claim.getStatus(), eventId);
         } catch (Exception e) {
-            log.error("Error al publicar evento de cambio de estado - continuando sin interrumpir el flujo", e);
+            log.error("Error al publicar evento de cambio de estado", e);
+            journaled = CompletableFuture.failedFuture(e);
         }
+        awaitIfSynchronous(journaled, eventId);
     }
 
     public void publishClaimItemAdded(Claim claim, ClaimItem item) {
@@ -182,16 +207,20 @@ public class ClaimEventProducer {
         event.put("timestamp", System.currentTimeMillis());
         event.put("createdBy", item.getCreatedBy());
 
+        CompletableFuture<Void> journaled;
         try {
-            kafkaTemplate.send(CLAIM_ITEM_ADDED_TOPIC, claim.getClaimNumber(), event);
-            log.debug("Evento de ítem añadido publicado exitosamente");
+            CompletableFuture<SendResult<String, Object>> sent =
+                    kafkaTemplate.send(CLAIM_ITEM_ADDED_TOPIC, claim.getClaimNumber(), event);
+            log.debug("Evento de ítem añadido enviado a Kafka");
 
-            // Registrar el evento en la base de datos
-            persistEvent(claim, ClaimEvent.EventType.ITEM_ADDED,
+            // Registrar el evento en el diario cuando Kafka confirme (o rechace) el envío
+            journaled = journalAfterSend(sent, claim, ClaimEvent.EventType.ITEM_ADDED,
                     "Ítem añadido: " + item.getDescription(), null, null, eventId);
         } catch (Exception e) {
-            log.error("Error al publicar evento de ítem añadido - continuando sin interrumpir el flujo", e);
+            log.error("Error al publicar evento de ítem añadido", e);
+            journaled = CompletableFuture.failedFuture(e);
         }
+        awaitIfSynchronous(journaled, eventId);
     }
 
     /**
@@ -205,19 +234,91 @@ public class ClaimEventProducer {
             Claim.ClaimStatus newStatus,
             String eventId) {
 
+        CompletableFuture<Void> journaled;
         try {
-            ClaimEvent claimEvent = new ClaimEvent();
-            claimEvent.setClaimId(claim.getId());
-            claimEvent.setEventType(eventType);
-            claimEvent.setDetails(details);
-            claimEvent.setOldStatus(oldStatus);
-            claimEvent.setNewStatus(newStatus);
-            claimEvent.setEventId(eventId);
-            claimEvent.setCreatedBy(claim.getUpdatedBy() != null ? claim.getUpdatedBy() : "system");
-
-            claimEventRepository.save(claimEvent);
+            journaled = eventJournal.append(
+                    toClaimEvent(claim, eventType, details, oldStatus, newStatus, eventId), synchronousJournal);
         } catch (Exception e) {
             log.error("Error al persistir evento en base de datos", e);
+            journaled = CompletableFuture.failedFuture(e);
+        }
+        awaitIfSynchronous(journaled, eventId);
+    }
+
+    /**
+     * Registra el evento en el diario según el resultado del envío a Kafka, de modo
+     * que el diario sólo indica como publicado lo que Kafka ha confirmado
+     *
+     * El futuro devuelto falla si Kafka rechaza el envío, aunque el rechazo quede
+     * anotado en el diario.
+     */
+    private CompletableFuture<Void> journalAfterSend(
+            CompletableFuture<SendResult<String, Object>> sent,
+            Claim claim,
+            ClaimEvent.EventType eventType,
+            String details,
+            Claim.ClaimStatus oldStatus,
+            Claim.ClaimStatus newStatus,
+            String eventId) {
+
+        // Se captura ahora: la reclamación puede seguir modificándose antes de la confirmación
+        ClaimEvent claimEvent = toClaimEvent(claim, eventType, details, oldStatus, newStatus, eventId);
+
+        CompletableFuture<Void> journaled = sent.handle((result, error) -> {
+            if (error != null) {
+                log.error("Kafka rechazó el evento {} de la reclamación {}: {}",
+                        eventId, claim.getClaimNumber(), error.getMessage());
+                String reason = String.valueOf(error.getMessage());
+                claimEvent.setDetails(details + " (error al publicar en Kafka: "
+                        + reason.substring(0, Math.min(reason.length(), 500)) + ")");
+            }
+            return claimEvent;
+        }).thenCompose(event -> eventJournal.append(event, synchronousJournal));
+
+        return journaled.thenCombine(sent, (written, result) -> null);
+    }
+
+    private ClaimEvent toClaimEvent(
+            Claim claim,
+            ClaimEvent.EventType eventType,
+            String details,
+            Claim.ClaimStatus oldStatus,
+            Claim.ClaimStatus newStatus,
+            String eventId) {
+
+        ClaimEvent claimEvent = new ClaimEvent();
+        claimEvent.setClaimId(claim.getId());
+        claimEvent.setEventType(eventType);
+        claimEvent.setDetails(details);
+        claimEvent.setOldStatus(oldStatus);
+        claimEvent.setNewStatus(newStatus);
+        claimEvent.setEventId(eventId);
+        claimEvent.setCreatedAt(LocalDateTime.now());
+        claimEvent.setCreatedBy(claim.getUpdatedBy() != null ? claim.getUpdatedBy() : "system");
+        return claimEvent;
+    }
+
+    /**
+     * En modo síncrono espera a que el evento esté confirmado por Kafka y escrito en el
+     * diario; si no lo está, el fallo llega a quien publica
+     *
+     * El diario ya adelanta la escritura al encolar el evento en este modo.
+     */
+    private void awaitIfSynchronous(CompletableFuture<Void> journaled, String eventId) {
+        if (!synchronousJournal) {
+            return;
+        }
+        try {
+            journaled.get(syncTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpida la espera de confirmación del evento " + eventId, e);
+        } catch (ExecutionException e) {
+            log.error("El evento {} no se confirmó en modo síncrono: {}", eventId, e.getCause().getMessage());
+            throw new IllegalStateException("El evento " + eventId + " no se confirmó: " + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            log.error("El evento {} no se confirmó en {} ms en modo síncrono", eventId, syncTimeoutMs);
+            throw new IllegalStateException("El evento " + eventId + " no se confirmó en " + syncTimeoutMs + " ms", e);
         }
     }
-}
\ No newline at end of file
+}
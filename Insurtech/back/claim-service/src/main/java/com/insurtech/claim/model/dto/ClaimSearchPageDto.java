@@ -0,0 +1,18 @@
+package com.insurtech.claim.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClaimSearchPageDto {
+
+    private List<ClaimSummaryDto> content;
+    private int size;
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -25,4 +25,6 @@ public class ClaimSearchRequestDto {
     private List<Claim.ClaimType> types;
     private Boolean highValue;
     private Integer daysOpen;
+    private Integer pageSize;
+    private String cursor;
 }
\ No newline at end of file
@@ -26,4 +26,9 @@ public class ClaimSummaryDto {
     private BigDecimal approvedAmount;
     private LocalDateTime submissionDate;
     private Long daysOpen;
+
+    // Sólo si se solicitan los totales de ítems
+    private Long itemCount;
+    private BigDecimal itemsClaimedAmount;
+    private BigDecimal itemsApprovedAmount;
 }
\ No newline at end of file
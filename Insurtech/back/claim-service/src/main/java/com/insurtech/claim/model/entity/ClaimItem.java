@@ -4,7 +4,6 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.EqualsAndHashCode;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -16,18 +15,15 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class ClaimItem {
 
     @Id
-    @EqualsAndHashCode.Include
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SEQ_CLAIM_ITEMS")
     @SequenceGenerator(name = "SEQ_CLAIM_ITEMS", sequenceName = "SEQ_CLAIM_ITEMS", allocationSize = 1)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "CLAIM_ID", nullable = false)
-    @EqualsAndHashCode.Exclude
     private Claim claim;
 
     @Column(name = "DESCRIPTION", nullable = false)
@@ -70,4 +66,25 @@ public class ClaimItem {
 
     @Version
     private Long version;
+
+    /**
+     * Igualdad por identificador una vez persistido. Los ítems nuevos, aún sin id, sólo
+     * son iguales a sí mismos: así no se colapsan en el {@code Set} de la reclamación.
+     * El hashCode no depende del id para no cambiar al persistir.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClaimItem other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return ClaimItem.class.hashCode();
+    }
 }
\ No newline at end of file
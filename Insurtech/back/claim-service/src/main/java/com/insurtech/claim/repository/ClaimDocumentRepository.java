@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +28,17 @@ public interface ClaimDocumentRepository extends JpaRepository<ClaimDocument, Lo
      */
     List<ClaimDocument> findByDocumentId(String documentId);
 
+    /**
+     * Cuenta los documentos que apuntan a un mismo fichero (referencias del contenido)
+     */
+    long countByFilePath(String filePath);
+
+    /**
+     * De las rutas indicadas, las que tienen algún documento (limpieza de huérfanos)
+     */
+    @Query("SELECT DISTINCT d.filePath FROM ClaimDocument d WHERE d.filePath IN :filePaths")
+    List<String> findReferencedFilePaths(@Param("filePaths") Collection<String> filePaths);
+
     /**
      * Encuentra documentos verificados
      */
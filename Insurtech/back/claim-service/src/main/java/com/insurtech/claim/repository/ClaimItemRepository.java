@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,6 +15,28 @@ public interface ClaimItemRepository extends JpaRepository<ClaimItem, Long> {
 
     List<ClaimItem> findByClaimId(Long claimId);
 
+    /**
+     * Ítems de varias reclamaciones en una sola consulta, con la reclamación ya cargada
+     */
+    @Query("SELECT i FROM ClaimItem i JOIN FETCH i.claim c WHERE c.id IN :claimIds")
+    List<ClaimItem> findByClaimIdIn(@Param("claimIds") Collection<Long> claimIds);
+
+    /**
+     * Número de ítems e importes por reclamación, una fila por reclamación
+     */
+    interface ItemTotals {
+        Long getClaimId();
+        long getItemCount();
+        BigDecimal getClaimedAmount();
+        BigDecimal getApprovedAmount();
+    }
+
+    @Query("SELECT i.claim.id AS claimId, COUNT(i) AS itemCount, " +
+            "COALESCE(SUM(i.claimedAmount), 0) AS claimedAmount, " +
+            "COALESCE(SUM(i.approvedAmount), 0) AS approvedAmount " +
+            "FROM ClaimItem i WHERE i.claim.id IN :claimIds GROUP BY i.claim.id")
+    List<ItemTotals> sumGroupedByClaimIdIn(@Param("claimIds") Collection<Long> claimIds);
+
     List<ClaimItem> findByClaimIdAndCovered(Long claimId, boolean covered);
 
     List<ClaimItem> findByCategory(String category);
@@ -8,8 +8,10 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +36,100 @@ public interface ClaimRepository extends JpaRepository<Claim, Long>, ClaimReposi
 
     List<Claim> findByIncidentDateBetween(LocalDate startDate, LocalDate endDate);
 
+    // Agregados para el dashboard: una fila por grupo, sin cargar entidades
+
+    interface StatusCount {
+        Claim.ClaimStatus getStatus();
+        long getTotal();
+    }
+
+    interface TypeCount {
+        Claim.ClaimType getClaimType();
+        long getTotal();
+    }
+
+    interface AmountTotals {
+        long getTotal();
+        BigDecimal getEstimatedAmount();
+        BigDecimal getApprovedAmount();
+    }
+
+    @Query("SELECT c.status AS status, COUNT(c) AS total FROM Claim c GROUP BY c.status")
+    List<StatusCount> countGroupedByStatus();
+
+    @Query("SELECT c.claimType AS claimType, COUNT(c) AS total FROM Claim c GROUP BY c.claimType")
+    List<TypeCount> countGroupedByClaimType();
+
+    @Query("SELECT COUNT(c) AS total, " +
+            "COALESCE(SUM(c.estimatedAmount), 0) AS estimatedAmount, " +
+            "COALESCE(SUM(c.approvedAmount), 0) AS approvedAmount " +
+            "FROM Claim c WHERE c.incidentDate BETWEEN :startDate AND :endDate")
+    AmountTotals sumAmountsByIncidentDateBetween(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    // Vistas de listado: sólo las columnas del resumen, sin cargar colecciones ni la descripción
+
+    interface ClaimListView {
+        Long getId();
+        String getClaimNumber();
+        String getPolicyNumber();
+        String getCustomerNumber();
+        LocalDate getIncidentDate();
+        Claim.ClaimStatus getStatus();
+        Claim.ClaimType getClaimType();
+        BigDecimal getEstimatedAmount();
+        BigDecimal getApprovedAmount();
+        LocalDateTime getSubmissionDate();
+    }
+
+    String LIST_VIEW_SELECT = "SELECT c.id AS id, c.claimNumber AS claimNumber, c.policyNumber AS policyNumber, " +
+            "c.customerNumber AS customerNumber, c.incidentDate AS incidentDate, c.status AS status, " +
+            "c.claimType AS claimType, c.estimatedAmount AS estimatedAmount, " +
+            "c.approvedAmount AS approvedAmount, c.submissionDate AS submissionDate FROM Claim c ";
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE c.customerNumber = :customerNumber",
+            countQuery = "SELECT COUNT(c) FROM Claim c WHERE c.customerNumber = :customerNumber")
+    Page<ClaimListView> findListViewByCustomerNumber(
+            @Param("customerNumber") String customerNumber,
+            Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE c.policyNumber = :policyNumber",
+            countQuery = "SELECT COUNT(c) FROM Claim c WHERE c.policyNumber = :policyNumber")
+    Page<ClaimListView> findListViewByPolicyNumber(
+            @Param("policyNumber") String policyNumber,
+            Pageable pageable);
+
+    @Query(value = LIST_VIEW_SELECT + "WHERE " +
+            "(:status IS NULL OR c.status = :status) AND " +
+            "(:incidentDateFrom IS NULL OR c.incidentDate >= :incidentDateFrom) AND " +
+            "(:incidentDateTo IS NULL OR c.incidentDate <= :incidentDateTo)",
+            countQuery = "SELECT COUNT(c) FROM Claim c WHERE " +
+                    "(:status IS NULL OR c.status = :status) AND " +
+                    "(:incidentDateFrom IS NULL OR c.incidentDate >= :incidentDateFrom) AND " +
+                    "(:incidentDateTo IS NULL OR c.incidentDate <= :incidentDateTo)")
+    Page<ClaimListView> findListViewByFilters(
+            @Param("status") Claim.ClaimStatus status,
+            @Param("incidentDateFrom") LocalDate incidentDateFrom,
+            @Param("incidentDateTo") LocalDate incidentDateTo,
+            Pageable pageable);
+
+    // Frecuencia de reclamaciones por cliente (reglas de triaje)
+
+    interface CustomerClaimCount {
+        String getCustomerNumber();
+        Long getClaimCount();
+    }
+
+    @Query("SELECT c.customerNumber AS customerNumber, COUNT(c) AS claimCount FROM Claim c " +
+            "WHERE c.customerNumber IN :customerNumbers AND c.submissionDate >= :since " +
+            "GROUP BY c.customerNumber")
+    List<CustomerClaimCount> countByCustomerNumbersSince(
+            @Param("customerNumbers") Collection<String> customerNumbers,
+            @Param("since") LocalDateTime since);
+
+    long countByCustomerNumberAndSubmissionDateGreaterThanEqual(String customerNumber, LocalDateTime since);
+
     // El método search ahora es implementado por ClaimRepositoryCustomImpl
     // Se eliminó la anotación @Query problemática
 
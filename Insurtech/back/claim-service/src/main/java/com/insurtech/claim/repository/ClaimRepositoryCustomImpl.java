@@ -1,6 +1,7 @@
 package com.insurtech.claim.repository;
 
 import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.service.search.ClaimSearchIndex;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.TypedQuery;
@@ -8,6 +9,9 @@ import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -15,23 +19,65 @@ import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class ClaimRepositoryCustomImpl implements ClaimRepositoryCustom {
 
+    private static final Logger log = LoggerFactory.getLogger(ClaimRepositoryCustomImpl.class);
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired(required = false)
+    private ClaimSearchIndex searchIndex;
+
     @Override
     public Page<Claim> search(String searchTerm, Pageable pageable) {
+        // Con el índice local listo: IDs por relevancia y lectura por clave primaria
+        if (searchTerm != null && !searchTerm.isBlank() && searchIndex != null && searchIndex.isReady()
+                && searchIndex.supportsSort(pageable.getSort())) {
+            try {
+                return searchWithIndex(searchTerm, pageable);
+            } catch (Exception e) {
+                log.warn("Error en el índice de búsqueda, se consulta la base de datos: {}", e.getMessage());
+            }
+        }
+        return searchInDatabase(searchTerm, pageable);
+    }
+
+    private Page<Claim> searchWithIndex(String searchTerm, Pageable pageable) throws Exception {
+        ClaimSearchIndex.SearchResult result = searchIndex.search(
+                searchTerm, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        if (result.claimIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.totalHits());
+        }
+
+        Map<Long, Claim> claimsById = entityManager
+                .createQuery("SELECT c FROM Claim c WHERE c.id IN :ids", Claim.class)
+                .setParameter("ids", result.claimIds())
+                .getResultList().stream()
+                .collect(Collectors.toMap(Claim::getId, Function.identity()));
+
+        // Mantener el orden del índice; las reclamaciones ya borradas se omiten
+        List<Claim> claims = result.claimIds().stream()
+                .map(claimsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(claims, pageable, result.totalHits());
+    }
+
+    private Page<Claim> searchInDatabase(String searchTerm, Pageable pageable) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Claim> query = cb.createQuery(Claim.class);
         Root<Claim> root = query.from(Claim.class);
 
-        String likePattern = "%" + searchTerm.toLowerCase() + "%";
-
         // Crear predicados para cada campo que desea buscar
         List<Predicate> predicates = new ArrayList<>();
         if (searchTerm != null && !searchTerm.isEmpty()) {
+            String likePattern = "%" + searchTerm.toLowerCase() + "%";
             predicates.add(cb.like(cb.lower(root.get("claimNumber")), likePattern));
             predicates.add(cb.like(cb.lower(root.get("policyNumber")), likePattern));
             predicates.add(cb.like(cb.lower(root.get("customerNumber")), likePattern));
@@ -39,7 +85,9 @@ public class ClaimRepositoryCustomImpl implements ClaimRepositoryCustom {
         }
 
         // Combinar predicados con OR
-        query.where(cb.or(predicates.toArray(new Predicate[0])));
+        if (!predicates.isEmpty()) {
+            query.where(cb.or(predicates.toArray(new Predicate[0])));
+        }
 
         // Aplicar ordenamiento
         if (pageable.getSort().isSorted()) {
@@ -72,4 +120,4 @@ public class ClaimRepositoryCustomImpl implements ClaimRepositoryCustom {
 
         return new PageImpl<>(typedQuery.getResultList(), pageable, total);
     }
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -21,15 +22,12 @@ public interface ClaimStatusHistoryRepository extends JpaRepository<ClaimStatusH
             @Param("claimId") Long claimId,
             @Param("status") com.insurtech.claim.model.entity.Claim.ClaimStatus status);
 
-    @Query("SELECT AVG(DATEDIFF(day, h1.createdAt, h2.createdAt)) FROM ClaimStatusHistory h1 " +
-            "JOIN ClaimStatusHistory h2 ON h1.claim.id = h2.claim.id " +
-            "WHERE h1.newStatus = :statusFrom AND h2.newStatus = :statusTo " +
-            "AND h1.createdAt < h2.createdAt " +
-            "AND NOT EXISTS (SELECT 1 FROM ClaimStatusHistory h3 " +
-            "                WHERE h3.claim.id = h1.claim.id " +
-            "                AND h3.createdAt > h1.createdAt " +
-            "                AND h3.createdAt < h2.createdAt)")
-    Double getAverageTransitionTime(
-            @Param("statusFrom") com.insurtech.claim.model.entity.Claim.ClaimStatus statusFrom,
-            @Param("statusTo") com.insurtech.claim.model.entity.Claim.ClaimStatus statusTo);
+    @Query("SELECT MAX(h.createdAt) FROM ClaimStatusHistory h WHERE h.claim.id = :claimId")
+    LocalDateTime findLastChangeAt(@Param("claimId") Long claimId);
+
+    /**
+     * Último cambio de estado de cada reclamación, como pares [ID, fecha]
+     */
+    @Query("SELECT h.claim.id, MAX(h.createdAt) FROM ClaimStatusHistory h WHERE h.claim.id IN :claimIds GROUP BY h.claim.id")
+    List<Object[]> findLastChangeAtByClaimIds(@Param("claimIds") Collection<Long> claimIds);
 }
\ No newline at end of file
@@ -2,11 +2,13 @@ package com.insurtech.claim.service;
 
 import com.insurtech.claim.model.dto.BatchProcessingRequestDto;
 import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.service.export.ClaimExportWriter;
 
 import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 public interface ClaimBatchService {
@@ -27,15 +29,35 @@ public interface ClaimBatchService {
     String batchStatusUpdate(BatchProcessingRequestDto request);
 
     /**
-     * Exporta reclamaciones a un formato específico (CSV, Excel, etc.)
+     * Exporta reclamaciones a un fichero temporal en un formato específico (CSV, Excel, etc.)
      */
-    CompletableFuture<byte[]> exportClaimsAsync(
+    CompletableFuture<ClaimExportWriter.ExportFile> exportClaimsAsync(
             List<String> claimNumbers,
             List<Claim.ClaimStatus> statuses,
             LocalDate startDate,
             LocalDate endDate,
             String format);
 
+    /**
+     * Inicia una exportación en segundo plano; el progreso se consulta con el ID de lote
+     */
+    String startClaimsExport(
+            List<String> claimNumbers,
+            List<Claim.ClaimStatus> statuses,
+            LocalDate startDate,
+            LocalDate endDate,
+            String format);
+
+    /**
+     * Fichero de una exportación terminada
+     */
+    Optional<ClaimExportWriter.ExportFile> getExportFile(String batchId);
+
+    /**
+     * Elimina el fichero de una exportación ya descargada
+     */
+    void discardExport(String batchId);
+
     /**
      * Consulta el estado de un proceso por lotes
      */
@@ -51,9 +73,9 @@ public interface ClaimBatchService {
             LocalDate endDate);
 
     /**
-     * Asigna múltiples reclamaciones a un tramitador
+     * Reparte múltiples reclamaciones entre uno o varios tramitadores según su carga
      */
-    String massAssignClaims(BatchProcessingRequestDto request, String assignedTo);
+    String massAssignClaims(BatchProcessingRequestDto request, List<String> handlers);
 
     /**
      * Genera un informe de rendimiento de reclamaciones
@@ -2,6 +2,7 @@ package com.insurtech.claim.service;
 
 import com.insurtech.claim.model.dto.ClaimDocumentDto;
 import com.insurtech.claim.model.entity.ClaimDocument;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -51,14 +52,20 @@ public interface ClaimDocumentService {
     List<ClaimDocumentDto> getDocumentsByClaimNumber(String claimNumber);
 
     /**
-     * Descarga un documento por ID (método interno)
+     * Descarga un documento por ID (método interno). El recurso se lee en streaming
+     * y admite peticiones por rangos.
      */
-    byte[] downloadDocument(Long documentId) throws IOException;
+    Resource downloadDocument(Long documentId) throws IOException;
 
     /**
      * Descarga un documento por número de reclamación y título
      */
-    byte[] downloadDocumentByClaimNumberAndTitle(String claimNumber, String title) throws IOException;
+    Resource downloadDocumentByClaimNumberAndTitle(String claimNumber, String title) throws IOException;
+
+    /**
+     * Hash SHA-256 del contenido del documento, o null si es un documento antiguo
+     */
+    String getContentHash(ClaimDocumentDto document);
 
     /**
      * Actualiza la información de un documento por ID (método interno)
@@ -2,6 +2,7 @@ package com.insurtech.claim.service;
 
 import com.insurtech.claim.model.dto.ClaimDto;
 import com.insurtech.claim.model.dto.ClaimItemDto;
+import com.insurtech.claim.model.dto.ClaimSearchPageDto;
 import com.insurtech.claim.model.dto.ClaimSearchRequestDto;
 import com.insurtech.claim.model.dto.ClaimSummaryDto;
 import com.insurtech.claim.model.entity.Claim;
@@ -38,9 +39,9 @@ public interface ClaimService {
     Page<ClaimDto> searchClaims(String searchTerm, Pageable pageable);
 
     /**
-     * Realiza una búsqueda avanzada de reclamaciones
+     * Realiza una búsqueda avanzada de reclamaciones paginada por cursor
      */
-    List<ClaimDto> advancedSearch(ClaimSearchRequestDto searchRequest);
+    ClaimSearchPageDto advancedSearch(ClaimSearchRequestDto searchRequest);
 
     /**
      * Obtiene todas las reclamaciones de un cliente
@@ -48,14 +49,14 @@ public interface ClaimService {
     List<ClaimDto> getClaimsByCustomerId(Long customerId);
 
     /**
-     * Obtiene todas las reclamaciones de un cliente por número de cliente
+     * Obtiene una página de reclamaciones de un cliente por número de cliente
      */
-    List<ClaimDto> getClaimsByCustomerNumber(String customerNumber);
+    Page<ClaimSummaryDto> getClaimsByCustomerNumber(String customerNumber, boolean includeItemTotals, Pageable pageable);
 
     /**
-     * Obtiene todas las reclamaciones de un cliente por email
+     * Obtiene una página de reclamaciones de un cliente por email
      */
-    List<ClaimDto> getClaimsByCustomerEmail(String email);
+    Page<ClaimSummaryDto> getClaimsByCustomerEmail(String email, boolean includeItemTotals, Pageable pageable);
 
     /**
      * Obtiene todas las reclamaciones de una póliza
@@ -63,9 +64,9 @@ public interface ClaimService {
     List<ClaimDto> getClaimsByPolicyId(Long policyId);
 
     /**
-     * Obtiene todas las reclamaciones de una póliza por número de póliza
+     * Obtiene una página de reclamaciones de una póliza por número de póliza
      */
-    List<ClaimDto> getClaimsByPolicyNumber(String policyNumber);
+    Page<ClaimSummaryDto> getClaimsByPolicyNumber(String policyNumber, boolean includeItemTotals, Pageable pageable);
 
     /**
      * Actualiza una reclamación existente por ID (método interno)
@@ -88,14 +89,15 @@ public interface ClaimService {
     ClaimDto updateClaimStatusByNumber(String claimNumber, Claim.ClaimStatus status, String comments, BigDecimal approvedAmount, String denialReason);
 
     /**
-     * Obtiene todas las reclamaciones en un estado específico
+     * Obtiene una página de reclamaciones en un estado específico
      */
-    List<ClaimDto> getClaimsByStatus(Claim.ClaimStatus status);
+    Page<ClaimSummaryDto> getClaimsByStatus(Claim.ClaimStatus status, boolean includeItemTotals, Pageable pageable);
 
     /**
-     * Obtiene reclamaciones que ocurrieron en un rango de fechas
+     * Obtiene una página de reclamaciones que ocurrieron en un rango de fechas
      */
-    List<ClaimDto> getClaimsByIncidentDateRange(LocalDate startDate, LocalDate endDate);
+    Page<ClaimSummaryDto> getClaimsByIncidentDateRange(LocalDate startDate, LocalDate endDate,
+                                                       boolean includeItemTotals, Pageable pageable);
 
     /**
      * Obtiene estadísticas de reclamaciones para dashboard
@@ -133,9 +135,10 @@ public interface ClaimService {
     ClaimItemDto updateClaimItem(String claimNumber, Long itemId, ClaimItemDto itemDto);
 
     /**
-     * Obtiene un resumen de reclamaciones con filtros opcionales
+     * Obtiene una página del resumen de reclamaciones con filtros opcionales
      */
-    List<ClaimSummaryDto> getClaimsSummary(Claim.ClaimStatus status, LocalDate from, LocalDate to);
+    Page<ClaimSummaryDto> getClaimsSummary(Claim.ClaimStatus status, LocalDate from, LocalDate to,
+                                           boolean includeItemTotals, Pageable pageable);
 
     /**
      * Genera un número de reclamación
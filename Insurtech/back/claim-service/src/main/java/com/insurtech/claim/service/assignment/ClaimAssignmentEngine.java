@@ -0,0 +1,448 @@
+package com.insurtech.claim.service.assignment;
+
+import com.insurtech.claim.model.dto.BatchProcessingRequestDto;
+import com.insurtech.claim.model.entity.Claim;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Reparto equilibrado de reclamaciones entre tramitadores
+ *
+ * Mantiene en memoria la carga de reclamaciones abiertas de cada tramitador
+ * (número y peso, según tipo e importe estimado), cargada de CLAIM_ASSIGNMENTS al
+ * arrancar, recargada periódicamente y actualizada con cada asignación y con los
+ * cierres y reaperturas que llegan por eventos.
+ *
+ * Un lote se reparte con un montículo de mínimos por carga: las reclamaciones se
+ * ordenan de mayor a menor peso y cada una va al tramitador elegible menos cargado,
+ * O(n log h) tras la ordenación. Todas las asignaciones se guardan en una única
+ * transacción con sentencias JDBC por lotes (asignación, comentario del tramitador
+ * y nota de sistema). Los repartos se serializan de principio a fin (plan, guardado y
+ * actualización del índice): dos lotes simultáneos no pueden partir de la misma carga.
+ *
+ * La tabla se crea con db/oracle/claim-assignments.sql; sin ella las asignaciones
+ * se reparten igual pero sólo quedan en comentarios y notas. Mientras no se sepa que
+ * existe, cada reparto vuelve a comprobarlo antes de guardar.
+ */
+@Component
+public class ClaimAssignmentEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimAssignmentEngine.class);
+
+    private static final int IN_CHUNK_SIZE = 1000;
+
+    public static final Set<Claim.ClaimStatus> CLOSED_STATUSES = EnumSet.of(
+            Claim.ClaimStatus.PAID, Claim.ClaimStatus.CLOSED, Claim.ClaimStatus.DENIED,
+            Claim.ClaimStatus.WITHDRAWN, Claim.ClaimStatus.CANCELLED);
+
+    private static final Map<Claim.ClaimType, Double> TYPE_WEIGHTS = new EnumMap<>(Map.ofEntries(
+            Map.entry(Claim.ClaimType.LIFE, 3.0),
+            Map.entry(Claim.ClaimType.PERSONAL_INJURY, 2.5),
+            Map.entry(Claim.ClaimType.LIABILITY, 2.5),
+            Map.entry(Claim.ClaimType.BUSINESS_INTERRUPTION, 2.5),
+            Map.entry(Claim.ClaimType.MEDICAL, 2.0),
+            Map.entry(Claim.ClaimType.PROPERTY_DAMAGE, 1.5),
+            Map.entry(Claim.ClaimType.HOME_DAMAGE, 1.5),
+            Map.entry(Claim.ClaimType.AUTO_ACCIDENT, 1.2),
+            Map.entry(Claim.ClaimType.HOME_THEFT, 1.2),
+            Map.entry(Claim.ClaimType.AUTO_THEFT, 1.0),
+            Map.entry(Claim.ClaimType.TRAVEL, 0.8),
+            Map.entry(Claim.ClaimType.OTHER, 1.0)));
+
+    private static final String CANDIDATE_COLUMNS = "SELECT ID, CLAIM_TYPE, ESTIMATED_AMOUNT, STATUS FROM CLAIMS ";
+
+    private static final String TABLE_PROBE_SQL = "SELECT COUNT(*) FROM CLAIM_ASSIGNMENTS WHERE 1 = 0";
+
+    private static final String ASSIGNMENT_BY_CLAIM_SQL =
+            "SELECT HANDLER, WEIGHT FROM CLAIM_ASSIGNMENTS WHERE CLAIM_ID = ?";
+
+    private static final String OPEN_ASSIGNMENTS_SQL =
+            "SELECT a.CLAIM_ID, a.HANDLER, a.WEIGHT FROM CLAIM_ASSIGNMENTS a JOIN CLAIMS c ON c.ID = a.CLAIM_ID " +
+            "WHERE c.STATUS NOT IN (:closedStatuses)";
+
+    // Sentencias específicas para Oracle
+    private static final String MERGE_ASSIGNMENT_SQL =
+            "MERGE INTO CLAIM_ASSIGNMENTS a " +
+            "USING (SELECT ? CLAIM_ID, ? HANDLER, ? WEIGHT, ? ASSIGNED_AT, ? ASSIGNED_BY FROM DUAL) s " +
+            "ON (a.CLAIM_ID = s.CLAIM_ID) " +
+            "WHEN MATCHED THEN UPDATE SET a.HANDLER = s.HANDLER, a.WEIGHT = s.WEIGHT, " +
+            "  a.ASSIGNED_AT = s.ASSIGNED_AT, a.ASSIGNED_BY = s.ASSIGNED_BY " +
+            "WHEN NOT MATCHED THEN INSERT (CLAIM_ID, HANDLER, WEIGHT, ASSIGNED_AT, ASSIGNED_BY) " +
+            "  VALUES (s.CLAIM_ID, s.HANDLER, s.WEIGHT, s.ASSIGNED_AT, s.ASSIGNED_BY)";
+
+    private static final String APPEND_COMMENT_SQL =
+            "UPDATE CLAIMS c SET " +
+            "HANDLER_COMMENTS = CASE WHEN c.HANDLER_COMMENTS IS NULL THEN ? " +
+            "  WHEN LENGTH(c.HANDLER_COMMENTS) + LENGTH(?) + 1 > 2000 " +
+            "  THEN SUBSTR(c.HANDLER_COMMENTS || CHR(10) || ?, -2000) " +
+            "  ELSE c.HANDLER_COMMENTS || CHR(10) || ? END, " +
+            "UPDATED_AT = ?, UPDATED_BY = ?, VERSION = NVL(c.VERSION, 0) + 1 " +
+            "WHERE c.ID = ?";
+
+    private static final String INSERT_NOTE_SQL =
+            "INSERT INTO CLAIM_NOTES (ID, CLAIM_ID, NOTE_TYPE, TITLE, CONTENT, IS_IMPORTANT, IS_INTERNAL, " +
+            "IS_SYSTEM_GENERATED, CREATED_AT, UPDATED_AT, CREATED_BY, UPDATED_BY) " +
+            "VALUES (SEQ_CLAIM_NOTES.NEXTVAL, ?, 'SYSTEM', ?, ?, 0, 1, 1, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean tableAvailable;
+
+    // Serializa los repartos completos; el índice tiene su propio monitor
+    private final Object assignLock = new Object();
+
+    // Índice de carga: protegido por el monitor de esta instancia
+    private final Map<Long, Assignment> assignments = new HashMap<>();
+    private final Map<String, Load> loads = new HashMap<>();
+
+    /**
+     * Reclamación candidata a asignar
+     */
+    public record Candidate(Long claimId, Claim.ClaimType claimType, BigDecimal estimatedAmount) {
+
+        public double weight() {
+            return weightOf(claimType, estimatedAmount);
+        }
+    }
+
+    /**
+     * Carga de reclamaciones abiertas de un tramitador
+     */
+    public record HandlerLoad(String handler, int openClaims, double weight) {
+    }
+
+    /**
+     * Resultado de un reparto: reclamaciones y peso asignados a cada tramitador
+     */
+    public record AssignmentResult(int assignedClaims, Map<String, Integer> claimsPerHandler,
+                                   Map<String, Double> weightPerHandler) {
+    }
+
+    private record Assignment(String handler, double weight) {
+    }
+
+    private static final class Load {
+        private final String handler;
+        private int count;
+        private double weight;
+
+        private Load(String handler, int count, double weight) {
+            this.handler = handler;
+            this.count = count;
+            this.weight = weight;
+        }
+    }
+
+    public ClaimAssignmentEngine(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Peso de una reclamación: complejidad de su tipo escalada por el importe estimado
+     */
+    public static double weightOf(Claim.ClaimType claimType, BigDecimal estimatedAmount) {
+        double typeWeight = claimType != null ? TYPE_WEIGHTS.getOrDefault(claimType, 1.0) : 1.0;
+        double amount = estimatedAmount != null ? Math.max(0, estimatedAmount.doubleValue()) : 0;
+        return typeWeight * (1 + Math.log10(1 + amount / 10_000));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Recarga el índice de carga desde base de datos (recoge asignaciones de otras instancias)
+     */
+    @Scheduled(initialDelayString = "${app.claims.assignment.reload-interval-ms:300000}",
+            fixedDelayString = "${app.claims.assignment.reload-interval-ms:300000}")
+    public void reload() {
+        Map<Long, Assignment> loaded = new HashMap<>();
+        try {
+            namedJdbcTemplate.query(OPEN_ASSIGNMENTS_SQL,
+                    new MapSqlParameterSource("closedStatuses", statusNames(CLOSED_STATUSES)),
+                    (RowCallbackHandler) rs -> loaded.put(rs.getLong("CLAIM_ID"),
+                            new Assignment(rs.getString("HANDLER"), rs.getDouble("WEIGHT"))));
+            tableAvailable = true;
+        } catch (BadSqlGrammarException e) {
+            tableAvailable = false;
+            log.warn("Tabla CLAIM_ASSIGNMENTS no disponible, la carga de tramitadores no se persiste: {}",
+                    e.getMessage());
+            return;
+        } catch (DataAccessException e) {
+            // Error transitorio: se conserva el índice y lo que se sabía de la tabla
+            log.error("Error al recargar la carga de tramitadores: {}", e.getMessage());
+            return;
+        }
+
+        synchronized (this) {
+            assignments.clear();
+            loads.clear();
+            loaded.forEach(this::addToIndex);
+        }
+        log.debug("Carga de tramitadores recargada: {} reclamaciones abiertas asignadas", loaded.size());
+    }
+
+    /**
+     * Reclamaciones abiertas que cumplen alguno de los criterios del lote
+     */
+    public List<Candidate> findCandidates(BatchProcessingRequestDto request) {
+        Map<Long, Candidate> candidates = new LinkedHashMap<>();
+        RowCallbackHandler collector = rs -> {
+            Claim.ClaimStatus status = Claim.ClaimStatus.valueOf(rs.getString("STATUS"));
+            if (!CLOSED_STATUSES.contains(status)) {
+                candidates.putIfAbsent(rs.getLong("ID"), new Candidate(rs.getLong("ID"),
+                        Claim.ClaimType.valueOf(rs.getString("CLAIM_TYPE")), rs.getBigDecimal("ESTIMATED_AMOUNT")));
+            }
+        };
+
+        // Búsquedas por lista troceadas para no superar el límite de 1000 elementos de IN en Oracle
+        if (request.getClaimIds() != null && !request.getClaimIds().isEmpty()) {
+            for (List<Long> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(request.getClaimIds())))) {
+                namedJdbcTemplate.query(CANDIDATE_COLUMNS + "WHERE ID IN (:ids)",
+                        new MapSqlParameterSource("ids", chunk), collector);
+            }
+        }
+        if (request.getClaimNumbers() != null && !request.getClaimNumbers().isEmpty()) {
+            for (List<String> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(request.getClaimNumbers())))) {
+                namedJdbcTemplate.query(CANDIDATE_COLUMNS + "WHERE CLAIM_NUMBER IN (:numbers)",
+                        new MapSqlParameterSource("numbers", chunk), collector);
+            }
+        }
+        if (request.getStatuses() != null && !request.getStatuses().isEmpty()) {
+            namedJdbcTemplate.query(CANDIDATE_COLUMNS + "WHERE STATUS IN (:statuses)",
+                    new MapSqlParameterSource("statuses", statusNames(request.getStatuses())), collector);
+        }
+        if (request.getIncidentDateFrom() != null && request.getIncidentDateTo() != null) {
+            namedJdbcTemplate.query(CANDIDATE_COLUMNS + "WHERE INCIDENT_DATE BETWEEN :from AND :to",
+                    new MapSqlParameterSource()
+                            .addValue("from", java.sql.Date.valueOf(request.getIncidentDateFrom()))
+                            .addValue("to", java.sql.Date.valueOf(request.getIncidentDateTo())),
+                    collector);
+        }
+
+        return new ArrayList<>(candidates.values());
+    }
+
+    /**
+     * Reparte las reclamaciones entre los tramitadores y guarda las asignaciones
+     */
+    public AssignmentResult assign(List<Candidate> candidates, Collection<String> handlers, String username) {
+        List<String> eligible = handlers.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(handler -> !handler.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        if (eligible.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un tramitador");
+        }
+        if (candidates.isEmpty()) {
+            return new AssignmentResult(0, Map.of(), Map.of());
+        }
+
+        Map<String, Integer> claimsPerHandler = new TreeMap<>();
+        Map<String, Double> weightPerHandler = new TreeMap<>();
+        synchronized (assignLock) {
+            Map<Long, String> plan = plan(candidates, eligible);
+            persist(candidates, plan, username);
+
+            synchronized (this) {
+                for (Candidate candidate : candidates) {
+                    String handler = plan.get(candidate.claimId());
+                    removeFromIndex(candidate.claimId());
+                    addToIndex(candidate.claimId(), new Assignment(handler, candidate.weight()));
+                    claimsPerHandler.merge(handler, 1, Integer::sum);
+                    weightPerHandler.merge(handler, candidate.weight(), Double::sum);
+                }
+            }
+        }
+
+        log.info("Asignadas {} reclamaciones entre {} tramitadores", candidates.size(), eligible.size());
+        return new AssignmentResult(candidates.size(), claimsPerHandler, weightPerHandler);
+    }
+
+    /**
+     * Reparto de mayor a menor peso sobre un montículo de mínimos por carga actual
+     */
+    private Map<Long, String> plan(List<Candidate> candidates, List<String> handlers) {
+        PriorityQueue<Load> heap = new PriorityQueue<>(handlers.size(),
+                Comparator.<Load>comparingDouble(load -> load.weight)
+                        .thenComparingInt(load -> load.count)
+                        .thenComparing(load -> load.handler));
+
+        synchronized (this) {
+            Map<String, Load> snapshot = new HashMap<>();
+            for (String handler : handlers) {
+                Load current = loads.get(handler);
+                snapshot.put(handler, current != null
+                        ? new Load(handler, current.count, current.weight)
+                        : new Load(handler, 0, 0));
+            }
+            // Las reclamaciones que se reasignan dejan de contar en su tramitador actual
+            for (Candidate candidate : candidates) {
+                Assignment previous = assignments.get(candidate.claimId());
+                Load load = previous != null ? snapshot.get(previous.handler()) : null;
+                if (load != null) {
+                    load.count--;
+                    load.weight -= previous.weight();
+                }
+            }
+            heap.addAll(snapshot.values());
+        }
+
+        List<Candidate> ordered = new ArrayList<>(candidates);
+        ordered.sort(Comparator.comparingDouble(Candidate::weight).reversed());
+
+        Map<Long, String> plan = new HashMap<>(ordered.size() * 2);
+        for (Candidate candidate : ordered) {
+            Load lightest = heap.poll();
+            plan.put(candidate.claimId(), lightest.handler);
+            lightest.count++;
+            lightest.weight += candidate.weight();
+            heap.add(lightest);
+        }
+        return plan;
+    }
+
+    private void persist(List<Candidate> candidates, Map<Long, String> plan, String username) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        String when = now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+
+        List<Object[]> assignmentRows = new ArrayList<>(candidates.size());
+        List<Object[]> commentRows = new ArrayList<>(candidates.size());
+        List<Object[]> noteRows = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            String handler = plan.get(candidate.claimId());
+            String note = "Reclamación asignada a " + handler + " el " + when;
+            assignmentRows.add(new Object[]{candidate.claimId(), handler, candidate.weight(), timestamp, username});
+            commentRows.add(new Object[]{note, note, note, note, timestamp, username, candidate.claimId()});
+            noteRows.add(new Object[]{candidate.claimId(), "Asignación a " + handler, note,
+                    timestamp, timestamp, username, username});
+        }
+
+        boolean persistAssignments = tableAvailable || probeTable();
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (persistAssignments) {
+                jdbcTemplate.batchUpdate(MERGE_ASSIGNMENT_SQL, assignmentRows);
+            }
+            jdbcTemplate.batchUpdate(APPEND_COMMENT_SQL, commentRows);
+            jdbcTemplate.batchUpdate(INSERT_NOTE_SQL, noteRows);
+        });
+    }
+
+    /**
+     * Comprueba si existe CLAIM_ASSIGNMENTS; la tabla puede crearse con la aplicación en marcha
+     */
+    private boolean probeTable() {
+        try {
+            jdbcTemplate.queryForObject(TABLE_PROBE_SQL, Integer.class);
+            tableAvailable = true;
+            log.info("Tabla CLAIM_ASSIGNMENTS disponible, las asignaciones se persisten");
+        } catch (BadSqlGrammarException e) {
+            tableAvailable = false;
+        }
+        return tableAvailable;
+    }
+
+    /**
+     * Saca del índice una reclamación que se ha cerrado y vuelve a sumar a su tramitador
+     * una reclamación cerrada que se reabre
+     */
+    public void onStatusChanged(Long claimId, Claim.ClaimStatus newStatus) {
+        if (claimId == null || newStatus == null) {
+            return;
+        }
+        if (CLOSED_STATUSES.contains(newStatus)) {
+            synchronized (this) {
+                removeFromIndex(claimId);
+            }
+            return;
+        }
+
+        synchronized (this) {
+            if (assignments.containsKey(claimId)) {
+                return;
+            }
+        }
+        if (!tableAvailable) {
+            return;
+        }
+        List<Assignment> rows = jdbcTemplate.query(ASSIGNMENT_BY_CLAIM_SQL,
+                (rs, rowNum) -> new Assignment(rs.getString("HANDLER"), rs.getDouble("WEIGHT")), claimId);
+        if (!rows.isEmpty()) {
+            synchronized (this) {
+                if (!assignments.containsKey(claimId)) {
+                    addToIndex(claimId, rows.get(0));
+                }
+            }
+        }
+    }
+
+    /**
+     * Carga actual de los tramitadores, de menor a mayor peso
+     */
+    public synchronized List<HandlerLoad> getLoads() {
+        return loads.values().stream()
+                .map(load -> new HandlerLoad(load.handler, load.count, load.weight))
+                .sorted(Comparator.comparingDouble(HandlerLoad::weight))
+                .collect(Collectors.toList());
+    }
+
+    private void addToIndex(Long claimId, Assignment assignment) {
+        assignments.put(claimId, assignment);
+        Load load = loads.computeIfAbsent(assignment.handler(), handler -> new Load(handler, 0, 0));
+        load.count++;
+        load.weight += assignment.weight();
+    }
+
+    private void removeFromIndex(Long claimId) {
+        Assignment previous = assignments.remove(claimId);
+        if (previous == null) {
+            return;
+        }
+        Load load = loads.get(previous.handler());
+        if (load != null) {
+            load.count--;
+            load.weight -= previous.weight();
+            if (load.count <= 0) {
+                loads.remove(previous.handler());
+            }
+        }
+    }
+
+    private static List<String> statusNames(Collection<Claim.ClaimStatus> statuses) {
+        return statuses.stream().map(Enum::name).collect(Collectors.toList());
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += IN_CHUNK_SIZE) {
+            chunks.add(values.subList(i, Math.min(values.size(), i + IN_CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,134 @@
+package com.insurtech.claim.service.customer;
+
+import com.insurtech.claim.client.CustomerClient;
+import feign.FeignException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Resolución cacheada de la identidad de un cliente (email o documento) a su número
+ *
+ * La relación entre email o identificación y número de cliente casi nunca cambia,
+ * así que se guarda en una caché local con caducidad. Las respuestas sin número de
+ * cliente también se recuerdan, igual que un 404 del servicio de clientes; el resto
+ * de errores de la llamada remota no se cachean.
+ *
+ * Con la misma caducidad se guardan los nombres de cliente que muestran los
+ * listados, de forma que cada cliente distinto se consulta una vez por periodo.
+ */
+@Component
+public class CustomerIdentityResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomerIdentityResolver.class);
+
+    private final CustomerClient customerClient;
+
+    @Value("${app.claims.customer-identity.cache-ttl-seconds:900}")
+    private long cacheTtlSeconds;
+
+    @Value("${app.claims.customer-identity.cache-max-entries:20000}")
+    private int cacheMaxEntries;
+
+    private record CacheEntry(String value, long expiresAt) {
+    }
+
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Map<String, CacheEntry> names = new ConcurrentHashMap<>();
+
+    public CustomerIdentityResolver(CustomerClient customerClient) {
+        this.customerClient = customerClient;
+    }
+
+    /**
+     * Número de cliente asociado a un email
+     */
+    public Optional<String> resolveByEmail(String email) {
+        String key = "email:" + email.trim().toLowerCase();
+        return resolve(key, () -> customerClient.getCustomerByEmail(email.trim()));
+    }
+
+    /**
+     * Número de cliente asociado a un documento de identificación
+     */
+    public Optional<String> resolveByIdentification(String identificationNumber, String identificationType) {
+        String key = "id:" + identificationType.trim().toUpperCase() + ":" + identificationNumber.trim();
+        return resolve(key, () -> customerClient.getCustomerByIdentification(
+                identificationNumber.trim(), identificationType.trim()));
+    }
+
+    /**
+     * Nombre para mostrar de cada cliente; los que no se pueden obtener no aparecen
+     */
+    public Map<String, String> getDisplayNames(Collection<String> customerNumbers) {
+        Map<String, String> result = new HashMap<>();
+        long now = System.currentTimeMillis();
+
+        for (String customerNumber : new HashSet<>(customerNumbers)) {
+            if (customerNumber == null) {
+                continue;
+            }
+            CacheEntry entry = names.get(customerNumber);
+            if (entry == null || entry.expiresAt() <= now) {
+                try {
+                    Map<String, Object> customer = customerClient.getCustomerByNumber(customerNumber);
+                    String name = customer != null
+                            ? customer.get("firstName") + " " + customer.get("lastName")
+                            : null;
+                    entry = new CacheEntry(name, now + cacheTtlSeconds * 1000);
+                    evictIfFull(names, now);
+                    names.put(customerNumber, entry);
+                } catch (Exception e) {
+                    log.debug("No se pudo obtener el nombre del cliente {}: {}", customerNumber, e.getMessage());
+                    continue;
+                }
+            }
+            if (entry.value() != null) {
+                result.put(customerNumber, entry.value());
+            }
+        }
+        return result;
+    }
+
+    private Optional<String> resolve(String key, Supplier<Map<String, Object>> lookup) {
+        long now = System.currentTimeMillis();
+        CacheEntry entry = cache.get(key);
+        if (entry != null && entry.expiresAt() > now) {
+            return Optional.ofNullable(entry.value());
+        }
+
+        String customerNumber;
+        try {
+            Map<String, Object> customer = lookup.get();
+            customerNumber = customer != null ? (String) customer.get("customerNumber") : null;
+        } catch (FeignException.NotFound e) {
+            // El servicio de clientes responde 404 cuando no hay cliente: es un resultado, no un error
+            customerNumber = null;
+        } catch (Exception e) {
+            log.error("Error al resolver cliente {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+
+        evictIfFull(cache, now);
+        cache.put(key, new CacheEntry(customerNumber, now + cacheTtlSeconds * 1000));
+        return Optional.ofNullable(customerNumber);
+    }
+
+    private void evictIfFull(Map<String, CacheEntry> entries, long now) {
+        if (entries.size() >= cacheMaxEntries) {
+            entries.values().removeIf(cached -> cached.expiresAt() <= now);
+            if (entries.size() >= cacheMaxEntries) {
+                entries.clear();
+            }
+        }
+    }
+}
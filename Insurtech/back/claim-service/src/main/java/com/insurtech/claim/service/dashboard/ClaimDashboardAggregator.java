@@ -0,0 +1,124 @@
+package com.insurtech.claim.service.dashboard;
+
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.repository.ClaimRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estadísticas del dashboard de reclamaciones
+ *
+ * Se calculan con tres consultas agregadas (recuento por estado, recuento por tipo y
+ * totales de los últimos 30 días), independientemente del número de reclamaciones.
+ * El resultado se guarda durante {@code app.claims.dashboard.cache-ttl-seconds} y se
+ * invalida al recibir eventos de cambio de estado, de modo que la siguiente petición
+ * vuelve a calcularlo. Una invalidación que llega mientras se calcula hace que ese
+ * resultado no se guarde, porque podría haberse leído antes del cambio.
+ */
+@Component
+public class ClaimDashboardAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimDashboardAggregator.class);
+
+    private final ClaimRepository claimRepository;
+
+    @Value("${app.claims.dashboard.cache-ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    private record Snapshot(Map<String, Object> statistics, long expiresAt) {
+    }
+
+    private volatile Snapshot snapshot;
+
+    // Se incrementa en cada invalidación
+    private final AtomicLong generation = new AtomicLong();
+
+    public ClaimDashboardAggregator(ClaimRepository claimRepository) {
+        this.claimRepository = claimRepository;
+    }
+
+    public Map<String, Object> getStatistics() {
+        Snapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() >= current.expiresAt()) {
+            current = refresh();
+        }
+        return new HashMap<>(current.statistics());
+    }
+
+    /**
+     * Descarta las estadísticas en caché; la siguiente consulta las recalcula
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private synchronized Snapshot refresh() {
+        // Otro hilo puede haberlas recalculado mientras esperábamos
+        Snapshot current = snapshot;
+        if (current != null && System.currentTimeMillis() < current.expiresAt()) {
+            return current;
+        }
+
+        log.debug("Recalculando estadísticas del dashboard de reclamaciones");
+        long startedAt = generation.get();
+        current = new Snapshot(compute(), System.currentTimeMillis() + cacheTtlSeconds * 1000);
+        if (generation.get() == startedAt) {
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private Map<String, Object> compute() {
+        Map<String, Object> statistics = new HashMap<>();
+
+        // Recuento por estado (los estados sin reclamaciones aparecen con 0)
+        Map<Claim.ClaimStatus, Long> countByStatus = new EnumMap<>(Claim.ClaimStatus.class);
+        for (Claim.ClaimStatus status : Claim.ClaimStatus.values()) {
+            countByStatus.put(status, 0L);
+        }
+        for (ClaimRepository.StatusCount row : claimRepository.countGroupedByStatus()) {
+            countByStatus.put(row.getStatus(), row.getTotal());
+        }
+        statistics.put("countByStatus", Collections.unmodifiableMap(countByStatus));
+
+        // Recuento por tipo
+        Map<Claim.ClaimType, Long> countByType = new EnumMap<>(Claim.ClaimType.class);
+        for (Claim.ClaimType type : Claim.ClaimType.values()) {
+            countByType.put(type, 0L);
+        }
+        for (ClaimRepository.TypeCount row : claimRepository.countGroupedByClaimType()) {
+            if (row.getClaimType() != null) {
+                countByType.put(row.getClaimType(), row.getTotal());
+            }
+        }
+        statistics.put("countByType", Collections.unmodifiableMap(countByType));
+
+        // Reclamaciones recientes (últimos 30 días) y sus importes
+        LocalDate today = LocalDate.now();
+        ClaimRepository.AmountTotals recent = claimRepository.sumAmountsByIncidentDateBetween(today.minusDays(30), today);
+        statistics.put("recentClaimsCount", (int) recent.getTotal());
+        statistics.put("totalEstimatedAmount",
+                recent.getEstimatedAmount() != null ? recent.getEstimatedAmount() : BigDecimal.ZERO);
+        statistics.put("totalApprovedAmount",
+                recent.getApprovedAmount() != null ? recent.getApprovedAmount() : BigDecimal.ZERO);
+
+        // Reclamaciones pendientes, derivadas del recuento por estado
+        long pending = countByStatus.get(Claim.ClaimStatus.UNDER_REVIEW)
+                + countByStatus.get(Claim.ClaimStatus.INFORMATION_REQUESTED)
+                + countByStatus.get(Claim.ClaimStatus.SUBMITTED);
+        statistics.put("pendingClaimsCount", (int) pending);
+
+        return Collections.unmodifiableMap(statistics);
+    }
+}
@@ -0,0 +1,602 @@
+package com.insurtech.claim.service.duplicate;
+
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria para detectar posibles reclamaciones duplicadas al darlas de alta
+ *
+ * Guarda una huella compacta de cada reclamación con incidente dentro del horizonte
+ * configurado (cliente, póliza, día del incidente, tipo, importe en céntimos y un
+ * SimHash de 64 bits de la descripción) indexada por cliente y tramo de fecha de
+ * incidente y por póliza y tramo. Una consulta sólo recorre las reclamaciones del
+ * mismo cliente o de la misma póliza en los tramos vecinos, sin acceder a la base de
+ * datos.
+ *
+ * Se carga al arrancar y cada noche desde CLAIMS en el executor de mantenimiento, y
+ * se mantiene con las altas de esta instancia y con los eventos de reclamación del
+ * resto. Mientras no se ha cargado, las consultas no devuelven candidatos para no
+ * retrasar el alta; si la carga falla se reintenta con espera creciente y el estado
+ * se publica en el health de la aplicación.
+ */
+@Component
+public class ClaimSimilarityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimSimilarityIndex.class);
+
+    // Estados que no cuentan como reclamación existente
+    private static final Set<Claim.ClaimStatus> EXCLUDED_STATUSES =
+            EnumSet.of(Claim.ClaimStatus.CANCELLED, Claim.ClaimStatus.WITHDRAWN);
+
+    private static final String FINGERPRINT_COLUMNS =
+            "SELECT ID, CLAIM_NUMBER, CUSTOMER_NUMBER, POLICY_NUMBER, INCIDENT_DATE, CLAIM_TYPE, " +
+            "ESTIMATED_AMOUNT, INCIDENT_DESCRIPTION FROM CLAIMS ";
+
+    private static final String LOAD_SQL = FINGERPRINT_COLUMNS +
+            "WHERE INCIDENT_DATE >= :since AND STATUS NOT IN (:excludedStatuses)";
+
+    private static final String LOAD_ONE_SQL = FINGERPRINT_COLUMNS +
+            "WHERE ID = :id AND STATUS NOT IN (:excludedStatuses)";
+
+    // Pesos de la puntuación de similitud (suman 1)
+    private static final double WEIGHT_CUSTOMER = 0.3;
+    private static final double WEIGHT_DATE = 0.2;
+    private static final double WEIGHT_TYPE = 0.1;
+    private static final double WEIGHT_AMOUNT = 0.2;
+    private static final double WEIGHT_DESCRIPTION = 0.2;
+
+    // Distancia de Hamming máxima entre SimHash para considerar similares dos descripciones
+    private static final int MAX_DESCRIPTION_DISTANCE = 10;
+    private static final int MAX_RESULTS = 10;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Executor maintenanceExecutor;
+
+    @Value("${app.claims.duplicates.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.claims.duplicates.horizon-days:365}")
+    private int horizonDays;
+
+    @Value("${app.claims.duplicates.date-window-days:3}")
+    private int dateWindowDays;
+
+    @Value("${app.claims.duplicates.amount-tolerance:0.10}")
+    private double amountTolerance;
+
+    @Value("${app.claims.duplicates.min-score:0.7}")
+    private double minScore;
+
+    @Value("${app.claims.duplicates.retry-initial-seconds:30}")
+    private long retryInitialSeconds;
+
+    @Value("${app.claims.duplicates.retry-max-seconds:1800}")
+    private long retryMaxSeconds;
+
+    /**
+     * Huella de una reclamación; {@code claimId} es null para la que se está dando de alta
+     */
+    public record ClaimFingerprint(Long claimId, String claimNumber, String customerNumber, String policyNumber,
+                                   long incidentDay, Claim.ClaimType claimType, long amountCents,
+                                   long descriptionHash) {
+    }
+
+    /**
+     * Reclamación existente parecida a la consultada, con puntuación entre 0 y 1 y sus motivos
+     */
+    public record PossibleDuplicate(Long claimId, String claimNumber, String customerNumber, String policyNumber,
+                                    double score, List<String> reasons) {
+    }
+
+    /**
+     * Estado de la carga del índice para el health de la aplicación
+     */
+    public record LoadStatus(boolean enabled, boolean ready, int size, int failedLoads,
+                             Instant nextRetryAt, String lastError) {
+    }
+
+    // Clave de tramo: número de cliente o de póliza y tramo de fecha de incidente
+    private record BucketKey(String number, long bucket) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, ClaimFingerprint> byId = new HashMap<>();
+    private Map<BucketKey, List<ClaimFingerprint>> byCustomerBucket = new HashMap<>();
+    private Map<BucketKey, List<ClaimFingerprint>> byPolicyBucket = new HashMap<>();
+
+    // Cambios recibidos durante una recarga completa, se aplican sobre el índice nuevo
+    private Map<Long, Optional<ClaimFingerprint>> changesDuringRebuild;
+    private volatile boolean ready;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Cargas fallidas seguidas y próximo reintento mientras el índice no está listo
+    private volatile int failedLoads;
+    private volatile long nextRetryAt;
+    private volatile String lastError;
+
+    public ClaimSimilarityIndex(DataSource dataSource,
+                                @Value("${app.claims.duplicates.fetch-size:1000}") int fetchSize,
+                                @Qualifier("claimMaintenanceExecutor") Executor maintenanceExecutor) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public LoadStatus getLoadStatus() {
+        long retryAt = nextRetryAt;
+        return new LoadStatus(enabled, isReady(), size(), failedLoads,
+                !ready && retryAt > 0 ? Instant.ofEpochMilli(retryAt) : null, lastError);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            submitRebuild();
+        }
+    }
+
+    /**
+     * Reintenta la carga inicial fallida cuando vence la espera; con el índice ya cargado
+     * no hace nada y la recarga queda para el cron
+     */
+    @Scheduled(fixedDelayString = "${app.claims.duplicates.retry-check-ms:10000}")
+    public void retryFailedLoad() {
+        if (enabled && !ready && failedLoads > 0 && !rebuilding.get()
+                && System.currentTimeMillis() >= nextRetryAt) {
+            submitRebuild();
+        }
+    }
+
+    private void submitRebuild() {
+        try {
+            maintenanceExecutor.execute(this::rebuild);
+        } catch (RejectedExecutionException e) {
+            // Se vuelve a intentar en la siguiente comprobación
+            log.warn("Executor de mantenimiento saturado; la carga del índice de duplicados se reintentará");
+            recordFailure("executor de mantenimiento saturado");
+        }
+    }
+
+    /**
+     * Recarga el índice completo desde CLAIMS; también descarta las reclamaciones
+     * que han salido del horizonte
+     */
+    @Scheduled(cron = "${app.claims.duplicates.rebuild-cron:0 15 4 * * *}")
+    public void rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            load();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            changesDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long started = System.currentTimeMillis();
+        Map<Long, ClaimFingerprint> loaded = new HashMap<>();
+        try {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("since", Date.valueOf(LocalDate.now().minusDays(horizonDays)))
+                    .addValue("excludedStatuses", EXCLUDED_STATUSES.stream().map(Enum::name).toList());
+            jdbcTemplate.query(LOAD_SQL, params, (RowCallbackHandler) rs -> {
+                ClaimFingerprint fingerprint = fromRow(rs);
+                loaded.put(fingerprint.claimId(), fingerprint);
+            });
+        } catch (Exception e) {
+            log.error("Error al cargar el índice de reclamaciones duplicadas: {}", e.getMessage());
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            recordFailure(e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            byId = new HashMap<>();
+            byCustomerBucket = new HashMap<>();
+            byPolicyBucket = new HashMap<>();
+            loaded.values().forEach(this::addToIndex);
+            changesDuringRebuild.forEach((claimId, change) -> {
+                removeFromIndex(claimId);
+                change.ifPresent(this::addToIndex);
+            });
+            changesDuringRebuild = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        failedLoads = 0;
+        nextRetryAt = 0;
+        lastError = null;
+        log.info("Índice de reclamaciones duplicadas cargado: {} reclamaciones en {} ms",
+                loaded.size(), System.currentTimeMillis() - started);
+    }
+
+    // Espera exponencial desde retry-initial-seconds hasta retry-max-seconds
+    private void recordFailure(String error) {
+        int failures = failedLoads + 1;
+        long delaySeconds = Math.min(retryMaxSeconds, retryInitialSeconds << Math.min(failures - 1, 20));
+        failedLoads = failures;
+        lastError = error;
+        nextRetryAt = System.currentTimeMillis() + delaySeconds * 1000;
+        if (!ready) {
+            log.warn("Índice de duplicados no disponible tras {} intentos; siguiente en {} s", failures, delaySeconds);
+        }
+    }
+
+    /**
+     * Huella de una reclamación en memoria (por ejemplo, antes de guardarla)
+     */
+    public ClaimFingerprint fingerprint(Claim claim) {
+        BigDecimal amount = claim.getEstimatedAmount();
+        if (amount == null && claim.getItems() != null && !claim.getItems().isEmpty()) {
+            amount = claim.getItems().stream()
+                    .map(ClaimItem::getClaimedAmount)
+                    .filter(Objects::nonNull)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+        return fingerprint(claim.getId(), claim.getClaimNumber(), claim.getCustomerNumber(), claim.getPolicyNumber(),
+                claim.getIncidentDate(), claim.getClaimType(), amount, claim.getIncidentDescription());
+    }
+
+    public ClaimFingerprint fingerprint(Long claimId, String claimNumber, String customerNumber, String policyNumber,
+                                        LocalDate incidentDate, Claim.ClaimType claimType, BigDecimal amount,
+                                        String description) {
+        return new ClaimFingerprint(claimId, claimNumber, customerNumber, policyNumber,
+                incidentDate != null ? incidentDate.toEpochDay() : Long.MIN_VALUE,
+                claimType,
+                amount != null ? amount.movePointRight(2).longValue() : 0L,
+                simHash(description));
+    }
+
+    /**
+     * Reclamaciones existentes que pueden ser duplicados de la indicada, de mayor a menor puntuación
+     */
+    public List<PossibleDuplicate> findPossibleDuplicates(ClaimFingerprint candidate) {
+        if (!isReady() || candidate.incidentDay() == Long.MIN_VALUE) {
+            return List.of();
+        }
+
+        List<PossibleDuplicate> result = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        long bucket = bucketOf(candidate.incidentDay());
+        lock.readLock().lock();
+        try {
+            for (long b = bucket - 1; b <= bucket + 1; b++) {
+                // Mismo cliente, con cualquier póliza
+                if (candidate.customerNumber() != null) {
+                    for (ClaimFingerprint existing : byCustomerBucket.getOrDefault(
+                            new BucketKey(candidate.customerNumber(), b), List.of())) {
+                        score(candidate, existing, seen, result);
+                    }
+                }
+                // Mismo incidente declarado por otro asegurado de la póliza
+                if (candidate.policyNumber() != null) {
+                    for (ClaimFingerprint existing : byPolicyBucket.getOrDefault(
+                            new BucketKey(candidate.policyNumber(), b), List.of())) {
+                        score(candidate, existing, seen, result);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        result.sort(Comparator.comparingDouble(PossibleDuplicate::score).reversed());
+        return result.size() > MAX_RESULTS ? List.copyOf(result.subList(0, MAX_RESULTS)) : result;
+    }
+
+    private void score(ClaimFingerprint candidate, ClaimFingerprint existing, Set<Long> seen,
+                       List<PossibleDuplicate> result) {
+        if (Objects.equals(existing.claimId(), candidate.claimId()) || !seen.add(existing.claimId())) {
+            return;
+        }
+        long dayDistance = Math.abs(existing.incidentDay() - candidate.incidentDay());
+        if (dayDistance > dateWindowDays) {
+            return;
+        }
+
+        boolean sameCustomer = candidate.customerNumber() != null
+                && candidate.customerNumber().equals(existing.customerNumber());
+        boolean sameType = candidate.claimType() != null && candidate.claimType() == existing.claimType();
+        boolean similarAmount = similarAmount(candidate.amountCents(), existing.amountCents());
+        boolean similarDescription = similarDescription(candidate.descriptionHash(), existing.descriptionHash());
+
+        double score = WEIGHT_DATE * (1 - (double) dayDistance / (dateWindowDays + 1))
+                + (sameCustomer ? WEIGHT_CUSTOMER : 0)
+                + (sameType ? WEIGHT_TYPE : 0)
+                + (similarAmount ? WEIGHT_AMOUNT : 0)
+                + (similarDescription ? WEIGHT_DESCRIPTION : 0);
+        if (score < minScore) {
+            return;
+        }
+
+        // Los motivos sólo se construyen para los candidatos que superan el umbral
+        List<String> reasons = new ArrayList<>(5);
+        reasons.add(dayDistance == 0 ? "misma fecha de incidente" : "incidente a " + dayDistance + " días");
+        if (sameCustomer) {
+            reasons.add("mismo cliente");
+            if (!Objects.equals(candidate.policyNumber(), existing.policyNumber())) {
+                reasons.add("otra póliza (" + existing.policyNumber() + ")");
+            }
+        }
+        if (sameType) {
+            reasons.add("mismo tipo");
+        }
+        if (similarAmount) {
+            reasons.add("importe similar");
+        }
+        if (similarDescription) {
+            reasons.add("descripción similar");
+        }
+        result.add(new PossibleDuplicate(existing.claimId(), existing.claimNumber(), existing.customerNumber(),
+                existing.policyNumber(), Math.round(score * 100) / 100.0, List.copyOf(reasons)));
+    }
+
+    /**
+     * Añade o actualiza una reclamación guardada
+     */
+    public void put(ClaimFingerprint fingerprint) {
+        if (!enabled || fingerprint.claimId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(fingerprint.claimId());
+            addToIndex(fingerprint);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(fingerprint.claimId(), Optional.of(fingerprint));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Añade la reclamación al confirmarse la transacción en curso
+     */
+    public void putAfterCommit(Claim claim) {
+        if (!enabled) {
+            return;
+        }
+        Runnable put = () -> put(fingerprint(claim));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put.run();
+                }
+            });
+        } else {
+            put.run();
+        }
+    }
+
+    public void remove(Long claimId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeFromIndex(claimId);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(claimId, Optional.empty());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a leer una reclamación tras un evento; desaparece del índice si ya no cuenta
+     */
+    public void refresh(Long claimId) {
+        if (!enabled) {
+            return;
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", claimId)
+                .addValue("excludedStatuses", EXCLUDED_STATUSES.stream().map(Enum::name).toList());
+        List<ClaimFingerprint> rows = jdbcTemplate.query(LOAD_ONE_SQL, params, (rs, rowNum) -> fromRow(rs));
+        if (rows.isEmpty()) {
+            remove(claimId);
+        } else {
+            put(rows.get(0));
+        }
+    }
+
+    public void onStatusChanged(Long claimId, Claim.ClaimStatus newStatus) {
+        if (EXCLUDED_STATUSES.contains(newStatus)) {
+            remove(claimId);
+        }
+    }
+
+    /**
+     * Comentario para el tramitador con los posibles duplicados y su puntuación
+     */
+    public static String describe(List<PossibleDuplicate> duplicates) {
+        StringJoiner joiner = new StringJoiner(", ", "Posible duplicado de: ", "");
+        for (PossibleDuplicate duplicate : duplicates) {
+            joiner.add(duplicate.claimNumber() + " (" + duplicate.score() + ": " + String.join(", ", duplicate.reasons()) + ")");
+        }
+        return joiner.toString();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private ClaimFingerprint fromRow(ResultSet rs) throws SQLException {
+        Date incidentDate = rs.getDate("INCIDENT_DATE");
+        String claimType = rs.getString("CLAIM_TYPE");
+        return fingerprint(rs.getLong("ID"), rs.getString("CLAIM_NUMBER"), rs.getString("CUSTOMER_NUMBER"),
+                rs.getString("POLICY_NUMBER"),
+                incidentDate != null ? incidentDate.toLocalDate() : null,
+                claimType != null ? Claim.ClaimType.valueOf(claimType) : null,
+                rs.getBigDecimal("ESTIMATED_AMOUNT"),
+                rs.getString("INCIDENT_DESCRIPTION"));
+    }
+
+    // Llamar con el bloqueo de escritura. Sin fecha de incidente no se puede comparar
+    // con nada y sólo se guarda por id
+    private void addToIndex(ClaimFingerprint fingerprint) {
+        byId.put(fingerprint.claimId(), fingerprint);
+        if (fingerprint.incidentDay() == Long.MIN_VALUE) {
+            return;
+        }
+        long bucket = bucketOf(fingerprint.incidentDay());
+        if (fingerprint.customerNumber() != null) {
+            byCustomerBucket.computeIfAbsent(new BucketKey(fingerprint.customerNumber(), bucket),
+                    k -> new ArrayList<>(2)).add(fingerprint);
+        }
+        if (fingerprint.policyNumber() != null) {
+            byPolicyBucket.computeIfAbsent(new BucketKey(fingerprint.policyNumber(), bucket),
+                    k -> new ArrayList<>(2)).add(fingerprint);
+        }
+    }
+
+    // Llamar con el bloqueo de escritura
+    private void removeFromIndex(Long claimId) {
+        ClaimFingerprint existing = byId.remove(claimId);
+        if (existing == null || existing.incidentDay() == Long.MIN_VALUE) {
+            return;
+        }
+        long bucket = bucketOf(existing.incidentDay());
+        if (existing.customerNumber() != null) {
+            removeFromBucket(byCustomerBucket, new BucketKey(existing.customerNumber(), bucket), existing);
+        }
+        if (existing.policyNumber() != null) {
+            removeFromBucket(byPolicyBucket, new BucketKey(existing.policyNumber(), bucket), existing);
+        }
+    }
+
+    // Los tramos vacíos se eliminan para que el mapa no crezca con cada cliente y póliza
+    private static void removeFromBucket(Map<BucketKey, List<ClaimFingerprint>> buckets, BucketKey key,
+                                         ClaimFingerprint fingerprint) {
+        List<ClaimFingerprint> list = buckets.get(key);
+        if (list != null) {
+            list.remove(fingerprint);
+            if (list.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    // Tramos del tamaño de la ventana: los vecinos cubren siempre la ventana completa
+    private long bucketOf(long incidentDay) {
+        return Math.floorDiv(incidentDay, dateWindowDays + 1L);
+    }
+
+    private boolean similarAmount(long a, long b) {
+        if (a <= 0 || b <= 0) {
+            return false;
+        }
+        return Math.abs(a - b) <= amountTolerance * Math.max(a, b);
+    }
+
+    private static boolean similarDescription(long a, long b) {
+        return a != 0 && b != 0 && Long.bitCount(a ^ b) <= MAX_DESCRIPTION_DISTANCE;
+    }
+
+    /**
+     * SimHash de 64 bits de las palabras de la descripción (sin acentos, en minúsculas,
+     * de al menos 3 caracteres); 0 si no hay palabras
+     */
+    static long simHash(String text) {
+        if (text == null || text.isBlank()) {
+            return 0L;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        int[] weights = new int[64];
+        int tokens = 0;
+        for (String token : normalized.split("[^a-z0-9]+")) {
+            if (token.length() < 3) {
+                continue;
+            }
+            long hash = fnv1a(token);
+            for (int bit = 0; bit < 64; bit++) {
+                weights[bit] += ((hash >>> bit) & 1L) == 1L ? 1 : -1;
+            }
+            tokens++;
+        }
+        if (tokens == 0) {
+            return 0L;
+        }
+
+        long simHash = 0L;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return simHash != 0 ? simHash : 1L;
+    }
+
+    private static long fnv1a(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash ^= token.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
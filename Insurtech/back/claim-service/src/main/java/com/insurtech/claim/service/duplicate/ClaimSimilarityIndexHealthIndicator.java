@@ -0,0 +1,44 @@
+package com.insurtech.claim.service.duplicate;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica en /actuator/health si el índice de duplicados está cargado
+ *
+ * Mientras no lo está, las altas no se comparan con las reclamaciones existentes: el
+ * indicador pasa a OUT_OF_SERVICE con el número de cargas fallidas, el último error y
+ * el próximo reintento.
+ */
+@Component
+public class ClaimSimilarityIndexHealthIndicator implements HealthIndicator {
+
+    private final ClaimSimilarityIndex similarityIndex;
+
+    public ClaimSimilarityIndexHealthIndicator(ClaimSimilarityIndex similarityIndex) {
+        this.similarityIndex = similarityIndex;
+    }
+
+    @Override
+    public Health health() {
+        ClaimSimilarityIndex.LoadStatus status = similarityIndex.getLoadStatus();
+        if (!status.enabled()) {
+            return Health.up().withDetail("enabled", false).build();
+        }
+
+        Health.Builder builder = status.ready() ? Health.up() : Health.outOfService();
+        builder.withDetail("ready", status.ready())
+                .withDetail("claims", status.size());
+        if (status.failedLoads() > 0) {
+            builder.withDetail("failedLoads", status.failedLoads());
+        }
+        if (status.lastError() != null) {
+            builder.withDetail("lastError", status.lastError());
+        }
+        if (status.nextRetryAt() != null) {
+            builder.withDetail("nextRetryAt", status.nextRetryAt().toString());
+        }
+        return builder.build();
+    }
+}
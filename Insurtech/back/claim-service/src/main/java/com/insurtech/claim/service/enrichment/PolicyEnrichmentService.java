@@ -0,0 +1,160 @@
+package com.insurtech.claim.service.enrichment;
+
+import com.insurtech.claim.client.PolicyClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Enriquecimiento de reclamaciones con atributos de su póliza
+ *
+ * Agrupa los números de póliza distintos, descarta los que ya están en la caché
+ * local y pide el resto a policy-service en lotes de {@code chunkSize} mediante la
+ * consulta masiva. Los lotes se lanzan en paralelo sobre un executor de tamaño
+ * acotado, así que el número de llamadas remotas es el de pólizas distintas no
+ * cacheadas dividido por el tamaño de lote.
+ *
+ * Sólo se cachean atributos que no cambian durante la vida de la póliza (tipo,
+ * cliente). Las pólizas inexistentes también se recuerdan hasta que caduca la
+ * entrada, para no volver a pedirlas en cada consulta.
+ */
+@Component
+public class PolicyEnrichmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(PolicyEnrichmentService.class);
+
+    public static final String UNKNOWN_POLICY_TYPE = "UNKNOWN";
+
+    private final PolicyClient policyClient;
+    private final Executor enrichmentExecutor;
+
+    @Value("${app.claims.policy-enrichment.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${app.claims.policy-enrichment.cache-ttl-seconds:600}")
+    private long cacheTtlSeconds;
+
+    @Value("${app.claims.policy-enrichment.cache-max-entries:50000}")
+    private int cacheMaxEntries;
+
+    /**
+     * Atributos inmutables de una póliza
+     */
+    public record PolicyAttributes(Long policyId, String policyNumber, String policyType, Long customerId) {
+    }
+
+    private record CacheEntry(PolicyAttributes attributes, long expiresAt) {
+    }
+
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    public PolicyEnrichmentService(PolicyClient policyClient,
+                                   @Qualifier("policyEnrichmentExecutor") Executor enrichmentExecutor) {
+        this.policyClient = policyClient;
+        this.enrichmentExecutor = enrichmentExecutor;
+    }
+
+    /**
+     * Devuelve los atributos de las pólizas solicitadas; las que no existen o no se
+     * pudieron obtener no aparecen en el resultado
+     */
+    public Map<String, PolicyAttributes> getPolicies(Collection<String> policyNumbers) {
+        Map<String, PolicyAttributes> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+
+        for (String policyNumber : new LinkedHashSet<>(policyNumbers)) {
+            if (policyNumber == null) {
+                continue;
+            }
+            CacheEntry entry = cache.get(policyNumber);
+            if (entry != null && entry.expiresAt() > now) {
+                if (entry.attributes() != null) {
+                    result.put(policyNumber, entry.attributes());
+                }
+            } else {
+                missing.add(policyNumber);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        log.debug("Consultando {} pólizas no cacheadas en lotes de {}", missing.size(), chunkSize);
+
+        // El contexto de seguridad del llamante se propaga a los hilos para que Feign envíe el token
+        Executor executor = new DelegatingSecurityContextExecutor(enrichmentExecutor);
+        List<CompletableFuture<Map<String, PolicyAttributes>>> futures = new ArrayList<>();
+        for (int from = 0; from < missing.size(); from += chunkSize) {
+            List<String> chunk = missing.subList(from, Math.min(from + chunkSize, missing.size()));
+            futures.add(CompletableFuture.supplyAsync(() -> fetchChunk(chunk), executor));
+        }
+
+        for (CompletableFuture<Map<String, PolicyAttributes>> future : futures) {
+            result.putAll(future.join());
+        }
+        return result;
+    }
+
+    /**
+     * Devuelve el tipo de póliza o {@link #UNKNOWN_POLICY_TYPE} si no se conoce
+     */
+    public static String policyTypeOf(Map<String, PolicyAttributes> policies, String policyNumber) {
+        PolicyAttributes attributes = policyNumber != null ? policies.get(policyNumber) : null;
+        return attributes != null && attributes.policyType() != null ? attributes.policyType() : UNKNOWN_POLICY_TYPE;
+    }
+
+    private Map<String, PolicyAttributes> fetchChunk(List<String> policyNumbers) {
+        Map<String, PolicyAttributes> found = new HashMap<>();
+        try {
+            for (Map<String, Object> policy : policyClient.getPoliciesByNumbers(policyNumbers)) {
+                PolicyAttributes attributes = toAttributes(policy);
+                if (attributes.policyNumber() != null) {
+                    found.put(attributes.policyNumber(), attributes);
+                }
+            }
+        } catch (Exception e) {
+            // Sin cachear: se volverá a intentar en la siguiente consulta
+            log.warn("Error al consultar un lote de {} pólizas: {}", policyNumbers.size(), e.getMessage());
+            return found;
+        }
+
+        long expiresAt = System.currentTimeMillis() + cacheTtlSeconds * 1000;
+        if (cache.size() + policyNumbers.size() > cacheMaxEntries) {
+            evict();
+        }
+        for (String policyNumber : policyNumbers) {
+            cache.put(policyNumber, new CacheEntry(found.get(policyNumber), expiresAt));
+        }
+        return found;
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        if (cache.size() > cacheMaxEntries / 2) {
+            log.debug("Caché de pólizas llena ({} entradas), se vacía", cache.size());
+            cache.clear();
+        }
+    }
+
+    private PolicyAttributes toAttributes(Map<String, Object> policy) {
+        Object id = policy.get("id");
+        Object customerId = policy.get("customerId");
+        Object policyType = policy.get("policyType");
+        return new PolicyAttributes(
+                id instanceof Number number ? number.longValue() : null,
+                (String) policy.get("policyNumber"),
+                policyType != null ? policyType.toString() : null,
+                customerId instanceof Number number ? number.longValue() : null);
+    }
+}
@@ -0,0 +1,348 @@
+package com.insurtech.claim.service.export;
+
+import com.insurtech.claim.model.entity.Claim;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Exportación de reclamaciones en streaming a un fichero temporal
+ *
+ * Las filas se leen con un cursor JDBC ({@code fetchSize} filas por viaje) y sólo
+ * con las columnas exportadas, y se escriben una a una: en CSV con commons-csv y en
+ * Excel con una ventana de {@code XLSX_ROW_WINDOW} filas en memoria (el resto se
+ * vuelca a disco). La memoria usada no depende del número de reclamaciones.
+ *
+ * Excel admite como máximo 1.048.576 filas por hoja: al llegar al límite la
+ * exportación continúa en una hoja nueva ("Reclamaciones 2"...), con su cabecera.
+ *
+ * El directorio ({@code app.claims.export.dir}) es obligatorio y también recibe los
+ * temporales de POI, para no llenar el temporal del sistema con exportaciones grandes
+ * (lo configura {@link com.insurtech.claim.config.ExportConfig}).
+ */
+@Component
+public class ClaimExportWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimExportWriter.class);
+
+    private static final int IN_CHUNK_SIZE = 1000;
+    private static final int XLSX_ROW_WINDOW = 100;
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private static final String[] HEADERS = {
+            "ClaimNumber", "PolicyNumber", "CustomerNumber", "IncidentDate", "ClaimType", "Status",
+            "EstimatedAmount", "ApprovedAmount", "PaidAmount", "SubmissionDate", "SettlementDate"};
+
+    private static final String SELECT_COLUMNS =
+            "SELECT CLAIM_NUMBER, POLICY_NUMBER, CUSTOMER_NUMBER, INCIDENT_DATE, CLAIM_TYPE, STATUS, " +
+            "ESTIMATED_AMOUNT, APPROVED_AMOUNT, PAID_AMOUNT, SUBMISSION_DATE, SETTLEMENT_DATE FROM CLAIMS ";
+
+    private static final String SHEET_NAME = "Reclamaciones";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Path exportDir;
+    private final int xlsxMaxRowsPerSheet;
+
+    /**
+     * Formatos de exportación soportados
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        EXCEL("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String format) {
+            return "excel".equalsIgnoreCase(format) || "xlsx".equalsIgnoreCase(format) ? EXCEL : CSV;
+        }
+    }
+
+    /**
+     * Criterios de la exportación: por números de reclamación, o por estados y/o rango de fechas
+     */
+    public record ExportCriteria(List<String> claimNumbers, List<Claim.ClaimStatus> statuses,
+                                 LocalDate startDate, LocalDate endDate) {
+    }
+
+    /**
+     * Fichero generado
+     */
+    public record ExportFile(String batchId, Path path, Format format, long rows) {
+
+        public String filename() {
+            return "claims-export." + format.extension();
+        }
+    }
+
+    public ClaimExportWriter(DataSource dataSource,
+                             @Value("${app.claims.export.dir}") String exportDir,
+                             @Value("${app.claims.export.fetch-size:1000}") int fetchSize,
+                             @Value("${app.claims.export.xlsx-max-rows-per-sheet:1048576}") int xlsxMaxRowsPerSheet) {
+        // Plantilla propia para no cambiar el fetch size del JdbcTemplate compartido
+        JdbcTemplate exportTemplate = new JdbcTemplate(dataSource);
+        exportTemplate.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(exportTemplate);
+        this.exportDir = Paths.get(exportDir).toAbsolutePath().normalize();
+        // Cabecera más al menos una fila de datos, sin pasar del máximo del formato
+        this.xlsxMaxRowsPerSheet = Math.max(2, Math.min(xlsxMaxRowsPerSheet, SpreadsheetVersion.EXCEL2007.getMaxRows()));
+    }
+
+    public Path getExportDir() {
+        return exportDir;
+    }
+
+    /**
+     * Escribe las reclamaciones que cumplen los criterios; {@code progress} recibe el
+     * número de filas escritas cada {@value #PROGRESS_INTERVAL} filas
+     */
+    public ExportFile export(String batchId, ExportCriteria criteria, Format format, LongConsumer progress)
+            throws IOException {
+        Files.createDirectories(exportDir);
+        Path file = exportDir.resolve("claims-" + batchId + "." + format.extension());
+
+        long rows = 0;
+        try (RowSink sink = format == Format.EXCEL ? new XlsxSink(file, xlsxMaxRowsPerSheet) : new CsvSink(file)) {
+            sink.header(HEADERS);
+            for (SqlPart query : queries(criteria)) {
+                rows = stream(query, sink, rows, progress);
+            }
+            sink.finish();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        progress.accept(rows);
+        log.info("Exportación {} completada: {} reclamaciones en {}", batchId, rows, file);
+        return new ExportFile(batchId, file, format, rows);
+    }
+
+    private long stream(SqlPart query, RowSink sink, long written, LongConsumer progress) {
+        long[] count = {written};
+        jdbcTemplate.query(query.sql(), query.params(), rs -> {
+            try {
+                sink.row(rs);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (++count[0] % PROGRESS_INTERVAL == 0) {
+                progress.accept(count[0]);
+            }
+        });
+        return count[0];
+    }
+
+    private record SqlPart(String sql, MapSqlParameterSource params) {
+    }
+
+    private List<SqlPart> queries(ExportCriteria criteria) {
+        List<SqlPart> queries = new ArrayList<>();
+
+        // Por números: consultas troceadas (límite de 1000 elementos de IN en Oracle)
+        if (criteria.claimNumbers() != null && !criteria.claimNumbers().isEmpty()) {
+            List<String> numbers = new ArrayList<>(new LinkedHashSet<>(criteria.claimNumbers()));
+            for (int i = 0; i < numbers.size(); i += IN_CHUNK_SIZE) {
+                queries.add(new SqlPart(SELECT_COLUMNS + "WHERE CLAIM_NUMBER IN (:numbers) ORDER BY ID",
+                        new MapSqlParameterSource("numbers", numbers.subList(i, Math.min(numbers.size(), i + IN_CHUNK_SIZE)))));
+            }
+            return queries;
+        }
+
+        List<String> conditions = new ArrayList<>();
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (criteria.statuses() != null && !criteria.statuses().isEmpty()) {
+            conditions.add("STATUS IN (:statuses)");
+            params.addValue("statuses", criteria.statuses().stream().map(Enum::name).collect(Collectors.toList()));
+        }
+        if (criteria.startDate() != null && criteria.endDate() != null) {
+            conditions.add("INCIDENT_DATE BETWEEN :startDate AND :endDate");
+            params.addValue("startDate", Date.valueOf(criteria.startDate()));
+            params.addValue("endDate", Date.valueOf(criteria.endDate()));
+        }
+
+        // Sin criterios se exportan todas las reclamaciones
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" OR ", conditions) + " ";
+        queries.add(new SqlPart(SELECT_COLUMNS + where + "ORDER BY ID", params));
+        return queries;
+    }
+
+    private interface RowSink extends Closeable {
+
+        void header(String[] headers) throws IOException;
+
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final class CsvSink implements RowSink {
+
+        private final CSVPrinter printer;
+
+        private CsvSink(Path file) throws IOException {
+            BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+            this.printer = new CSVPrinter(writer, CSVFormat.DEFAULT);
+        }
+
+        @Override
+        public void header(String[] headers) throws IOException {
+            printer.printRecord((Object[]) headers);
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            printer.printRecord(
+                    rs.getString("CLAIM_NUMBER"),
+                    rs.getString("POLICY_NUMBER"),
+                    rs.getString("CUSTOMER_NUMBER"),
+                    formatDate(rs.getDate("INCIDENT_DATE")),
+                    rs.getString("CLAIM_TYPE"),
+                    rs.getString("STATUS"),
+                    rs.getBigDecimal("ESTIMATED_AMOUNT"),
+                    rs.getBigDecimal("APPROVED_AMOUNT"),
+                    rs.getBigDecimal("PAID_AMOUNT"),
+                    formatTimestamp(rs.getTimestamp("SUBMISSION_DATE")),
+                    formatTimestamp(rs.getTimestamp("SETTLEMENT_DATE")));
+        }
+
+        @Override
+        public void finish() throws IOException {
+            printer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            printer.close();
+        }
+    }
+
+    private static final class XlsxSink implements RowSink {
+
+        private final Path file;
+        private final int maxRowsPerSheet;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(XLSX_ROW_WINDOW);
+        private String[] headers;
+        private Sheet sheet;
+        private int rowIndex;
+
+        private XlsxSink(Path file, int maxRowsPerSheet) {
+            this.file = file;
+            this.maxRowsPerSheet = maxRowsPerSheet;
+            this.workbook.setCompressTempFiles(true);
+            this.sheet = workbook.createSheet(SHEET_NAME);
+        }
+
+        @Override
+        public void header(String[] headers) {
+            this.headers = headers;
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < headers.length; i++) {
+                row.createCell(i).setCellValue(headers[i]);
+            }
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException {
+            if (rowIndex >= maxRowsPerSheet) {
+                // Hoja llena: se continúa en una nueva con la misma cabecera
+                sheet = workbook.createSheet(SHEET_NAME + " " + (workbook.getNumberOfSheets() + 1));
+                rowIndex = 0;
+                header(headers);
+            }
+            Row row = sheet.createRow(rowIndex++);
+            setText(row, 0, rs.getString("CLAIM_NUMBER"));
+            setText(row, 1, rs.getString("POLICY_NUMBER"));
+            setText(row, 2, rs.getString("CUSTOMER_NUMBER"));
+            setText(row, 3, formatDate(rs.getDate("INCIDENT_DATE")));
+            setText(row, 4, rs.getString("CLAIM_TYPE"));
+            setText(row, 5, rs.getString("STATUS"));
+            setAmount(row, 6, rs.getBigDecimal("ESTIMATED_AMOUNT"));
+            setAmount(row, 7, rs.getBigDecimal("APPROVED_AMOUNT"));
+            setAmount(row, 8, rs.getBigDecimal("PAID_AMOUNT"));
+            setText(row, 9, formatTimestamp(rs.getTimestamp("SUBMISSION_DATE")));
+            setText(row, 10, formatTimestamp(rs.getTimestamp("SETTLEMENT_DATE")));
+        }
+
+        @Override
+        public void finish() throws IOException {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Elimina los temporales de las filas ya volcadas
+            workbook.dispose();
+            workbook.close();
+        }
+
+        private static void setText(Row row, int column, String value) {
+            if (value != null) {
+                row.createCell(column).setCellValue(value);
+            }
+        }
+
+        private static void setAmount(Row row, int column, BigDecimal value) {
+            if (value != null) {
+                row.createCell(column).setCellValue(value.doubleValue());
+            }
+        }
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? date.toLocalDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : "";
+    }
+
+    private static String formatTimestamp(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "";
+    }
+}
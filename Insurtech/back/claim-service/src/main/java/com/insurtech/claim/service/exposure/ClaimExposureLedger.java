@@ -0,0 +1,633 @@
+package com.insurtech.claim.service.exposure;
+
+import com.insurtech.claim.exception.BusinessValidationException;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Exposición de las reclamaciones (importe reclamado menos pagado), agregada de forma incremental
+ *
+ * CLAIM_EXPOSURE_TOTALS guarda, por (tipo, estado, mes del incidente), el número de
+ * reclamaciones, la suma de los importes reclamados de sus ítems y la suma de sus
+ * pagos completados. Cada alta, cambio de ítem o cambio de estado aplica su variación
+ * en la transacción del llamante, así que los totales se confirman o se deshacen
+ * junto con las filas de origen y una consulta de exposición lee sólo unas decenas
+ * de grupos. Las actualizaciones se aplican en orden de clave para no provocar
+ * interbloqueos entre transacciones.
+ *
+ * Cada variación se anota también en CLAIM_EXPOSURE_DELTAS. Cada noche se guarda la
+ * instantánea del día anterior en CLAIM_EXPOSURE_SNAPSHOTS: la instantánea previa más
+ * las variaciones confirmadas hasta la medianoche que aún no recoge ninguna, que
+ * quedan marcadas con el día. Una variación anotada antes de la medianoche pero
+ * confirmada después de la instantánea la recoge la del día siguiente. El estado en
+ * cualquier momento posterior a la instantánea más antigua se reconstruye con la
+ * instantánea anterior más las variaciones hasta ese momento que no recoge.
+ *
+ * {@link #reconcile()} recalcula los grupos desde CLAIMS, CLAIM_ITEMS y CLAIM_PAYMENTS
+ * y anota la diferencia como una variación más; así se cargan los totales la primera
+ * vez y se recogen los pagos que registran otros servicios. Cada grupo se corrige en
+ * su propia transacción con sólo su fila de totales bloqueada.
+ *
+ * Las tablas se crean con db/oracle/claim-exposure.sql; si no existen, la exposición
+ * se desactiva y las consultas devuelven informes vacíos.
+ */
+@Component
+public class ClaimExposureLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimExposureLedger.class);
+
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
+    // Estados en los que la reclamación ya no tiene exposición pendiente
+    private static final Set<Claim.ClaimStatus> CLOSED_STATUSES = EnumSet.of(
+            Claim.ClaimStatus.DENIED, Claim.ClaimStatus.PAID, Claim.ClaimStatus.CLOSED,
+            Claim.ClaimStatus.WITHDRAWN, Claim.ClaimStatus.CANCELLED);
+
+    // Sentencias específicas para Oracle
+    private static final String UPDATE_TOTAL_SQL =
+            "UPDATE CLAIM_EXPOSURE_TOTALS SET CLAIM_COUNT = CLAIM_COUNT + ?, " +
+            "CLAIMED_AMOUNT = CLAIMED_AMOUNT + ?, PAID_AMOUNT = PAID_AMOUNT + ?, UPDATED_AT = SYSTIMESTAMP " +
+            "WHERE CLAIM_TYPE = ? AND STATUS = ? AND EXPOSURE_MONTH = ?";
+
+    private static final String INSERT_TOTAL_SQL =
+            "INSERT INTO CLAIM_EXPOSURE_TOTALS (CLAIM_COUNT, CLAIMED_AMOUNT, PAID_AMOUNT, CLAIM_TYPE, STATUS, " +
+            "EXPOSURE_MONTH, UPDATED_AT) VALUES (?, ?, ?, ?, ?, ?, SYSTIMESTAMP)";
+
+    private static final String INSERT_DELTA_SQL =
+            "INSERT INTO CLAIM_EXPOSURE_DELTAS (ID, CREATED_AT, CLAIM_ID, REASON, CLAIM_TYPE, STATUS, " +
+            "EXPOSURE_MONTH, CLAIM_COUNT_DELTA, CLAIMED_DELTA, PAID_DELTA) " +
+            "VALUES (SEQ_CLAIM_EXPOSURE_DELTAS.NEXTVAL, SYSTIMESTAMP, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String CLAIM_AMOUNTS_SQL =
+            "SELECT c.ID, " +
+            "(SELECT NVL(SUM(i.CLAIMED_AMOUNT), 0) FROM CLAIM_ITEMS i WHERE i.CLAIM_ID = c.ID) AS CLAIMED_AMOUNT, " +
+            "(SELECT NVL(SUM(p.AMOUNT), 0) FROM CLAIM_PAYMENTS p " +
+            "  WHERE p.CLAIM_ID = c.ID AND p.PAYMENT_STATUS = 'COMPLETED') AS PAID_AMOUNT " +
+            "FROM CLAIMS c WHERE c.ID IN (:ids)";
+
+    private static final String SELECT_TOTALS_SQL =
+            "SELECT CLAIM_TYPE, STATUS, EXPOSURE_MONTH, CLAIM_COUNT, CLAIMED_AMOUNT, PAID_AMOUNT " +
+            "FROM CLAIM_EXPOSURE_TOTALS";
+
+    private static final String LOCK_TOTAL_SQL =
+            "SELECT CLAIM_COUNT, CLAIMED_AMOUNT, PAID_AMOUNT FROM CLAIM_EXPOSURE_TOTALS " +
+            "WHERE CLAIM_TYPE = ? AND STATUS = ? AND EXPOSURE_MONTH = ? FOR UPDATE";
+
+    // Un solo grupo: importes por reclamación con el rango del mes, para usar los índices
+    private static final String EXPECTED_GROUP_SQL =
+            "SELECT COUNT(*) AS CLAIM_COUNT, NVL(SUM(CLAIMED_AMOUNT), 0) AS CLAIMED_AMOUNT, " +
+            "NVL(SUM(PAID_AMOUNT), 0) AS PAID_AMOUNT FROM (" +
+            "  SELECT (SELECT NVL(SUM(i.CLAIMED_AMOUNT), 0) FROM CLAIM_ITEMS i WHERE i.CLAIM_ID = c.ID) AS CLAIMED_AMOUNT, " +
+            "  (SELECT NVL(SUM(p.AMOUNT), 0) FROM CLAIM_PAYMENTS p " +
+            "    WHERE p.CLAIM_ID = c.ID AND p.PAYMENT_STATUS = 'COMPLETED') AS PAID_AMOUNT " +
+            "  FROM CLAIMS c WHERE c.CLAIM_TYPE = ? AND c.STATUS = ? " +
+            "  AND c.INCIDENT_DATE >= ? AND c.INCIDENT_DATE < ?)";
+
+    private static final String EXPECTED_TOTALS_SQL =
+            "SELECT c.CLAIM_TYPE, c.STATUS, TRUNC(c.INCIDENT_DATE, 'MM') AS EXPOSURE_MONTH, " +
+            "COUNT(*) AS CLAIM_COUNT, NVL(SUM(i.CLAIMED_AMOUNT), 0) AS CLAIMED_AMOUNT, " +
+            "NVL(SUM(p.PAID_AMOUNT), 0) AS PAID_AMOUNT " +
+            "FROM CLAIMS c " +
+            "LEFT JOIN (SELECT CLAIM_ID, SUM(CLAIMED_AMOUNT) AS CLAIMED_AMOUNT FROM CLAIM_ITEMS " +
+            "           GROUP BY CLAIM_ID) i ON i.CLAIM_ID = c.ID " +
+            "LEFT JOIN (SELECT CLAIM_ID, SUM(AMOUNT) AS PAID_AMOUNT FROM CLAIM_PAYMENTS " +
+            "           WHERE PAYMENT_STATUS = 'COMPLETED' GROUP BY CLAIM_ID) p ON p.CLAIM_ID = c.ID " +
+            "WHERE c.CLAIM_TYPE IS NOT NULL AND c.STATUS IS NOT NULL AND c.INCIDENT_DATE IS NOT NULL " +
+            "GROUP BY c.CLAIM_TYPE, c.STATUS, TRUNC(c.INCIDENT_DATE, 'MM')";
+
+    private static final String LAST_SNAPSHOT_BEFORE_SQL =
+            "SELECT MAX(SNAPSHOT_DAY) FROM CLAIM_EXPOSURE_SNAPSHOTS WHERE SNAPSHOT_DAY < ?";
+
+    // Instantánea previa (si la hay) más las variaciones hasta el momento que no recoge
+    private static final String POINT_IN_TIME_SQL =
+            "SELECT CLAIM_TYPE, STATUS, EXPOSURE_MONTH, SUM(CLAIM_COUNT) AS CLAIM_COUNT, " +
+            "SUM(CLAIMED_AMOUNT) AS CLAIMED_AMOUNT, SUM(PAID_AMOUNT) AS PAID_AMOUNT FROM (" +
+            "  SELECT CLAIM_TYPE, STATUS, EXPOSURE_MONTH, CLAIM_COUNT, CLAIMED_AMOUNT, PAID_AMOUNT " +
+            "  FROM CLAIM_EXPOSURE_SNAPSHOTS WHERE SNAPSHOT_DAY = :snapshotDay " +
+            "  UNION ALL " +
+            "  SELECT CLAIM_TYPE, STATUS, EXPOSURE_MONTH, CLAIM_COUNT_DELTA, CLAIMED_DELTA, PAID_DELTA " +
+            "  FROM CLAIM_EXPOSURE_DELTAS WHERE (SNAPSHOT_DAY IS NULL OR SNAPSHOT_DAY > :foldedUntil) " +
+            "  AND CREATED_AT < :deltasTo" +
+            ") GROUP BY CLAIM_TYPE, STATUS, EXPOSURE_MONTH";
+
+    // Marca las variaciones confirmadas hasta la medianoche que aún no recoge ninguna instantánea
+    private static final String FOLD_DELTAS_SQL =
+            "UPDATE CLAIM_EXPOSURE_DELTAS SET SNAPSHOT_DAY = ? WHERE SNAPSHOT_DAY IS NULL AND CREATED_AT < ?";
+
+    // Instantánea previa más las variaciones recién marcadas con el día
+    private static final String INSERT_SNAPSHOT_SQL =
+            "INSERT INTO CLAIM_EXPOSURE_SNAPSHOTS (SNAPSHOT_DAY, CLAIM_TYPE, STATUS, EXPOSURE_MONTH, " +
+            "CLAIM_COUNT, CLAIMED_AMOUNT, PAID_AMOUNT) " +
+            "SELECT :day, CLAIM_TYPE, STATUS, EXPOSURE_MONTH, SUM(CLAIM_COUNT), SUM(CLAIMED_AMOUNT), SUM(PAID_AMOUNT) FROM (" +
+            "  SELECT CLAIM_TYPE, STATUS, EXPOSURE_MONTH, CLAIM_COUNT, CLAIMED_AMOUNT, PAID_AMOUNT " +
+            "  FROM CLAIM_EXPOSURE_SNAPSHOTS WHERE SNAPSHOT_DAY = :previousDay " +
+            "  UNION ALL " +
+            "  SELECT CLAIM_TYPE, STATUS, EXPOSURE_MONTH, CLAIM_COUNT_DELTA, CLAIMED_DELTA, PAID_DELTA " +
+            "  FROM CLAIM_EXPOSURE_DELTAS WHERE SNAPSHOT_DAY = :day" +
+            ") GROUP BY CLAIM_TYPE, STATUS, EXPOSURE_MONTH " +
+            "HAVING SUM(CLAIM_COUNT) <> 0 OR SUM(CLAIMED_AMOUNT) <> 0 OR SUM(PAID_AMOUNT) <> 0";
+
+    private static final Date BEGINNING = Date.valueOf("1970-01-01");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor maintenanceExecutor;
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile boolean available;
+
+    @Value("${app.claims.exposure.snapshot-retention-days:400}")
+    private int snapshotRetentionDays;
+
+    /**
+     * Grupo de agregación: tipo, estado y primer día del mes del incidente
+     */
+    public record ExposureKey(Claim.ClaimType claimType, Claim.ClaimStatus status, LocalDate month)
+            implements Comparable<ExposureKey> {
+
+        private static final Comparator<ExposureKey> ORDER = Comparator
+                .comparing(ExposureKey::claimType)
+                .thenComparing(ExposureKey::status)
+                .thenComparing(ExposureKey::month);
+
+        /**
+         * Grupo de la reclamación; null si le falta el tipo, el estado o la fecha del incidente
+         */
+        public static ExposureKey of(Claim claim) {
+            return of(claim.getClaimType(), claim.getStatus(), claim.getIncidentDate());
+        }
+
+        public static ExposureKey of(Claim.ClaimType claimType, Claim.ClaimStatus status, LocalDate incidentDate) {
+            if (claimType == null || status == null || incidentDate == null) {
+                return null;
+            }
+            return new ExposureKey(claimType, status, incidentDate.withDayOfMonth(1));
+        }
+
+        public ExposureKey withStatus(Claim.ClaimStatus newStatus) {
+            return new ExposureKey(claimType, newStatus, month);
+        }
+
+        @Override
+        public int compareTo(ExposureKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    /**
+     * Cambio de grupo de una reclamación, con todos sus importes
+     */
+    public record Move(Long claimId, ExposureKey from, ExposureKey to) {
+    }
+
+    /**
+     * Totales de un grupo; {@code exposure} es reclamado menos pagado
+     */
+    public record ExposureRow(Claim.ClaimType claimType, Claim.ClaimStatus status, LocalDate month, long claimCount,
+                              BigDecimal claimedAmount, BigDecimal paidAmount, BigDecimal exposure) {
+    }
+
+    /**
+     * Exposición en un momento; {@code openExposure} sólo suma los estados no cerrados
+     */
+    public record ExposureReport(LocalDateTime asOf, BigDecimal openExposure,
+                                 Map<Claim.ClaimType, BigDecimal> openExposureByType, List<ExposureRow> groups) {
+    }
+
+    private static final class Delta {
+        private long count;
+        private BigDecimal claimed = BigDecimal.ZERO;
+        private BigDecimal paid = BigDecimal.ZERO;
+
+        private void add(long rowCount, BigDecimal rowClaimed, BigDecimal rowPaid) {
+            count += rowCount;
+            claimed = claimed.add(rowClaimed != null ? rowClaimed : BigDecimal.ZERO);
+            paid = paid.add(rowPaid != null ? rowPaid : BigDecimal.ZERO);
+        }
+
+        private boolean isZero() {
+            return count == 0 && claimed.signum() == 0 && paid.signum() == 0;
+        }
+    }
+
+    private record Amounts(BigDecimal claimed, BigDecimal paid) {
+    }
+
+    public ClaimExposureLedger(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                               @Qualifier("claimMaintenanceExecutor") Executor maintenanceExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    @PostConstruct
+    public void checkTables() {
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_EXPOSURE_TOTALS WHERE 1 = 0", Long.class);
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_EXPOSURE_DELTAS WHERE 1 = 0", Long.class);
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_EXPOSURE_SNAPSHOTS WHERE 1 = 0", Long.class);
+            available = true;
+        } catch (DataAccessException e) {
+            log.warn("Tablas de exposición no disponibles, agregación de exposición desactivada: {}", e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Primera carga de los totales si la tabla está vacía
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!available) {
+            return;
+        }
+        Long groups = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_EXPOSURE_TOTALS", Long.class);
+        if (groups != null && groups == 0) {
+            try {
+                maintenanceExecutor.execute(this::reconcile);
+            } catch (RejectedExecutionException e) {
+                log.warn("Executor de mantenimiento saturado; los totales de exposición se cargarán en la reconciliación programada");
+            }
+        }
+    }
+
+    /**
+     * Alta de una reclamación con sus ítems; en la transacción en curso
+     */
+    public void recordCreated(Claim claim) {
+        ExposureKey key = ExposureKey.of(claim);
+        if (!available || key == null) {
+            return;
+        }
+        BigDecimal claimed = BigDecimal.ZERO;
+        for (ClaimItem item : claim.getItems()) {
+            if (item.getClaimedAmount() != null) {
+                claimed = claimed.add(item.getClaimedAmount());
+            }
+        }
+        SortedMap<ExposureKey, Delta> deltas = new TreeMap<>();
+        deltas.computeIfAbsent(key, k -> new Delta()).add(1, claimed, BigDecimal.ZERO);
+        apply(deltas, claim.getId(), "CLAIM_CREATED");
+    }
+
+    /**
+     * Alta de reclamaciones sin ítems ni pagos (importación); en la transacción en curso
+     */
+    public void recordCreated(Collection<ExposureKey> keys) {
+        if (!available) {
+            return;
+        }
+        SortedMap<ExposureKey, Delta> deltas = new TreeMap<>();
+        for (ExposureKey key : keys) {
+            if (key != null) {
+                deltas.computeIfAbsent(key, k -> new Delta()).add(1, BigDecimal.ZERO, BigDecimal.ZERO);
+            }
+        }
+        apply(deltas, null, "CLAIMS_IMPORTED");
+    }
+
+    /**
+     * Variación del importe reclamado de los ítems de una reclamación; en la transacción en curso
+     */
+    public void recordClaimedChange(Long claimId, ExposureKey key, BigDecimal claimedDelta) {
+        if (!available || key == null || claimedDelta == null || claimedDelta.signum() == 0) {
+            return;
+        }
+        SortedMap<ExposureKey, Delta> deltas = new TreeMap<>();
+        deltas.computeIfAbsent(key, k -> new Delta()).add(0, claimedDelta, BigDecimal.ZERO);
+        apply(deltas, claimId, "ITEM_CHANGED");
+    }
+
+    /**
+     * Cambio de grupo (estado, tipo o mes) de una reclamación; en la transacción en curso
+     */
+    public void recordMove(Long claimId, ExposureKey from, ExposureKey to) {
+        recordMoves(List.of(new Move(claimId, from, to)));
+    }
+
+    /**
+     * Cambios de grupo de varias reclamaciones; lee sus importes con una consulta
+     * por cada 1000 reclamaciones, en la transacción en curso
+     */
+    public void recordMoves(List<Move> moves) {
+        if (!available) {
+            return;
+        }
+        List<Move> effective = moves.stream()
+                .filter(move -> !Objects.equals(move.from(), move.to()))
+                .toList();
+        if (effective.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Amounts> amounts = loadAmounts(effective.stream().map(Move::claimId).distinct().toList());
+        SortedMap<ExposureKey, Delta> deltas = new TreeMap<>();
+        for (Move move : effective) {
+            Amounts claimAmounts = amounts.getOrDefault(move.claimId(), new Amounts(BigDecimal.ZERO, BigDecimal.ZERO));
+            if (move.from() != null) {
+                deltas.computeIfAbsent(move.from(), k -> new Delta())
+                        .add(-1, claimAmounts.claimed().negate(), claimAmounts.paid().negate());
+            }
+            if (move.to() != null) {
+                deltas.computeIfAbsent(move.to(), k -> new Delta())
+                        .add(1, claimAmounts.claimed(), claimAmounts.paid());
+            }
+        }
+        apply(deltas, effective.size() == 1 ? effective.get(0).claimId() : null, "CLAIM_MOVED");
+    }
+
+    private Map<Long, Amounts> loadAmounts(List<Long> claimIds) {
+        Map<Long, Amounts> amounts = new HashMap<>();
+        for (int from = 0; from < claimIds.size(); from += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = claimIds.subList(from, Math.min(from + IN_CLAUSE_LIMIT, claimIds.size()));
+            namedJdbcTemplate.query(CLAIM_AMOUNTS_SQL, new MapSqlParameterSource("ids", chunk), rs -> {
+                amounts.put(rs.getLong("ID"),
+                        new Amounts(rs.getBigDecimal("CLAIMED_AMOUNT"), rs.getBigDecimal("PAID_AMOUNT")));
+            });
+        }
+        return amounts;
+    }
+
+    /**
+     * Aplica las variaciones a los totales y las anota en el diario, en orden de clave
+     */
+    private void apply(SortedMap<ExposureKey, Delta> deltas, Long claimId, String reason) {
+        List<Object[]> journal = new ArrayList<>(deltas.size());
+        for (Map.Entry<ExposureKey, Delta> entry : deltas.entrySet()) {
+            ExposureKey key = entry.getKey();
+            Delta delta = entry.getValue();
+            if (delta.isZero()) {
+                continue;
+            }
+            Object[] values = {delta.count, delta.claimed, delta.paid,
+                    key.claimType().name(), key.status().name(), Date.valueOf(key.month())};
+            if (jdbcTemplate.update(UPDATE_TOTAL_SQL, values) == 0) {
+                try {
+                    jdbcTemplate.update(INSERT_TOTAL_SQL, values);
+                } catch (DuplicateKeyException e) {
+                    // Otra transacción acaba de crear el grupo
+                    jdbcTemplate.update(UPDATE_TOTAL_SQL, values);
+                }
+            }
+            journal.add(new Object[]{claimId, reason, key.claimType().name(), key.status().name(),
+                    Date.valueOf(key.month()), delta.count, delta.claimed, delta.paid});
+        }
+        if (!journal.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_DELTA_SQL, journal);
+        }
+    }
+
+    /**
+     * Exposición vigente
+     */
+    public ExposureReport getExposure() {
+        if (!available) {
+            return toReport(LocalDateTime.now(), List.of());
+        }
+        return toReport(LocalDateTime.now(), jdbcTemplate.query(SELECT_TOTALS_SQL, (rs, rowNum) -> toRow(rs)));
+    }
+
+    /**
+     * Exposición en un momento pasado: instantánea del último día anterior más las variaciones
+     * hasta {@code at}
+     */
+    public ExposureReport getExposureAt(LocalDateTime at) {
+        if (!available) {
+            return toReport(at, List.of());
+        }
+        LocalDate oldest = oldestSnapshotDay();
+        if (oldest != null && !at.toLocalDate().isAfter(oldest)) {
+            throw new BusinessValidationException("Sólo se puede reconstruir la exposición posterior al " + oldest.plusDays(1));
+        }
+        return toReport(at, namedJdbcTemplate.query(POINT_IN_TIME_SQL, pointInTimeParams(at),
+                (rs, rowNum) -> toRow(rs)));
+    }
+
+    private MapSqlParameterSource pointInTimeParams(LocalDateTime at) {
+        Date lastSnapshot = jdbcTemplate.queryForObject(LAST_SNAPSHOT_BEFORE_SQL, Date.class,
+                Date.valueOf(at.toLocalDate()));
+        return new MapSqlParameterSource()
+                .addValue("snapshotDay", lastSnapshot)
+                .addValue("foldedUntil", lastSnapshot != null ? lastSnapshot : BEGINNING)
+                .addValue("deltasTo", Timestamp.valueOf(at));
+    }
+
+    /**
+     * Guarda la instantánea del día anterior y purga las instantáneas y variaciones
+     * fuera de la retención
+     *
+     * Recoge las variaciones anotadas antes de la medianoche que ya están confirmadas;
+     * las que se confirmen después quedan sin marcar y entran en la instantánea del día
+     * siguiente. Si otra instancia ya la ha guardado, no hace nada.
+     */
+    @Scheduled(cron = "${app.claims.exposure.snapshot-cron:0 20 0 * * *}")
+    public void takeDailySnapshot() {
+        if (!available) {
+            return;
+        }
+        LocalDate day = LocalDate.now().minusDays(1);
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                Long existing = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM CLAIM_EXPOSURE_SNAPSHOTS WHERE SNAPSHOT_DAY = ?", Long.class,
+                        Date.valueOf(day));
+                if (existing != null && existing > 0) {
+                    return;
+                }
+                Date previousDay = jdbcTemplate.queryForObject(LAST_SNAPSHOT_BEFORE_SQL, Date.class, Date.valueOf(day));
+                jdbcTemplate.update(FOLD_DELTAS_SQL, Date.valueOf(day), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+                MapSqlParameterSource params = new MapSqlParameterSource()
+                        .addValue("day", Date.valueOf(day))
+                        .addValue("previousDay", previousDay);
+                int groups = namedJdbcTemplate.update(INSERT_SNAPSHOT_SQL, params);
+                log.info("Instantánea de exposición del {} guardada: {} grupos", day, groups);
+            });
+        } catch (DuplicateKeyException e) {
+            log.debug("La instantánea de exposición del {} ya la ha guardado otra instancia", day);
+        }
+
+        purge(day.minusDays(snapshotRetentionDays));
+    }
+
+    private void purge(LocalDate before) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            jdbcTemplate.update("DELETE FROM CLAIM_EXPOSURE_SNAPSHOTS WHERE SNAPSHOT_DAY < ?", Date.valueOf(before));
+            LocalDate oldest = oldestSnapshotDay();
+            if (oldest != null) {
+                // Las variaciones marcadas hasta la instantánea más antigua ya están recogidas en ella
+                int purged = jdbcTemplate.update("DELETE FROM CLAIM_EXPOSURE_DELTAS WHERE SNAPSHOT_DAY <= ?",
+                        Date.valueOf(oldest));
+                if (purged > 0) {
+                    log.info("Purgadas {} variaciones de exposición recogidas hasta el {}", purged, oldest);
+                }
+            }
+        });
+    }
+
+    /**
+     * Recalcula los grupos desde las tablas de origen y anota la diferencia con los totales
+     *
+     * Una primera pasada sin bloqueos localiza los grupos con diferencias. Cada uno se
+     * corrige después en su propia transacción: bloquea su fila de totales (las altas y
+     * cambios de ese grupo esperan, el resto sigue) y vuelve a calcular sólo ese grupo,
+     * así que totales y tablas de origen se comparan con las mismas transacciones
+     * confirmadas. Una diferencia que la primera pasada no vea por una carrera se
+     * corrige en la siguiente reconciliación.
+     */
+    @Scheduled(cron = "${app.claims.exposure.reconcile-cron:0 40 0 * * *}")
+    public void reconcile() {
+        if (!available) {
+            log.warn("Agregación de exposición desactivada, no se reconcilia");
+            return;
+        }
+        if (!reconciling.compareAndSet(false, true)) {
+            log.info("Ya hay una reconciliación de exposición en curso");
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            SortedMap<ExposureKey, Delta> differences = new TreeMap<>();
+            jdbcTemplate.query(EXPECTED_TOTALS_SQL, rs -> {
+                differences.computeIfAbsent(toKey(rs), k -> new Delta())
+                        .add(rs.getLong("CLAIM_COUNT"), rs.getBigDecimal("CLAIMED_AMOUNT"),
+                                rs.getBigDecimal("PAID_AMOUNT"));
+            });
+            jdbcTemplate.query(SELECT_TOTALS_SQL, rs -> {
+                differences.computeIfAbsent(toKey(rs), k -> new Delta())
+                        .add(-rs.getLong("CLAIM_COUNT"), rs.getBigDecimal("CLAIMED_AMOUNT").negate(),
+                                rs.getBigDecimal("PAID_AMOUNT").negate());
+            });
+            differences.values().removeIf(Delta::isZero);
+
+            int corrected = 0;
+            for (ExposureKey key : differences.keySet()) {
+                if (reconcileGroup(key)) {
+                    corrected++;
+                }
+            }
+            if (corrected > 0) {
+                log.info("Exposición reconciliada: {} grupos corregidos en {} ms",
+                        corrected, System.currentTimeMillis() - start);
+            } else {
+                log.debug("Exposición reconciliada sin diferencias en {} ms", System.currentTimeMillis() - start);
+            }
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    /**
+     * Corrige un grupo con su fila de totales bloqueada; true si había diferencia
+     */
+    private boolean reconcileGroup(ExposureKey key) {
+        Object[] keyValues = {key.claimType().name(), key.status().name(), Date.valueOf(key.month())};
+        return Boolean.TRUE.equals(transactionTemplate.execute(tx -> {
+            List<Delta> current = jdbcTemplate.query(LOCK_TOTAL_SQL, (rs, rowNum) -> totalsOf(rs), keyValues);
+            if (current.isEmpty()) {
+                // Fila a cero para tener algo que bloquear; si otra transacción acaba de
+                // crearla, se bloquea la suya
+                try {
+                    jdbcTemplate.update(INSERT_TOTAL_SQL, 0L, BigDecimal.ZERO, BigDecimal.ZERO,
+                            keyValues[0], keyValues[1], keyValues[2]);
+                } catch (DuplicateKeyException e) {
+                    log.debug("Grupo de exposición {} creado por otra transacción", key);
+                }
+                current = jdbcTemplate.query(LOCK_TOTAL_SQL, (rs, rowNum) -> totalsOf(rs), keyValues);
+            }
+
+            Delta delta = new Delta();
+            jdbcTemplate.query(EXPECTED_GROUP_SQL, rs -> {
+                delta.add(rs.getLong("CLAIM_COUNT"), rs.getBigDecimal("CLAIMED_AMOUNT"), rs.getBigDecimal("PAID_AMOUNT"));
+            }, keyValues[0], keyValues[1], keyValues[2], Date.valueOf(key.month().plusMonths(1)));
+            for (Delta total : current) {
+                delta.add(-total.count, total.claimed.negate(), total.paid.negate());
+            }
+            if (delta.isZero()) {
+                return false;
+            }
+            SortedMap<ExposureKey, Delta> deltas = new TreeMap<>();
+            deltas.put(key, delta);
+            apply(deltas, null, "RECONCILE");
+            return true;
+        }));
+    }
+
+    private static Delta totalsOf(ResultSet rs) throws SQLException {
+        Delta totals = new Delta();
+        totals.add(rs.getLong("CLAIM_COUNT"), rs.getBigDecimal("CLAIMED_AMOUNT"), rs.getBigDecimal("PAID_AMOUNT"));
+        return totals;
+    }
+
+    private LocalDate oldestSnapshotDay() {
+        Date oldest = jdbcTemplate.queryForObject("SELECT MIN(SNAPSHOT_DAY) FROM CLAIM_EXPOSURE_SNAPSHOTS", Date.class);
+        return oldest != null ? oldest.toLocalDate() : null;
+    }
+
+    private ExposureKey toKey(ResultSet rs) throws SQLException {
+        return new ExposureKey(Claim.ClaimType.valueOf(rs.getString("CLAIM_TYPE")),
+                Claim.ClaimStatus.valueOf(rs.getString("STATUS")),
+                rs.getDate("EXPOSURE_MONTH").toLocalDate());
+    }
+
+    private ExposureRow toRow(ResultSet rs) throws SQLException {
+        ExposureKey key = toKey(rs);
+        BigDecimal claimed = rs.getBigDecimal("CLAIMED_AMOUNT");
+        BigDecimal paid = rs.getBigDecimal("PAID_AMOUNT");
+        return new ExposureRow(key.claimType(), key.status(), key.month(), rs.getLong("CLAIM_COUNT"),
+                claimed, paid, claimed.subtract(paid));
+    }
+
+    private ExposureReport toReport(LocalDateTime asOf, List<ExposureRow> rows) {
+        List<ExposureRow> groups = rows.stream()
+                .filter(row -> row.claimCount() != 0 || row.claimedAmount().signum() != 0 || row.paidAmount().signum() != 0)
+                .sorted(Comparator.comparing(ExposureRow::claimType)
+                        .thenComparing(ExposureRow::status)
+                        .thenComparing(ExposureRow::month))
+                .toList();
+
+        BigDecimal openExposure = BigDecimal.ZERO;
+        Map<Claim.ClaimType, BigDecimal> byType = new EnumMap<>(Claim.ClaimType.class);
+        for (ExposureRow row : groups) {
+            if (!CLOSED_STATUSES.contains(row.status())) {
+                openExposure = openExposure.add(row.exposure());
+                byType.merge(row.claimType(), row.exposure(), BigDecimal::add);
+            }
+        }
+        return new ExposureReport(asOf, openExposure, byType, groups);
+    }
+}
@@ -8,10 +8,13 @@ import com.insurtech.claim.model.entity.ClaimDocument;
 import com.insurtech.claim.repository.ClaimDocumentRepository;
 import com.insurtech.claim.repository.ClaimRepository;
 import com.insurtech.claim.service.ClaimDocumentService;
+import com.insurtech.claim.service.storage.ContentAddressedDocumentStore;
 import com.insurtech.claim.util.EntityDtoMapper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,10 +22,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -38,9 +40,7 @@ public class ClaimDocumentServiceImpl implements ClaimDocumentService {
     private final ClaimRepository claimRepository;
     private final ClaimDocumentRepository documentRepository;
     private final EntityDtoMapper mapper;
-
-    // Configuración para almacenamiento de archivos
-    private final String uploadDir = "uploads/claims";
+    private final ContentAddressedDocumentStore documentStore;
 
     @Override
     @Transactional
@@ -66,16 +66,14 @@ public class ClaimDocumentServiceImpl implements ClaimDocumentService {
         String fileExtension = getFileExtension(originalFilename);
         String newFilename = UUID.randomUUID().toString() + fileExtension;
 
-        // Crear carpeta si no existe
-        String claimFolder = uploadDir + "/" + claim.getClaimNumber();
-        Path uploadPath = Paths.get(claimFolder);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        // Guardar el contenido por su hash: las copias del mismo fichero comparten almacenamiento
+        ContentAddressedDocumentStore.StoredContent stored;
+        try (InputStream content = file.getInputStream()) {
+            stored = documentStore.store(content);
+        }
+        if (stored.deduplicated()) {
+            log.info("Contenido del documento ya almacenado ({}), no se duplica en disco", stored.hash());
         }
-
-        // Guardar archivo en el sistema de archivos
-        Path targetLocation = uploadPath.resolve(newFilename);
-        Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
 
         // Crear entidad ClaimDocument
         ClaimDocument document = new ClaimDocument();
@@ -84,9 +82,9 @@ public class ClaimDocumentServiceImpl implements ClaimDocumentService {
         document.setDescription(description);
         document.setDocumentType(documentType);
         document.setFileName(newFilename);
-        document.setFilePath(claimFolder + "/" + newFilename);
+        document.setFilePath(stored.filePath());
         document.setMimeType(file.getContentType());
-        document.setFileSize(file.getSize());
+        document.setFileSize(stored.size());
         document.setVerified(false);
         document.setUploadDate(LocalDateTime.now());
         document.setUploadedBy(getCurrentUsername());
@@ -161,34 +159,29 @@ public class ClaimDocumentServiceImpl implements ClaimDocumentService {
 
     @Override
     @Transactional(readOnly = true)
-    public byte[] downloadDocument(Long documentId) throws IOException {
+    public Resource downloadDocument(Long documentId) throws IOException {
         log.info("Descargando documento con ID: {}", documentId);
 
         ClaimDocument document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Documento no encontrado con ID: " + documentId));
 
-        Path filePath = Paths.get(document.getFilePath());
-        if (!Files.exists(filePath)) {
-            throw new IOException("El archivo no existe en el sistema de archivos: " + document.getFilePath());
-        }
-
-        return Files.readAllBytes(filePath);
+        return toResource(document);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public byte[] downloadDocumentByClaimNumberAndTitle(String claimNumber, String title) throws IOException {
+    public Resource downloadDocumentByClaimNumberAndTitle(String claimNumber, String title) throws IOException {
         log.info("Descargando documento con título: {} para reclamación número: {}", title, claimNumber);
 
         // Obtener el documento
         ClaimDocument document = findDocumentEntityByClaimNumberAndTitle(claimNumber, title);
 
-        Path filePath = Paths.get(document.getFilePath());
-        if (!Files.exists(filePath)) {
-            throw new IOException("El archivo no existe en el sistema de archivos: " + document.getFilePath());
-        }
+        return toResource(document);
+    }
 
-        return Files.readAllBytes(filePath);
+    @Override
+    public String getContentHash(ClaimDocumentDto document) {
+        return document.getFilePath() != null ? documentStore.hashOf(document.getFilePath()) : null;
     }
 
     @Override
@@ -254,19 +247,9 @@ public class ClaimDocumentServiceImpl implements ClaimDocumentService {
         ClaimDocument document = documentRepository.findById(documentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Documento no encontrado con ID: " + documentId));
 
-        // Eliminar archivo físico si existe
-        try {
-            Path filePath = Paths.get(document.getFilePath());
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-            }
-        } catch (IOException e) {
-            log.warn("No se pudo eliminar el archivo físico: {}", e.getMessage());
-            // Continuar con la eliminación de la entidad
-        }
-
-        // Eliminar entidad
+        // Eliminar entidad; el archivo físico se libera tras el commit si ya no lo usa ningún documento
         documentRepository.delete(document);
+        documentStore.releaseAfterCommit(document.getFilePath());
 
         log.info("Documento eliminado con éxito. ID: {}", documentId);
     }
@@ -279,19 +262,9 @@ public class ClaimDocumentServiceImpl implements ClaimDocumentService {
         // Obtener el documento
         ClaimDocument document = findDocumentEntityByClaimNumberAndTitle(claimNumber, title);
 
-        // Eliminar archivo físico si existe
-        try {
-            Path filePath = Paths.get(document.getFilePath());
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-            }
-        } catch (IOException e) {
-            log.warn("No se pudo eliminar el archivo físico: {}", e.getMessage());
-            // Continuar con la eliminación de la entidad
-        }
-
-        // Eliminar entidad
+        // Eliminar entidad; el archivo físico se libera tras el commit si ya no lo usa ningún documento
         documentRepository.delete(document);
+        documentStore.releaseAfterCommit(document.getFilePath());
 
         log.info("Documento eliminado con éxito. ID: {}", document.getId());
     }
@@ -382,6 +355,17 @@ public class ClaimDocumentServiceImpl implements ClaimDocumentService {
         return filename.substring(lastDotIndex);
     }
 
+    /**
+     * Recurso en disco del documento, leído en streaming por el conversor de Spring
+     */
+    private Resource toResource(ClaimDocument document) throws IOException {
+        Path filePath = documentStore.resolve(document.getFilePath());
+        if (!Files.exists(filePath)) {
+            throw new IOException("El archivo no existe en el sistema de archivos: " + document.getFilePath());
+        }
+        return new FileSystemResource(filePath);
+    }
+
     /**
      * Obtiene el nombre de usuario actual
      */
@@ -8,6 +8,7 @@ import com.insurtech.claim.exception.ClaimNotFoundException;
 import com.insurtech.claim.exception.ResourceNotFoundException;
 import com.insurtech.claim.model.dto.ClaimDto;
 import com.insurtech.claim.model.dto.ClaimItemDto;
+import com.insurtech.claim.model.dto.ClaimSearchPageDto;
 import com.insurtech.claim.model.dto.ClaimSearchRequestDto;
 import com.insurtech.claim.model.dto.ClaimSummaryDto;
 import com.insurtech.claim.model.entity.Claim;
@@ -17,15 +18,30 @@ import com.insurtech.claim.repository.ClaimItemRepository;
 import com.insurtech.claim.repository.ClaimRepository;
 import com.insurtech.claim.repository.ClaimStatusHistoryRepository;
 import com.insurtech.claim.service.ClaimService;
+import com.insurtech.claim.service.customer.CustomerIdentityResolver;
+import com.insurtech.claim.service.dashboard.ClaimDashboardAggregator;
+import com.insurtech.claim.service.duplicate.ClaimSimilarityIndex;
+import com.insurtech.claim.service.enrichment.PolicyEnrichmentService;
+import com.insurtech.claim.service.exposure.ClaimExposureLedger;
+import com.insurtech.claim.service.lifecycle.ClaimLifecycleMetrics;
+import com.insurtech.claim.service.reporting.ClaimReportingEngine;
+import com.insurtech.claim.service.search.ClaimQueryEngine;
+import com.insurtech.claim.service.triage.ClaimTriageEngine;
+import com.insurtech.claim.service.triage.TriageResult;
 import com.insurtech.claim.util.EntityDtoMapper;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -34,6 +50,7 @@ import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 @Service
@@ -42,6 +59,7 @@ public class ClaimServiceImpl implements ClaimService {
 
     private static final Logger log = LoggerFactory.getLogger(ClaimServiceImpl.class);
 
+    // Motivo añadido al triaje cuando se descarta la aprobación automática en el alta
     private final ClaimRepository claimRepository;
     private final ClaimItemRepository claimItemRepository;
     private final ClaimStatusHistoryRepository statusHistoryRepository;
@@ -49,6 +67,15 @@ public class ClaimServiceImpl implements ClaimService {
     private final ClaimEventProducer eventProducer;
     private final CustomerClient customerClient;
     private final PolicyClient policyClient;
+    private final ClaimDashboardAggregator dashboardAggregator;
+    private final PolicyEnrichmentService policyEnrichmentService;
+    private final ClaimQueryEngine claimQueryEngine;
+    private final CustomerIdentityResolver customerIdentityResolver;
+    private final ClaimLifecycleMetrics lifecycleMetrics;
+    private final ClaimTriageEngine triageEngine;
+    private final ClaimSimilarityIndex similarityIndex;
+    private final ClaimExposureLedger exposureLedger;
+    private final ClaimReportingEngine reportingEngine;
 
     @Override
     @Transactional
@@ -81,6 +108,31 @@ public class ClaimServiceImpl implements ClaimService {
         claim.setCreatedBy(getCurrentUsername());
         claim.setUpdatedBy(getCurrentUsername());
 
+        // Posibles duplicados: pasan a revisión sin triaje para no aprobarlos automáticamente
+        List<ClaimSimilarityIndex.PossibleDuplicate> duplicates =
+                similarityIndex.findPossibleDuplicates(similarityIndex.fingerprint(claim));
+        if (!duplicates.isEmpty()) {
+            String comment = ClaimSimilarityIndex.describe(duplicates);
+            log.info("Reclamación del cliente {} marcada como posible duplicado: {}", claim.getCustomerNumber(), comment);
+            claim.setStatus(Claim.ClaimStatus.UNDER_REVIEW);
+            claim.setHandlerComments(claim.getHandlerComments() == null || claim.getHandlerComments().isEmpty()
+                    ? comment
+                    : claim.getHandlerComments() + "\n" + comment);
+        }
+
+        // Triaje en línea: aprobación automática, marca de sospecha o envío a revisión
+        TriageResult triage = TriageResult.NONE;
+        if (duplicates.isEmpty() && claim.getStatus() == Claim.ClaimStatus.SUBMITTED) {
+            triage = triageEngine.evaluate(claim, claim.getItems(),
+                    triageEngine.countRecentClaims(claim.getCustomerNumber()) + 1);
+            // La cobertura de los ítems llega en la petición: si la declara el propio
+            // cliente no se aprueba automáticamente hasta que un gestor la confirme
+            if (!isClaimHandler()) {
+                triage = triageEngine.withUnverifiedCoverage(triage);
+            }
+            triageEngine.apply(claim, claim.getItems(), triage);
+        }
+
         // Guardar la reclamación
         claim = claimRepository.save(claim);
 
@@ -88,12 +140,28 @@ public class ClaimServiceImpl implements ClaimService {
         ClaimStatusHistory statusHistory = new ClaimStatusHistory();
         statusHistory.setClaim(claim);
         statusHistory.setNewStatus(claim.getStatus());
-        statusHistory.setChangeReason("Reclamación creada");
+        if (!duplicates.isEmpty()) {
+            statusHistory.setChangeReason("Reclamación creada; posible duplicado");
+        } else {
+            statusHistory.setChangeReason(triage.decision() == TriageResult.Decision.NONE
+                    ? "Reclamación creada"
+                    : "Reclamación creada; triaje " + triage.decision() + " (" + String.join(", ", triage.ruleIds()) + ")");
+        }
         statusHistory.setCreatedBy(getCurrentUsername());
         statusHistoryRepository.save(statusHistory);
 
-        // Publicar evento de reclamación creada
-        //eventProducer.publishClaimCreated(claim);
+        // Totales de exposición, en esta misma transacción
+        exposureLedger.recordCreated(claim);
+        // Los informes en caché de esta instancia se descartan al confirmarse
+        reportingEngine.invalidateAfterCommit();
+
+        // Visible para las siguientes altas de esta instancia en cuanto se confirme
+        similarityIndex.putAfterCommit(claim);
+
+        // Publicar evento de reclamación creada cuando se confirme, para que quien lo
+        // consuma ya pueda leerla
+        Claim created = claim;
+        publishAfterCommit(() -> eventProducer.publishClaimCreated(created));
 
         log.info("Reclamación creada con éxito. ID: {}, Número: {}", claim.getId(), claim.getClaimNumber());
 
@@ -126,111 +194,9 @@ public class ClaimServiceImpl implements ClaimService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClaimDto> advancedSearch(ClaimSearchRequestDto searchRequest) {
+    public ClaimSearchPageDto advancedSearch(ClaimSearchRequestDto searchRequest) {
         log.debug("Realizando búsqueda avanzada de reclamaciones");
-
-        List<Claim> results = new ArrayList<>();
-
-        // Si se proporciona número de reclamación, es búsqueda directa
-        if (searchRequest.getClaimNumber() != null && !searchRequest.getClaimNumber().isEmpty()) {
-            claimRepository.findByClaimNumber(searchRequest.getClaimNumber())
-                    .ifPresent(results::add);
-            return results.stream().map(mapper::toDto).collect(Collectors.toList());
-        }
-
-        // Si se proporciona número de póliza
-        if (searchRequest.getPolicyNumber() != null && !searchRequest.getPolicyNumber().isEmpty()) {
-            results = claimRepository.findByPolicyNumber(searchRequest.getPolicyNumber());
-        }
-        // Si se proporciona número de cliente
-        else if (searchRequest.getCustomerNumber() != null && !searchRequest.getCustomerNumber().isEmpty()) {
-            results = claimRepository.findByCustomerNumber(searchRequest.getCustomerNumber());
-        }
-        // Si se proporciona email de cliente
-        else if (searchRequest.getCustomerEmail() != null && !searchRequest.getCustomerEmail().isEmpty()) {
-            results = getClaimsByCustomerEmail(searchRequest.getCustomerEmail())
-                    .stream()
-                    .map(mapper::toEntity)
-                    .collect(Collectors.toList());
-        }
-        // Si se proporciona identificación de cliente
-        else if (searchRequest.getIdentificationNumber() != null && searchRequest.getIdentificationType() != null) {
-            try {
-                Map<String, Object> customer = customerClient.getCustomerByIdentification(
-                        searchRequest.getIdentificationNumber(), searchRequest.getIdentificationType());
-                String customerNumber = (String) customer.get("customerNumber");
-                results = claimRepository.findByCustomerNumber(customerNumber);
-            } catch (Exception e) {
-                log.error("Error al buscar cliente por identificación", e);
-                // Continuar con lista vacía
-            }
-        }
-        // Si no hay criterios específicos, usar los filtros de fecha y estado
-        else {
-            LocalDate from = searchRequest.getIncidentDateFrom();
-            LocalDate to = searchRequest.getIncidentDateTo();
-
-            if (from != null && to != null) {
-                results = claimRepository.findByIncidentDateBetween(from, to);
-            } else if (searchRequest.getStatuses() != null && !searchRequest.getStatuses().isEmpty()) {
-                results = new ArrayList<>();
-                for (Claim.ClaimStatus status : searchRequest.getStatuses()) {
-                    results.addAll(claimRepository.findByStatus(status));
-                }
-            } else {
-                throw new BusinessValidationException("Se requieren criterios de búsqueda");
-            }
-        }
-
-        // Aplicar filtros adicionales
-        List<Claim> filteredResults = results;
-
-        // Filtrar por estado
-        if (searchRequest.getStatuses() != null && !searchRequest.getStatuses().isEmpty()) {
-            filteredResults = filteredResults.stream()
-                    .filter(claim -> searchRequest.getStatuses().contains(claim.getStatus()))
-                    .collect(Collectors.toList());
-        }
-
-        // Filtrar por tipo
-        if (searchRequest.getTypes() != null && !searchRequest.getTypes().isEmpty()) {
-            filteredResults = filteredResults.stream()
-                    .filter(claim -> searchRequest.getTypes().contains(claim.getClaimType()))
-                    .collect(Collectors.toList());
-        }
-
-        // Filtrar por rango de fechas de incidente
-        if (searchRequest.getIncidentDateFrom() != null && searchRequest.getIncidentDateTo() != null) {
-            filteredResults = filteredResults.stream()
-                    .filter(claim -> !claim.getIncidentDate().isBefore(searchRequest.getIncidentDateFrom())
-                            && !claim.getIncidentDate().isAfter(searchRequest.getIncidentDateTo()))
-                    .collect(Collectors.toList());
-        }
-
-        // Filtrar por valor alto
-        if (searchRequest.getHighValue() != null && searchRequest.getHighValue()) {
-            BigDecimal threshold = new BigDecimal("10000.00"); // Umbral configurable
-            filteredResults = filteredResults.stream()
-                    .filter(claim -> claim.getEstimatedAmount() != null
-                            && claim.getEstimatedAmount().compareTo(threshold) > 0)
-                    .collect(Collectors.toList());
-        }
-
-        // Filtrar por días abiertos
-        if (searchRequest.getDaysOpen() != null) {
-            final int daysOpen = searchRequest.getDaysOpen();
-            filteredResults = filteredResults.stream()
-                    .filter(claim -> {
-                        if (claim.getSubmissionDate() == null) return false;
-                        long daysBetween = ChronoUnit.DAYS.between(claim.getSubmissionDate(), LocalDateTime.now());
-                        return daysBetween >= daysOpen;
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        return filteredResults.stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        return claimQueryEngine.search(searchRequest);
     }
 
     @Override
@@ -244,25 +210,21 @@ public class ClaimServiceImpl implements ClaimService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClaimDto> getClaimsByCustomerNumber(String customerNumber) {
+    public Page<ClaimSummaryDto> getClaimsByCustomerNumber(String customerNumber, boolean includeItemTotals,
+                                                           Pageable pageable) {
         log.debug("Obteniendo reclamaciones para el cliente número: {}", customerNumber);
-        return claimRepository.findByCustomerNumber(customerNumber).stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        return toSummaryPage(claimRepository.findListViewByCustomerNumber(customerNumber, pageable),
+                includeItemTotals, false);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClaimDto> getClaimsByCustomerEmail(String email) {
+    public Page<ClaimSummaryDto> getClaimsByCustomerEmail(String email, boolean includeItemTotals,
+                                                          Pageable pageable) {
         log.debug("Obteniendo reclamaciones para el cliente email: {}", email);
-        try {
-            Map<String, Object> customer = customerClient.getCustomerByEmail(email);
-            String customerNumber = (String) customer.get("customerNumber");
-            return getClaimsByCustomerNumber(customerNumber);
-        } catch (Exception e) {
-            log.error("Error al obtener cliente por email: {}", email, e);
-            return Collections.emptyList();
-        }
+        return customerIdentityResolver.resolveByEmail(email)
+                .map(customerNumber -> getClaimsByCustomerNumber(customerNumber, includeItemTotals, pageable))
+                .orElseGet(() -> Page.empty(pageable));
     }
 
     @Override
@@ -276,11 +238,11 @@ public class ClaimServiceImpl implements ClaimService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClaimDto> getClaimsByPolicyNumber(String policyNumber) {
+    public Page<ClaimSummaryDto> getClaimsByPolicyNumber(String policyNumber, boolean includeItemTotals,
+                                                         Pageable pageable) {
         log.debug("Obteniendo reclamaciones para la póliza número: {}", policyNumber);
-        return claimRepository.findByPolicyNumber(policyNumber).stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        return toSummaryPage(claimRepository.findListViewByPolicyNumber(policyNumber, pageable),
+                includeItemTotals, false);
     }
 
     @Override
@@ -293,6 +255,7 @@ public class ClaimServiceImpl implements ClaimService {
 
         // Backup del estado anterior para evento de cambio de estado
         Claim.ClaimStatus oldStatus = claim.getStatus();
+        ClaimExposureLedger.ExposureKey previousExposure = ClaimExposureLedger.ExposureKey.of(claim);
 
         // Validar que no se pueda actualizar una reclamación cerrada o cancelada
         if (claim.getStatus() == Claim.ClaimStatus.CLOSED || claim.getStatus() == Claim.ClaimStatus.CANCELLED) {
@@ -313,8 +276,20 @@ public class ClaimServiceImpl implements ClaimService {
         // Guardar la reclamación actualizada
         claim = claimRepository.save(claim);
 
+        // Mover sus importes de grupo de exposición si cambió el tipo, el estado o el mes
+        exposureLedger.recordMove(claim.getId(), previousExposure, ClaimExposureLedger.ExposureKey.of(claim));
+        // Los informes en caché de esta instancia se descartan al confirmarse
+        reportingEngine.invalidateAfterCommit();
+
         // Crear registro de historial de estado si cambió
+        Claim updated = claim;
         if (oldStatus != claim.getStatus()) {
+            // Momento en que la reclamación entró en el estado anterior
+            LocalDateTime enteredAt = statusHistoryRepository.findLastChangeAt(id);
+            if (enteredAt == null) {
+                enteredAt = claim.getSubmissionDate() != null ? claim.getSubmissionDate() : claim.getCreatedAt();
+            }
+
             ClaimStatusHistory statusHistory = new ClaimStatusHistory();
             statusHistory.setClaim(claim);
             statusHistory.setPreviousStatus(oldStatus);
@@ -323,12 +298,15 @@ public class ClaimServiceImpl implements ClaimService {
             statusHistory.setCreatedBy(getCurrentUsername());
             statusHistoryRepository.save(statusHistory);
 
+            lifecycleMetrics.recordAfterCommit(oldStatus, claim.getStatus(), claim.getClaimType(), enteredAt,
+                    LocalDateTime.now());
+
             // Publicar evento de cambio de estado
-            eventProducer.publishClaimStatusChanged(claim, oldStatus);
+            publishAfterCommit(() -> eventProducer.publishClaimStatusChanged(updated, oldStatus));
         }
 
         // Publicar evento de reclamación actualizada
-        eventProducer.publishClaimUpdated(claim);
+        publishAfterCommit(() -> eventProducer.publishClaimUpdated(updated));
 
         log.info("Reclamación actualizada con éxito. ID: {}", id);
 
@@ -354,10 +332,17 @@ public class ClaimServiceImpl implements ClaimService {
                 .orElseThrow(() -> new ClaimNotFoundException("Reclamación no encontrada con ID: " + id));
 
         Claim.ClaimStatus oldStatus = claim.getStatus();
+        ClaimExposureLedger.ExposureKey previousExposure = ClaimExposureLedger.ExposureKey.of(claim);
 
         // Validar transición de estado
         validateStatusTransition(claim.getStatus(), status);
 
+        // Momento en que la reclamación entró en el estado actual
+        LocalDateTime enteredAt = statusHistoryRepository.findLastChangeAt(id);
+        if (enteredAt == null) {
+            enteredAt = claim.getSubmissionDate() != null ? claim.getSubmissionDate() : claim.getCreatedAt();
+        }
+
         // Actualizar estado y campos relacionados
         claim.setStatus(status);
         if (comments != null) claim.setHandlerComments(comments);
@@ -409,8 +394,16 @@ public class ClaimServiceImpl implements ClaimService {
         statusHistory.setCreatedBy(getCurrentUsername());
         statusHistoryRepository.save(statusHistory);
 
+        exposureLedger.recordMove(claim.getId(), previousExposure, ClaimExposureLedger.ExposureKey.of(claim));
+        // Los informes en caché de esta instancia se descartan al confirmarse
+        reportingEngine.invalidateAfterCommit();
+
+        // Acumular la duración de la transición en las métricas de ciclo de vida
+        lifecycleMetrics.recordAfterCommit(oldStatus, status, claim.getClaimType(), enteredAt, LocalDateTime.now());
+
         // Publicar evento de cambio de estado
-        eventProducer.publishClaimStatusChanged(claim, oldStatus);
+        Claim changed = claim;
+        publishAfterCommit(() -> eventProducer.publishClaimStatusChanged(changed, oldStatus));
 
         log.info("Estado de reclamación actualizado con éxito. ID: {}", id);
 
@@ -429,71 +422,28 @@ public class ClaimServiceImpl implements ClaimService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClaimDto> getClaimsByStatus(Claim.ClaimStatus status) {
+    public Page<ClaimSummaryDto> getClaimsByStatus(Claim.ClaimStatus status, boolean includeItemTotals,
+                                                   Pageable pageable) {
         log.debug("Obteniendo reclamaciones con estado: {}", status);
-        return claimRepository.findByStatus(status).stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        return toSummaryPage(claimRepository.findListViewByFilters(status, null, null, pageable),
+                includeItemTotals, false);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClaimDto> getClaimsByIncidentDateRange(LocalDate startDate, LocalDate endDate) {
+    public Page<ClaimSummaryDto> getClaimsByIncidentDateRange(LocalDate startDate, LocalDate endDate,
+                                                              boolean includeItemTotals, Pageable pageable) {
         log.debug("Obteniendo reclamaciones con fecha de incidente entre {} y {}", startDate, endDate);
-        return claimRepository.findByIncidentDateBetween(startDate, endDate).stream()
-                .map(mapper::toDto)
-                .collect(Collectors.toList());
+        return toSummaryPage(claimRepository.findListViewByFilters(null, startDate, endDate, pageable),
+                includeItemTotals, false);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Map<String, Object> getClaimsDashboardStatistics() {
         log.info("Generando estadísticas de reclamaciones para dashboard");
 
-        Map<String, Object> statistics = new HashMap<>();
-
-        // Recuento por estado
-        Map<Claim.ClaimStatus, Long> countByStatus = new HashMap<>();
-        for (Claim.ClaimStatus status : Claim.ClaimStatus.values()) {
-            long count = claimRepository.findByStatus(status).size();
-            countByStatus.put(status, count);
-        }
-        statistics.put("countByStatus", countByStatus);
-
-        // Recuento por tipo
-        Map<Claim.ClaimType, Long> countByType = new HashMap<>();
-        for (Claim.ClaimType type : Claim.ClaimType.values()) {
-            long count = claimRepository.findByClaimType(type).size();
-            countByType.put(type, count);
-        }
-        statistics.put("countByType", countByType);
-
-        // Reclamaciones recientes (últimos 30 días)
-        LocalDate thirtyDaysAgo = LocalDate.now().minusDays(30);
-        List<Claim> recentClaims = claimRepository.findByIncidentDateBetween(thirtyDaysAgo, LocalDate.now());
-        statistics.put("recentClaimsCount", recentClaims.size());
-
-        // Monto total estimado
-        BigDecimal totalEstimatedAmount = recentClaims.stream()
-                .filter(c -> c.getEstimatedAmount() != null)
-                .map(Claim::getEstimatedAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        statistics.put("totalEstimatedAmount", totalEstimatedAmount);
-
-        // Monto total aprobado
-        BigDecimal totalApprovedAmount = recentClaims.stream()
-                .filter(c -> c.getApprovedAmount() != null)
-                .map(Claim::getApprovedAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        statistics.put("totalApprovedAmount", totalApprovedAmount);
-
-        // Reclamaciones pendientes
-        List<Claim> pendingClaims = claimRepository.findByStatus(Claim.ClaimStatus.UNDER_REVIEW);
-        pendingClaims.addAll(claimRepository.findByStatus(Claim.ClaimStatus.INFORMATION_REQUESTED));
-        pendingClaims.addAll(claimRepository.findByStatus(Claim.ClaimStatus.SUBMITTED));
-        statistics.put("pendingClaimsCount", pendingClaims.size());
-
-        return statistics;
+        // Consultas agregadas con caché de corta duración
+        return dashboardAggregator.getStatistics();
     }
 
     @Override
@@ -502,10 +452,13 @@ public class ClaimServiceImpl implements ClaimService {
             Map<String, Object> analytics = new HashMap<>();
 
             try {
+                // Duraciones de transición desde los agregados diarios del último año
+                Map<String, ClaimLifecycleMetrics.TransitionStats> transitions =
+                        lifecycleMetrics.getTransitionStats(LocalDate.now().minusYears(1), LocalDate.now());
+
                 // Tiempo medio de resolución (días)
-                Double avgResolutionTime = statusHistoryRepository.getAverageTransitionTime(
-                        Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.CLOSED);
-                analytics.put("avgResolutionTimeDays", avgResolutionTime != null ? avgResolutionTime : 0);
+                analytics.put("avgResolutionTimeDays",
+                        averageDays(transitions, Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.CLOSED));
 
                 // Tasa de aprobación
                 List<Claim> allProcessedClaims = new ArrayList<>();
@@ -537,18 +490,21 @@ public class ClaimServiceImpl implements ClaimService {
                 analytics.put("monthlyTrend", monthlyTrend);
 
                 // Porcentaje de reclamaciones por tipo de póliza
+                // (una consulta masiva por lote de pólizas distintas, no una por reclamación)
+                Map<String, Long> claimsByPolicyNumber = recentClaims.stream()
+                        .filter(c -> c.getPolicyNumber() != null)
+                        .collect(Collectors.groupingBy(Claim::getPolicyNumber, Collectors.counting()));
+                Map<String, PolicyEnrichmentService.PolicyAttributes> policies =
+                        policyEnrichmentService.getPolicies(claimsByPolicyNumber.keySet());
+
                 Map<String, Long> claimsByPolicyType = new HashMap<>();
-                for (Claim claim : recentClaims) {
-                    String policyType = "UNKNOWN";
-                    try {
-                        Map<String, Object> policy = policyClient.getPolicyByNumber(claim.getPolicyNumber());
-                        policyType = (String) policy.get("policyType");
-                    } catch (Exception e) {
-                        // Ignorar error y continuar
-                    }
-
-                    claimsByPolicyType.put(policyType,
-                            claimsByPolicyType.getOrDefault(policyType, 0L) + 1);
+                for (Map.Entry<String, Long> entry : claimsByPolicyNumber.entrySet()) {
+                    claimsByPolicyType.merge(PolicyEnrichmentService.policyTypeOf(policies, entry.getKey()),
+                            entry.getValue(), Long::sum);
+                }
+                long withoutPolicy = recentClaims.size() - claimsByPolicyNumber.values().stream().mapToLong(Long::longValue).sum();
+                if (withoutPolicy > 0) {
+                    claimsByPolicyType.merge(PolicyEnrichmentService.UNKNOWN_POLICY_TYPE, withoutPolicy, Long::sum);
                 }
                 analytics.put("claimsByPolicyType", claimsByPolicyType);
 
@@ -564,17 +520,12 @@ public class ClaimServiceImpl implements ClaimService {
                 // Tiempo medio entre etapas clave
                 Map<String, Double> avgTimesBetweenStages = new HashMap<>();
 
-                Double timeToAssess = statusHistoryRepository.getAverageTransitionTime(
-                        Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.ASSESSED);
-                avgTimesBetweenStages.put("submitted_to_assessed", timeToAssess != null ? timeToAssess : 0);
-
-                Double timeToApprove = statusHistoryRepository.getAverageTransitionTime(
-                        Claim.ClaimStatus.ASSESSED, Claim.ClaimStatus.APPROVED);
-                avgTimesBetweenStages.put("assessed_to_approved", timeToApprove != null ? timeToApprove : 0);
-
-                Double timeToPay = statusHistoryRepository.getAverageTransitionTime(
-                        Claim.ClaimStatus.APPROVED, Claim.ClaimStatus.PAID);
-                avgTimesBetweenStages.put("approved_to_paid", timeToPay != null ? timeToPay : 0);
+                avgTimesBetweenStages.put("submitted_to_assessed",
+                        averageDays(transitions, Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.ASSESSED));
+                avgTimesBetweenStages.put("assessed_to_approved",
+                        averageDays(transitions, Claim.ClaimStatus.ASSESSED, Claim.ClaimStatus.APPROVED));
+                avgTimesBetweenStages.put("approved_to_paid",
+                        averageDays(transitions, Claim.ClaimStatus.APPROVED, Claim.ClaimStatus.PAID));
 
                 analytics.put("avgTimesBetweenStages", avgTimesBetweenStages);
 
@@ -584,7 +535,7 @@ public class ClaimServiceImpl implements ClaimService {
             }
 
             return analytics;
-        });
+        }, new DelegatingSecurityContextExecutor(ForkJoinPool.commonPool()));
     }
 
     @Override
@@ -609,9 +560,13 @@ public class ClaimServiceImpl implements ClaimService {
 
         // Recalcular el monto estimado de la reclamación
         updateClaimEstimatedAmount(claim);
+        exposureLedger.recordClaimedChange(claimId, ClaimExposureLedger.ExposureKey.of(claim), item.getClaimedAmount());
+        // Los informes en caché de esta instancia se descartan al confirmarse
+        reportingEngine.invalidateAfterCommit();
 
         // Publicar evento
-        eventProducer.publishClaimItemAdded(claim, item);
+        ClaimItem added = item;
+        publishAfterCommit(() -> eventProducer.publishClaimItemAdded(claim, added));
 
         log.info("Ítem añadido con éxito a reclamación ID: {}", claimId);
 
@@ -668,6 +623,8 @@ public class ClaimServiceImpl implements ClaimService {
             throw new BusinessValidationException("No se pueden actualizar ítems de una reclamación " + claim.getStatus());
         }
 
+        BigDecimal previousClaimed = item.getClaimedAmount() != null ? item.getClaimedAmount() : BigDecimal.ZERO;
+
         // Actualizar campos
         if (itemDto.getDescription() != null) item.setDescription(itemDto.getDescription());
         if (itemDto.getCategory() != null) item.setCategory(itemDto.getCategory());
@@ -684,6 +641,12 @@ public class ClaimServiceImpl implements ClaimService {
 
         // Recalcular el monto estimado y aprobado de la reclamación
         updateClaimEstimatedAmount(claim);
+        if (item.getClaimedAmount() != null) {
+            exposureLedger.recordClaimedChange(claim.getId(), ClaimExposureLedger.ExposureKey.of(claim),
+                    item.getClaimedAmount().subtract(previousClaimed));
+        }
+        // Los informes en caché de esta instancia se descartan al confirmarse
+        reportingEngine.invalidateAfterCommit();
 
         log.info("Ítem actualizado con éxito. ID: {}", itemId);
 
@@ -692,24 +655,11 @@ public class ClaimServiceImpl implements ClaimService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ClaimSummaryDto> getClaimsSummary(Claim.ClaimStatus status, LocalDate from, LocalDate to) {
+    public Page<ClaimSummaryDto> getClaimsSummary(Claim.ClaimStatus status, LocalDate from, LocalDate to,
+                                                  boolean includeItemTotals, Pageable pageable) {
         log.info("Obteniendo resumen de reclamaciones");
-
-        List<Claim> claims;
-
-        if (status != null && from != null && to != null) {
-            claims = claimRepository.findByMultipleParameters(null, null, null, status, null, from, to);
-        } else if (status != null) {
-            claims = claimRepository.findByStatus(status);
-        } else if (from != null && to != null) {
-            claims = claimRepository.findByIncidentDateBetween(from, to);
-        } else {
-            claims = claimRepository.findAll();
-        }
-
-        return claims.stream()
-                .map(this::mapToSummary)
-                .collect(Collectors.toList());
+        return toSummaryPage(claimRepository.findListViewByFilters(status, from, to, pageable),
+                includeItemTotals, true);
     }
 
     @Override
@@ -829,6 +779,23 @@ public class ClaimServiceImpl implements ClaimService {
         return null;
     }
 
+    /**
+     * Publica (y registra en el diario) un evento cuando se confirme la transacción,
+     * para que sus consumidores nunca vean cambios que luego se deshacen
+     */
+    private void publishAfterCommit(Runnable publication) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publication.run();
+                }
+            });
+        } else {
+            publication.run();
+        }
+    }
+
     private void validateStatusTransition(Claim.ClaimStatus currentStatus, Claim.ClaimStatus newStatus) {
         // Reglas para transiciones inválidas (simplificadas para este ejemplo)
         if (currentStatus == Claim.ClaimStatus.CLOSED && newStatus != Claim.ClaimStatus.REOPENED) {
@@ -888,6 +855,20 @@ public class ClaimServiceImpl implements ClaimService {
         claimRepository.save(claim);
     }
 
+    /**
+     * Indica si el usuario actual es un gestor (ADMIN o AGENT) y puede, por tanto,
+     * declarar la cobertura de los ítems
+     */
+    private boolean isClaimHandler() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return false;
+        }
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch(authority -> authority.equals("ROLE_ADMIN") || authority.equals("ROLE_AGENT"));
+    }
+
     private String getCurrentUsername() {
         try {
             return SecurityContextHolder.getContext().getAuthentication().getName();
@@ -896,33 +877,68 @@ public class ClaimServiceImpl implements ClaimService {
         }
     }
 
-    private ClaimSummaryDto mapToSummary(Claim claim) {
-        ClaimSummaryDto summary = new ClaimSummaryDto();
-        summary.setId(claim.getId());
-        summary.setClaimNumber(claim.getClaimNumber());
-        summary.setPolicyNumber(claim.getPolicyNumber());
-        summary.setCustomerNumber(claim.getCustomerNumber());
+    /**
+     * Convierte una página de vistas de listado en resúmenes. Los totales de ítems se
+     * obtienen con una sola consulta agrupada para toda la página y los nombres de
+     * cliente, una vez por cliente distinto a través de la caché.
+     */
+    private Page<ClaimSummaryDto> toSummaryPage(Page<ClaimRepository.ClaimListView> views,
+                                                boolean includeItemTotals, boolean includeCustomerNames) {
+        Page<ClaimSummaryDto> page = views.map(this::toSummary);
+        List<ClaimSummaryDto> summaries = page.getContent();
+        if (summaries.isEmpty()) {
+            return page;
+        }
+
+        if (includeItemTotals) {
+            Map<Long, ClaimSummaryDto> byId = summaries.stream()
+                    .collect(Collectors.toMap(ClaimSummaryDto::getId, summary -> summary));
+            byId.values().forEach(summary -> {
+                summary.setItemCount(0L);
+                summary.setItemsClaimedAmount(BigDecimal.ZERO);
+                summary.setItemsApprovedAmount(BigDecimal.ZERO);
+            });
+            for (ClaimItemRepository.ItemTotals totals : claimItemRepository.sumGroupedByClaimIdIn(byId.keySet())) {
+                ClaimSummaryDto summary = byId.get(totals.getClaimId());
+                summary.setItemCount(totals.getItemCount());
+                summary.setItemsClaimedAmount(totals.getClaimedAmount());
+                summary.setItemsApprovedAmount(totals.getApprovedAmount());
+            }
+        }
 
-        // Intentar obtener el nombre del cliente
-        try {
-            Map<String, Object> customer = customerClient.getCustomerByNumber(claim.getCustomerNumber());
-            String firstName = (String) customer.get("firstName");
-            String lastName = (String) customer.get("lastName");
-            summary.setCustomerName(firstName + " " + lastName);
-        } catch (Exception e) {
-            summary.setCustomerName("Desconocido");
+        if (includeCustomerNames) {
+            Map<String, String> names = customerIdentityResolver.getDisplayNames(summaries.stream()
+                    .map(ClaimSummaryDto::getCustomerNumber)
+                    .collect(Collectors.toSet()));
+            summaries.forEach(summary ->
+                    summary.setCustomerName(names.getOrDefault(summary.getCustomerNumber(), "Desconocido")));
         }
 
-        summary.setIncidentDate(claim.getIncidentDate());
-        summary.setStatus(claim.getStatus());
-        summary.setClaimType(claim.getClaimType());
-        summary.setEstimatedAmount(claim.getEstimatedAmount());
-        summary.setApprovedAmount(claim.getApprovedAmount());
-        summary.setSubmissionDate(claim.getSubmissionDate());
+        return page;
+    }
+
+    private static double averageDays(Map<String, ClaimLifecycleMetrics.TransitionStats> transitions,
+                                      Claim.ClaimStatus from, Claim.ClaimStatus to) {
+        String pair = from.name().toLowerCase() + "_to_" + to.name().toLowerCase();
+        return transitions.getOrDefault(pair, ClaimLifecycleMetrics.TransitionStats.EMPTY).averageDays();
+    }
+
+    private ClaimSummaryDto toSummary(ClaimRepository.ClaimListView view) {
+        ClaimSummaryDto summary = new ClaimSummaryDto();
+        summary.setId(view.getId());
+        summary.setClaimNumber(view.getClaimNumber());
+        summary.setPolicyNumber(view.getPolicyNumber());
+        summary.setCustomerNumber(view.getCustomerNumber());
+        summary.setIncidentDate(view.getIncidentDate());
+        summary.setStatus(view.getStatus());
+        summary.setClaimType(view.getClaimType());
+        summary.setEstimatedAmount(view.getEstimatedAmount());
+        summary.setApprovedAmount(view.getApprovedAmount());
+        summary.setSubmissionDate(view.getSubmissionDate());
 
         // Calcular días abiertos
-        if (claim.getSubmissionDate() != null) {
-            long daysOpen = ChronoUnit.DAYS.between(claim.getSubmissionDate().toLocalDate(), LocalDate.now());
+        if (view.getSubmissionDate() != null) {
+            long daysOpen = ChronoUnit.DAYS.between(view.getSubmissionDate().toLocalDate(), LocalDate.now());
             summary.setDaysOpen(daysOpen);
         }
 
@@ -0,0 +1,515 @@
+package com.insurtech.claim.service.importer;
+
+import com.insurtech.claim.client.CustomerClient;
+import com.insurtech.claim.client.PolicyClient;
+import com.insurtech.claim.exception.BusinessValidationException;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.service.duplicate.ClaimSimilarityIndex;
+import com.insurtech.claim.service.exposure.ClaimExposureLedger;
+import com.insurtech.claim.service.reporting.ClaimReportingEngine;
+import feign.FeignException;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Importación de reclamaciones desde CSV en etapas
+ *
+ * 1. Parseo: el hilo llamante lee el fichero en streaming con un parser RFC-4180
+ *    (comillas, comas y saltos de línea dentro de campos) y agrupa los registros
+ *    en lotes de {@code chunkSize}.
+ * 2. Validación y resolución: cada lote se valida en el executor de importación y
+ *    resuelve una sola vez cada cliente y póliza distintos del lote. Las filas cuyo
+ *    cliente o póliza no existen van al fichero de errores; si uno de los servicios
+ *    no responde, el lote entero falla para no guardar reclamaciones huérfanas.
+ * 3. Persistencia: las reclamaciones válidas del lote y su historial inicial se
+ *    insertan con sentencias JDBC por lotes en una única transacción. Las que el
+ *    índice de similitud señala como posibles duplicados entran en revisión.
+ *
+ * El executor tiene cola acotada con CallerRunsPolicy, por lo que nunca hay más de
+ * unos pocos lotes en memoria. Los errores por fila se escriben en un fichero CSV
+ * acotado a {@code maxErrors} líneas; el fichero sólo se cierra cuando han terminado
+ * todos los lotes enviados, también si el parseo falla a mitad.
+ */
+@Component
+public class ClaimCsvImportPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimCsvImportPipeline.class);
+
+    private static final CSVFormat INPUT_FORMAT = CSVFormat.RFC4180.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreHeaderCase(true)
+            .setIgnoreEmptyLines(true)
+            .setTrim(true)
+            .build();
+
+    // Sentencias específicas para Oracle
+    private static final String NEXT_CLAIM_IDS_SQL =
+            "SELECT SEQ_CLAIMS.NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?";
+
+    private static final String INSERT_CLAIM_SQL =
+            "INSERT INTO CLAIMS (ID, CLAIM_NUMBER, POLICY_ID, POLICY_NUMBER, CUSTOMER_ID, CUSTOMER_NUMBER, " +
+            "INCIDENT_DATE, INCIDENT_DESCRIPTION, STATUS, CLAIM_TYPE, ESTIMATED_AMOUNT, HANDLER_COMMENTS, " +
+            "SUBMISSION_DATE, CREATED_AT, UPDATED_AT, CREATED_BY, UPDATED_BY, VERSION) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String INSERT_STATUS_HISTORY_SQL =
+            "INSERT INTO CLAIM_STATUS_HISTORY (ID, CLAIM_ID, PREVIOUS_STATUS, NEW_STATUS, CHANGE_REASON, " +
+            "CREATED_AT, CREATED_BY) VALUES (SEQ_CLAIM_STATUS_HISTORY.NEXTVAL, ?, NULL, ?, ?, ?, ?)";
+
+    private static final DateTimeFormatter CLAIM_NUMBER_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final CustomerClient customerClient;
+    private final PolicyClient policyClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor importExecutor;
+    private final ClaimSimilarityIndex similarityIndex;
+    private final ClaimExposureLedger exposureLedger;
+    private final ClaimReportingEngine reportingEngine;
+
+    @Value("${app.claims.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.claims.import.max-errors:10000}")
+    private int maxErrors;
+
+    @Value("${app.claims.import.error-dir:${java.io.tmpdir}/claim-imports}")
+    private String errorDir;
+
+    public ClaimCsvImportPipeline(CustomerClient customerClient,
+                                  PolicyClient policyClient,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Qualifier("claimImportExecutor") Executor importExecutor,
+                                  ClaimSimilarityIndex similarityIndex,
+                                  ClaimExposureLedger exposureLedger,
+                                  ClaimReportingEngine reportingEngine) {
+        this.customerClient = customerClient;
+        this.policyClient = policyClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importExecutor = importExecutor;
+        this.similarityIndex = similarityIndex;
+        this.exposureLedger = exposureLedger;
+        this.reportingEngine = reportingEngine;
+    }
+
+    /**
+     * Fila del CSV ya validada, pendiente de resolver cliente y póliza
+     */
+    private record ImportRow(long lineNumber, String policyNumber, String customerNumber, LocalDate incidentDate,
+                             String incidentDescription, Claim.ClaimType claimType, BigDecimal estimatedAmount) {
+    }
+
+    /**
+     * Importa el CSV actualizando los contadores de {@code status} según avanza
+     */
+    public void importClaims(InputStream inputStream, String batchId, String username, Map<String, Object> status)
+            throws IOException {
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger successful = new AtomicInteger();
+        AtomicBoolean aborted = new AtomicBoolean();
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+
+        try (ErrorLog errorLog = new ErrorLog(Path.of(errorDir).resolve("claim-import-" + batchId + "-errors.csv"))) {
+            long total;
+            try {
+                total = submitChunks(inputStream, username, errorLog, pending, aborted, processed, successful, status);
+            } catch (Throwable e) {
+                // Los lotes que aún no han empezado se descartan; los que están en curso
+                // escriben en el log de errores y hay que esperarlos antes de cerrarlo
+                aborted.set(true);
+                awaitAll(pending);
+                throw e;
+            }
+
+            Throwable failure = awaitAll(pending);
+            if (failure != null) {
+                throw new IllegalStateException("Error al procesar un lote de la importación: " + failure.getMessage(), failure);
+            }
+
+            status.put("errorFile", errorLog.path().toString());
+            status.put("errorsTruncated", errorLog.truncated());
+            log.info("Importación {} finalizada: {} filas, {} creadas, {} con error",
+                    batchId, total, successful.get(), processed.get() - successful.get());
+        }
+    }
+
+    /**
+     * Lee el fichero y envía sus lotes al executor; devuelve el número de filas leídas
+     */
+    private long submitChunks(InputStream inputStream, String username, ErrorLog errorLog,
+                              List<CompletableFuture<Void>> pending, AtomicBoolean aborted,
+                              AtomicInteger processed, AtomicInteger successful,
+                              Map<String, Object> status) throws IOException {
+        try (Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+             CSVParser parser = new CSVParser(reader, INPUT_FORMAT)) {
+
+            if (parser.getHeaderMap() == null || parser.getHeaderMap().isEmpty()) {
+                throw new BusinessValidationException("El archivo CSV está vacío");
+            }
+
+            long total = 0;
+            List<CSVRecord> chunk = new ArrayList<>(chunkSize);
+            for (CSVRecord record : parser) {
+                chunk.add(record);
+                total++;
+                if (chunk.size() == chunkSize) {
+                    pending.add(submit(chunk, username, errorLog, aborted, processed, successful, status));
+                    chunk = new ArrayList<>(chunkSize);
+                    status.put("totalClaims", total);
+                    // Descartar los lotes ya terminados para no acumular futuros
+                    pending.removeIf(future -> future.isDone() && !future.isCompletedExceptionally());
+                }
+            }
+            if (!chunk.isEmpty()) {
+                pending.add(submit(chunk, username, errorLog, aborted, processed, successful, status));
+            }
+            status.put("totalClaims", total);
+            return total;
+        }
+    }
+
+    /**
+     * Espera a todos los lotes enviados y devuelve el primer error, si lo hubo
+     */
+    private Throwable awaitAll(List<CompletableFuture<Void>> pending) {
+        Throwable failure = null;
+        for (CompletableFuture<Void> future : pending) {
+            try {
+                future.join();
+            } catch (CompletionException | CancellationException e) {
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+        }
+        return failure;
+    }
+
+    private CompletableFuture<Void> submit(List<CSVRecord> records, String username, ErrorLog errorLog,
+                                           AtomicBoolean aborted, AtomicInteger processed, AtomicInteger successful,
+                                           Map<String, Object> status) {
+        return CompletableFuture.runAsync(() -> {
+            if (aborted.get()) {
+                return;
+            }
+            int created = processChunk(records, username, errorLog);
+            int done = processed.addAndGet(records.size());
+            int ok = successful.addAndGet(created);
+            status.put("processedClaims", done);
+            status.put("successfulClaims", ok);
+            status.put("failedClaims", done - ok);
+        }, importExecutor);
+    }
+
+    /**
+     * Valida, resuelve y persiste un lote; devuelve el número de reclamaciones creadas
+     */
+    private int processChunk(List<CSVRecord> records, String username, ErrorLog errorLog) {
+        List<ImportRow> rows = new ArrayList<>(records.size());
+        for (CSVRecord record : records) {
+            try {
+                rows.add(parseRow(record));
+            } catch (Exception e) {
+                errorLog.add(record.getRecordNumber() + 1, e.getMessage());
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Long> customerIds;
+        Map<String, Long> policyIds;
+        try {
+            customerIds = resolveCustomers(rows);
+            policyIds = resolvePolicies(rows);
+        } catch (RuntimeException e) {
+            log.error("Error al resolver clientes y pólizas del lote desde la línea {}: {}",
+                    rows.get(0).lineNumber(), e.getMessage());
+            for (ImportRow row : rows) {
+                errorLog.add(row.lineNumber(), e.getMessage());
+            }
+            return 0;
+        }
+
+        List<ImportRow> resolved = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            if (customerIds.get(row.customerNumber()) == null) {
+                errorLog.add(row.lineNumber(), "No se pudo identificar al cliente " + row.customerNumber());
+            } else if (row.policyNumber() != null && policyIds.get(row.policyNumber()) == null) {
+                errorLog.add(row.lineNumber(), "No se encontró la póliza " + row.policyNumber());
+            } else {
+                resolved.add(row);
+            }
+        }
+        if (resolved.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            persist(resolved, customerIds, policyIds, username);
+            return resolved.size();
+        } catch (Exception e) {
+            log.error("Error al persistir lote de {} reclamaciones desde la línea {}: {}",
+                    resolved.size(), resolved.get(0).lineNumber(), e.getMessage());
+            for (ImportRow row : resolved) {
+                errorLog.add(row.lineNumber(), "Error al guardar el lote: " + e.getMessage());
+            }
+            return 0;
+        }
+    }
+
+    private ImportRow parseRow(CSVRecord record) {
+        LocalDate incidentDate = parse(record, "incidentDate", LocalDate::parse);
+        String description = value(record, "incidentDescription");
+        Claim.ClaimType claimType = parse(record, "claimType", Claim.ClaimType::valueOf);
+
+        // Validar campos obligatorios
+        if (incidentDate == null) {
+            throw new BusinessValidationException("Fecha de incidente es obligatoria");
+        }
+        if (description == null) {
+            throw new BusinessValidationException("Descripción de incidente es obligatoria");
+        }
+        if (claimType == null) {
+            throw new BusinessValidationException("Tipo de reclamación es obligatorio");
+        }
+        String customerNumber = value(record, "customerNumber");
+        if (customerNumber == null) {
+            throw new BusinessValidationException("Número de cliente es obligatorio");
+        }
+
+        return new ImportRow(record.getRecordNumber() + 1,
+                value(record, "policyNumber"),
+                customerNumber,
+                incidentDate,
+                description,
+                claimType,
+                parse(record, "estimatedAmount", BigDecimal::new));
+    }
+
+    private String value(CSVRecord record, String column) {
+        if (!record.isMapped(column) || !record.isSet(column)) {
+            return null;
+        }
+        String value = record.get(column);
+        return value.isEmpty() ? null : value;
+    }
+
+    private <T> T parse(CSVRecord record, String column, java.util.function.Function<String, T> parser) {
+        String value = value(record, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (RuntimeException e) {
+            throw new BusinessValidationException("Valor no válido para " + column + ": " + value);
+        }
+    }
+
+    /**
+     * Resuelve cada número de cliente distinto del lote una sola vez; los clientes
+     * inexistentes quedan con ID nulo
+     *
+     * @throws IllegalStateException si customer-service no responde
+     */
+    private Map<String, Long> resolveCustomers(List<ImportRow> rows) {
+        Map<String, Long> ids = new HashMap<>();
+        for (ImportRow row : rows) {
+            String customerNumber = row.customerNumber();
+            if (!ids.containsKey(customerNumber)) {
+                try {
+                    ids.put(customerNumber, idOf(customerClient.getCustomerByNumber(customerNumber)));
+                } catch (FeignException.NotFound e) {
+                    ids.put(customerNumber, null);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Servicio de clientes no disponible, vuelva a importar la fila: "
+                            + e.getMessage(), e);
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Resuelve cada número de póliza distinto del lote una sola vez; las pólizas
+     * inexistentes quedan con ID nulo
+     *
+     * @throws IllegalStateException si policy-service no responde
+     */
+    private Map<String, Long> resolvePolicies(List<ImportRow> rows) {
+        Map<String, Long> ids = new HashMap<>();
+        for (ImportRow row : rows) {
+            String policyNumber = row.policyNumber();
+            if (policyNumber != null && !ids.containsKey(policyNumber)) {
+                try {
+                    ids.put(policyNumber, idOf(policyClient.getPolicyByNumber(policyNumber)));
+                } catch (FeignException.NotFound e) {
+                    ids.put(policyNumber, null);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException("Servicio de pólizas no disponible, vuelva a importar la fila: "
+                            + e.getMessage(), e);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static Long idOf(Map<String, Object> response) {
+        Object id = response != null ? response.get("id") : null;
+        return id instanceof Number number ? number.longValue() : null;
+    }
+
+    private void persist(List<ImportRow> rows, Map<String, Long> customerIds, Map<String, Long> policyIds,
+                         String username) {
+        // IDs ya añadidos al índice de similitud, para retirarlos si el lote no se confirma
+        List<Long> indexed = new ArrayList<>(rows.size());
+        try {
+            insert(rows, customerIds, policyIds, username, indexed);
+        } catch (RuntimeException e) {
+            indexed.forEach(similarityIndex::remove);
+            throw e;
+        }
+    }
+
+    private void insert(List<ImportRow> rows, Map<String, Long> customerIds, Map<String, Long> policyIds,
+                        String username, List<Long> indexed) {
+        transactionTemplate.executeWithoutResult(tx -> {
+            List<Long> ids = jdbcTemplate.queryForList(NEXT_CLAIM_IDS_SQL, Long.class, rows.size());
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            String datePart = LocalDate.now().format(CLAIM_NUMBER_DATE);
+
+            List<Object[]> claims = new ArrayList<>(rows.size());
+            List<Object[]> histories = new ArrayList<>(rows.size());
+            List<ClaimExposureLedger.ExposureKey> exposures = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                ImportRow row = rows.get(i);
+                Long id = ids.get(i);
+                // Número derivado del ID (al menos 6 dígitos): único sin consultar la tabla
+                String claimNumber = row.claimType().name().substring(0, 3) + "-" + datePart + "-"
+                        + String.format("%06d", id);
+
+                // Se compara también con las filas anteriores del mismo fichero
+                ClaimSimilarityIndex.ClaimFingerprint fingerprint = similarityIndex.fingerprint(id, claimNumber,
+                        row.customerNumber(), row.policyNumber(), row.incidentDate(), row.claimType(),
+                        row.estimatedAmount(), row.incidentDescription());
+                List<ClaimSimilarityIndex.PossibleDuplicate> duplicates =
+                        similarityIndex.findPossibleDuplicates(fingerprint);
+                similarityIndex.put(fingerprint);
+                indexed.add(id);
+
+                Claim.ClaimStatus status = duplicates.isEmpty()
+                        ? Claim.ClaimStatus.SUBMITTED
+                        : Claim.ClaimStatus.UNDER_REVIEW;
+                String comment = duplicates.isEmpty() ? null : ClaimSimilarityIndex.describe(duplicates);
+
+                claims.add(new Object[]{
+                        id,
+                        claimNumber,
+                        row.policyNumber() != null ? policyIds.get(row.policyNumber()) : null,
+                        row.policyNumber(),
+                        customerIds.get(row.customerNumber()),
+                        row.customerNumber(),
+                        Date.valueOf(row.incidentDate()),
+                        row.incidentDescription(),
+                        status.name(),
+                        row.claimType().name(),
+                        row.estimatedAmount(),
+                        comment,
+                        now,
+                        now,
+                        now,
+                        username,
+                        username});
+                histories.add(new Object[]{id, status.name(),
+                        duplicates.isEmpty() ? "Reclamación creada" : "Reclamación creada; posible duplicado",
+                        now, username});
+                exposures.add(ClaimExposureLedger.ExposureKey.of(row.claimType(), status, row.incidentDate()));
+            }
+
+            jdbcTemplate.batchUpdate(INSERT_CLAIM_SQL, claims);
+            jdbcTemplate.batchUpdate(INSERT_STATUS_HISTORY_SQL, histories);
+            exposureLedger.recordCreated(exposures);
+            reportingEngine.invalidateAfterCommit();
+        });
+    }
+
+    /**
+     * Fichero CSV de errores por fila, limitado a {@code maxErrors} líneas
+     */
+    private class ErrorLog implements Closeable {
+
+        private final Path path;
+        private CSVPrinter printer;
+        private int count;
+        private boolean truncated;
+
+        ErrorLog(Path path) {
+            this.path = path;
+        }
+
+        Path path() {
+            return path;
+        }
+
+        synchronized boolean truncated() {
+            return truncated;
+        }
+
+        synchronized void add(long lineNumber, String message) {
+            if (count >= maxErrors) {
+                truncated = true;
+                return;
+            }
+            try {
+                if (printer == null) {
+                    Files.createDirectories(path.getParent());
+                    printer = new CSVPrinter(Files.newBufferedWriter(path, StandardCharsets.UTF_8),
+                            CSVFormat.RFC4180.builder().setHeader("linea", "error").build());
+                }
+                printer.printRecord(lineNumber, message);
+                count++;
+            } catch (IOException e) {
+                log.error("No se pudo escribir en el fichero de errores {}: {}", path, e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            if (printer != null) {
+                printer.close(true);
+            }
+        }
+    }
+}
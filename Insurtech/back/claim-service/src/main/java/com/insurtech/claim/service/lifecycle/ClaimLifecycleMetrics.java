@@ -0,0 +1,338 @@
+package com.insurtech.claim.service.lifecycle;
+
+import com.insurtech.claim.model.entity.Claim;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Duraciones del ciclo de vida de las reclamaciones, agregadas de forma incremental
+ *
+ * Cada cambio de estado confirmado suma su duración (desde que la reclamación entró
+ * en el estado anterior) a la fila (FROM_STATUS, TO_STATUS, CLAIM_TYPE, STAT_DAY) de
+ * CLAIM_STATUS_TRANSITION_STATS: número, suma, mínimo, máximo y un
+ * {@link DurationSketch} para los percentiles. Los informes de SLA y rendimiento leen
+ * una fila por tipo y día en lugar de recorrer CLAIM_STATUS_HISTORY, así que un año
+ * de datos son unos pocos cientos de filas.
+ *
+ * La tabla se crea con db/oracle/claim-lifecycle-stats.sql; si no existe, el registro
+ * se desactiva y los informes devuelven estadísticas vacías. {@link #rebuild()}
+ * recalcula todos los agregados a partir del historial con la tabla bloqueada en modo
+ * exclusivo, así que los registros concurrentes esperan a que termine en lugar de
+ * perderse con el borrado.
+ */
+@Component
+public class ClaimLifecycleMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimLifecycleMetrics.class);
+
+    // Sentencias específicas para Oracle
+    private static final String ENSURE_ROW_SQL =
+            "MERGE INTO CLAIM_STATUS_TRANSITION_STATS s " +
+            "USING (SELECT ? FROM_STATUS, ? TO_STATUS, ? CLAIM_TYPE, ? STAT_DAY FROM DUAL) k " +
+            "ON (s.FROM_STATUS = k.FROM_STATUS AND s.TO_STATUS = k.TO_STATUS " +
+            "    AND s.CLAIM_TYPE = k.CLAIM_TYPE AND s.STAT_DAY = k.STAT_DAY) " +
+            "WHEN NOT MATCHED THEN INSERT (FROM_STATUS, TO_STATUS, CLAIM_TYPE, STAT_DAY, TRANSITION_COUNT, " +
+            "DURATION_SUM_SECONDS) VALUES (k.FROM_STATUS, k.TO_STATUS, k.CLAIM_TYPE, k.STAT_DAY, 0, 0)";
+
+    private static final String LOCK_ROW_SQL =
+            "SELECT DURATION_SKETCH FROM CLAIM_STATUS_TRANSITION_STATS " +
+            "WHERE FROM_STATUS = ? AND TO_STATUS = ? AND CLAIM_TYPE = ? AND STAT_DAY = ? FOR UPDATE";
+
+    private static final String ADD_DURATION_SQL =
+            "UPDATE CLAIM_STATUS_TRANSITION_STATS SET " +
+            "TRANSITION_COUNT = TRANSITION_COUNT + ?, " +
+            "DURATION_SUM_SECONDS = DURATION_SUM_SECONDS + ?, " +
+            "DURATION_MIN_SECONDS = LEAST(NVL(DURATION_MIN_SECONDS, ?), ?), " +
+            "DURATION_MAX_SECONDS = GREATEST(NVL(DURATION_MAX_SECONDS, ?), ?), " +
+            "DURATION_SKETCH = ?, UPDATED_AT = SYSTIMESTAMP " +
+            "WHERE FROM_STATUS = ? AND TO_STATUS = ? AND CLAIM_TYPE = ? AND STAT_DAY = ?";
+
+    private static final String SELECT_RANGE_SQL =
+            "SELECT FROM_STATUS, TO_STATUS, TRANSITION_COUNT, DURATION_SUM_SECONDS, DURATION_MIN_SECONDS, " +
+            "DURATION_MAX_SECONDS, DURATION_SKETCH FROM CLAIM_STATUS_TRANSITION_STATS " +
+            "WHERE STAT_DAY BETWEEN ? AND ? AND TRANSITION_COUNT > 0";
+
+    private static final String HISTORY_TRANSITIONS_SQL =
+            "SELECT c.CLAIM_TYPE, h.NEW_STATUS, h.CREATED_AT, " +
+            "LAG(h.NEW_STATUS) OVER (PARTITION BY h.CLAIM_ID ORDER BY h.CREATED_AT, h.ID) AS FROM_STATUS, " +
+            "LAG(h.CREATED_AT) OVER (PARTITION BY h.CLAIM_ID ORDER BY h.CREATED_AT, h.ID) AS FROM_AT " +
+            "FROM CLAIM_STATUS_HISTORY h JOIN CLAIMS c ON c.ID = h.CLAIM_ID";
+
+    private static final String LOCK_TABLE_SQL =
+            "LOCK TABLE CLAIM_STATUS_TRANSITION_STATS IN EXCLUSIVE MODE";
+
+    private static final String INSERT_ROW_SQL =
+            "INSERT INTO CLAIM_STATUS_TRANSITION_STATS (FROM_STATUS, TO_STATUS, CLAIM_TYPE, STAT_DAY, " +
+            "TRANSITION_COUNT, DURATION_SUM_SECONDS, DURATION_MIN_SECONDS, DURATION_MAX_SECONDS, " +
+            "DURATION_SKETCH, UPDATED_AT) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, SYSTIMESTAMP)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile boolean available;
+
+    /**
+     * Estadísticas de una transición en un rango de días; duraciones en segundos
+     */
+    public record TransitionStats(long count, double averageSeconds, long minSeconds, long maxSeconds,
+                                  long p50Seconds, long p90Seconds, long p95Seconds) {
+
+        public static final TransitionStats EMPTY = new TransitionStats(0, 0, 0, 0, 0, 0, 0);
+
+        public double averageDays() {
+            return averageSeconds / Duration.ofDays(1).toSeconds();
+        }
+    }
+
+    /**
+     * Cambio de estado de una reclamación, con el momento en que entró en el estado anterior
+     */
+    public record Transition(Claim.ClaimStatus fromStatus, Claim.ClaimStatus toStatus, Claim.ClaimType claimType,
+                             LocalDateTime enteredAt, LocalDateTime transitionedAt) {
+    }
+
+    private record Key(String fromStatus, String toStatus, String claimType, LocalDate day) {
+    }
+
+    private static final class Aggregate {
+        private long count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max = Long.MIN_VALUE;
+        private final DurationSketch sketch = new DurationSketch();
+
+        private void add(long seconds) {
+            count++;
+            sum += seconds;
+            min = Math.min(min, seconds);
+            max = Math.max(max, seconds);
+            sketch.add(seconds);
+        }
+
+        private void merge(long rowCount, long rowSum, long rowMin, long rowMax, DurationSketch rowSketch) {
+            count += rowCount;
+            sum += rowSum;
+            min = Math.min(min, rowMin);
+            max = Math.max(max, rowMax);
+            sketch.merge(rowSketch);
+        }
+
+        private TransitionStats toStats() {
+            if (count == 0) {
+                return TransitionStats.EMPTY;
+            }
+            return new TransitionStats(count, (double) sum / count, min, max,
+                    sketch.quantile(0.5), sketch.quantile(0.9), sketch.quantile(0.95));
+        }
+    }
+
+    public ClaimLifecycleMetrics(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void checkTable() {
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_STATUS_TRANSITION_STATS WHERE 1 = 0", Long.class);
+            available = true;
+        } catch (DataAccessException e) {
+            log.warn("Tabla CLAIM_STATUS_TRANSITION_STATS no disponible, métricas de ciclo de vida desactivadas: {}",
+                    e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Registra un cambio de estado cuando se confirma la transacción en curso
+     */
+    public void recordAfterCommit(Claim.ClaimStatus fromStatus, Claim.ClaimStatus toStatus, Claim.ClaimType claimType,
+                                  LocalDateTime enteredAt, LocalDateTime transitionedAt) {
+        recordAfterCommit(List.of(new Transition(fromStatus, toStatus, claimType, enteredAt, transitionedAt)));
+    }
+
+    /**
+     * Registra los cambios de estado de un lote cuando se confirma la transacción en curso,
+     * con una actualización por transición, tipo y día en lugar de una por reclamación
+     */
+    public void recordAfterCommit(Collection<Transition> transitions) {
+        if (!available) {
+            return;
+        }
+
+        Map<Key, Aggregate> aggregates = new HashMap<>();
+        for (Transition transition : transitions) {
+            // Se registra todo lo que deja una fila en CLAIM_STATUS_HISTORY, igual que la reconstrucción
+            if (transition.fromStatus() == null || transition.toStatus() == null
+                    || transition.claimType() == null || transition.enteredAt() == null) {
+                continue;
+            }
+            Key key = new Key(transition.fromStatus().name(), transition.toStatus().name(),
+                    transition.claimType().name(), transition.transitionedAt().toLocalDate());
+            aggregates.computeIfAbsent(key, k -> new Aggregate())
+                    .add(Math.max(0, Duration.between(transition.enteredAt(), transition.transitionedAt()).toSeconds()));
+        }
+        if (aggregates.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    record(aggregates);
+                }
+            });
+        } else {
+            record(aggregates);
+        }
+    }
+
+    private void record(Map<Key, Aggregate> aggregates) {
+        try {
+            // Las filas se bloquean siempre en el mismo orden para no provocar interbloqueos entre lotes
+            List<Key> keys = new ArrayList<>(aggregates.keySet());
+            keys.sort(Comparator.comparing(Key::fromStatus).thenComparing(Key::toStatus)
+                    .thenComparing(Key::claimType).thenComparing(Key::day));
+            transactionTemplate.executeWithoutResult(tx -> {
+                for (Key key : keys) {
+                    add(key, aggregates.get(key));
+                }
+            });
+        } catch (Exception e) {
+            // La siguiente reconstrucción desde el historial lo corrige
+            log.warn("No se pudieron registrar {} grupos de transiciones: {}", aggregates.size(), e.getMessage());
+        }
+    }
+
+    private void add(Key key, Aggregate aggregate) {
+        Object[] params = {key.fromStatus(), key.toStatus(), key.claimType(), Date.valueOf(key.day())};
+        try {
+            jdbcTemplate.update(ENSURE_ROW_SQL, params);
+        } catch (DuplicateKeyException e) {
+            // Otra instancia acaba de crear la fila
+        }
+        byte[] stored = jdbcTemplate.queryForObject(LOCK_ROW_SQL, byte[].class, params);
+        DurationSketch sketch = DurationSketch.fromBytes(stored);
+        sketch.merge(aggregate.sketch);
+        jdbcTemplate.update(ADD_DURATION_SQL, aggregate.count, aggregate.sum, aggregate.min, aggregate.min,
+                aggregate.max, aggregate.max, sketch.toBytes(), params[0], params[1], params[2], params[3]);
+    }
+
+    /**
+     * Estadísticas de una transición concreta entre dos días (ambos incluidos)
+     */
+    public TransitionStats getTransitionStats(Claim.ClaimStatus fromStatus, Claim.ClaimStatus toStatus,
+                                              LocalDate startDay, LocalDate endDay) {
+        return getTransitionStats(startDay, endDay)
+                .getOrDefault(pairName(fromStatus.name(), toStatus.name()), TransitionStats.EMPTY);
+    }
+
+    /**
+     * Estadísticas de todas las transiciones entre dos días, por par "FROM_to_TO"
+     */
+    public Map<String, TransitionStats> getTransitionStats(LocalDate startDay, LocalDate endDay) {
+        if (!available) {
+            return Map.of();
+        }
+
+        Map<String, Aggregate> aggregates = new TreeMap<>();
+        jdbcTemplate.query(SELECT_RANGE_SQL, rs -> {
+            aggregates.computeIfAbsent(pairName(rs.getString("FROM_STATUS"), rs.getString("TO_STATUS")),
+                            pair -> new Aggregate())
+                    .merge(rs.getLong("TRANSITION_COUNT"),
+                            rs.getLong("DURATION_SUM_SECONDS"),
+                            rs.getLong("DURATION_MIN_SECONDS"),
+                            rs.getLong("DURATION_MAX_SECONDS"),
+                            DurationSketch.fromBytes(rs.getBytes("DURATION_SKETCH")));
+        }, Date.valueOf(startDay), Date.valueOf(endDay));
+
+        Map<String, TransitionStats> result = new LinkedHashMap<>();
+        aggregates.forEach((pair, aggregate) -> result.put(pair, aggregate.toStats()));
+        return result;
+    }
+
+    /**
+     * Recalcula todos los agregados a partir de CLAIM_STATUS_HISTORY
+     */
+    public void rebuild() {
+        if (!available) {
+            log.warn("Métricas de ciclo de vida desactivadas, no se reconstruyen");
+            return;
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Ya hay una reconstrucción de métricas de ciclo de vida en curso");
+            return;
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            int rows = transactionTemplate.execute(tx -> {
+                // Los registros concurrentes esperan al bloqueo: no se pierden con el borrado ni se
+                // suman a filas que luego se reemplazan
+                jdbcTemplate.execute(LOCK_TABLE_SQL);
+                List<Object[]> aggregated = aggregateHistory();
+                jdbcTemplate.update("DELETE FROM CLAIM_STATUS_TRANSITION_STATS");
+                jdbcTemplate.batchUpdate(INSERT_ROW_SQL, aggregated);
+                return aggregated.size();
+            });
+            log.info("Métricas de ciclo de vida reconstruidas: {} filas en {} ms",
+                    rows, System.currentTimeMillis() - start);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private List<Object[]> aggregateHistory() {
+        Map<Key, Aggregate> aggregates = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            var statement = con.prepareStatement(HISTORY_TRANSITIONS_SQL);
+            statement.setFetchSize(1000);
+            return statement;
+        }, rs -> {
+            String fromStatus = rs.getString("FROM_STATUS");
+            Timestamp fromAt = rs.getTimestamp("FROM_AT");
+            Timestamp toAt = rs.getTimestamp("CREATED_AT");
+            if (fromStatus == null || fromAt == null || toAt == null) {
+                return;
+            }
+            LocalDateTime transitionedAt = toAt.toLocalDateTime();
+            Key key = new Key(fromStatus, rs.getString("NEW_STATUS"), rs.getString("CLAIM_TYPE"),
+                    transitionedAt.toLocalDate());
+            aggregates.computeIfAbsent(key, k -> new Aggregate())
+                    .add(Math.max(0, Duration.between(fromAt.toLocalDateTime(), transitionedAt).toSeconds()));
+        });
+
+        List<Object[]> rows = new ArrayList<>(aggregates.size());
+        aggregates.forEach((key, aggregate) -> rows.add(new Object[]{
+                key.fromStatus(), key.toStatus(), key.claimType(), Date.valueOf(key.day()),
+                aggregate.count, aggregate.sum, aggregate.min, aggregate.max, aggregate.sketch.toBytes()}));
+        return rows;
+    }
+
+    private static String pairName(String fromStatus, String toStatus) {
+        return fromStatus.toLowerCase() + "_to_" + toStatus.toLowerCase();
+    }
+}
@@ -0,0 +1,146 @@
+package com.insurtech.claim.service.lifecycle;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Boceto de percentiles de duraciones (en segundos) fusionable
+ *
+ * Histograma logarítmico con error relativo acotado: cada duración cae en el cubo
+ * {@code ceil(log(segundos) / log(gamma))}, de modo que cualquier percentil se
+ * estima con un error relativo de {@link #RELATIVE_ACCURACY}. Dos bocetos se fusionan
+ * sumando sus cubos, por lo que los agregados diarios se pueden combinar en
+ * cualquier rango de fechas sin volver a leer el historial.
+ *
+ * Con un 2 % de error, diez años en segundos caben en menos de 500 cubos; si se
+ * superan {@link #MAX_BUCKETS} se fusionan los cubos más bajos.
+ */
+public final class DurationSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final int MAX_BUCKETS = 512;
+    private static final byte FORMAT_VERSION = 1;
+
+    // Índice de cubo -> número de duraciones
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    // Duraciones de menos de un segundo
+    private long zeroCount;
+    private long count;
+
+    public void add(long seconds) {
+        if (seconds < 1) {
+            zeroCount++;
+        } else {
+            buckets.merge((int) Math.ceil(Math.log(seconds) / LOG_GAMMA), 1L, Long::sum);
+            collapseIfNeeded();
+        }
+        count++;
+    }
+
+    public void merge(DurationSketch other) {
+        zeroCount += other.zeroCount;
+        count += other.count;
+        for (Map.Entry<Integer, Long> bucket : other.buckets.entrySet()) {
+            buckets.merge(bucket.getKey(), bucket.getValue(), Long::sum);
+        }
+        collapseIfNeeded();
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Duración estimada (en segundos) del cuantil {@code q} entre 0 y 1
+     */
+    public long quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(q * count);
+        long seen = zeroCount;
+        if (rank <= seen) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                // Valor representativo del cubo: error relativo acotado en ambos extremos
+                return Math.round(2 * Math.pow(GAMMA, bucket.getKey()) / (GAMMA + 1));
+            }
+        }
+        return Math.round(2 * Math.pow(GAMMA, buckets.lastKey()) / (GAMMA + 1));
+    }
+
+    /**
+     * Serialización compacta: versión, contadores y pares (delta de índice, cuenta) en varint
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + buckets.size() * 3);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        writeVarLong(out, buckets.size());
+        int previous = 0;
+        for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+            writeVarLong(out, bucket.getKey() - previous);
+            writeVarLong(out, bucket.getValue());
+            previous = bucket.getKey();
+        }
+        return out.toByteArray();
+    }
+
+    public static DurationSketch fromBytes(byte[] bytes) {
+        DurationSketch sketch = new DurationSketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        byte version = in.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Versión de boceto no soportada: " + version);
+        }
+        sketch.zeroCount = readVarLong(in);
+        sketch.count = sketch.zeroCount;
+        long size = readVarLong(in);
+        int index = 0;
+        for (long i = 0; i < size; i++) {
+            index += (int) readVarLong(in);
+            long bucketCount = readVarLong(in);
+            sketch.buckets.put(index, bucketCount);
+            sketch.count += bucketCount;
+        }
+        return sketch;
+    }
+
+    private void collapseIfNeeded() {
+        while (buckets.size() > MAX_BUCKETS) {
+            Map.Entry<Integer, Long> lowest = buckets.pollFirstEntry();
+            buckets.merge(buckets.firstKey(), lowest.getValue(), Long::sum);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,337 @@
+package com.insurtech.claim.service.reporting;
+
+import com.insurtech.claim.exception.BusinessValidationException;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.service.lifecycle.ClaimLifecycleMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Estadísticas e informes de rendimiento de reclamaciones
+ *
+ * Todo se calcula con consultas agregadas en Oracle (GROUP BY estado/tipo o
+ * tipo/mes) que devuelven unas decenas de filas, sin cargar reclamaciones: las
+ * listas explícitas de números se consultan en trozos de 1000 y se suman en
+ * memoria. Los cálculos se ejecutan en un executor propio y el resultado se
+ * guarda por huella de los parámetros durante
+ * {@code app.claims.reporting.cache-ttl-seconds}. Las escrituras de esta
+ * instancia invalidan la caché completa al confirmarse y los eventos de
+ * reclamación hacen lo mismo con las de las demás.
+ */
+@Component
+public class ClaimReportingEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimReportingEngine.class);
+
+    // Los IN de Oracle admiten como máximo 1000 elementos
+    private static final int MAX_IN_SIZE = 1000;
+
+    private static final String STATUS_TYPE_TOTALS_SQL =
+            "SELECT STATUS, CLAIM_TYPE, COUNT(*) AS TOTAL, " +
+            "NVL(SUM(ESTIMATED_AMOUNT), 0) AS ESTIMATED_AMOUNT, " +
+            "NVL(SUM(APPROVED_AMOUNT), 0) AS APPROVED_AMOUNT, " +
+            "NVL(SUM(PAID_AMOUNT), 0) AS PAID_AMOUNT " +
+            "FROM CLAIMS ";
+
+    // Mismos estados que cuentan como aprobados en el informe de rendimiento
+    private static final String PERFORMANCE_SQL =
+            "SELECT CLAIM_TYPE, TO_CHAR(INCIDENT_DATE, 'YYYY-MM') AS INCIDENT_MONTH, COUNT(*) AS TOTAL, " +
+            "SUM(CASE WHEN STATUS IN ('APPROVED', 'PARTIALLY_APPROVED', 'PAID', 'PARTIALLY_PAID') THEN 1 ELSE 0 END) AS APPROVED, " +
+            "NVL(SUM(ESTIMATED_AMOUNT), 0) AS ESTIMATED_SUM, COUNT(ESTIMATED_AMOUNT) AS ESTIMATED_COUNT, " +
+            "NVL(SUM(CASE WHEN SUBMISSION_DATE IS NOT NULL AND SETTLEMENT_DATE IS NOT NULL " +
+            "    THEN TRUNC(CAST(SETTLEMENT_DATE AS DATE) - CAST(SUBMISSION_DATE AS DATE)) END), 0) AS RESOLUTION_DAYS, " +
+            "COUNT(CASE WHEN SUBMISSION_DATE IS NOT NULL AND SETTLEMENT_DATE IS NOT NULL THEN 1 END) AS RESOLVED " +
+            "FROM CLAIMS WHERE INCIDENT_DATE BETWEEN :startDate AND :endDate " +
+            "GROUP BY CLAIM_TYPE, TO_CHAR(INCIDENT_DATE, 'YYYY-MM')";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ClaimLifecycleMetrics lifecycleMetrics;
+    private final Executor reportingExecutor;
+
+    @Value("${app.claims.reporting.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${app.claims.reporting.cache-max-entries:500}")
+    private int cacheMaxEntries;
+
+    private record CachedReport(CompletableFuture<Map<String, Object>> report, long expiresAt, long generation) {
+    }
+
+    private record StatusTypeTotals(Claim.ClaimStatus status, Claim.ClaimType claimType, long total,
+                                    BigDecimal estimatedAmount, BigDecimal approvedAmount, BigDecimal paidAmount) {
+    }
+
+    private final Map<String, CachedReport> cache = new ConcurrentHashMap<>();
+    // Se incrementa en cada invalidación: los cálculos anteriores no se reutilizan
+    private final AtomicLong generation = new AtomicLong();
+
+    public ClaimReportingEngine(NamedParameterJdbcTemplate jdbcTemplate,
+                                ClaimLifecycleMetrics lifecycleMetrics,
+                                @Qualifier("claimReportingExecutor") Executor reportingExecutor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lifecycleMetrics = lifecycleMetrics;
+        this.reportingExecutor = reportingExecutor;
+    }
+
+    /**
+     * Estadísticas de las reclamaciones indicadas por número o, si no hay números,
+     * de las que tienen alguno de los estados o la fecha de incidente en el rango
+     */
+    public CompletableFuture<Map<String, Object>> getStatistics(List<String> claimNumbers,
+                                                                List<Claim.ClaimStatus> statuses,
+                                                                LocalDate startDate,
+                                                                LocalDate endDate) {
+        List<String> numbers = claimNumbers == null ? List.of()
+                : claimNumbers.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        List<Claim.ClaimStatus> statusList = statuses == null ? List.of()
+                : statuses.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        LocalDate start = startDate != null && endDate != null ? startDate : null;
+        LocalDate end = startDate != null && endDate != null ? endDate : null;
+
+        String key = cacheKey("statistics", numbers, statusList, start, end);
+        return cached(key, () -> computeStatistics(numbers, statusList, start, end));
+    }
+
+    /**
+     * Informe de rendimiento de las reclamaciones con fecha de incidente en el período
+     */
+    public CompletableFuture<Map<String, Object>> getPerformanceReport(LocalDate startDate, LocalDate endDate) {
+        String key = cacheKey("performance", List.of(), List.of(), startDate, endDate);
+        return cached(key, () -> computePerformanceReport(startDate, endDate));
+    }
+
+    /**
+     * Descarta todos los resultados en caché; los cálculos en curso no se guardan
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache.clear();
+    }
+
+    /**
+     * Invalida la caché al confirmarse la transacción en curso, o en el acto si no hay
+     * ninguna: antes, un cálculo simultáneo aún leería los datos anteriores
+     */
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    private CompletableFuture<Map<String, Object>> cached(String key, Supplier<Map<String, Object>> compute) {
+        long now = System.currentTimeMillis();
+        long currentGeneration = generation.get();
+
+        CachedReport entry = cache.get(key);
+        if (entry == null || entry.expiresAt() <= now || entry.generation() != currentGeneration) {
+            evictIfFull(now);
+            try {
+                // Las peticiones simultáneas con los mismos parámetros comparten el cálculo
+                entry = cache.compute(key, (k, existing) ->
+                        existing != null && existing.expiresAt() > now && existing.generation() == currentGeneration
+                                ? existing
+                                : new CachedReport(CompletableFuture.supplyAsync(compute, reportingExecutor),
+                                now + cacheTtlSeconds * 1000, currentGeneration));
+            } catch (RejectedExecutionException e) {
+                throw new BusinessValidationException("Demasiados informes en curso, inténtelo de nuevo más tarde");
+            }
+
+            // Los errores no se guardan en caché
+            CachedReport created = entry;
+            created.report().whenComplete((report, error) -> {
+                if (error != null) {
+                    cache.remove(key, created);
+                }
+            });
+        }
+
+        // Copia para que quien llama pueda modificar el resultado
+        return entry.report().thenApply(HashMap::new);
+    }
+
+    private void evictIfFull(long now) {
+        if (cache.size() < cacheMaxEntries) {
+            return;
+        }
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        if (cache.size() >= cacheMaxEntries) {
+            cache.clear();
+        }
+    }
+
+    private Map<String, Object> computeStatistics(List<String> numbers, List<Claim.ClaimStatus> statuses,
+                                                  LocalDate startDate, LocalDate endDate) {
+        long started = System.currentTimeMillis();
+        List<StatusTypeTotals> rows = new ArrayList<>();
+
+        if (!numbers.isEmpty()) {
+            for (int i = 0; i < numbers.size(); i += MAX_IN_SIZE) {
+                List<String> slice = numbers.subList(i, Math.min(i + MAX_IN_SIZE, numbers.size()));
+                rows.addAll(queryStatusTypeTotals("WHERE CLAIM_NUMBER IN (:claimNumbers) ",
+                        new MapSqlParameterSource("claimNumbers", slice)));
+            }
+        } else {
+            List<String> conditions = new ArrayList<>();
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            if (!statuses.isEmpty()) {
+                conditions.add("STATUS IN (:statuses)");
+                params.addValue("statuses", statuses.stream().map(Enum::name).collect(Collectors.toList()));
+            }
+            if (startDate != null) {
+                conditions.add("INCIDENT_DATE BETWEEN :startDate AND :endDate");
+                params.addValue("startDate", Date.valueOf(startDate));
+                params.addValue("endDate", Date.valueOf(endDate));
+            }
+            // Sin criterios se agregan todas las reclamaciones
+            String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" OR ", conditions) + " ";
+            rows.addAll(queryStatusTypeTotals(where, params));
+        }
+
+        Map<Claim.ClaimStatus, Long> countByStatus = new EnumMap<>(Claim.ClaimStatus.class);
+        for (Claim.ClaimStatus status : Claim.ClaimStatus.values()) {
+            countByStatus.put(status, 0L);
+        }
+        Map<Claim.ClaimType, Long> countByType = new EnumMap<>(Claim.ClaimType.class);
+        for (Claim.ClaimType type : Claim.ClaimType.values()) {
+            countByType.put(type, 0L);
+        }
+
+        long total = 0;
+        BigDecimal totalEstimated = BigDecimal.ZERO;
+        BigDecimal totalApproved = BigDecimal.ZERO;
+        BigDecimal totalPaid = BigDecimal.ZERO;
+        for (StatusTypeTotals row : rows) {
+            total += row.total();
+            if (row.status() != null) {
+                countByStatus.merge(row.status(), row.total(), Long::sum);
+            }
+            if (row.claimType() != null) {
+                countByType.merge(row.claimType(), row.total(), Long::sum);
+            }
+            totalEstimated = totalEstimated.add(row.estimatedAmount());
+            totalApproved = totalApproved.add(row.approvedAmount());
+            totalPaid = totalPaid.add(row.paidAmount());
+        }
+
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("totalClaims", (int) total);
+        statistics.put("countByStatus", countByStatus);
+        statistics.put("countByType", countByType);
+        statistics.put("totalEstimatedAmount", totalEstimated);
+        statistics.put("totalApprovedAmount", totalApproved);
+        statistics.put("totalPaidAmount", totalPaid);
+        statistics.put("calculatedAt", LocalDateTime.now());
+
+        log.debug("Estadísticas calculadas en {} ms ({} grupos)", System.currentTimeMillis() - started, rows.size());
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    private List<StatusTypeTotals> queryStatusTypeTotals(String where, MapSqlParameterSource params) {
+        return jdbcTemplate.query(STATUS_TYPE_TOTALS_SQL + where + "GROUP BY STATUS, CLAIM_TYPE", params,
+                (rs, rowNum) -> new StatusTypeTotals(
+                        rs.getString("STATUS") != null ? Claim.ClaimStatus.valueOf(rs.getString("STATUS")) : null,
+                        rs.getString("CLAIM_TYPE") != null ? Claim.ClaimType.valueOf(rs.getString("CLAIM_TYPE")) : null,
+                        rs.getLong("TOTAL"),
+                        rs.getBigDecimal("ESTIMATED_AMOUNT"),
+                        rs.getBigDecimal("APPROVED_AMOUNT"),
+                        rs.getBigDecimal("PAID_AMOUNT")));
+    }
+
+    private Map<String, Object> computePerformanceReport(LocalDate startDate, LocalDate endDate) {
+        long started = System.currentTimeMillis();
+
+        Map<Claim.ClaimType, Long> claimsByType = new EnumMap<>(Claim.ClaimType.class);
+        for (Claim.ClaimType type : Claim.ClaimType.values()) {
+            claimsByType.put(type, 0L);
+        }
+        Map<String, Long> monthlyTrend = new TreeMap<>();
+        long[] totals = new long[5];
+        BigDecimal[] estimatedSum = {BigDecimal.ZERO};
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("startDate", Date.valueOf(startDate))
+                .addValue("endDate", Date.valueOf(endDate));
+        jdbcTemplate.query(PERFORMANCE_SQL, params, rs -> {
+            long total = rs.getLong("TOTAL");
+            String claimType = rs.getString("CLAIM_TYPE");
+            if (claimType != null) {
+                claimsByType.merge(Claim.ClaimType.valueOf(claimType), total, Long::sum);
+            }
+            monthlyTrend.merge(rs.getString("INCIDENT_MONTH"), total, Long::sum);
+
+            totals[0] += total;
+            totals[1] += rs.getLong("APPROVED");
+            totals[2] += rs.getLong("ESTIMATED_COUNT");
+            totals[3] += rs.getLong("RESOLUTION_DAYS");
+            totals[4] += rs.getLong("RESOLVED");
+            estimatedSum[0] = estimatedSum[0].add(rs.getBigDecimal("ESTIMATED_SUM"));
+        });
+
+        long totalClaims = totals[0];
+        Map<String, Object> report = new HashMap<>();
+        report.put("reportPeriod", Map.of("startDate", startDate, "endDate", endDate));
+        report.put("totalClaims", (int) totalClaims);
+        report.put("avgResolutionDays", totals[4] == 0 ? 0.0 : (double) totals[3] / totals[4]);
+        report.put("approvalRate", totalClaims == 0 ? 0.0 : (double) totals[1] / totalClaims * 100);
+        report.put("avgClaimAmount", totals[2] == 0 ? 0.0 : estimatedSum[0].doubleValue() / totals[2]);
+        report.put("claimsByType", claimsByType);
+        report.put("monthlyTrend", monthlyTrend);
+
+        // Duración de las transiciones de estado del período (agregados diarios)
+        report.put("statusTransitions", lifecycleMetrics.getTransitionStats(startDate, endDate));
+        report.put("generatedAt", LocalDateTime.now());
+
+        log.debug("Informe de rendimiento calculado en {} ms", System.currentTimeMillis() - started);
+        return Collections.unmodifiableMap(report);
+    }
+
+    private String cacheKey(String report, List<String> numbers, List<Claim.ClaimStatus> statuses,
+                            LocalDate startDate, LocalDate endDate) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String number : numbers) {
+                digest.update(number.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            digest.update((byte) 1);
+            for (Claim.ClaimStatus status : statuses) {
+                digest.update(status.name().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            digest.update((String.valueOf(startDate) + "|" + endDate).getBytes(StandardCharsets.UTF_8));
+            return report + ":" + HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
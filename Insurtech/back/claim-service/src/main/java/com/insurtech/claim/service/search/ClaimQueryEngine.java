@@ -0,0 +1,248 @@
+package com.insurtech.claim.service.search;
+
+import com.insurtech.claim.exception.BusinessValidationException;
+import com.insurtech.claim.model.dto.ClaimSearchPageDto;
+import com.insurtech.claim.model.dto.ClaimSearchRequestDto;
+import com.insurtech.claim.model.dto.ClaimSummaryDto;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.service.customer.CustomerIdentityResolver;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Motor de búsqueda avanzada de reclamaciones
+ *
+ * Todos los criterios recibidos se combinan con AND en una única consulta que
+ * proyecta sólo las columnas del resumen, ordenada por ID descendente y limitada al
+ * tamaño de página. La paginación es por clave (keyset): el cursor es el último ID
+ * devuelto, de modo que el coste de cada página no depende de cuántas se hayan
+ * recorrido ni del historial del cliente.
+ *
+ * El email o la identificación del cliente se traducen a número de cliente mediante
+ * {@link CustomerIdentityResolver} antes de construir la consulta.
+ */
+@Component
+public class ClaimQueryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimQueryEngine.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CustomerIdentityResolver customerIdentityResolver;
+
+    @Value("${app.claims.high-value-threshold:10000.00}")
+    private BigDecimal highValueThreshold;
+
+    @Value("${app.claims.advanced-search.default-page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${app.claims.advanced-search.max-page-size:500}")
+    private int maxPageSize;
+
+    public ClaimQueryEngine(CustomerIdentityResolver customerIdentityResolver) {
+        this.customerIdentityResolver = customerIdentityResolver;
+    }
+
+    public ClaimSearchPageDto search(ClaimSearchRequestDto request) {
+        if (!hasCriteria(request)) {
+            throw new BusinessValidationException("Se requieren criterios de búsqueda");
+        }
+
+        int pageSize = pageSizeOf(request);
+        Long afterId = decodeCursor(request.getCursor());
+
+        // Un criterio de cliente que no se resuelve no puede devolver resultados
+        CustomerFilter customerFilter = resolveCustomerFilter(request);
+        if (customerFilter.unresolved()) {
+            return new ClaimSearchPageDto(List.of(), pageSize, null, false);
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Claim> root = query.from(Claim.class);
+
+        query.multiselect(
+                root.get("id").alias("id"),
+                root.get("claimNumber").alias("claimNumber"),
+                root.get("policyNumber").alias("policyNumber"),
+                root.get("customerNumber").alias("customerNumber"),
+                root.get("incidentDate").alias("incidentDate"),
+                root.get("status").alias("status"),
+                root.get("claimType").alias("claimType"),
+                root.get("estimatedAmount").alias("estimatedAmount"),
+                root.get("approvedAmount").alias("approvedAmount"),
+                root.get("submissionDate").alias("submissionDate"));
+
+        List<Predicate> predicates = buildPredicates(cb, root, request, customerFilter.customerNumber());
+        if (afterId != null) {
+            predicates.add(cb.lessThan(root.get("id"), afterId));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(root.get("id")));
+
+        // Se pide una fila más para saber si hay página siguiente sin contar el total
+        List<Tuple> rows = entityManager.createQuery(query)
+                .setMaxResults(pageSize + 1)
+                .getResultList();
+
+        boolean hasMore = rows.size() > pageSize;
+        List<ClaimSummaryDto> content = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (Tuple row : rows.subList(0, Math.min(rows.size(), pageSize))) {
+            content.add(toSummary(row));
+        }
+
+        String nextCursor = hasMore ? encodeCursor(content.get(content.size() - 1).getId()) : null;
+        log.debug("Búsqueda avanzada: {} resultados, hay más: {}", content.size(), hasMore);
+        return new ClaimSearchPageDto(content, pageSize, nextCursor, hasMore);
+    }
+
+    private List<Predicate> buildPredicates(CriteriaBuilder cb, Root<Claim> root,
+                                            ClaimSearchRequestDto request, String customerNumber) {
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (hasText(request.getClaimNumber())) {
+            predicates.add(cb.equal(root.get("claimNumber"), request.getClaimNumber().trim()));
+        }
+        if (hasText(request.getPolicyNumber())) {
+            predicates.add(cb.equal(root.get("policyNumber"), request.getPolicyNumber().trim()));
+        }
+        if (customerNumber != null) {
+            predicates.add(cb.equal(root.get("customerNumber"), customerNumber));
+        }
+        if (request.getStatuses() != null && !request.getStatuses().isEmpty()) {
+            predicates.add(root.get("status").in(request.getStatuses()));
+        }
+        if (request.getTypes() != null && !request.getTypes().isEmpty()) {
+            predicates.add(root.get("claimType").in(request.getTypes()));
+        }
+        if (request.getIncidentDateFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.get("incidentDate"), request.getIncidentDateFrom()));
+        }
+        if (request.getIncidentDateTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(root.get("incidentDate"), request.getIncidentDateTo()));
+        }
+        if (Boolean.TRUE.equals(request.getHighValue())) {
+            predicates.add(cb.greaterThan(root.get("estimatedAmount"), highValueThreshold));
+        }
+        if (request.getDaysOpen() != null) {
+            // Abierta al menos N días: presentada antes de ahora - N días
+            LocalDateTime submittedBefore = LocalDateTime.now().minusDays(request.getDaysOpen());
+            predicates.add(cb.lessThanOrEqualTo(root.get("submissionDate"), submittedBefore));
+        }
+
+        return predicates;
+    }
+
+    /**
+     * Número de cliente que deben compartir los resultados (null si no hay criterio
+     * de cliente); sin resolver si algún criterio no existe o no coinciden entre sí
+     */
+    private record CustomerFilter(String customerNumber, boolean unresolved) {
+        private static final CustomerFilter UNRESOLVED = new CustomerFilter(null, true);
+    }
+
+    private CustomerFilter resolveCustomerFilter(ClaimSearchRequestDto request) {
+        String customerNumber = hasText(request.getCustomerNumber()) ? request.getCustomerNumber().trim() : null;
+
+        if (hasText(request.getCustomerEmail())) {
+            Optional<String> byEmail = customerIdentityResolver.resolveByEmail(request.getCustomerEmail());
+            if (byEmail.isEmpty() || (customerNumber != null && !customerNumber.equals(byEmail.get()))) {
+                return CustomerFilter.UNRESOLVED;
+            }
+            customerNumber = byEmail.get();
+        }
+
+        if (hasText(request.getIdentificationNumber()) && hasText(request.getIdentificationType())) {
+            Optional<String> byIdentification = customerIdentityResolver.resolveByIdentification(
+                    request.getIdentificationNumber(), request.getIdentificationType());
+            if (byIdentification.isEmpty()
+                    || (customerNumber != null && !customerNumber.equals(byIdentification.get()))) {
+                return CustomerFilter.UNRESOLVED;
+            }
+            customerNumber = byIdentification.get();
+        }
+
+        return new CustomerFilter(customerNumber, false);
+    }
+
+    private boolean hasCriteria(ClaimSearchRequestDto request) {
+        return hasText(request.getClaimNumber())
+                || hasText(request.getPolicyNumber())
+                || hasText(request.getCustomerNumber())
+                || hasText(request.getCustomerEmail())
+                || (hasText(request.getIdentificationNumber()) && hasText(request.getIdentificationType()))
+                || request.getIncidentDateFrom() != null
+                || request.getIncidentDateTo() != null
+                || (request.getStatuses() != null && !request.getStatuses().isEmpty())
+                || (request.getTypes() != null && !request.getTypes().isEmpty())
+                || Boolean.TRUE.equals(request.getHighValue())
+                || request.getDaysOpen() != null;
+    }
+
+    private int pageSizeOf(ClaimSearchRequestDto request) {
+        if (request.getPageSize() == null) {
+            return defaultPageSize;
+        }
+        if (request.getPageSize() < 1) {
+            throw new BusinessValidationException("El tamaño de página debe ser mayor que cero");
+        }
+        return Math.min(request.getPageSize(), maxPageSize);
+    }
+
+    private ClaimSummaryDto toSummary(Tuple row) {
+        ClaimSummaryDto summary = new ClaimSummaryDto();
+        summary.setId(row.get("id", Long.class));
+        summary.setClaimNumber(row.get("claimNumber", String.class));
+        summary.setPolicyNumber(row.get("policyNumber", String.class));
+        summary.setCustomerNumber(row.get("customerNumber", String.class));
+        summary.setIncidentDate(row.get("incidentDate", LocalDate.class));
+        summary.setStatus(row.get("status", Claim.ClaimStatus.class));
+        summary.setClaimType(row.get("claimType", Claim.ClaimType.class));
+        summary.setEstimatedAmount(row.get("estimatedAmount", BigDecimal.class));
+        summary.setApprovedAmount(row.get("approvedAmount", BigDecimal.class));
+        summary.setSubmissionDate(row.get("submissionDate", LocalDateTime.class));
+        if (summary.getSubmissionDate() != null) {
+            summary.setDaysOpen(ChronoUnit.DAYS.between(summary.getSubmissionDate().toLocalDate(), LocalDate.now()));
+        }
+        return summary;
+    }
+
+    private static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (!hasText(cursor)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessValidationException("Cursor de búsqueda no válido");
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
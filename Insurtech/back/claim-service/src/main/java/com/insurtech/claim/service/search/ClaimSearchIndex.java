@@ -0,0 +1,533 @@
+package com.insurtech.claim.service.search;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.*;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Índice local de texto completo (Lucene) para la búsqueda de reclamaciones
+ *
+ * Indexa la descripción del incidente, los números de reclamación, póliza y
+ * cliente, las notas y las descripciones de los ítems. Los términos se normalizan
+ * (minúsculas y sin acentos), cada término de la búsqueda admite coincidencia por
+ * prefijo y los resultados se ordenan por relevancia (BM25), dando más peso a los
+ * identificadores y a la descripción. La búsqueda devuelve sólo IDs; las
+ * reclamaciones se leen después por clave primaria.
+ *
+ * Mantenimiento:
+ * - Incremental: {@link #reindex} con los IDs de los eventos de reclamación y, cada
+ *   {@code refresh-interval-ms}, con las reclamaciones, notas e ítems modificados
+ *   desde la última marca de agua (cubre también las escrituras JDBC por lotes).
+ * - Borrados: la marca de agua no ve las filas eliminadas, así que cada
+ *   {@code reconcile-interval-ms} {@link #reconcileDeletions} compara los IDs del
+ *   índice con CLAIMS y elimina los que ya no existen.
+ * - Completo: {@link #rebuild} recorre CLAIMS por rangos de ID. Se lanza al arrancar
+ *   si el índice no existe; mientras dura, {@link #isReady()} es false y la búsqueda
+ *   se resuelve contra la base de datos. Si falla, se reintenta en la siguiente
+ *   actualización periódica.
+ *
+ * La marca de agua se guarda en los datos del commit del índice, así que un
+ * reinicio continúa desde donde se quedó sin reconstruir. El índice vive en
+ * {@code <index-dir>/<instance-id>}: el directorio es obligatorio y cada instancia
+ * escribe en el suyo aunque compartan volumen.
+ */
+@Component
+@ConditionalOnProperty(name = "app.claims.search.index.enabled", havingValue = "true", matchIfMissing = true)
+public class ClaimSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimSearchIndex.class);
+
+    private static final String WATERMARK_KEY = "watermark";
+    private static final int LOAD_CHUNK = 500;
+
+    // Campos del índice
+    private static final String ID = "id";
+    private static final String IDENTIFIERS = "identifiers";
+    private static final String IDENTIFIER_EXACT = "identifier_exact";
+    private static final String DESCRIPTION = "description";
+    private static final String ITEMS = "items";
+    private static final String NOTES = "notes";
+
+    // Campos de búsqueda con su peso relativo
+    private static final Map<String, Float> FIELD_BOOSTS = Map.of(
+            IDENTIFIERS, 4f, DESCRIPTION, 2f, ITEMS, 1.5f, NOTES, 1f);
+
+    // Propiedades de Claim admitidas como orden, con su campo de doc values
+    private static final Map<String, SortField.Type> SORTABLE = Map.of(
+            "id", SortField.Type.LONG,
+            "createdAt", SortField.Type.LONG,
+            "incidentDate", SortField.Type.LONG,
+            "claimNumber", SortField.Type.STRING,
+            "status", SortField.Type.STRING);
+
+    // Consultas específicas para Oracle
+    private static final String CLAIMS_BY_ID_SQL =
+            "SELECT ID, CLAIM_NUMBER, POLICY_NUMBER, CUSTOMER_NUMBER, INCIDENT_DESCRIPTION, STATUS, " +
+            "INCIDENT_DATE, CREATED_AT FROM CLAIMS WHERE ID IN (:ids)";
+    private static final String NOTES_BY_CLAIM_SQL =
+            "SELECT CLAIM_ID, CONTENT FROM CLAIM_NOTES WHERE CLAIM_ID IN (:ids)";
+    private static final String ITEMS_BY_CLAIM_SQL =
+            "SELECT CLAIM_ID, DESCRIPTION FROM CLAIM_ITEMS WHERE CLAIM_ID IN (:ids)";
+    private static final String EXISTING_IDS_SQL =
+            "SELECT ID FROM CLAIMS WHERE ID IN (:ids)";
+    private static final String NEXT_IDS_SQL =
+            "SELECT ID FROM CLAIMS WHERE ID > ? ORDER BY ID FETCH FIRST " + LOAD_CHUNK + " ROWS ONLY";
+    // Un rango por columna para que cada rama use su índice (db/oracle/claim-search-indexes.sql)
+    private static final String CHANGED_SINCE_SQL =
+            "SELECT ID FROM CLAIMS WHERE UPDATED_AT > :since " +
+            "UNION SELECT ID FROM CLAIMS WHERE CREATED_AT > :since " +
+            "UNION SELECT CLAIM_ID FROM CLAIM_NOTES WHERE UPDATED_AT > :since " +
+            "UNION SELECT CLAIM_ID FROM CLAIM_NOTES WHERE CREATED_AT > :since " +
+            "UNION SELECT CLAIM_ID FROM CLAIM_ITEMS WHERE UPDATED_AT > :since " +
+            "UNION SELECT CLAIM_ID FROM CLAIM_ITEMS WHERE CREATED_AT > :since";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final Analyzer analyzer = buildAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final long watermarkOverlapSeconds;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile boolean rebuildFailed;
+    private volatile boolean ready;
+    private volatile LocalDateTime watermark;
+
+    /**
+     * IDs de una página de resultados, en orden, y total de coincidencias
+     */
+    public record SearchResult(List<Long> claimIds, long totalHits) {
+    }
+
+    public ClaimSearchIndex(JdbcTemplate jdbcTemplate,
+                            @Value("${app.claims.search.index-dir}") String indexDir,
+                            @Value("${app.claims.instance-id}") String instanceId,
+                            @Value("${app.claims.search.watermark-overlap-seconds:60}") long watermarkOverlapSeconds)
+            throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.watermarkOverlapSeconds = watermarkOverlapSeconds;
+
+        this.directory = FSDirectory.open(Paths.get(indexDir, instanceId));
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+
+        String storedWatermark = DirectoryReader.indexExists(directory)
+                ? SegmentInfos.readLatestCommit(directory).getUserData().get(WATERMARK_KEY)
+                : null;
+        this.watermark = storedWatermark != null ? LocalDateTime.parse(storedWatermark) : null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (watermark == null) {
+            log.info("Índice de búsqueda de reclamaciones vacío, se reconstruye en segundo plano");
+            startRebuild();
+        } else {
+            log.info("Índice de búsqueda de reclamaciones cargado ({} documentos, marca de agua {})",
+                    writer.getDocStats().numDocs, watermark);
+            ready = true;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Indica si el índice puede ordenar por todas las propiedades pedidas
+     */
+    public boolean supportsSort(Sort sort) {
+        return sort.stream().allMatch(order -> SORTABLE.containsKey(order.getProperty()));
+    }
+
+    /**
+     * Busca reclamaciones; sin orden explícito se devuelven por relevancia
+     */
+    public SearchResult search(String searchTerm, Sort sort, long offset, int limit) throws IOException {
+        Query query = buildQuery(searchTerm);
+        if (query == null) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            int wanted = (int) Math.min(offset + limit, Integer.MAX_VALUE);
+            TopDocs topDocs = sort.isSorted()
+                    ? searcher.search(query, Math.max(wanted, 1), toLuceneSort(sort))
+                    : searcher.search(query, Math.max(wanted, 1));
+
+            List<Long> ids = new ArrayList<>(limit);
+            StoredFields storedFields = searcher.storedFields();
+            for (int i = (int) offset; i < topDocs.scoreDocs.length && ids.size() < limit; i++) {
+                ids.add(Long.valueOf(storedFields.document(topDocs.scoreDocs[i].doc).get(ID)));
+            }
+            return new SearchResult(ids, searcher.count(query));
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Reindexa las reclamaciones indicadas; las que ya no existen se eliminan del índice
+     */
+    public void reindex(Collection<Long> claimIds) {
+        if (claimIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(claimIds));
+        try {
+            for (int from = 0; from < ids.size(); from += LOAD_CHUNK) {
+                indexChunk(ids.subList(from, Math.min(from + LOAD_CHUNK, ids.size())));
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al actualizar el índice de búsqueda", e);
+        }
+    }
+
+    /**
+     * Reconstruye el índice completo a partir de la base de datos
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            log.info("Ya hay una reconstrucción del índice de búsqueda en curso");
+            return;
+        }
+        ready = false;
+        LocalDateTime startedAt = LocalDateTime.now().minusSeconds(watermarkOverlapSeconds);
+        long started = System.currentTimeMillis();
+        long indexed = 0;
+
+        try {
+            writer.deleteAll();
+            long lastId = 0;
+            List<Long> ids;
+            while (!(ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, lastId)).isEmpty()) {
+                indexChunk(ids);
+                indexed += ids.size();
+                lastId = ids.get(ids.size() - 1);
+            }
+            commit(startedAt);
+            searcherManager.maybeRefresh();
+            ready = true;
+            rebuildFailed = false;
+            log.info("Índice de búsqueda reconstruido: {} reclamaciones en {} ms",
+                    indexed, System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            rebuildFailed = true;
+            log.error("Error al reconstruir el índice de búsqueda de reclamaciones", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * Reindexa lo modificado desde la última marca de agua y confirma el índice
+     */
+    @Scheduled(fixedDelayString = "${app.claims.search.refresh-interval-ms:30000}")
+    public void catchUp() {
+        if (rebuildFailed && !rebuilding.get()) {
+            log.info("Reintentando la reconstrucción del índice de búsqueda en segundo plano");
+            startRebuild();
+            return;
+        }
+        if (!ready || rebuilding.get()) {
+            return;
+        }
+        LocalDateTime since = watermark;
+        LocalDateTime next = LocalDateTime.now().minusSeconds(watermarkOverlapSeconds);
+        try {
+            List<Long> changed = namedJdbcTemplate.queryForList(CHANGED_SINCE_SQL,
+                    new MapSqlParameterSource("since", Timestamp.valueOf(since)), Long.class);
+            if (!changed.isEmpty()) {
+                log.debug("Reindexando {} reclamaciones modificadas desde {}", changed.size(), since);
+                reindex(changed);
+            }
+            commit(next.isAfter(since) ? next : since);
+        } catch (Exception e) {
+            log.error("Error al actualizar el índice de búsqueda desde {}", since, e);
+        }
+    }
+
+    /**
+     * Elimina del índice las reclamaciones que ya no existen en la base de datos
+     *
+     * @return número de reclamaciones eliminadas
+     */
+    @Scheduled(fixedDelayString = "${app.claims.search.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.claims.search.reconcile-interval-ms:3600000}")
+    public int reconcileDeletions() {
+        if (!ready || rebuilding.get()) {
+            return 0;
+        }
+        try {
+            List<Long> indexed = indexedIds();
+            int deleted = 0;
+            for (int from = 0; from < indexed.size(); from += LOAD_CHUNK) {
+                List<Long> chunk = indexed.subList(from, Math.min(from + LOAD_CHUNK, indexed.size()));
+                Set<Long> existing = new HashSet<>(namedJdbcTemplate.queryForList(EXISTING_IDS_SQL,
+                        new MapSqlParameterSource("ids", chunk), Long.class));
+                for (Long id : chunk) {
+                    if (!existing.contains(id)) {
+                        writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+                        deleted++;
+                    }
+                }
+            }
+            if (deleted > 0) {
+                writer.commit();
+                searcherManager.maybeRefresh();
+                log.info("Eliminadas del índice de búsqueda {} reclamaciones borradas", deleted);
+            }
+            return deleted;
+        } catch (Exception e) {
+            log.error("Error al reconciliar los borrados del índice de búsqueda", e);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private void startRebuild() {
+        Thread thread = new Thread(this::rebuild, "claim-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * IDs de las reclamaciones indexadas, leídos de los doc values de orden
+     */
+    private List<Long> indexedIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                NumericDocValues values = leaf.reader().getNumericDocValues(sortField("id"));
+                if (values == null) {
+                    continue;
+                }
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        ids.add(values.longValue());
+                    }
+                }
+            }
+        } finally {
+            searcherManager.release(searcher);
+        }
+        return ids;
+    }
+
+    private void commit(LocalDateTime newWatermark) throws IOException {
+        writer.setLiveCommitData(Map.of(WATERMARK_KEY, newWatermark.toString()).entrySet());
+        writer.commit();
+        watermark = newWatermark;
+    }
+
+    private void indexChunk(List<Long> ids) throws IOException {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+
+        Map<Long, List<String>> notes = new HashMap<>();
+        namedJdbcTemplate.query(NOTES_BY_CLAIM_SQL, params, rs -> {
+            notes.computeIfAbsent(rs.getLong("CLAIM_ID"), id -> new ArrayList<>()).add(rs.getString("CONTENT"));
+        });
+        Map<Long, List<String>> items = new HashMap<>();
+        namedJdbcTemplate.query(ITEMS_BY_CLAIM_SQL, params, rs -> {
+            items.computeIfAbsent(rs.getLong("CLAIM_ID"), id -> new ArrayList<>()).add(rs.getString("DESCRIPTION"));
+        });
+
+        Set<Long> found = new HashSet<>();
+        List<Document> documents = namedJdbcTemplate.query(CLAIMS_BY_ID_SQL, params, (rs, rowNum) -> {
+            long id = rs.getLong("ID");
+            found.add(id);
+            Timestamp createdAt = rs.getTimestamp("CREATED_AT");
+            java.sql.Date incidentDate = rs.getDate("INCIDENT_DATE");
+            return toDocument(id,
+                    rs.getString("CLAIM_NUMBER"),
+                    rs.getString("POLICY_NUMBER"),
+                    rs.getString("CUSTOMER_NUMBER"),
+                    rs.getString("INCIDENT_DESCRIPTION"),
+                    rs.getString("STATUS"),
+                    incidentDate != null ? incidentDate.toLocalDate() : null,
+                    createdAt != null ? createdAt.toLocalDateTime() : null,
+                    notes.getOrDefault(id, List.of()),
+                    items.getOrDefault(id, List.of()));
+        });
+
+        for (Document document : documents) {
+            writer.updateDocument(new Term(ID, document.get(ID)), document);
+        }
+        for (Long id : ids) {
+            if (!found.contains(id)) {
+                writer.deleteDocuments(new Term(ID, String.valueOf(id)));
+            }
+        }
+    }
+
+    private Document toDocument(long id, String claimNumber, String policyNumber, String customerNumber,
+                                String description, String status, LocalDate incidentDate, LocalDateTime createdAt,
+                                List<String> notes, List<String> items) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(id), Field.Store.YES));
+        document.add(new NumericDocValuesField(sortField("id"), id));
+
+        for (String identifier : new String[]{claimNumber, policyNumber, customerNumber}) {
+            if (identifier != null) {
+                document.add(new TextField(IDENTIFIERS, identifier, Field.Store.NO));
+                document.add(new StringField(IDENTIFIER_EXACT, identifier.toLowerCase(Locale.ROOT), Field.Store.NO));
+            }
+        }
+        if (description != null) {
+            document.add(new TextField(DESCRIPTION, description, Field.Store.NO));
+        }
+        for (String note : notes) {
+            if (note != null) {
+                document.add(new TextField(NOTES, note, Field.Store.NO));
+            }
+        }
+        for (String item : items) {
+            if (item != null) {
+                document.add(new TextField(ITEMS, item, Field.Store.NO));
+            }
+        }
+
+        if (claimNumber != null) {
+            document.add(new SortedDocValuesField(sortField("claimNumber"), new BytesRef(claimNumber)));
+        }
+        if (status != null) {
+            document.add(new SortedDocValuesField(sortField("status"), new BytesRef(status)));
+        }
+        if (incidentDate != null) {
+            document.add(new NumericDocValuesField(sortField("incidentDate"), incidentDate.toEpochDay()));
+        }
+        if (createdAt != null) {
+            document.add(new NumericDocValuesField(sortField("createdAt"),
+                    createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+        }
+        return document;
+    }
+
+    /**
+     * Todos los términos deben aparecer (completos o como prefijo) en algún campo;
+     * un identificador que empiece por el texto buscado también coincide
+     */
+    private Query buildQuery(String searchTerm) throws IOException {
+        List<String> tokens = tokenize(searchTerm);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder allTokens = new BooleanQuery.Builder();
+        for (String token : tokens) {
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            for (Map.Entry<String, Float> field : FIELD_BOOSTS.entrySet()) {
+                // La coincidencia exacta puntúa el doble que la de prefijo
+                anyField.add(new BoostQuery(new TermQuery(new Term(field.getKey(), token)), field.getValue() * 2),
+                        BooleanClause.Occur.SHOULD);
+                if (token.length() > 1) {
+                    anyField.add(new BoostQuery(new PrefixQuery(new Term(field.getKey(), token)), field.getValue()),
+                            BooleanClause.Occur.SHOULD);
+                }
+            }
+            allTokens.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+
+        Query exactIdentifier = new BoostQuery(
+                new PrefixQuery(new Term(IDENTIFIER_EXACT, searchTerm.trim().toLowerCase(Locale.ROOT))), 10f);
+
+        return new BooleanQuery.Builder()
+                .add(allTokens.build(), BooleanClause.Occur.SHOULD)
+                .add(exactIdentifier, BooleanClause.Occur.SHOULD)
+                .build();
+    }
+
+    private List<String> tokenize(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        try (TokenStream stream = analyzer.tokenStream(DESCRIPTION, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        }
+        return tokens;
+    }
+
+    private org.apache.lucene.search.Sort toLuceneSort(Sort sort) {
+        List<SortField> fields = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            fields.add(new SortField(sortField(order.getProperty()), SORTABLE.get(order.getProperty()),
+                    order.isDescending()));
+        }
+        return new org.apache.lucene.search.Sort(fields.toArray(new SortField[0]));
+    }
+
+    private static String sortField(String property) {
+        return "sort_" + property;
+    }
+
+    /**
+     * Tokenizador estándar, minúsculas y eliminación de acentos ("reclamación" = "reclamacion")
+     */
+    private static Analyzer buildAnalyzer() {
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                StandardTokenizer tokenizer = new StandardTokenizer();
+                TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+                return new TokenStreamComponents(tokenizer, stream);
+            }
+
+            @Override
+            protected TokenStream normalize(String fieldName, TokenStream in) {
+                return new ASCIIFoldingFilter(new LowerCaseFilter(in));
+            }
+        };
+    }
+}
@@ -0,0 +1,275 @@
+package com.insurtech.claim.service.storage;
+
+import com.insurtech.claim.repository.ClaimDocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Almacén de documentos direccionado por contenido
+ *
+ * Cada fichero se guarda una sola vez en {@code sha256/aa/bb/<hash>} bajo el
+ * directorio de almacenamiento, calculando el hash mientras se copia la subida a un
+ * temporal (memoria constante). Si el contenido ya existe, el temporal se descarta
+ * y el documento apunta al fichero existente.
+ *
+ * El número de referencias de cada fichero es el número de filas de
+ * CLAIM_DOCUMENTS con esa FILE_PATH, de modo que no puede desincronizarse de los
+ * documentos. Al eliminar el último documento el fichero se borra tras el commit,
+ * salvo que se haya reutilizado hace menos de {@code orphanGrace}: en ese caso
+ * puede haber una subida en curso aún sin confirmar, y lo recoge más tarde la
+ * limpieza periódica, que comprueba las referencias por lotes con una sola consulta
+ * por lote.
+ *
+ * El directorio de almacenamiento ({@code app.document.storage.path}) es obligatorio
+ * y no puede estar bajo el directorio temporal del sistema: es la única copia de los
+ * documentos.
+ *
+ * Las rutas antiguas (uploads/claims/...) se siguen resolviendo tal cual.
+ */
+@Component
+public class ContentAddressedDocumentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentAddressedDocumentStore.class);
+
+    private static final String CONTENT_PREFIX = "sha256/";
+    private static final int LOCK_STRIPES = 64;
+    // Máximo de elementos en una lista IN de Oracle
+    private static final int ORPHAN_BATCH_SIZE = 1000;
+
+    private final ClaimDocumentRepository documentRepository;
+    private final Path root;
+    private final Duration orphanGrace;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * Resultado de guardar un contenido
+     */
+    public record StoredContent(String hash, String filePath, long size, boolean deduplicated) {
+    }
+
+    public ContentAddressedDocumentStore(ClaimDocumentRepository documentRepository,
+                                         @Value("${app.document.storage.path}") String storagePath,
+                                         @Value("${app.document.storage.orphan-grace-minutes:60}") long orphanGraceMinutes) {
+        this.documentRepository = documentRepository;
+        this.root = Paths.get(storagePath).toAbsolutePath().normalize();
+        Path systemTmp = Paths.get(System.getProperty("java.io.tmpdir")).toAbsolutePath().normalize();
+        if (root.startsWith(systemTmp)) {
+            throw new IllegalStateException("app.document.storage.path (" + root
+                    + ") debe ser un directorio persistente, no el temporal del sistema");
+        }
+        this.orphanGrace = Duration.ofMinutes(orphanGraceMinutes);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Copia el contenido a disco calculando su SHA-256 y lo deja en su dirección final
+     */
+    public StoredContent store(InputStream content) throws IOException {
+        Path tmpDir = Files.createDirectories(root.resolve("tmp"));
+        Path tmp = Files.createTempFile(tmpDir, "upload-", ".part");
+
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(tmp)) {
+                size = in.transferTo(out);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String filePath = CONTENT_PREFIX + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+            Path target = root.resolve(filePath);
+
+            synchronized (lockFor(filePath)) {
+                if (Files.exists(target)) {
+                    // Contenido ya almacenado: se marca como usado para que la limpieza no lo borre
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                    log.debug("Contenido {} ya almacenado, se reutiliza", hash);
+                    return new StoredContent(hash, filePath, size, true);
+                }
+                Files.createDirectories(target.getParent());
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                return new StoredContent(hash, filePath, size, false);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Ruta en disco de un documento, tanto direccionado por contenido como antiguo
+     */
+    public Path resolve(String filePath) {
+        return isContentAddressed(filePath) ? root.resolve(filePath) : Paths.get(filePath);
+    }
+
+    /**
+     * Hash del contenido si el documento está direccionado por contenido
+     */
+    public String hashOf(String filePath) {
+        return isContentAddressed(filePath) ? filePath.substring(filePath.lastIndexOf('/') + 1) : null;
+    }
+
+    /**
+     * Libera la referencia de un documento eliminado una vez confirmada la transacción
+     */
+    public void releaseAfterCommit(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    release(filePath);
+                }
+            });
+        } else {
+            release(filePath);
+        }
+    }
+
+    private void release(String filePath) {
+        try {
+            if (!isContentAddressed(filePath)) {
+                // Ficheros antiguos: uno por documento
+                Files.deleteIfExists(Paths.get(filePath));
+                return;
+            }
+            synchronized (lockFor(filePath)) {
+                deleteIfUnreferenced(filePath, root.resolve(filePath));
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el archivo físico {}: {}", filePath, e.getMessage());
+        }
+    }
+
+    /**
+     * Elimina los contenidos sin referencias y los temporales abandonados
+     */
+    @Scheduled(cron = "${app.document.storage.cleanup-cron:0 30 3 * * *}")
+    public void removeOrphans() {
+        Path contentRoot = root.resolve(CONTENT_PREFIX);
+        if (!Files.isDirectory(contentRoot)) {
+            return;
+        }
+
+        int removed = 0;
+        try (Stream<Path> files = Files.walk(contentRoot)) {
+            Map<String, Path> candidates = new LinkedHashMap<>();
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                if (isOlderThanGrace(file)) {
+                    candidates.put(root.relativize(file).toString().replace('\\', '/'), file);
+                }
+                if (candidates.size() == ORPHAN_BATCH_SIZE) {
+                    removed += removeUnreferenced(candidates);
+                    candidates.clear();
+                }
+            }
+            removed += removeUnreferenced(candidates);
+        } catch (IOException e) {
+            log.error("Error al limpiar el almacén de documentos", e);
+        }
+
+        try (Stream<Path> files = Files.list(root.resolve("tmp"))) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (isOlderThanGrace(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Sin temporales
+        } catch (IOException e) {
+            log.warn("Error al limpiar temporales de subida: {}", e.getMessage());
+        }
+
+        log.info("Limpieza del almacén de documentos: {} contenidos sin referencias eliminados", removed);
+    }
+
+    /**
+     * Borra los candidatos que ningún documento referencia
+     *
+     * Las referencias se consultan para todo el lote a la vez; el bloqueo y la fecha de
+     * uso se vuelven a comprobar por fichero porque una subida puede haberlo reutilizado
+     * entretanto.
+     */
+    private int removeUnreferenced(Map<String, Path> candidates) throws IOException {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>(documentRepository.findReferencedFilePaths(candidates.keySet()));
+
+        int removed = 0;
+        for (Map.Entry<String, Path> candidate : candidates.entrySet()) {
+            if (referenced.contains(candidate.getKey())) {
+                continue;
+            }
+            Path file = candidate.getValue();
+            synchronized (lockFor(candidate.getKey())) {
+                if (Files.exists(file) && isOlderThanGrace(file)) {
+                    Files.deleteIfExists(file);
+                    log.debug("Eliminado contenido sin referencias {}", candidate.getKey());
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    private boolean deleteIfUnreferenced(String filePath, Path file) throws IOException {
+        if (!Files.exists(file) || !isOlderThanGrace(file)) {
+            return false;
+        }
+        if (documentRepository.countByFilePath(filePath) > 0) {
+            return false;
+        }
+        Files.deleteIfExists(file);
+        log.debug("Eliminado contenido sin referencias {}", filePath);
+        return true;
+    }
+
+    private boolean isOlderThanGrace(Path file) throws IOException {
+        Instant lastUsed = Files.getLastModifiedTime(file).toInstant();
+        return lastUsed.isBefore(Instant.now().minus(orphanGrace));
+    }
+
+    private boolean isContentAddressed(String filePath) {
+        return filePath.startsWith(CONTENT_PREFIX);
+    }
+
+    private Object lockFor(String filePath) {
+        return locks[Math.floorMod(filePath.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
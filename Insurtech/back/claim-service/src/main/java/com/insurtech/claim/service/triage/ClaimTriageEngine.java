@@ -0,0 +1,292 @@
+package com.insurtech.claim.service.triage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurtech.claim.exception.BusinessValidationException;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import com.insurtech.claim.repository.ClaimRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Motor de triaje de reclamaciones basado en reglas declarativas
+ *
+ * Las reglas se leen de {@code app.claims.triage.rules-location} (JSON), se
+ * compilan en un {@link CompiledTriageRules} y se sustituyen de forma atómica:
+ * las evaluaciones en curso terminan con el conjunto anterior. El fichero se
+ * vuelve a leer cuando cambia su fecha de modificación, y las reglas también se
+ * pueden sustituir en caliente desde la API. Un conjunto inválido nunca
+ * reemplaza al vigente.
+ */
+@Component
+public class ClaimTriageEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(ClaimTriageEngine.class);
+
+    private static final String TRIAGE_USER = "triage-engine";
+
+    /**
+     * Regla añadida cuando una aprobación automática se rebaja a revisión porque
+     * la cobertura de los ítems la declaró alguien sin permiso para verificarla
+     */
+    public static final String UNVERIFIED_COVERAGE_RULE = "UNVERIFIED_ITEM_COVERAGE";
+
+    // Longitud de la columna HANDLER_COMMENTS
+    private static final int MAX_HANDLER_COMMENTS = 2000;
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ClaimRepository claimRepository;
+    private final String rulesLocation;
+    private final boolean enabled;
+
+    private final AtomicReference<CompiledTriageRules> rules = new AtomicReference<>(CompiledTriageRules.empty());
+    private volatile long rulesLastModified = -1;
+    private volatile LocalDateTime loadedAt;
+    private volatile String loadedFrom;
+
+    /**
+     * Estado de una regla del conjunto vigente; {@code hits} es acumulado desde el arranque
+     */
+    public record RuleStats(String id, String description, TriageRule.Scope scope, TriageRule.Action action,
+                            int priority, double hits) {
+    }
+
+    /**
+     * Resumen del conjunto de reglas vigente
+     */
+    public record RuleSetInfo(String source, LocalDateTime loadedAt, int frequencyWindowDays, List<RuleStats> rules) {
+    }
+
+    public ClaimTriageEngine(ResourceLoader resourceLoader,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             ClaimRepository claimRepository,
+                             @Value("${app.claims.triage.rules-location:classpath:triage/claim-triage-rules.json}") String rulesLocation,
+                             @Value("${app.claims.triage.enabled:true}") boolean enabled) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.claimRepository = claimRepository;
+        this.rulesLocation = rulesLocation;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("Triaje de reclamaciones desactivado");
+            return;
+        }
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("No se pudieron cargar las reglas de triaje desde {}: {}", rulesLocation, e.getMessage());
+        }
+    }
+
+    /**
+     * Vuelve a cargar el fichero de reglas si ha cambiado desde la última carga
+     */
+    @Scheduled(fixedDelayString = "${app.claims.triage.reload-interval-ms:30000}")
+    public void reloadIfModified() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Resource resource = resourceLoader.getResource(rulesLocation);
+            // Los recursos dentro del jar no tienen fecha de modificación: sólo se leen al arrancar
+            if (!resource.isFile() || resource.lastModified() == rulesLastModified) {
+                return;
+            }
+            reload();
+        } catch (Exception e) {
+            log.warn("No se pudieron recargar las reglas de triaje, se mantienen las vigentes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Carga y compila el fichero de reglas configurado
+     */
+    public RuleSetInfo reload() throws IOException {
+        Resource resource = resourceLoader.getResource(rulesLocation);
+        long lastModified = resource.isFile() ? resource.lastModified() : -1;
+        TriageRule.RuleSet ruleSet;
+        try (InputStream in = resource.getInputStream()) {
+            ruleSet = objectMapper.readValue(in, TriageRule.RuleSet.class);
+        }
+        swap(ruleSet, rulesLocation);
+        rulesLastModified = lastModified;
+        return getRuleSetInfo();
+    }
+
+    /**
+     * Sustituye las reglas de esta instancia sin tocar el fichero configurado;
+     * si el fichero cambia después, sus reglas vuelven a prevalecer
+     */
+    public RuleSetInfo replaceRules(TriageRule.RuleSet ruleSet) {
+        swap(ruleSet, "api");
+        return getRuleSetInfo();
+    }
+
+    private void swap(TriageRule.RuleSet ruleSet, String source) {
+        CompiledTriageRules compiled;
+        try {
+            compiled = CompiledTriageRules.compile(ruleSet, this::hitCounter);
+        } catch (IllegalArgumentException e) {
+            throw new BusinessValidationException("Reglas de triaje inválidas: " + e.getMessage());
+        }
+        rules.set(compiled);
+        loadedAt = LocalDateTime.now();
+        loadedFrom = source;
+        log.info("Cargadas {} reglas de triaje desde {}", compiled.rules().size(), source);
+    }
+
+    private Counter hitCounter(String ruleId) {
+        // El registro devuelve el mismo contador si la regla ya existía en un conjunto anterior
+        return Counter.builder("claims.triage.rule.hits")
+                .description("Coincidencias de cada regla de triaje")
+                .tag("rule", ruleId)
+                .register(meterRegistry);
+    }
+
+    public boolean usesCustomerFrequency() {
+        return enabled && rules.get().usesCustomerFrequency();
+    }
+
+    /**
+     * Inicio de la ventana de frecuencia de las reglas vigentes
+     */
+    public LocalDateTime frequencyWindowStart() {
+        return LocalDateTime.now().minusDays(rules.get().frequencyWindowDays());
+    }
+
+    /**
+     * Reclamaciones del cliente en la ventana de frecuencia, sin contar la que se está creando
+     */
+    public long countRecentClaims(String customerNumber) {
+        if (!usesCustomerFrequency() || customerNumber == null) {
+            return 0;
+        }
+        return claimRepository.countByCustomerNumberAndSubmissionDateGreaterThanEqual(
+                customerNumber, frequencyWindowStart());
+    }
+
+    /**
+     * Evalúa una reclamación con las reglas vigentes
+     *
+     * @param customerClaims reclamaciones del cliente en la ventana, incluida la evaluada
+     */
+    public TriageResult evaluate(Claim claim, Collection<ClaimItem> items, long customerClaims) {
+        if (!enabled) {
+            return TriageResult.NONE;
+        }
+        return rules.get().evaluate(claim.getClaimType(), claim.getEstimatedAmount(), items, customerClaims);
+    }
+
+    /**
+     * Indica si la aprobación automática depende de la cobertura declarada de los
+     * ítems, es decir, si alguna de las reglas que la deciden filtra por {@code covered}
+     */
+    public boolean dependsOnItemCoverage(TriageResult result) {
+        if (result.decision() != TriageResult.Decision.AUTO_APPROVE) {
+            return false;
+        }
+        Set<String> ruleIds = new HashSet<>(result.ruleIds());
+        return rules.get().rules().stream()
+                .anyMatch(compiled -> compiled.rule().covered() != null && ruleIds.contains(compiled.rule().id()));
+    }
+
+    /**
+     * Rebaja una aprobación automática a revisión porque la cobertura de los ítems
+     * no está verificada; el resto de decisiones se devuelven sin cambios
+     */
+    public TriageResult withUnverifiedCoverage(TriageResult result) {
+        if (result.decision() != TriageResult.Decision.AUTO_APPROVE) {
+            return result;
+        }
+        List<String> ruleIds = new ArrayList<>(result.ruleIds());
+        ruleIds.add(UNVERIFIED_COVERAGE_RULE);
+        return new TriageResult(TriageResult.Decision.REVIEW, ruleIds, BigDecimal.ZERO);
+    }
+
+    /**
+     * Aplica la decisión de triaje a la reclamación y a sus ítems
+     *
+     * AUTO_APPROVE aprueba la reclamación y cada ítem por el importe reclamado;
+     * FLAG y REVIEW la dejan en revisión con un comentario que indica las reglas.
+     *
+     * @return si la reclamación ha cambiado
+     */
+    public boolean apply(Claim claim, Collection<ClaimItem> items, TriageResult result) {
+        LocalDateTime now = LocalDateTime.now();
+        String rulesText = String.join(", ", result.ruleIds());
+
+        switch (result.decision()) {
+            case AUTO_APPROVE -> {
+                for (ClaimItem item : items) {
+                    item.setApprovedAmount(item.getClaimedAmount());
+                    item.setUpdatedAt(now);
+                    item.setUpdatedBy(TRIAGE_USER);
+                }
+                claim.setStatus(Claim.ClaimStatus.APPROVED);
+                claim.setApprovedAmount(result.approvedAmount());
+                claim.setApprovalDate(now);
+                appendComment(claim, "Aprobada automáticamente por reglas de triaje (" + rulesText + "): " + now);
+            }
+            case FLAG -> {
+                claim.setStatus(Claim.ClaimStatus.UNDER_REVIEW);
+                appendComment(claim, "Marcada como sospechosa por reglas de triaje (" + rulesText + "): " + now);
+            }
+            case REVIEW -> {
+                claim.setStatus(Claim.ClaimStatus.UNDER_REVIEW);
+                appendComment(claim, "Enviada a revisión por reglas de triaje (" + rulesText + "): " + now);
+            }
+            default -> {
+                return false;
+            }
+        }
+        claim.setUpdatedAt(now);
+        claim.setUpdatedBy(TRIAGE_USER);
+        return true;
+    }
+
+    public RuleSetInfo getRuleSetInfo() {
+        CompiledTriageRules current = rules.get();
+        List<RuleStats> stats = current.rules().stream()
+                .map(compiled -> new RuleStats(compiled.rule().id(), compiled.rule().description(),
+                        compiled.rule().scope(), compiled.rule().action(),
+                        compiled.rule().effectivePriority(), compiled.hits()))
+                .toList();
+        return new RuleSetInfo(loadedFrom, loadedAt, current.frequencyWindowDays(), stats);
+    }
+
+    /**
+     * Añade el comentario sin superar la longitud de la columna: si no cabe, se
+     * descartan los comentarios más antiguos
+     */
+    private void appendComment(Claim claim, String comment) {
+        String current = claim.getHandlerComments();
+        String comments = current == null || current.isEmpty() ? comment : current + "\n" + comment;
+        if (comments.length() > MAX_HANDLER_COMMENTS) {
+            comments = comments.substring(comments.length() - MAX_HANDLER_COMMENTS);
+        }
+        claim.setHandlerComments(comments);
+    }
+}
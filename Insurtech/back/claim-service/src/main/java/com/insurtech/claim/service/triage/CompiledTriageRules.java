@@ -0,0 +1,328 @@
+package com.insurtech.claim.service.triage;
+
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import io.micrometer.core.instrument.Counter;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Conjunto de reglas de triaje compilado e inmutable
+ *
+ * Las reglas se indexan por tipo de reclamación y, las de ítem, también por
+ * categoría: cada ítem sólo recorre las pocas reglas que pueden aplicarle, ya
+ * ordenadas por prioridad, y cada comprobación es una comparación de importes o
+ * de contadores. Las categorías se normalizan a mayúsculas al compilar; las que
+ * no aparecen en ninguna regla comparten la misma posición del índice.
+ */
+public final class CompiledTriageRules {
+
+    private static final Claim.ClaimType[] TYPES = Claim.ClaimType.values();
+    // Posición del índice para reclamaciones sin tipo
+    private static final int NO_TYPE = TYPES.length;
+    private static final CompiledRule[] NO_RULES = new CompiledRule[0];
+
+    private final int frequencyWindowDays;
+    private final boolean usesCustomerFrequency;
+    private final List<CompiledRule> rules;
+    private final Map<String, Integer> categoryIds;
+    private final int unknownCategory;
+    private final CompiledRule[][][] itemRules;
+    private final CompiledRule[][] claimRules;
+
+    /**
+     * Regla compilada: criterios ya resueltos y contador de coincidencias
+     */
+    public static final class CompiledRule {
+
+        private final TriageRule rule;
+        private final BigDecimal minAmount;
+        private final BigDecimal maxAmount;
+        // null: cualquier ítem; true/false: sólo ítems cubiertos o no cubiertos
+        private final Boolean covered;
+        private final long minCustomerClaims;
+        private final long maxCustomerClaims;
+        private final Counter hits;
+
+        private CompiledRule(TriageRule rule, Counter hits) {
+            this.rule = rule;
+            this.minAmount = rule.minAmount();
+            this.maxAmount = rule.maxAmount();
+            this.covered = rule.covered();
+            this.minCustomerClaims = rule.minCustomerClaims() != null ? rule.minCustomerClaims() : Long.MIN_VALUE;
+            this.maxCustomerClaims = rule.maxCustomerClaims() != null ? rule.maxCustomerClaims() : Long.MAX_VALUE;
+            this.hits = hits;
+        }
+
+        public TriageRule rule() {
+            return rule;
+        }
+
+        public double hits() {
+            return hits.count();
+        }
+
+        private boolean matchesAmount(BigDecimal amount) {
+            return (minAmount == null || amount.compareTo(minAmount) >= 0)
+                    && (maxAmount == null || amount.compareTo(maxAmount) <= 0);
+        }
+
+        private boolean matchesItem(BigDecimal amount, boolean covered) {
+            return (this.covered == null || this.covered == covered) && matchesAmount(amount);
+        }
+
+        private boolean matchesClaim(BigDecimal amount, long customerClaims) {
+            return customerClaims >= minCustomerClaims && customerClaims <= maxCustomerClaims && matchesAmount(amount);
+        }
+    }
+
+    private CompiledTriageRules(int frequencyWindowDays, List<CompiledRule> rules) {
+        this.frequencyWindowDays = frequencyWindowDays;
+        this.rules = List.copyOf(rules);
+
+        // Diccionario de categorías: sólo las que aparecen en alguna regla
+        Map<String, Integer> categories = new HashMap<>();
+        for (CompiledRule compiled : rules) {
+            if (compiled.rule.itemCategories() != null) {
+                for (String category : compiled.rule.itemCategories()) {
+                    categories.putIfAbsent(normalize(category), categories.size());
+                }
+            }
+        }
+        this.categoryIds = Map.copyOf(categories);
+        this.unknownCategory = categories.size();
+
+        List<List<List<CompiledRule>>> items = new ArrayList<>();
+        List<List<CompiledRule>> claims = new ArrayList<>();
+        for (int type = 0; type <= NO_TYPE; type++) {
+            List<List<CompiledRule>> byCategory = new ArrayList<>();
+            for (int category = 0; category <= unknownCategory; category++) {
+                byCategory.add(new ArrayList<>());
+            }
+            items.add(byCategory);
+            claims.add(new ArrayList<>());
+        }
+
+        boolean frequency = false;
+        for (CompiledRule compiled : rules) {
+            TriageRule rule = compiled.rule;
+            for (int type : typeSlots(rule)) {
+                if (rule.scope() == TriageRule.Scope.CLAIM) {
+                    claims.get(type).add(compiled);
+                } else if (rule.itemCategories() == null || rule.itemCategories().isEmpty()) {
+                    items.get(type).forEach(slot -> slot.add(compiled));
+                } else {
+                    rule.itemCategories().stream()
+                            .map(CompiledTriageRules::normalize)
+                            .distinct()
+                            .forEach(category -> items.get(type).get(categoryIds.get(category)).add(compiled));
+                }
+            }
+            frequency |= rule.minCustomerClaims() != null || rule.maxCustomerClaims() != null;
+        }
+        this.usesCustomerFrequency = frequency;
+
+        this.itemRules = new CompiledRule[NO_TYPE + 1][][];
+        this.claimRules = new CompiledRule[NO_TYPE + 1][];
+        for (int type = 0; type <= NO_TYPE; type++) {
+            itemRules[type] = new CompiledRule[unknownCategory + 1][];
+            for (int category = 0; category <= unknownCategory; category++) {
+                itemRules[type][category] = toArray(items.get(type).get(category));
+            }
+            claimRules[type] = toArray(claims.get(type));
+        }
+    }
+
+    /**
+     * Conjunto vacío: ninguna reclamación recibe decisión de triaje
+     */
+    public static CompiledTriageRules empty() {
+        return new CompiledTriageRules(0, List.of());
+    }
+
+    /**
+     * Valida y compila un conjunto de reglas
+     *
+     * @param counters contador de coincidencias para cada identificador de regla
+     * @throws IllegalArgumentException si alguna regla es inválida
+     */
+    public static CompiledTriageRules compile(TriageRule.RuleSet ruleSet, Function<String, Counter> counters) {
+        List<TriageRule> definitions = ruleSet.rules() != null ? ruleSet.rules() : List.of();
+        Set<String> ids = new HashSet<>();
+        for (TriageRule rule : definitions) {
+            validate(rule);
+            if (!ids.add(rule.id())) {
+                throw new IllegalArgumentException("Regla de triaje duplicada: " + rule.id());
+            }
+        }
+
+        // Orden estable por prioridad descendente; en empate, el orden del fichero
+        List<CompiledRule> compiled = definitions.stream()
+                .filter(TriageRule::isEnabled)
+                .sorted(Comparator.comparingInt(TriageRule::effectivePriority).reversed())
+                .map(rule -> new CompiledRule(rule, counters.apply(rule.id())))
+                .toList();
+
+        boolean frequency = compiled.stream().anyMatch(c ->
+                c.rule.minCustomerClaims() != null || c.rule.maxCustomerClaims() != null);
+        Integer window = ruleSet.frequencyWindowDays();
+        if (frequency && (window == null || window <= 0)) {
+            throw new IllegalArgumentException("Las reglas de frecuencia requieren frequencyWindowDays positivo");
+        }
+        return new CompiledTriageRules(window != null ? window : 0, compiled);
+    }
+
+    public int frequencyWindowDays() {
+        return frequencyWindowDays;
+    }
+
+    /**
+     * Indica si alguna regla usa el número de reclamaciones del cliente
+     */
+    public boolean usesCustomerFrequency() {
+        return usesCustomerFrequency;
+    }
+
+    public List<CompiledRule> rules() {
+        return rules;
+    }
+
+    /**
+     * Evalúa una reclamación
+     *
+     * @param customerClaims reclamaciones del cliente en la ventana, incluida la evaluada
+     */
+    public TriageResult evaluate(Claim.ClaimType claimType, BigDecimal estimatedAmount,
+                                 Collection<ClaimItem> items, long customerClaims) {
+        if (rules.isEmpty()) {
+            return TriageResult.NONE;
+        }
+        int type = claimType != null ? claimType.ordinal() : NO_TYPE;
+
+        List<String> flagRules = null;
+        List<String> reviewRules = null;
+        Set<String> approveRules = null;
+        boolean allApproved = items != null && !items.isEmpty();
+        BigDecimal total = BigDecimal.ZERO;
+
+        if (items != null) {
+            for (ClaimItem item : items) {
+                BigDecimal amount = item.getClaimedAmount() != null ? item.getClaimedAmount() : BigDecimal.ZERO;
+                total = total.add(amount);
+
+                boolean approved = false;
+                for (CompiledRule rule : itemRules[type][categoryOf(item.getCategory())]) {
+                    if (!rule.matchesItem(amount, item.isCovered())) {
+                        continue;
+                    }
+                    rule.hits.increment();
+                    switch (rule.rule.action()) {
+                        case AUTO_APPROVE -> {
+                            if (!approved) {
+                                approved = true;
+                                approveRules = add(approveRules, rule.rule.id());
+                            }
+                        }
+                        case REVIEW -> reviewRules = add(reviewRules, rule.rule.id());
+                        case FLAG -> flagRules = add(flagRules, rule.rule.id());
+                    }
+                }
+                allApproved &= approved;
+            }
+        }
+
+        // Sin ítems se usa el importe estimado de la reclamación
+        BigDecimal claimAmount = items != null && !items.isEmpty() ? total
+                : estimatedAmount != null ? estimatedAmount : BigDecimal.ZERO;
+        for (CompiledRule rule : claimRules[type]) {
+            if (!rule.matchesClaim(claimAmount, customerClaims)) {
+                continue;
+            }
+            rule.hits.increment();
+            if (rule.rule.action() == TriageRule.Action.FLAG) {
+                flagRules = add(flagRules, rule.rule.id());
+            } else {
+                reviewRules = add(reviewRules, rule.rule.id());
+            }
+        }
+
+        if (flagRules != null) {
+            return new TriageResult(TriageResult.Decision.FLAG, List.copyOf(flagRules), BigDecimal.ZERO);
+        }
+        if (reviewRules != null) {
+            return new TriageResult(TriageResult.Decision.REVIEW, List.copyOf(reviewRules), BigDecimal.ZERO);
+        }
+        if (allApproved) {
+            return new TriageResult(TriageResult.Decision.AUTO_APPROVE, List.copyOf(approveRules), total);
+        }
+        return TriageResult.NONE;
+    }
+
+    private int categoryOf(String category) {
+        if (category == null || categoryIds.isEmpty()) {
+            return unknownCategory;
+        }
+        Integer id = categoryIds.get(category);
+        if (id == null) {
+            id = categoryIds.get(normalize(category));
+        }
+        return id != null ? id : unknownCategory;
+    }
+
+    private static void validate(TriageRule rule) {
+        if (rule.id() == null || rule.id().isBlank()) {
+            throw new IllegalArgumentException("Regla de triaje sin identificador");
+        }
+        if (rule.scope() == null || rule.action() == null) {
+            throw new IllegalArgumentException("La regla " + rule.id() + " debe indicar scope y action");
+        }
+        if (rule.minAmount() != null && rule.maxAmount() != null && rule.minAmount().compareTo(rule.maxAmount()) > 0) {
+            throw new IllegalArgumentException("La regla " + rule.id() + " tiene minAmount mayor que maxAmount");
+        }
+        if (rule.scope() == TriageRule.Scope.CLAIM) {
+            if (rule.action() == TriageRule.Action.AUTO_APPROVE) {
+                throw new IllegalArgumentException("La regla " + rule.id() + ": AUTO_APPROVE sólo se admite en reglas de ítem");
+            }
+            if ((rule.itemCategories() != null && !rule.itemCategories().isEmpty()) || rule.covered() != null) {
+                throw new IllegalArgumentException("La regla " + rule.id() + ": itemCategories y covered sólo se admiten en reglas de ítem");
+            }
+        } else if (rule.minCustomerClaims() != null || rule.maxCustomerClaims() != null) {
+            throw new IllegalArgumentException("La regla " + rule.id() + ": los criterios de frecuencia sólo se admiten en reglas de reclamación");
+        }
+    }
+
+    private static int[] typeSlots(TriageRule rule) {
+        if (rule.claimTypes() == null || rule.claimTypes().isEmpty()) {
+            int[] all = new int[NO_TYPE + 1];
+            for (int i = 0; i <= NO_TYPE; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        return rule.claimTypes().stream().mapToInt(Enum::ordinal).toArray();
+    }
+
+    private static CompiledRule[] toArray(List<CompiledRule> slot) {
+        return slot.isEmpty() ? NO_RULES : slot.toArray(NO_RULES);
+    }
+
+    private static String normalize(String category) {
+        return category.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static List<String> add(List<String> ids, String id) {
+        List<String> result = ids != null ? ids : new ArrayList<>(2);
+        if (!result.contains(id)) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    private static Set<String> add(Set<String> ids, String id) {
+        Set<String> result = ids != null ? ids : new LinkedHashSet<>(2);
+        result.add(id);
+        return result;
+    }
+}
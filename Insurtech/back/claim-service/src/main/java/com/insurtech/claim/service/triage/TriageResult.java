@@ -0,0 +1,22 @@
+package com.insurtech.claim.service.triage;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Resultado del triaje de una reclamación
+ *
+ * {@code ruleIds} contiene las reglas que determinan la decisión y
+ * {@code approvedAmount} el importe aprobado cuando la decisión es AUTO_APPROVE.
+ */
+public record TriageResult(Decision decision, List<String> ruleIds, BigDecimal approvedAmount) {
+
+    public static final TriageResult NONE = new TriageResult(Decision.NONE, List.of(), BigDecimal.ZERO);
+
+    /**
+     * Decisiones en orden de precedencia: FLAG prevalece sobre REVIEW y ésta sobre AUTO_APPROVE
+     */
+    public enum Decision {
+        FLAG, REVIEW, AUTO_APPROVE, NONE
+    }
+}
@@ -0,0 +1,58 @@
+package com.insurtech.claim.service.triage;
+
+import com.insurtech.claim.model.entity.Claim;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Regla declarativa de triaje de reclamaciones
+ *
+ * Las reglas de ámbito ITEM se evalúan sobre cada ítem (tipo de reclamación,
+ * categoría, importe reclamado y si está cubierto); las de ámbito CLAIM sobre la
+ * reclamación completa (tipo, importe total y número de reclamaciones del cliente
+ * en la ventana del conjunto de reglas, incluida la evaluada). Los criterios
+ * nulos o vacíos no restringen.
+ */
+public record TriageRule(
+        String id,
+        String description,
+        Scope scope,
+        Action action,
+        Integer priority,
+        Boolean enabled,
+        Set<Claim.ClaimType> claimTypes,
+        Set<String> itemCategories,
+        BigDecimal minAmount,
+        BigDecimal maxAmount,
+        Boolean covered,
+        Integer minCustomerClaims,
+        Integer maxCustomerClaims) {
+
+    public enum Scope {
+        CLAIM, ITEM
+    }
+
+    /**
+     * AUTO_APPROVE sólo se admite en reglas de ítem: la reclamación se aprueba
+     * automáticamente cuando todos sus ítems la cumplen y ninguna regla la marca
+     */
+    public enum Action {
+        AUTO_APPROVE, REVIEW, FLAG
+    }
+
+    public boolean isEnabled() {
+        return enabled == null || enabled;
+    }
+
+    public int effectivePriority() {
+        return priority != null ? priority : 0;
+    }
+
+    /**
+     * Conjunto de reglas tal como se carga del fichero de configuración
+     */
+    public record RuleSet(Integer frequencyWindowDays, List<TriageRule> rules) {
+    }
+}
@@ -0,0 +1,12 @@
+-- Asignación actual de cada reclamación a un tramitador (ClaimAssignmentEngine)
+CREATE TABLE CLAIM_ASSIGNMENTS (
+    CLAIM_ID     NUMBER(19)     NOT NULL,
+    HANDLER      VARCHAR2(100)  NOT NULL,
+    WEIGHT       NUMBER(10, 4)  NOT NULL,
+    ASSIGNED_AT  TIMESTAMP      NOT NULL,
+    ASSIGNED_BY  VARCHAR2(100),
+    CONSTRAINT PK_CLAIM_ASSIGNMENTS PRIMARY KEY (CLAIM_ID),
+    CONSTRAINT FK_CLAIM_ASSIGNMENTS_CLAIM FOREIGN KEY (CLAIM_ID) REFERENCES CLAIMS (ID) ON DELETE CASCADE
+);
+
+CREATE INDEX IDX_CLAIM_ASSIGNMENTS_HANDLER ON CLAIM_ASSIGNMENTS (HANDLER);
@@ -0,0 +1,3 @@
+-- Referencias de los contenidos del almacén de documentos (ContentAddressedDocumentStore):
+-- el borrado del último documento y la limpieza de huérfanos buscan por FILE_PATH
+CREATE INDEX IDX_CLAIM_DOCUMENTS_FILE_PATH ON CLAIM_DOCUMENTS (FILE_PATH);
@@ -0,0 +1,48 @@
+-- Exposición de reclamaciones (ClaimExposureLedger)
+-- Totales vigentes por (tipo, estado, mes del incidente); se actualizan en la misma
+-- transacción que los cambios de reclamaciones, ítems y estados
+CREATE TABLE CLAIM_EXPOSURE_TOTALS (
+    CLAIM_TYPE      VARCHAR2(30)   NOT NULL,
+    STATUS          VARCHAR2(30)   NOT NULL,
+    EXPOSURE_MONTH  DATE           NOT NULL,
+    CLAIM_COUNT     NUMBER(19)     DEFAULT 0 NOT NULL,
+    CLAIMED_AMOUNT  NUMBER(19, 2)  DEFAULT 0 NOT NULL,
+    PAID_AMOUNT     NUMBER(19, 2)  DEFAULT 0 NOT NULL,
+    UPDATED_AT      TIMESTAMP      DEFAULT SYSTIMESTAMP,
+    CONSTRAINT PK_CLAIM_EXPOSURE_TOTALS PRIMARY KEY (CLAIM_TYPE, STATUS, EXPOSURE_MONTH)
+);
+
+-- Diario de variaciones: la suma de todas las filas coincide con los totales.
+-- CREATED_AT es la hora de la sentencia, no la de confirmación; SNAPSHOT_DAY indica
+-- la instantánea que ya recoge la variación (null mientras no la recoge ninguna)
+CREATE SEQUENCE SEQ_CLAIM_EXPOSURE_DELTAS START WITH 1 INCREMENT BY 1 CACHE 100;
+
+CREATE TABLE CLAIM_EXPOSURE_DELTAS (
+    ID                 NUMBER(19)     NOT NULL,
+    CREATED_AT         TIMESTAMP      DEFAULT SYSTIMESTAMP NOT NULL,
+    CLAIM_ID           NUMBER(19),
+    REASON             VARCHAR2(30)   NOT NULL,
+    CLAIM_TYPE         VARCHAR2(30)   NOT NULL,
+    STATUS             VARCHAR2(30)   NOT NULL,
+    EXPOSURE_MONTH     DATE           NOT NULL,
+    CLAIM_COUNT_DELTA  NUMBER(19)     NOT NULL,
+    CLAIMED_DELTA      NUMBER(19, 2)  NOT NULL,
+    PAID_DELTA         NUMBER(19, 2)  NOT NULL,
+    SNAPSHOT_DAY       DATE,
+    CONSTRAINT PK_CLAIM_EXPOSURE_DELTAS PRIMARY KEY (ID)
+);
+
+-- Las filas con SNAPSHOT_DAY null también entran en el índice gracias a CREATED_AT
+CREATE INDEX IDX_CLAIM_EXPOSURE_DELTAS_SNAP ON CLAIM_EXPOSURE_DELTAS (SNAPSHOT_DAY, CREATED_AT);
+
+-- Instantánea diaria: estado al final de SNAPSHOT_DAY
+CREATE TABLE CLAIM_EXPOSURE_SNAPSHOTS (
+    SNAPSHOT_DAY    DATE           NOT NULL,
+    CLAIM_TYPE      VARCHAR2(30)   NOT NULL,
+    STATUS          VARCHAR2(30)   NOT NULL,
+    EXPOSURE_MONTH  DATE           NOT NULL,
+    CLAIM_COUNT     NUMBER(19)     NOT NULL,
+    CLAIMED_AMOUNT  NUMBER(19, 2)  NOT NULL,
+    PAID_AMOUNT     NUMBER(19, 2)  NOT NULL,
+    CONSTRAINT PK_CLAIM_EXPOSURE_SNAPSHOTS PRIMARY KEY (SNAPSHOT_DAY, CLAIM_TYPE, STATUS, EXPOSURE_MONTH)
+);
@@ -0,0 +1,17 @@
+-- Agregados diarios de duración de transiciones de estado (ClaimLifecycleMetrics)
+-- Una fila por (estado origen, estado destino, tipo de reclamación, día de la transición)
+CREATE TABLE CLAIM_STATUS_TRANSITION_STATS (
+    FROM_STATUS           VARCHAR2(30)  NOT NULL,
+    TO_STATUS             VARCHAR2(30)  NOT NULL,
+    CLAIM_TYPE            VARCHAR2(30)  NOT NULL,
+    STAT_DAY              DATE          NOT NULL,
+    TRANSITION_COUNT      NUMBER(19)    DEFAULT 0 NOT NULL,
+    DURATION_SUM_SECONDS  NUMBER(19)    DEFAULT 0 NOT NULL,
+    DURATION_MIN_SECONDS  NUMBER(19),
+    DURATION_MAX_SECONDS  NUMBER(19),
+    DURATION_SKETCH       BLOB,
+    UPDATED_AT            TIMESTAMP     DEFAULT SYSTIMESTAMP,
+    CONSTRAINT PK_CLAIM_STATUS_TRANS_STATS PRIMARY KEY (FROM_STATUS, TO_STATUS, CLAIM_TYPE, STAT_DAY)
+);
+
+CREATE INDEX IDX_CLAIM_STATUS_TRANS_DAY ON CLAIM_STATUS_TRANSITION_STATS (STAT_DAY);
@@ -0,0 +1,5 @@
+-- Índice de cobertura para el informe de rendimiento (ClaimReportingEngine): el rango
+-- de fechas de incidente se resuelve sólo con el índice, sin acceder a la tabla
+CREATE INDEX IDX_CLAIMS_REPORTING ON CLAIMS (
+    INCIDENT_DATE, CLAIM_TYPE, STATUS, ESTIMATED_AMOUNT, SUBMISSION_DATE, SETTLEMENT_DATE
+);
@@ -0,0 +1,8 @@
+-- Refresco incremental del índice de búsqueda (ClaimSearchIndex): cada 30 s busca las
+-- reclamaciones, notas e ítems creados o modificados desde la marca de agua
+CREATE INDEX IDX_CLAIMS_UPDATED_AT ON CLAIMS (UPDATED_AT);
+CREATE INDEX IDX_CLAIMS_CREATED_AT ON CLAIMS (CREATED_AT);
+CREATE INDEX IDX_CLAIM_NOTES_UPDATED_AT ON CLAIM_NOTES (UPDATED_AT, CLAIM_ID);
+CREATE INDEX IDX_CLAIM_NOTES_CREATED_AT ON CLAIM_NOTES (CREATED_AT, CLAIM_ID);
+CREATE INDEX IDX_CLAIM_ITEMS_UPDATED_AT ON CLAIM_ITEMS (UPDATED_AT, CLAIM_ID);
+CREATE INDEX IDX_CLAIM_ITEMS_CREATED_AT ON CLAIM_ITEMS (CREATED_AT, CLAIM_ID);
@@ -0,0 +1,136 @@
+package com.insurtech.claim.batch.listener;
+
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import com.insurtech.claim.repository.ClaimItemRepository;
+import com.insurtech.claim.repository.ClaimRepository;
+import com.insurtech.claim.service.triage.ClaimTriageEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba que el chunk se carga con consultas IN de como máximo 1000 IDs, que se
+ * conserva el estado leído y que la frecuencia por cliente se consulta agrupada
+ */
+class ClaimChunkCacheTest {
+
+    private ClaimRepository claimRepository;
+    private ClaimItemRepository claimItemRepository;
+    private ClaimTriageEngine triageEngine;
+    private ClaimChunkCache cache;
+
+    @BeforeEach
+    void setUp() {
+        claimRepository = mock(ClaimRepository.class);
+        claimItemRepository = mock(ClaimItemRepository.class);
+        triageEngine = mock(ClaimTriageEngine.class);
+        when(claimRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return StreamSupport.stream(ids.spliterator(), false).map(ClaimChunkCacheTest::claim).toList();
+        });
+
+        cache = new ClaimChunkCache();
+        ReflectionTestUtils.setField(cache, "claimRepository", claimRepository);
+        ReflectionTestUtils.setField(cache, "claimItemRepository", claimItemRepository);
+        ReflectionTestUtils.setField(cache, "triageEngine", triageEngine);
+    }
+
+    @Test
+    void chunkIsLoadedOnceInSlicesOfAThousand() {
+        List<Collection<Long>> slices = new ArrayList<>();
+        when(claimItemRepository.findByClaimIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            slices.add(List.copyOf(ids));
+            return ids.contains(2L) ? List.of(item(2L), item(2L)) : List.of();
+        });
+        cache.beforeChunk(null);
+        LongStream.rangeClosed(1, 2_500).forEach(id -> cache.afterRead(claim(id)));
+
+        assertThat(cache.getClaim(1L)).isPresent();
+        assertThat(cache.getClaim(2_500L)).isPresent();
+        assertThat(cache.getItems(2L)).hasSize(2);
+        assertThat(cache.getItems(3L)).isEmpty();
+
+        verify(claimRepository, times(3)).findAllById(anyIterable());
+        assertThat(slices).extracting(Collection::size).containsExactly(1_000, 1_000, 500);
+    }
+
+    @Test
+    void originalStateSurvivesChangesToTheClaim() {
+        cache.afterRead(claim(1L));
+
+        Claim claim = cache.getClaim(1L).orElseThrow();
+        claim.setStatus(Claim.ClaimStatus.APPROVED);
+        claim.setApprovedAmount(new BigDecimal("80.00"));
+
+        assertThat(cache.getOriginal(1L)).contains(new ClaimChunkCache.ClaimSnapshot(
+                Claim.ClaimStatus.SUBMITTED, new BigDecimal("100.00"), null, null));
+    }
+
+    @Test
+    void claimsNotSeenByTheReaderAreLoadedOnDemand() {
+        assertThat(cache.getClaim(9L)).map(Claim::getId).contains(9L);
+        verify(claimRepository).findAllById(List.of(9L));
+    }
+
+    @Test
+    void customerFrequencyIsCountedOncePerCustomer() {
+        when(triageEngine.usesCustomerFrequency()).thenReturn(true);
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        when(triageEngine.frequencyWindowStart()).thenReturn(since);
+        ClaimRepository.CustomerClaimCount count = mock(ClaimRepository.CustomerClaimCount.class);
+        when(count.getCustomerNumber()).thenReturn("CUS-1");
+        when(count.getClaimCount()).thenReturn(4L);
+        when(claimRepository.countByCustomerNumbersSince(anyCollection(), eq(since))).thenReturn(List.of(count));
+        LongStream.rangeClosed(1, 4).forEach(id -> cache.afterRead(claim(id)));
+
+        cache.getClaim(1L);
+
+        // Las reclamaciones impares son de CUS-1 y las pares de CUS-2
+        verify(claimRepository).countByCustomerNumbersSince(List.of("CUS-1", "CUS-2"), since);
+        assertThat(cache.getCustomerClaimCount("CUS-1")).isEqualTo(4);
+        assertThat(cache.getCustomerClaimCount("CUS-2")).isZero();
+    }
+
+    @Test
+    void afterChunkForgetsEverything() {
+        cache.afterRead(claim(1L));
+        cache.getClaim(1L);
+        cache.addApprovedItem(item(1L));
+
+        cache.afterChunk(null);
+
+        assertThat(cache.getOriginal(1L)).isEmpty();
+        assertThat(cache.getApprovedItems()).isEmpty();
+        cache.getClaim(1L);
+        verify(claimRepository, times(2)).findAllById(anyIterable());
+    }
+
+    private static Claim claim(Long id) {
+        Claim claim = new Claim();
+        claim.setId(id);
+        claim.setCustomerNumber(id % 2 == 1 ? "CUS-1" : "CUS-2");
+        claim.setStatus(Claim.ClaimStatus.SUBMITTED);
+        claim.setEstimatedAmount(new BigDecimal("100.00"));
+        return claim;
+    }
+
+    private static ClaimItem item(Long claimId) {
+        ClaimItem item = new ClaimItem();
+        item.setClaim(claim(claimId));
+        return item;
+    }
+}
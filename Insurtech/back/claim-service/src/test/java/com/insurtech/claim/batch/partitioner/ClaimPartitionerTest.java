@@ -0,0 +1,93 @@
+package com.insurtech.claim.batch.partitioner;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba los límites de las particiones contra una base de datos H2: tabla sin
+ * pendientes, menos filas que particiones y huecos en la secuencia de IDs
+ */
+class ClaimPartitionerTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ClaimPartitioner partitioner;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE CLAIMS (ID BIGINT PRIMARY KEY, STATUS VARCHAR(30))");
+
+        partitioner = new ClaimPartitioner();
+        ReflectionTestUtils.setField(partitioner, "dataSource", database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void withoutPendingClaimsCreatesASingleEmptyPartition() {
+        insert(1, "CLOSED");
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+
+        assertThat(partitions).containsOnlyKeys("partition0");
+        assertRange(partitions.get("partition0"), 1, 0, 0);
+    }
+
+    @Test
+    void fewerPendingClaimsThanGridSizeCreatesOnePartitionPerClaim() {
+        insert(3, "SUBMITTED");
+        insert(7, "UNDER_REVIEW");
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+
+        assertThat(partitions).containsOnlyKeys("partition0", "partition1");
+        assertRange(partitions.get("partition0"), 3, 3, 1);
+        assertRange(partitions.get("partition1"), 4, 7, 1);
+    }
+
+    @Test
+    void rangesAreContiguousAcrossIdGapsAndBalancedOnPendingRows() {
+        // Pendientes dispersas al principio y concentradas en los IDs recientes
+        for (long id : new long[]{1, 50, 51, 400, 1000, 1001, 1002, 1003}) {
+            insert(id, "SUBMITTED");
+        }
+        insert(500, "CLOSED");
+
+        Map<String, ExecutionContext> partitions = partitioner.partition(4);
+
+        assertThat(partitions).hasSize(4);
+        assertRange(partitions.get("partition0"), 1, 50, 2);
+        assertRange(partitions.get("partition1"), 51, 400, 2);
+        assertRange(partitions.get("partition2"), 401, 1001, 2);
+        assertRange(partitions.get("partition3"), 1002, 1003, 2);
+    }
+
+    private void insert(long id, String status) {
+        jdbcTemplate.update("INSERT INTO CLAIMS VALUES (?, ?)", id, status);
+    }
+
+    private static void assertRange(ExecutionContext context, long minValue, long maxValue, long expectedCount) {
+        assertThat(context.getLong(ClaimPartitioner.MIN_VALUE_KEY)).isEqualTo(minValue);
+        assertThat(context.getLong(ClaimPartitioner.MAX_VALUE_KEY)).isEqualTo(maxValue);
+        assertThat(context.getLong(ClaimPartitioner.EXPECTED_COUNT_KEY)).isEqualTo(expectedCount);
+    }
+}
@@ -0,0 +1,88 @@
+package com.insurtech.claim.batch.reader;
+
+import com.insurtech.claim.model.entity.Claim;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba la paginación por clave del lector contra una base de datos H2 y que,
+ * al reiniciar, la lectura continúa tras el último ID guardado aunque las
+ * reclamaciones ya procesadas hayan dejado de cumplir el filtro
+ */
+class ClaimReaderTest {
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE CLAIMS (ID BIGINT PRIMARY KEY, CLAIM_NUMBER VARCHAR(50), " +
+                "POLICY_ID BIGINT, POLICY_NUMBER VARCHAR(50), CUSTOMER_ID BIGINT, CUSTOMER_NUMBER VARCHAR(50), " +
+                "INCIDENT_DATE DATE, INCIDENT_DESCRIPTION VARCHAR(200), STATUS VARCHAR(30), CLAIM_TYPE VARCHAR(30))");
+        // IDs 1..10; la 4 y la 8 están cerradas y no deben leerse
+        for (long id = 1; id <= 10; id++) {
+            jdbcTemplate.update("INSERT INTO CLAIMS VALUES (?, ?, 1, 'POL-1', 1, 'CUS-1', CURRENT_DATE, 'Prueba', ?, 'OTHER')",
+                    id, "CLM-" + id, id % 4 == 0 ? "CLOSED" : "SUBMITTED");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void readsEligibleClaimsOfTheRangeAcrossPages() {
+        ClaimReader reader = new ClaimReader(database, 2L, 9L, 2);
+        reader.open(new ExecutionContext());
+
+        assertThat(readAll(reader)).containsExactly(2L, 3L, 5L, 6L, 7L, 9L);
+    }
+
+    @Test
+    void restartResumesAfterTheSavedLastId() {
+        ExecutionContext context = new ExecutionContext();
+        ClaimReader first = new ClaimReader(database, 1L, 10L, 2);
+        first.open(context);
+        first.read();
+        first.read();
+        first.read();
+        first.update(context);
+        first.close();
+
+        // Las reclamaciones ya procesadas cambian de estado: un offset saltaría filas pendientes
+        jdbcTemplate.update("UPDATE CLAIMS SET STATUS = 'APPROVED' WHERE ID <= 3");
+
+        ClaimReader restarted = new ClaimReader(database, 1L, 10L, 2);
+        restarted.open(context);
+
+        assertThat(readAll(restarted)).containsExactly(5L, 6L, 7L, 9L, 10L);
+        restarted.update(context);
+        assertThat(context.getLong("ClaimReader.lastId")).isEqualTo(10L);
+        assertThat(context.getLong("ClaimReader.readCount")).isEqualTo(8L);
+    }
+
+    private static List<Long> readAll(ClaimReader reader) {
+        List<Long> ids = new ArrayList<>();
+        for (Claim claim = reader.read(); claim != null; claim = reader.read()) {
+            ids.add(claim.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,218 @@
+package com.insurtech.claim.config;
+
+import com.insurtech.claim.batch.listener.ClaimChunkCache;
+import com.insurtech.claim.batch.listener.PartitionLoadListener;
+import com.insurtech.claim.batch.partitioner.ClaimPartitioner;
+import com.insurtech.claim.batch.reader.ClaimReader;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.repository.ClaimItemRepository;
+import com.insurtech.claim.repository.ClaimRepository;
+import com.insurtech.claim.service.triage.ClaimTriageEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.configuration.annotation.EnableBatchProcessing;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.integration.partition.StepExecutionRequest;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Particionado remoto de extremo a extremo: el manager publica las peticiones en un
+ * broker embebido, los workers de la misma JVM las consumen y el estado de cada
+ * partición se comparte a través de un job repository en H2
+ */
+@SpringJUnitConfig(RemotePartitioningConfigTest.TestConfig.class)
+@EmbeddedKafka(partitions = 4, topics = RemotePartitioningConfigTest.TOPIC)
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "batch.claim.remote-partitioning.enabled=true",
+        "batch.claim.remote-partitioning.topic=" + RemotePartitioningConfigTest.TOPIC,
+        "batch.claim.remote-partitioning.topic-partitions=4",
+        "batch.claim.remote-partitioning.consumer-group=claim-batch-workers-test",
+        "batch.claim.remote-partitioning.worker-concurrency=2",
+        "batch.claim.remote-partitioning.poll-interval-ms=200",
+        "batch.claim.remote-partitioning.timeout-ms=60000",
+        "batch.claim.chunk-size=10",
+        "batch.claim.grid-size=4"
+})
+class RemotePartitioningConfigTest {
+
+    static final String TOPIC = "claim.batch.partitions.test";
+
+    private static final int PENDING_CLAIMS = 120;
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job processClaimsJob;
+
+    @Autowired
+    private JobExplorer jobExplorer;
+
+    @Autowired
+    private Queue<Long> writtenClaimIds;
+
+    @Test
+    void workersProcessEveryPartitionPublishedByTheManager() throws Exception {
+        JobExecution execution = jobLauncher.run(processClaimsJob, new JobParametersBuilder()
+                .addLong("run", System.currentTimeMillis())
+                .toJobParameters());
+
+        assertThat(execution.getStatus()).isEqualTo(BatchStatus.COMPLETED);
+
+        // Los workers actualizan las particiones en el job repository, no en la instancia del manager
+        List<StepExecution> partitions = jobExplorer.getJobExecution(execution.getId()).getStepExecutions().stream()
+                .filter(step -> step.getStepName().startsWith("claimProcessingStep:"))
+                .toList();
+        assertThat(partitions).hasSize(4)
+                .allSatisfy(step -> assertThat(step.getStatus()).isEqualTo(BatchStatus.COMPLETED));
+        assertThat(partitions.stream().mapToLong(StepExecution::getReadCount).sum()).isEqualTo(PENDING_CLAIMS);
+
+        // Cada reclamación pendiente se escribe una sola vez; las cerradas no se leen
+        assertThat(writtenClaimIds).hasSize(PENDING_CLAIMS).doesNotHaveDuplicates();
+        assertThat(writtenClaimIds).allSatisfy(id -> assertThat(id % 4).isNotZero());
+    }
+
+    @Test
+    void requestsRoundTripThroughTheTopicFormat() {
+        StepExecutionRequest request = new StepExecutionRequest("claimProcessingStep", 7L, 42L);
+
+        StepExecutionRequest decoded = RemotePartitioningConfig.decode(RemotePartitioningConfig.encode(request));
+
+        assertThat(decoded.getJobExecutionId()).isEqualTo(7L);
+        assertThat(decoded.getStepExecutionId()).isEqualTo(42L);
+        assertThat(decoded.getStepName()).isEqualTo("claimProcessingStep");
+    }
+
+    @Configuration
+    @EnableBatchProcessing(dataSourceRef = "dataSource", transactionManagerRef = "batchTransactionManager")
+    @Import(RemotePartitioningConfig.class)
+    static class TestConfig {
+
+        @Bean
+        public EmbeddedDatabase dataSource() {
+            EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .addScript("classpath:org/springframework/batch/core/schema-h2.sql")
+                    .build();
+
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            jdbcTemplate.execute("CREATE TABLE CLAIMS (ID BIGINT PRIMARY KEY, CLAIM_NUMBER VARCHAR(50), " +
+                    "POLICY_ID BIGINT, POLICY_NUMBER VARCHAR(50), CUSTOMER_ID BIGINT, CUSTOMER_NUMBER VARCHAR(50), " +
+                    "INCIDENT_DATE DATE, INCIDENT_DESCRIPTION VARCHAR(200), STATUS VARCHAR(30), CLAIM_TYPE VARCHAR(30))");
+            // Una de cada cuatro reclamaciones está cerrada y no debe procesarse
+            for (long id = 1; id <= PENDING_CLAIMS * 4 / 3; id++) {
+                jdbcTemplate.update("INSERT INTO CLAIMS VALUES (?, ?, 1, 'POL-1', 1, 'CUS-1', CURRENT_DATE, 'Prueba', ?, 'OTHER')",
+                        id, "CLM-" + id, id % 4 == 0 ? "CLOSED" : "SUBMITTED");
+            }
+            return database;
+        }
+
+        @Bean
+        public PlatformTransactionManager batchTransactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        public ClaimPartitioner claimPartitioner() {
+            return new ClaimPartitioner();
+        }
+
+        @Bean
+        public PartitionLoadListener partitionLoadListener() {
+            return new PartitionLoadListener();
+        }
+
+        @Bean
+        @StepScope
+        public ClaimReader claimReader(DataSource dataSource,
+                                       @Value("#{stepExecutionContext['minValue']}") Long minValue,
+                                       @Value("#{stepExecutionContext['maxValue']}") Long maxValue) {
+            return new ClaimReader(dataSource, minValue, maxValue, 10);
+        }
+
+        // ClaimChunkCache recibe sus dependencias por inyección de campos, también en el mock
+        @Bean
+        public ClaimRepository claimRepository() {
+            return Mockito.mock(ClaimRepository.class);
+        }
+
+        @Bean
+        public ClaimItemRepository claimItemRepository() {
+            return Mockito.mock(ClaimItemRepository.class);
+        }
+
+        @Bean
+        public ClaimTriageEngine claimTriageEngine() {
+            return Mockito.mock(ClaimTriageEngine.class);
+        }
+
+        @Bean
+        public ClaimChunkCache claimChunkCache() {
+            return Mockito.mock(ClaimChunkCache.class);
+        }
+
+        @Bean
+        public ItemProcessor<Claim, Claim> claimProcessor() {
+            return claim -> claim;
+        }
+
+        @Bean
+        public Queue<Long> writtenClaimIds() {
+            return new ConcurrentLinkedQueue<>();
+        }
+
+        @Bean
+        public ItemWriter<Claim> claimWriter(Queue<Long> writtenClaimIds) {
+            return chunk -> chunk.getItems().forEach(claim -> writtenClaimIds.add(claim.getId()));
+        }
+
+        @Bean
+        public Job processClaimsJob(JobRepository jobRepository, @Qualifier("partitionStep") Step partitionStep) {
+            return new JobBuilder("processClaimsJob", jobRepository)
+                    .start(partitionStep)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.insurtech.claim.event.consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba contra H2 en modo Oracle que la cancelación de una póliza actualiza en
+ * bloque las reclamaciones abiertas y les añade la nota de sistema, que la marca en
+ * el título de la nota hace idempotente el reenvío del evento y que los comentarios
+ * no superan la longitud de la columna
+ */
+class PolicyEventConsumerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PolicyEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE CLAIMS (ID NUMBER(19) PRIMARY KEY, POLICY_NUMBER VARCHAR2(50), " +
+                "STATUS VARCHAR2(30), HANDLER_COMMENTS VARCHAR2(2000), UPDATED_AT TIMESTAMP, " +
+                "UPDATED_BY VARCHAR2(100), VERSION NUMBER(19))");
+        jdbcTemplate.execute("CREATE TABLE CLAIM_NOTES (ID NUMBER(19) PRIMARY KEY, CLAIM_ID NUMBER(19), " +
+                "NOTE_TYPE VARCHAR2(30), TITLE VARCHAR2(200), CONTENT VARCHAR2(4000), IS_IMPORTANT NUMBER(1), " +
+                "IS_INTERNAL NUMBER(1), IS_SYSTEM_GENERATED NUMBER(1), CREATED_AT TIMESTAMP, UPDATED_AT TIMESTAMP, " +
+                "CREATED_BY VARCHAR2(100), UPDATED_BY VARCHAR2(100))");
+        jdbcTemplate.execute("CREATE SEQUENCE SEQ_CLAIM_NOTES");
+
+        insertClaim(1, "POL-1", "SUBMITTED", "Revisar fotos", 0L);
+        insertClaim(2, "POL-1", "UNDER_REVIEW", null, null);
+        insertClaim(3, "POL-1", "CLOSED", "Cerrada", 3L);
+        insertClaim(4, "POL-2", "SUBMITTED", null, 0L);
+
+        consumer = new PolicyEventConsumer();
+        ReflectionTestUtils.setField(consumer, "jdbcTemplate", jdbcTemplate);
+        consumer.setTransactionManager(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void cancellationUpdatesOpenClaimsOfThePolicyAndAddsOneNoteEach() {
+        consumer.consumePolicyCancelledEvent(Map.of("eventId", "EVT-1", "policyNumber", "POL-1"));
+
+        assertThat(comments(1)).isEqualTo("Revisar fotos\nLa póliza asociada a esta reclamación ha sido cancelada: POL-1");
+        assertThat(comments(2)).isEqualTo("La póliza asociada a esta reclamación ha sido cancelada: POL-1");
+        assertThat(comments(3)).isEqualTo("Cerrada");
+        assertThat(comments(4)).isNull();
+        assertThat(version(1)).isEqualTo(1L);
+        assertThat(version(2)).isEqualTo(1L);
+        assertThat(version(3)).isEqualTo(3L);
+
+        assertThat(jdbcTemplate.queryForList("SELECT CLAIM_ID FROM CLAIM_NOTES ORDER BY CLAIM_ID", Long.class))
+                .containsExactly(1L, 2L);
+        assertThat(jdbcTemplate.queryForList("SELECT DISTINCT TITLE FROM CLAIM_NOTES", String.class))
+                .containsExactly("Póliza cancelada EVT-1");
+    }
+
+    @Test
+    void redeliveredEventChangesNothing() {
+        Map<String, Object> event = Map.of("eventId", "EVT-1", "policyNumber", "POL-1");
+        consumer.consumePolicyCancelledEvent(event);
+        String before = comments(1);
+
+        consumer.consumePolicyCancelledEvent(event);
+
+        assertThat(comments(1)).isEqualTo(before);
+        assertThat(version(1)).isEqualTo(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_NOTES", Long.class)).isEqualTo(2L);
+    }
+
+    @Test
+    void eventWithoutIdUsesThePolicyNumberAsMarker() {
+        consumer.consumePolicyCancelledEvent(Map.of("policyNumber", "POL-2"));
+        consumer.consumePolicyCancelledEvent(Map.of("policyNumber", "POL-2"));
+
+        assertThat(jdbcTemplate.queryForList("SELECT TITLE FROM CLAIM_NOTES", String.class))
+                .containsExactly("Póliza cancelada POL-2");
+    }
+
+    @Test
+    void commentsKeepTheirLastCharactersWithinTheColumnLength() {
+        jdbcTemplate.update("UPDATE CLAIMS SET HANDLER_COMMENTS = ? WHERE ID = 1", "x".repeat(1990));
+
+        consumer.consumePolicyCancelledEvent(Map.of("eventId", "EVT-2", "policyNumber", "POL-1"));
+
+        assertThat(comments(1)).hasSize(2000)
+                .endsWith("La póliza asociada a esta reclamación ha sido cancelada: POL-1");
+    }
+
+    private void insertClaim(long id, String policyNumber, String status, String comments, Long version) {
+        jdbcTemplate.update("INSERT INTO CLAIMS (ID, POLICY_NUMBER, STATUS, HANDLER_COMMENTS, VERSION) VALUES (?, ?, ?, ?, ?)",
+                id, policyNumber, status, comments, version);
+    }
+
+    private String comments(long claimId) {
+        return jdbcTemplate.queryForObject("SELECT HANDLER_COMMENTS FROM CLAIMS WHERE ID = ?", String.class, claimId);
+    }
+
+    private Long version(long claimId) {
+        List<Long> versions = jdbcTemplate.queryForList("SELECT VERSION FROM CLAIMS WHERE ID = ?", Long.class, claimId);
+        return versions.get(0);
+    }
+}
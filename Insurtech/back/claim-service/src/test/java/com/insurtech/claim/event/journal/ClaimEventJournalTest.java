@@ -0,0 +1,92 @@
+package com.insurtech.claim.event.journal;
+
+import com.insurtech.claim.model.entity.ClaimEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba que el diario escribe siempre en su propio hilo, que el modo síncrono no
+ * espera al siguiente vaciado programado y que tras la parada no lanza excepciones
+ */
+class ClaimEventJournalTest {
+
+    // Mayor que la espera de los tests: sólo se escribe si alguien lo adelanta
+    private static final long FLUSH_INTERVAL_MS = 60_000;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private ClaimEventJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    void flushNowWritesWithoutWaitingForTheInterval() throws Exception {
+        journal = new ClaimEventJournal(jdbcTemplate, new SimpleMeterRegistry(), 200, FLUSH_INTERVAL_MS, 100);
+
+        CompletableFuture<Void> written = journal.append(event("e-1"), true);
+
+        written.get(5, TimeUnit.SECONDS);
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void fullQueueIsWrittenOnTheJournalThread() throws Exception {
+        Set<String> writerThreads = ConcurrentHashMap.newKeySet();
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writerThreads.add(Thread.currentThread().getName());
+            release.await(5, TimeUnit.SECONDS);
+            return new int[0];
+        });
+        journal = new ClaimEventJournal(jdbcTemplate, new SimpleMeterRegistry(), 200, FLUSH_INTERVAL_MS, 1);
+
+        CompletableFuture<Void> queued = journal.append(event("e-1"));
+        CompletableFuture<Void> overflow = journal.append(event("e-2"));
+
+        // El llamante no se bloquea aunque la base de datos esté ocupada
+        assertThat(overflow).isNotDone();
+        release.countDown();
+        journal.requestFlush();
+
+        CompletableFuture.allOf(queued, overflow).get(5, TimeUnit.SECONDS);
+        assertThat(writerThreads).containsOnly("claim-event-journal");
+    }
+
+    @Test
+    void requestFlushAfterShutdownIsIgnored() {
+        journal = new ClaimEventJournal(jdbcTemplate, new SimpleMeterRegistry(), 200, FLUSH_INTERVAL_MS, 100);
+        journal.shutdown();
+
+        assertThatCode(journal::requestFlush).doesNotThrowAnyException();
+        CompletableFuture<Void> written = journal.append(event("e-1"), true);
+        assertThat(written).isNotCompletedExceptionally();
+        journal = null;
+    }
+
+    private static ClaimEvent event(String eventId) {
+        ClaimEvent event = new ClaimEvent();
+        event.setClaimId(1L);
+        event.setEventType(ClaimEvent.EventType.CLAIM_CREATED);
+        event.setEventId(eventId);
+        event.setCreatedBy("test");
+        return event;
+    }
+}
@@ -0,0 +1,51 @@
+package com.insurtech.claim.model.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba que los ítems nuevos no se colapsan en el conjunto de la reclamación y que
+ * los persistidos se comparan por identificador
+ */
+class ClaimItemTest {
+
+    @Test
+    void newItemsAreKeptApartInTheClaim() {
+        Claim claim = new Claim();
+        claim.getItems().add(item(null, "Pantalla"));
+        claim.getItems().add(item(null, "Teclado"));
+
+        assertThat(claim.getItems()).hasSize(2);
+    }
+
+    @Test
+    void persistedItemsAreEqualById() {
+        ClaimItem item = item(10L, "Pantalla");
+
+        assertThat(item).isEqualTo(item(10L, "Pantalla reparada"));
+        assertThat(item).isNotEqualTo(item(11L, "Pantalla"));
+        assertThat(item(null, "Pantalla")).isNotEqualTo(item(null, "Pantalla"));
+    }
+
+    @Test
+    void hashCodeDoesNotChangeOnceTheItemIsPersisted() {
+        Claim claim = new Claim();
+        ClaimItem item = item(null, "Pantalla");
+        claim.getItems().add(item);
+
+        item.setId(10L);
+
+        assertThat(claim.getItems()).contains(item);
+    }
+
+    private static ClaimItem item(Long id, String description) {
+        ClaimItem item = new ClaimItem();
+        item.setId(id);
+        item.setDescription(description);
+        item.setClaimedAmount(new BigDecimal("100.00"));
+        return item;
+    }
+}
@@ -0,0 +1,128 @@
+package com.insurtech.claim.service.assignment;
+
+import com.insurtech.claim.model.entity.Claim;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba el reparto por carga: tiempo y equilibrio con 10.000 reclamaciones,
+ * repartos simultáneos, cierres y reaperturas, y la detección de CLAIM_ASSIGNMENTS
+ */
+class ClaimAssignmentEngineTest {
+
+    private static final List<String> HANDLERS = IntStream.rangeClosed(1, 25)
+            .mapToObj(i -> "handler-" + i)
+            .toList();
+
+    private JdbcTemplate jdbcTemplate;
+    private ClaimAssignmentEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        engine = new ClaimAssignmentEngine(jdbcTemplate, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void balancesTenThousandClaimsWithinSeconds() {
+        List<ClaimAssignmentEngine.Candidate> candidates = candidates(0, 10_000, new Random(42));
+
+        long started = System.nanoTime();
+        ClaimAssignmentEngine.AssignmentResult result = engine.assign(candidates, HANDLERS, "admin");
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(elapsedMs).isLessThan(5_000);
+        assertThat(result.assignedClaims()).isEqualTo(10_000);
+        assertThat(result.claimsPerHandler()).hasSize(HANDLERS.size());
+        assertBalanced(engine.getLoads(), maxWeight(candidates));
+    }
+
+    @Test
+    void concurrentBatchesStartFromEachOthersLoad() {
+        Random random = new Random(7);
+        List<ClaimAssignmentEngine.Candidate> first = candidates(0, 5_000, random);
+        List<ClaimAssignmentEngine.Candidate> second = candidates(5_000, 5_000, random);
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(() -> engine.assign(first, HANDLERS, "admin")),
+                CompletableFuture.runAsync(() -> engine.assign(second, HANDLERS, "admin"))).join();
+
+        List<ClaimAssignmentEngine.HandlerLoad> loads = engine.getLoads();
+        assertThat(loads.stream().mapToInt(ClaimAssignmentEngine.HandlerLoad::openClaims).sum()).isEqualTo(10_000);
+        assertBalanced(loads, Math.max(maxWeight(first), maxWeight(second)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reopenedClaimCountsAgainForItsHandler() throws SQLException {
+        engine.assign(List.of(candidate(1L, Claim.ClaimType.LIFE, "50000")), List.of("ana"), "admin");
+        engine.onStatusChanged(1L, Claim.ClaimStatus.CLOSED);
+        assertThat(engine.getLoads()).isEmpty();
+
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString("HANDLER")).thenReturn("ana");
+        when(row.getDouble("WEIGHT")).thenReturn(4.5);
+        when(jdbcTemplate.query(startsWith("SELECT HANDLER, WEIGHT FROM CLAIM_ASSIGNMENTS"), any(RowMapper.class), eq(1L)))
+                .thenAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(row, 0)));
+
+        engine.onStatusChanged(1L, Claim.ClaimStatus.REOPENED);
+
+        assertThat(engine.getLoads()).containsExactly(new ClaimAssignmentEngine.HandlerLoad("ana", 1, 4.5));
+    }
+
+    @Test
+    void persistsAssignmentsOnceTheTableAppears() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COUNT(*) FROM CLAIM_ASSIGNMENTS"), eq(Integer.class)))
+                .thenThrow(new BadSqlGrammarException("probe", "SELECT", new SQLException("ORA-00942")))
+                .thenReturn(0);
+
+        engine.assign(List.of(candidate(1L, Claim.ClaimType.OTHER, "100")), List.of("ana"), "admin");
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("MERGE INTO CLAIM_ASSIGNMENTS"), anyList());
+
+        engine.assign(List.of(candidate(2L, Claim.ClaimType.OTHER, "100")), List.of("ana"), "admin");
+        verify(jdbcTemplate).batchUpdate(startsWith("MERGE INTO CLAIM_ASSIGNMENTS"), anyList());
+    }
+
+    private static void assertBalanced(List<ClaimAssignmentEngine.HandlerLoad> loads, double maxClaimWeight) {
+        assertThat(loads).hasSize(HANDLERS.size());
+        double lightest = loads.get(0).weight();
+        double heaviest = loads.get(loads.size() - 1).weight();
+        // Reparto de mayor a menor peso: la diferencia no supera la reclamación más pesada
+        assertThat(heaviest - lightest).isLessThanOrEqualTo(maxClaimWeight + 1e-9);
+    }
+
+    private static double maxWeight(List<ClaimAssignmentEngine.Candidate> candidates) {
+        return candidates.stream().mapToDouble(ClaimAssignmentEngine.Candidate::weight).max().orElse(0);
+    }
+
+    private static List<ClaimAssignmentEngine.Candidate> candidates(long firstId, int count, Random random) {
+        Claim.ClaimType[] types = Claim.ClaimType.values();
+        List<ClaimAssignmentEngine.Candidate> candidates = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            candidates.add(candidate(firstId + i, types[random.nextInt(types.length)],
+                    String.valueOf(random.nextInt(200_000))));
+        }
+        return candidates;
+    }
+
+    private static ClaimAssignmentEngine.Candidate candidate(long id, Claim.ClaimType type, String amount) {
+        return new ClaimAssignmentEngine.Candidate(id, type, new BigDecimal(amount));
+    }
+}
@@ -0,0 +1,96 @@
+package com.insurtech.claim.service.customer;
+
+import com.insurtech.claim.client.CustomerClient;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba la caché de identidades: respuestas con y sin número de cliente, 404
+ * cacheados como cliente inexistente, errores remotos que no se cachean y caducidad
+ */
+class CustomerIdentityResolverTest {
+
+    private CustomerClient customerClient;
+    private CustomerIdentityResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        customerClient = mock(CustomerClient.class);
+        resolver = new CustomerIdentityResolver(customerClient);
+        ReflectionTestUtils.setField(resolver, "cacheTtlSeconds", 900L);
+        ReflectionTestUtils.setField(resolver, "cacheMaxEntries", 100);
+    }
+
+    @Test
+    void emailIsNormalizedAndResolvedOnce() {
+        when(customerClient.getCustomerByEmail("ana@example.com")).thenReturn(Map.of("customerNumber", "CUS-1"));
+
+        assertThat(resolver.resolveByEmail(" ana@example.com ")).contains("CUS-1");
+        assertThat(resolver.resolveByEmail("ANA@example.com")).contains("CUS-1");
+
+        verify(customerClient).getCustomerByEmail("ana@example.com");
+        verify(customerClient, never()).getCustomerByEmail("ANA@example.com");
+    }
+
+    @Test
+    void missingCustomerIsCachedButRemoteErrorsAreNot() {
+        when(customerClient.getCustomerByIdentification("X1", "DNI")).thenReturn(Map.of());
+        when(customerClient.getCustomerByEmail("caido@example.com"))
+                .thenThrow(new IllegalStateException("servicio caído"))
+                .thenReturn(Map.of("customerNumber", "CUS-9"));
+
+        assertThat(resolver.resolveByIdentification("X1", "DNI")).isEmpty();
+        assertThat(resolver.resolveByIdentification("X1", "dni")).isEmpty();
+        verify(customerClient).getCustomerByIdentification("X1", "DNI");
+        verify(customerClient, never()).getCustomerByIdentification("X1", "dni");
+
+        assertThat(resolver.resolveByEmail("caido@example.com")).isEmpty();
+        assertThat(resolver.resolveByEmail("caido@example.com")).contains("CUS-9");
+    }
+
+    @Test
+    void notFoundResponseIsCachedAsMissingCustomer() {
+        Request request = Request.create(Request.HttpMethod.GET, "/api/customers/email/nadie@example.com",
+                Map.of(), null, StandardCharsets.UTF_8, null);
+        when(customerClient.getCustomerByEmail("nadie@example.com"))
+                .thenThrow(new FeignException.NotFound("Not Found", request, null, Map.of()));
+
+        assertThat(resolver.resolveByEmail("nadie@example.com")).isEmpty();
+        assertThat(resolver.resolveByEmail("nadie@example.com")).isEmpty();
+
+        verify(customerClient).getCustomerByEmail("nadie@example.com");
+    }
+
+    @Test
+    void expiredEntriesAreLookedUpAgain() {
+        ReflectionTestUtils.setField(resolver, "cacheTtlSeconds", 0L);
+        when(customerClient.getCustomerByEmail("ana@example.com")).thenReturn(Map.of("customerNumber", "CUS-1"));
+
+        resolver.resolveByEmail("ana@example.com");
+        resolver.resolveByEmail("ana@example.com");
+
+        verify(customerClient, times(2)).getCustomerByEmail("ana@example.com");
+    }
+
+    @Test
+    void displayNamesSkipCustomersThatFail() {
+        when(customerClient.getCustomerByNumber("CUS-1")).thenReturn(Map.of("firstName", "Ana", "lastName", "Ruiz"));
+        when(customerClient.getCustomerByNumber("CUS-2")).thenThrow(new IllegalStateException("servicio caído"));
+
+        assertThat(resolver.getDisplayNames(List.of("CUS-1", "CUS-1", "CUS-2")))
+                .containsExactly(Map.entry("CUS-1", "Ana Ruiz"));
+        resolver.getDisplayNames(List.of("CUS-1"));
+
+        verify(customerClient).getCustomerByNumber("CUS-1");
+    }
+}
@@ -0,0 +1,73 @@
+package com.insurtech.claim.service.dashboard;
+
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.repository.ClaimRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba la caché de estadísticas del dashboard y que una invalidación recibida
+ * durante el cálculo no deja guardado un resultado anterior al cambio
+ */
+class ClaimDashboardAggregatorTest {
+
+    private ClaimRepository claimRepository;
+    private ClaimDashboardAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        claimRepository = mock(ClaimRepository.class);
+        ClaimRepository.AmountTotals totals = mock(ClaimRepository.AmountTotals.class);
+        when(totals.getTotal()).thenReturn(3L);
+        when(totals.getEstimatedAmount()).thenReturn(new BigDecimal("300.00"));
+        when(claimRepository.sumAmountsByIncidentDateBetween(any(), any())).thenReturn(totals);
+        when(claimRepository.countGroupedByStatus()).thenReturn(List.of());
+        when(claimRepository.countGroupedByClaimType()).thenReturn(List.of());
+
+        aggregator = new ClaimDashboardAggregator(claimRepository);
+        ReflectionTestUtils.setField(aggregator, "cacheTtlSeconds", 300L);
+    }
+
+    @Test
+    void cachesUntilInvalidated() {
+        Map<String, Object> statistics = aggregator.getStatistics();
+        aggregator.getStatistics();
+
+        assertThat(statistics.get("recentClaimsCount")).isEqualTo(3);
+        assertThat(statistics.get("totalApprovedAmount")).isEqualTo(BigDecimal.ZERO);
+        assertThat(((Map<?, ?>) statistics.get("countByStatus")).get(Claim.ClaimStatus.SUBMITTED)).isEqualTo(0L);
+        verify(claimRepository, times(1)).countGroupedByStatus();
+
+        aggregator.invalidate();
+        aggregator.getStatistics();
+
+        verify(claimRepository, times(2)).countGroupedByStatus();
+    }
+
+    @Test
+    void invalidationDuringRefreshDiscardsResult() {
+        // El evento llega mientras se están leyendo los recuentos
+        when(claimRepository.countGroupedByStatus()).thenAnswer(invocation -> {
+            aggregator.invalidate();
+            return List.of();
+        }).thenReturn(List.of());
+
+        aggregator.getStatistics();
+        aggregator.getStatistics();
+
+        verify(claimRepository, times(2)).countGroupedByStatus();
+
+        aggregator.getStatistics();
+
+        verify(claimRepository, times(2)).countGroupedByStatus();
+    }
+}
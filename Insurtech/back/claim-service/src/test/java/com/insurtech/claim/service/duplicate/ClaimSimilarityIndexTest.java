@@ -0,0 +1,134 @@
+package com.insurtech.claim.service.duplicate;
+
+import com.insurtech.claim.model.entity.Claim;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba el índice de duplicados contra H2: candidatos por cliente y por póliza,
+ * limpieza de tramos vacíos y reintento de una carga fallida
+ */
+class ClaimSimilarityIndexTest {
+
+    private static final LocalDate INCIDENT = LocalDate.now().minusDays(10);
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ClaimSimilarityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+
+        index = new ClaimSimilarityIndex(database, 100, Runnable::run);
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "horizonDays", 365);
+        ReflectionTestUtils.setField(index, "dateWindowDays", 3);
+        ReflectionTestUtils.setField(index, "amountTolerance", 0.10);
+        ReflectionTestUtils.setField(index, "minScore", 0.7);
+        ReflectionTestUtils.setField(index, "retryInitialSeconds", 30L);
+        ReflectionTestUtils.setField(index, "retryMaxSeconds", 1800L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void findsClaimsOfTheSameCustomerOrPolicy() {
+        createClaimsTable();
+        insertClaim(1, "CUS-1", "POL-1", INCIDENT);
+        insertClaim(2, "CUS-2", "POL-1", INCIDENT);
+        insertClaim(3, "CUS-3", "POL-3", INCIDENT);
+        insertClaim(4, "CUS-1", "POL-1", INCIDENT.minusDays(30));
+        index.rebuild();
+
+        List<ClaimSimilarityIndex.PossibleDuplicate> duplicates =
+                index.findPossibleDuplicates(candidate("CUS-1", "POL-1"));
+
+        // El 3 es idéntico pero de otro cliente y otra póliza; el 4 queda fuera de la ventana
+        assertThat(duplicates).extracting(ClaimSimilarityIndex.PossibleDuplicate::claimId).containsExactly(1L, 2L);
+        assertThat(duplicates.get(0).reasons()).contains("misma fecha de incidente", "mismo cliente");
+        assertThat(duplicates.get(1).reasons()).doesNotContain("mismo cliente");
+    }
+
+    @Test
+    void removingTheLastClaimDropsItsBuckets() {
+        createClaimsTable();
+        insertClaim(1, "CUS-1", "POL-1", INCIDENT);
+        index.rebuild();
+
+        index.remove(1L);
+
+        assertThat(index.size()).isZero();
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(index, "byCustomerBucket")).isEmpty();
+        assertThat((Map<?, ?>) ReflectionTestUtils.getField(index, "byPolicyBucket")).isEmpty();
+        assertThat(index.findPossibleDuplicates(candidate("CUS-1", "POL-1"))).isEmpty();
+    }
+
+    @Test
+    void failedLoadIsRetriedWithBackoff() {
+        ClaimSimilarityIndexHealthIndicator health = new ClaimSimilarityIndexHealthIndicator(index);
+
+        // Sin tabla CLAIMS la carga falla
+        index.onApplicationReady();
+        ClaimSimilarityIndex.LoadStatus status = index.getLoadStatus();
+        assertThat(status.ready()).isFalse();
+        assertThat(status.failedLoads()).isEqualTo(1);
+        assertThat(status.nextRetryAt()).isAfter(Instant.now().plusSeconds(20));
+        assertThat(health.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        // Antes de que venza la espera no se reintenta
+        createClaimsTable();
+        insertClaim(1, "CUS-1", "POL-1", INCIDENT);
+        index.retryFailedLoad();
+        assertThat(index.isReady()).isFalse();
+
+        ReflectionTestUtils.setField(index, "nextRetryAt", 0L);
+        index.retryFailedLoad();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.getLoadStatus().failedLoads()).isZero();
+        assertThat(health.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(health.health().getDetails()).containsEntry("claims", 1);
+    }
+
+    private ClaimSimilarityIndex.ClaimFingerprint candidate(String customerNumber, String policyNumber) {
+        return index.fingerprint(null, null, customerNumber, policyNumber, INCIDENT, Claim.ClaimType.HOME_DAMAGE,
+                new BigDecimal("1000.00"), "Daños por agua en el salón tras la rotura de una tubería");
+    }
+
+    private void createClaimsTable() {
+        jdbcTemplate.execute("CREATE TABLE CLAIMS (ID BIGINT PRIMARY KEY, CLAIM_NUMBER VARCHAR(50), " +
+                "CUSTOMER_NUMBER VARCHAR(50), POLICY_NUMBER VARCHAR(50), INCIDENT_DATE DATE, CLAIM_TYPE VARCHAR(30), " +
+                "ESTIMATED_AMOUNT DECIMAL(19, 2), INCIDENT_DESCRIPTION VARCHAR(2000), STATUS VARCHAR(30))");
+    }
+
+    private void insertClaim(long id, String customerNumber, String policyNumber, LocalDate incidentDate) {
+        jdbcTemplate.update("INSERT INTO CLAIMS (ID, CLAIM_NUMBER, CUSTOMER_NUMBER, POLICY_NUMBER, INCIDENT_DATE, " +
+                        "CLAIM_TYPE, ESTIMATED_AMOUNT, INCIDENT_DESCRIPTION, STATUS) VALUES (?, ?, ?, ?, ?, 'HOME_DAMAGE', " +
+                        "1000.00, 'Daños por agua en el salón tras la rotura de una tubería', 'SUBMITTED')",
+                id, "CLM-" + id, customerNumber, policyNumber, Date.valueOf(incidentDate));
+    }
+}
@@ -0,0 +1,84 @@
+package com.insurtech.claim.service.enrichment;
+
+import com.insurtech.claim.client.PolicyClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba que sólo se piden las pólizas no cacheadas, en lotes, y que las pólizas
+ * inexistentes se recuerdan mientras que los errores remotos no
+ */
+class PolicyEnrichmentServiceTest {
+
+    private PolicyClient policyClient;
+    private List<Collection<String>> requestedChunks;
+    private PolicyEnrichmentService service;
+
+    @BeforeEach
+    void setUp() {
+        policyClient = mock(PolicyClient.class);
+        requestedChunks = new ArrayList<>();
+        when(policyClient.getPoliciesByNumbers(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> numbers = invocation.getArgument(0);
+            requestedChunks.add(List.copyOf(numbers));
+            // POL-X no existe en policy-service
+            return numbers.stream()
+                    .filter(number -> !number.equals("POL-X"))
+                    .map(number -> Map.<String, Object>of("id", 1, "policyNumber", number,
+                            "policyType", "HOME", "customerId", 7L))
+                    .toList();
+        });
+
+        service = new PolicyEnrichmentService(policyClient, Runnable::run);
+        ReflectionTestUtils.setField(service, "chunkSize", 2);
+        ReflectionTestUtils.setField(service, "cacheTtlSeconds", 600L);
+        ReflectionTestUtils.setField(service, "cacheMaxEntries", 100);
+    }
+
+    @Test
+    void distinctUncachedPoliciesAreFetchedInChunks() {
+        Map<String, PolicyEnrichmentService.PolicyAttributes> policies =
+                service.getPolicies(List.of("POL-1", "POL-2", "POL-1", "POL-3", "POL-X"));
+
+        assertThat(requestedChunks).containsExactly(List.of("POL-1", "POL-2"), List.of("POL-3", "POL-X"));
+        assertThat(policies).containsOnlyKeys("POL-1", "POL-2", "POL-3");
+        assertThat(policies.get("POL-1")).isEqualTo(
+                new PolicyEnrichmentService.PolicyAttributes(1L, "POL-1", "HOME", 7L));
+        assertThat(PolicyEnrichmentService.policyTypeOf(policies, "POL-X"))
+                .isEqualTo(PolicyEnrichmentService.UNKNOWN_POLICY_TYPE);
+    }
+
+    @Test
+    void cachedAndMissingPoliciesAreNotRequestedAgain() {
+        service.getPolicies(List.of("POL-1", "POL-X"));
+        requestedChunks.clear();
+
+        Map<String, PolicyEnrichmentService.PolicyAttributes> policies =
+                service.getPolicies(List.of("POL-1", "POL-X", "POL-4"));
+
+        assertThat(requestedChunks).containsExactly(List.of("POL-4"));
+        assertThat(policies).containsOnlyKeys("POL-1", "POL-4");
+    }
+
+    @Test
+    void failedChunksAreRetriedOnTheNextCall() {
+        doThrow(new IllegalStateException("policy-service caído"))
+                .doReturn(List.of(Map.<String, Object>of("id", 1, "policyNumber", "POL-1", "policyType", "AUTO")))
+                .when(policyClient).getPoliciesByNumbers(anyCollection());
+
+        assertThat(service.getPolicies(List.of("POL-1"))).isEmpty();
+        assertThat(service.getPolicies(List.of("POL-1"))).containsOnlyKeys("POL-1");
+
+        verify(policyClient, times(2)).getPoliciesByNumbers(anyCollection());
+    }
+}
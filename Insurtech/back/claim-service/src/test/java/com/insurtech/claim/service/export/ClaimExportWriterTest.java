@@ -0,0 +1,99 @@
+package com.insurtech.claim.service.export;
+
+import com.insurtech.claim.model.entity.Claim;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba la exportación en streaming contra H2 y el paso a una hoja nueva al
+ * llegar al límite de filas de Excel
+ */
+class ClaimExportWriterTest {
+
+    private static final int CLAIMS = 25;
+
+    @TempDir
+    Path exportDir;
+
+    private EmbeddedDatabase database;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE CLAIMS (ID BIGINT PRIMARY KEY, CLAIM_NUMBER VARCHAR(50), " +
+                "POLICY_NUMBER VARCHAR(50), CUSTOMER_NUMBER VARCHAR(50), INCIDENT_DATE DATE, CLAIM_TYPE VARCHAR(30), " +
+                "STATUS VARCHAR(30), ESTIMATED_AMOUNT DECIMAL(19, 2), APPROVED_AMOUNT DECIMAL(19, 2), " +
+                "PAID_AMOUNT DECIMAL(19, 2), SUBMISSION_DATE TIMESTAMP, SETTLEMENT_DATE TIMESTAMP)");
+        for (int i = 1; i <= CLAIMS; i++) {
+            jdbcTemplate.update("INSERT INTO CLAIMS (ID, CLAIM_NUMBER, POLICY_NUMBER, CUSTOMER_NUMBER, INCIDENT_DATE, " +
+                            "CLAIM_TYPE, STATUS, ESTIMATED_AMOUNT) VALUES (?, ?, 'POL-1', 'CUS-1', DATE '2024-03-01', " +
+                            "'OTHER', ?, 100.00)",
+                    i, String.format("CLM-%04d", i), i % 2 == 0 ? "SUBMITTED" : "CLOSED");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void excelExportRollsOverToNewSheets() throws Exception {
+        // 10 filas por hoja: cabecera y 9 reclamaciones
+        ClaimExportWriter writer = new ClaimExportWriter(database, exportDir.toString(), 100, 10);
+
+        ClaimExportWriter.ExportFile file = writer.export("batch-1",
+                new ClaimExportWriter.ExportCriteria(null, null, null, null), ClaimExportWriter.Format.EXCEL, rows -> {
+                });
+
+        assertThat(file.rows()).isEqualTo(CLAIMS);
+        try (InputStream in = Files.newInputStream(file.path()); XSSFWorkbook workbook = new XSSFWorkbook(in)) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(3);
+            assertThat(workbook.getSheetName(1)).isEqualTo("Reclamaciones 2");
+
+            List<String> claimNumbers = new ArrayList<>();
+            for (Sheet sheet : workbook) {
+                assertThat(sheet.getRow(0).getCell(0).getStringCellValue()).isEqualTo("ClaimNumber");
+                for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                    claimNumbers.add(sheet.getRow(i).getCell(0).getStringCellValue());
+                }
+            }
+            assertThat(claimNumbers).hasSize(CLAIMS).startsWith("CLM-0001").endsWith("CLM-0025");
+        }
+    }
+
+    @Test
+    void csvExportFiltersByStatus() throws Exception {
+        ClaimExportWriter writer = new ClaimExportWriter(database, exportDir.toString(), 100, 1_048_576);
+
+        ClaimExportWriter.ExportFile file = writer.export("batch-2",
+                new ClaimExportWriter.ExportCriteria(null, List.of(Claim.ClaimStatus.SUBMITTED), null, null),
+                ClaimExportWriter.Format.CSV, rows -> {
+                });
+
+        List<String> lines = Files.readAllLines(file.path());
+        assertThat(file.rows()).isEqualTo(12);
+        assertThat(lines).hasSize(13);
+        assertThat(lines.get(1)).startsWith("CLM-0002,POL-1,CUS-1,2024-03-01,OTHER,SUBMITTED,100.00");
+    }
+}
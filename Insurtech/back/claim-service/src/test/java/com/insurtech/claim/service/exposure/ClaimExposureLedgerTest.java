@@ -0,0 +1,151 @@
+package com.insurtech.claim.service.exposure;
+
+import com.insurtech.claim.model.entity.Claim;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba que la reconciliación corrige cada grupo con sólo su fila bloqueada, que
+ * la instantánea marca las variaciones que recoge y que las tareas largas van al
+ * executor de mantenimiento
+ */
+class ClaimExposureLedgerTest {
+
+    private static final LocalDate MONTH = LocalDate.of(2024, 3, 1);
+
+    private JdbcTemplate jdbcTemplate;
+    private Executor maintenanceExecutor;
+    private ClaimExposureLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        maintenanceExecutor = mock(Executor.class);
+        ledger = new ClaimExposureLedger(jdbcTemplate, mock(PlatformTransactionManager.class), maintenanceExecutor);
+        ReflectionTestUtils.setField(ledger, "available", true);
+        ReflectionTestUtils.setField(ledger, "snapshotRetentionDays", 400);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcileCorrectsEachGroupUnderItsOwnRowLock() throws SQLException {
+        // Primera pasada: 2 reclamaciones en origen, 1 en los totales
+        givenFirstPass(2, "300.00", 1, "100.00");
+        givenLockedTotals(1, "100.00");
+        givenGroupRecalculation(2, "300.00");
+
+        ledger.reconcile();
+
+        verify(jdbcTemplate, never()).execute(startsWith("LOCK TABLE"));
+        verify(jdbcTemplate).query(contains("FOR UPDATE"), any(RowMapper.class), any(Object[].class));
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO CLAIM_EXPOSURE_DELTAS"), argThat((List<Object[]> rows) ->
+                rows.size() == 1
+                        && "RECONCILE".equals(rows.get(0)[1])
+                        && Long.valueOf(1).equals(rows.get(0)[5])
+                        && new BigDecimal("200.00").compareTo((BigDecimal) rows.get(0)[6]) == 0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reconcileSkipsGroupsThatMatchOnceLocked() throws SQLException {
+        // La diferencia de la primera pasada la ha resuelto una transacción confirmada después
+        givenFirstPass(2, "300.00", 1, "100.00");
+        givenLockedTotals(2, "300.00");
+        givenGroupRecalculation(2, "300.00");
+
+        ledger.reconcile();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void snapshotMarksTheDeltasItFoldsBeforeSavingIt() {
+        ledger.takeDailySnapshot();
+
+        LocalDate day = LocalDate.now().minusDays(1);
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).update(startsWith("UPDATE CLAIM_EXPOSURE_DELTAS SET SNAPSHOT_DAY"),
+                eq(Date.valueOf(day)), eq(Timestamp.valueOf(day.plusDays(1).atStartOfDay())));
+        inOrder.verify(jdbcTemplate).update(any(PreparedStatementCreator.class));
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM CLAIM_EXPOSURE_DELTAS WHERE CREATED_AT"), any(Object[].class));
+    }
+
+    @Test
+    void initialReconcileRunsOnTheMaintenanceExecutor() {
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_EXPOSURE_TOTALS", Long.class)).thenReturn(0L);
+
+        ledger.onApplicationReady();
+
+        verify(maintenanceExecutor).execute(any(Runnable.class));
+    }
+
+    @Test
+    void initialReconcileToleratesABusyExecutor() {
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM CLAIM_EXPOSURE_TOTALS", Long.class)).thenReturn(0L);
+        doThrow(new RejectedExecutionException("lleno")).when(maintenanceExecutor).execute(any(Runnable.class));
+
+        assertThatCode(ledger::onApplicationReady).doesNotThrowAnyException();
+    }
+
+    private void givenFirstPass(long expectedCount, String expectedClaimed, long totalCount, String totalClaimed)
+            throws SQLException {
+        ResultSet expected = row(expectedCount, expectedClaimed);
+        ResultSet totals = row(totalCount, totalClaimed);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(expected);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT c.CLAIM_TYPE"), any(RowCallbackHandler.class));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(totals);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT CLAIM_TYPE, STATUS, EXPOSURE_MONTH"), any(RowCallbackHandler.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenLockedTotals(long count, String claimed) throws SQLException {
+        ResultSet locked = row(count, claimed);
+        when(jdbcTemplate.query(contains("FOR UPDATE"), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(1).mapRow(locked, 0)));
+    }
+
+    private void givenGroupRecalculation(long count, String claimed) throws SQLException {
+        ResultSet group = row(count, claimed);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(group);
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT COUNT(*) AS CLAIM_COUNT"), any(RowCallbackHandler.class),
+                any(Object[].class));
+    }
+
+    private static ResultSet row(long count, String claimed) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("CLAIM_TYPE")).thenReturn(Claim.ClaimType.HOME_DAMAGE.name());
+        when(rs.getString("STATUS")).thenReturn(Claim.ClaimStatus.SUBMITTED.name());
+        when(rs.getDate("EXPOSURE_MONTH")).thenReturn(Date.valueOf(MONTH));
+        when(rs.getLong("CLAIM_COUNT")).thenReturn(count);
+        when(rs.getBigDecimal("CLAIMED_AMOUNT")).thenReturn(new BigDecimal(claimed));
+        when(rs.getBigDecimal("PAID_AMOUNT")).thenReturn(BigDecimal.ZERO);
+        return rs;
+    }
+}
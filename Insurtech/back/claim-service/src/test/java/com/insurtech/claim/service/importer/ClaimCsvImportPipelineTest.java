@@ -0,0 +1,215 @@
+package com.insurtech.claim.service.importer;
+
+import com.insurtech.claim.client.CustomerClient;
+import com.insurtech.claim.client.PolicyClient;
+import com.insurtech.claim.exception.BusinessValidationException;
+import com.insurtech.claim.service.duplicate.ClaimSimilarityIndex;
+import com.insurtech.claim.service.exposure.ClaimExposureLedger;
+import com.insurtech.claim.service.reporting.ClaimReportingEngine;
+import feign.FeignException;
+import feign.Request;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba la importación por lotes: campos con comillas y saltos de línea, una
+ * resolución por cliente y lote, errores por fila acotados y la retirada del índice
+ * de similitud cuando un lote no se guarda
+ */
+class ClaimCsvImportPipelineTest {
+
+    private static final String HEADER =
+            "policyNumber,customerNumber,incidentDate,incidentDescription,claimType,estimatedAmount\n";
+
+    private static final String FIVE_ROWS = HEADER
+            + "POL-1,CUS-1,2024-03-01,\"Agua en el salón, con\nsalto de línea\",HOME_DAMAGE,100.00\n"
+            + "POL-1,CUS-1,2024-03-02,Granizo,HOME_DAMAGE,200.00\n"
+            + "POL-2,CUS-2,fecha-mala,Robo,HOME_THEFT,50\n"
+            + "POL-2,CUS-2,2024-03-04,,HOME_THEFT,50\n"
+            + "POL-2,CUS-2,2024-03-05,Robo,HOME_THEFT,70\n";
+
+    @TempDir
+    Path errorDir;
+
+    private CustomerClient customerClient;
+    private PolicyClient policyClient;
+    private JdbcTemplate jdbcTemplate;
+    private ClaimSimilarityIndex similarityIndex;
+    private ClaimCsvImportPipeline pipeline;
+    private Map<String, Object> status;
+
+    @BeforeEach
+    void setUp() {
+        customerClient = mock(CustomerClient.class);
+        policyClient = mock(PolicyClient.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        similarityIndex = mock(ClaimSimilarityIndex.class);
+        when(customerClient.getCustomerByNumber(anyString())).thenReturn(Map.of("id", 10));
+        when(policyClient.getPolicyByNumber(anyString())).thenReturn(Map.of("id", 20));
+
+        AtomicLong sequence = new AtomicLong();
+        when(jdbcTemplate.queryForList(startsWith("SELECT SEQ_CLAIMS.NEXTVAL"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, invocation.<Integer>getArgument(2))
+                        .mapToObj(i -> sequence.incrementAndGet())
+                        .toList());
+
+        pipeline = new ClaimCsvImportPipeline(customerClient, policyClient, jdbcTemplate,
+                mock(PlatformTransactionManager.class), Runnable::run, similarityIndex,
+                mock(ClaimExposureLedger.class), mock(ClaimReportingEngine.class));
+        ReflectionTestUtils.setField(pipeline, "chunkSize", 2);
+        ReflectionTestUtils.setField(pipeline, "maxErrors", 100);
+        ReflectionTestUtils.setField(pipeline, "errorDir", errorDir.toString());
+        status = new HashMap<>();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void validRowsAreInsertedPerChunkAndInvalidOnesLogged() throws IOException {
+        pipeline.importClaims(csv(FIVE_ROWS), "b1", "admin", status);
+
+        // El lote de las filas 3 y 4 no tiene filas válidas y no llega a la base de datos
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO CLAIMS"), batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(2, 1);
+
+        Object[] first = batches.getAllValues().get(0).get(0);
+        assertThat((String) first[1]).startsWith("HOM-").endsWith("-000001");
+        assertThat(first[2]).isEqualTo(20L);
+        assertThat(first[4]).isEqualTo(10L);
+        assertThat(first[7]).isEqualTo("Agua en el salón, con\nsalto de línea");
+        assertThat(first[8]).isEqualTo("SUBMITTED");
+
+        verify(customerClient).getCustomerByNumber("CUS-1");
+        verify(customerClient).getCustomerByNumber("CUS-2");
+        assertThat(status).containsEntry("totalClaims", 5L)
+                .containsEntry("processedClaims", 5)
+                .containsEntry("successfulClaims", 3)
+                .containsEntry("failedClaims", 2)
+                .containsEntry("errorsTruncated", false);
+
+        List<String> errors = Files.readAllLines(Path.of((String) status.get("errorFile")));
+        assertThat(errors).hasSize(3);
+        assertThat(errors.get(1)).contains("Valor no válido para incidentDate: fecha-mala");
+        assertThat(errors.get(2)).contains("Descripción de incidente es obligatoria");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void possibleDuplicatesAreImportedUnderReview() throws IOException {
+        when(similarityIndex.findPossibleDuplicates(any())).thenReturn(List.of(
+                new ClaimSimilarityIndex.PossibleDuplicate(7L, "HOM-20240301-000007", "CUS-1", "POL-1",
+                        0.9, List.of("misma póliza"))));
+
+        pipeline.importClaims(csv(HEADER + "POL-1,CUS-1,2024-03-02,Granizo,HOME_DAMAGE,200.00\n"), "b2", "admin", status);
+
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO CLAIMS"), batches.capture());
+        Object[] row = batches.getValue().get(0);
+        assertThat(row[8]).isEqualTo("UNDER_REVIEW");
+        assertThat((String) row[11]).startsWith("Posible duplicado de: HOM-20240301-000007");
+    }
+
+    @Test
+    void failedChunkIsRemovedFromTheSimilarityIndex() throws IOException {
+        doThrow(new DataIntegrityViolationException("ORA-00001"))
+                .when(jdbcTemplate).batchUpdate(startsWith("INSERT INTO CLAIM_STATUS_HISTORY"), anyList());
+
+        pipeline.importClaims(csv(HEADER
+                + "POL-1,CUS-1,2024-03-01,Granizo,HOME_DAMAGE,100.00\n"
+                + "POL-1,CUS-1,2024-03-02,Granizo,HOME_DAMAGE,200.00\n"), "b3", "admin", status);
+
+        verify(similarityIndex).remove(1L);
+        verify(similarityIndex).remove(2L);
+        assertThat(status).containsEntry("successfulClaims", 0).containsEntry("failedClaims", 2);
+        List<String> errors = Files.readAllLines(Path.of((String) status.get("errorFile")));
+        assertThat(errors).hasSize(3);
+        assertThat(errors.subList(1, 3)).allSatisfy(line -> assertThat(line).contains("Error al guardar el lote"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rowsWithUnknownCustomerOrPolicyAreLoggedInsteadOfInserted() throws IOException {
+        when(customerClient.getCustomerByNumber("CUS-9")).thenThrow(notFound("/api/customers/number/CUS-9"));
+        when(policyClient.getPolicyByNumber("POL-9")).thenThrow(notFound("/api/policies/number/POL-9"));
+
+        pipeline.importClaims(csv(HEADER
+                + "POL-1,CUS-9,2024-03-01,Granizo,HOME_DAMAGE,100.00\n"
+                + "POL-9,CUS-1,2024-03-02,Granizo,HOME_DAMAGE,200.00\n"
+                + ",CUS-1,2024-03-03,Granizo,HOME_DAMAGE,300.00\n"), "b6", "admin", status);
+
+        // Sin número de póliza la reclamación se crea sin referencia, como en el alta individual
+        ArgumentCaptor<List<Object[]>> batches = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO CLAIMS"), batches.capture());
+        assertThat(batches.getValue()).hasSize(1);
+        assertThat(batches.getValue().get(0)[2]).isNull();
+        assertThat(batches.getValue().get(0)[4]).isEqualTo(10L);
+
+        assertThat(status).containsEntry("successfulClaims", 1).containsEntry("failedClaims", 2);
+        List<String> errors = Files.readAllLines(Path.of((String) status.get("errorFile")));
+        assertThat(errors.subList(1, 3)).containsExactly(
+                "2,No se pudo identificar al cliente CUS-9",
+                "3,No se encontró la póliza POL-9");
+    }
+
+    @Test
+    void unavailableCustomerServiceFailsTheChunkWithoutInserting() throws IOException {
+        when(customerClient.getCustomerByNumber(anyString())).thenThrow(new RuntimeException("Connection refused"));
+
+        pipeline.importClaims(csv(HEADER
+                + "POL-1,CUS-1,2024-03-01,Granizo,HOME_DAMAGE,100.00\n"
+                + "POL-1,CUS-1,2024-03-02,Granizo,HOME_DAMAGE,200.00\n"), "b7", "admin", status);
+
+        verify(jdbcTemplate, never()).batchUpdate(startsWith("INSERT INTO CLAIMS"), anyList());
+        assertThat(status).containsEntry("successfulClaims", 0).containsEntry("failedClaims", 2);
+        List<String> errors = Files.readAllLines(Path.of((String) status.get("errorFile")));
+        assertThat(errors.subList(1, 3))
+                .allSatisfy(line -> assertThat(line).contains("Servicio de clientes no disponible"));
+    }
+
+    @Test
+    void errorFileIsCappedAtMaxErrors() throws IOException {
+        ReflectionTestUtils.setField(pipeline, "maxErrors", 1);
+
+        pipeline.importClaims(csv(FIVE_ROWS), "b4", "admin", status);
+
+        assertThat(status).containsEntry("errorsTruncated", true);
+        assertThat(Files.readAllLines(Path.of((String) status.get("errorFile")))).hasSize(2);
+    }
+
+    @Test
+    void emptyFileIsRejected() {
+        assertThatThrownBy(() -> pipeline.importClaims(csv(""), "b5", "admin", status))
+                .isInstanceOf(BusinessValidationException.class);
+    }
+
+    private static FeignException.NotFound notFound(String path) {
+        Request request = Request.create(Request.HttpMethod.GET, path, Map.of(), null, StandardCharsets.UTF_8, null);
+        return new FeignException.NotFound("Not Found", request, null, Map.of());
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
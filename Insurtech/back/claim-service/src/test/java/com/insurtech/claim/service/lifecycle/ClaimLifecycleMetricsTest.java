@@ -0,0 +1,194 @@
+package com.insurtech.claim.service.lifecycle;
+
+import com.insurtech.claim.model.entity.Claim;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba el registro de transiciones tras el commit, la combinación de filas
+ * diarias en un rango y la reconstrucción de los agregados desde el historial
+ */
+class ClaimLifecycleMetricsTest {
+
+    private static final LocalDateTime SUBMITTED_AT = LocalDateTime.of(2024, 3, 1, 9, 0);
+    private static final long DAY = 86_400;
+
+    private JdbcTemplate jdbcTemplate;
+    private ClaimLifecycleMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        metrics = new ClaimLifecycleMetrics(jdbcTemplate, mock(PlatformTransactionManager.class));
+        metrics.checkTable();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void transitionIsRecordedOnceTheTransactionCommits() {
+        DurationSketch stored = new DurationSketch();
+        stored.add(DAY);
+        when(jdbcTemplate.queryForObject(startsWith("SELECT DURATION_SKETCH"), eq(byte[].class), any(Object[].class)))
+                .thenReturn(stored.toBytes());
+
+        TransactionSynchronizationManager.initSynchronization();
+        metrics.recordAfterCommit(Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.APPROVED, Claim.ClaimType.MEDICAL,
+                SUBMITTED_AT, SUBMITTED_AT.plusDays(2));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        ArgumentCaptor<byte[]> sketch = ArgumentCaptor.forClass(byte[].class);
+        verify(jdbcTemplate).update(startsWith("UPDATE CLAIM_STATUS_TRANSITION_STATS"),
+                eq(1L), eq(2 * DAY), eq(2 * DAY), eq(2 * DAY), eq(2 * DAY), eq(2 * DAY), sketch.capture(),
+                eq("SUBMITTED"), eq("APPROVED"), eq("MEDICAL"), eq(Date.valueOf("2024-03-03")));
+        assertThat(DurationSketch.fromBytes(sketch.getValue()).count()).isEqualTo(2);
+    }
+
+    @Test
+    void batchTransitionsAreMergedPerTransitionTypeAndDay() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT DURATION_SKETCH"), eq(byte[].class), any(Object[].class)))
+                .thenReturn(null);
+
+        LocalDateTime changedAt = SUBMITTED_AT.plusDays(3);
+        metrics.recordAfterCommit(List.of(
+                new ClaimLifecycleMetrics.Transition(Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.UNDER_REVIEW,
+                        Claim.ClaimType.MEDICAL, SUBMITTED_AT, changedAt),
+                new ClaimLifecycleMetrics.Transition(Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.UNDER_REVIEW,
+                        Claim.ClaimType.MEDICAL, SUBMITTED_AT.plusDays(2), changedAt),
+                new ClaimLifecycleMetrics.Transition(Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.UNDER_REVIEW,
+                        Claim.ClaimType.AUTO_ACCIDENT, SUBMITTED_AT, changedAt),
+                // Sin estado anterior no hay transición que medir
+                new ClaimLifecycleMetrics.Transition(null, Claim.ClaimStatus.UNDER_REVIEW,
+                        Claim.ClaimType.MEDICAL, SUBMITTED_AT, changedAt)));
+
+        // Sin transacción activa se registra en el acto: una actualización por grupo
+        verify(jdbcTemplate, times(2)).update(startsWith("UPDATE CLAIM_STATUS_TRANSITION_STATS"), any(Object[].class));
+        verify(jdbcTemplate).update(startsWith("UPDATE CLAIM_STATUS_TRANSITION_STATS"),
+                eq(2L), eq(4 * DAY), eq(DAY), eq(DAY), eq(3 * DAY), eq(3 * DAY), any(byte[].class),
+                eq("SUBMITTED"), eq("UNDER_REVIEW"), eq("MEDICAL"), eq(Date.valueOf("2024-03-04")));
+    }
+
+    @Test
+    void rangeStatsCombineDailyRows() {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(statsRow(2, 200, 50, 150, 50, 150));
+            handler.processRow(statsRow(1, 400, 400, 400, 400));
+            return null;
+        }).when(jdbcTemplate).query(startsWith("SELECT FROM_STATUS"), any(RowCallbackHandler.class), any(Object[].class));
+
+        ClaimLifecycleMetrics.TransitionStats stats = metrics.getTransitionStats(Claim.ClaimStatus.SUBMITTED,
+                Claim.ClaimStatus.APPROVED, LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31));
+
+        assertThat(stats.count()).isEqualTo(3);
+        assertThat(stats.averageSeconds()).isEqualTo(200.0);
+        assertThat(stats.minSeconds()).isEqualTo(50);
+        assertThat(stats.maxSeconds()).isEqualTo(400);
+        assertThat((double) stats.p50Seconds()).isCloseTo(150, offset(150 * DurationSketch.RELATIVE_ACCURACY));
+        assertThat((double) stats.p95Seconds()).isCloseTo(400, offset(400 * DurationSketch.RELATIVE_ACCURACY));
+        assertThat(metrics.getTransitionStats(Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.DENIED,
+                LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31))).isEqualTo(ClaimLifecycleMetrics.TransitionStats.EMPTY);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildAggregatesHistoryPerTransitionAndDay() {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            // Primer estado de cada reclamación: sin transición previa
+            handler.processRow(historyRow(null, null, "SUBMITTED", SUBMITTED_AT));
+            handler.processRow(historyRow("SUBMITTED", SUBMITTED_AT, "UNDER_REVIEW", SUBMITTED_AT.plusDays(1)));
+            handler.processRow(historyRow("SUBMITTED", SUBMITTED_AT.minusDays(2), "UNDER_REVIEW", SUBMITTED_AT.plusDays(1)));
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        metrics.rebuild();
+
+        // La tabla se bloquea antes de leer el historial para que ningún registro se cuele entre medias
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("LOCK TABLE CLAIM_STATUS_TRANSITION_STATS IN EXCLUSIVE MODE");
+        inOrder.verify(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        inOrder.verify(jdbcTemplate).update("DELETE FROM CLAIM_STATUS_TRANSITION_STATS");
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO CLAIM_STATUS_TRANSITION_STATS"), rows.capture());
+        assertThat(rows.getValue()).singleElement().satisfies(row -> assertThat(row).startsWith(
+                "SUBMITTED", "UNDER_REVIEW", "OTHER", Date.valueOf("2024-03-02"), 2L, 4 * DAY, DAY, 3 * DAY));
+    }
+
+    @Test
+    void missingTableDisablesRecordingAndReports() {
+        JdbcTemplate withoutTable = mock(JdbcTemplate.class);
+        when(withoutTable.queryForObject(startsWith("SELECT COUNT(*) FROM CLAIM_STATUS_TRANSITION_STATS"), eq(Long.class)))
+                .thenThrow(new BadSqlGrammarException("probe", "SELECT", new SQLException("ORA-00942")));
+        ClaimLifecycleMetrics disabled = new ClaimLifecycleMetrics(withoutTable, mock(PlatformTransactionManager.class));
+        disabled.checkTable();
+
+        disabled.recordAfterCommit(Claim.ClaimStatus.SUBMITTED, Claim.ClaimStatus.APPROVED, Claim.ClaimType.OTHER,
+                SUBMITTED_AT, SUBMITTED_AT.plusDays(1));
+        disabled.rebuild();
+
+        assertThat(disabled.isAvailable()).isFalse();
+        assertThat(disabled.getTransitionStats(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 31))).isEqualTo(Map.of());
+        verify(withoutTable, never()).update(anyString(), any(Object[].class));
+        verify(withoutTable, never()).batchUpdate(anyString(), anyList());
+    }
+
+    private static ResultSet statsRow(long count, long sum, long min, long max, long... durations) throws SQLException {
+        DurationSketch sketch = new DurationSketch();
+        for (long seconds : durations) {
+            sketch.add(seconds);
+        }
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("FROM_STATUS")).thenReturn("SUBMITTED");
+        when(rs.getString("TO_STATUS")).thenReturn("APPROVED");
+        when(rs.getLong("TRANSITION_COUNT")).thenReturn(count);
+        when(rs.getLong("DURATION_SUM_SECONDS")).thenReturn(sum);
+        when(rs.getLong("DURATION_MIN_SECONDS")).thenReturn(min);
+        when(rs.getLong("DURATION_MAX_SECONDS")).thenReturn(max);
+        when(rs.getBytes("DURATION_SKETCH")).thenReturn(sketch.toBytes());
+        return rs;
+    }
+
+    private static ResultSet historyRow(String fromStatus, LocalDateTime fromAt, String newStatus,
+                                        LocalDateTime createdAt) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getString("CLAIM_TYPE")).thenReturn("OTHER");
+        when(rs.getString("FROM_STATUS")).thenReturn(fromStatus);
+        when(rs.getTimestamp("FROM_AT")).thenReturn(fromAt != null ? Timestamp.valueOf(fromAt) : null);
+        when(rs.getString("NEW_STATUS")).thenReturn(newStatus);
+        when(rs.getTimestamp("CREATED_AT")).thenReturn(Timestamp.valueOf(createdAt));
+        return rs;
+    }
+}
@@ -0,0 +1,103 @@
+package com.insurtech.claim.service.lifecycle;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Comprueba el error relativo de los percentiles, la fusión de bocetos y la
+ * serialización
+ */
+class DurationSketchTest {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.95, 0.99};
+
+    @Test
+    void quantilesStayWithinTheRelativeAccuracy() {
+        long[] durations = randomDurations(new Random(11), 20_000);
+        DurationSketch sketch = new DurationSketch();
+        Arrays.stream(durations).forEach(sketch::add);
+
+        Arrays.sort(durations);
+        for (double q : QUANTILES) {
+            assertWithinAccuracy(sketch.quantile(q), exactQuantile(durations, q));
+        }
+        assertThat(sketch.count()).isEqualTo(durations.length);
+    }
+
+    @Test
+    void mergedSketchesMatchASingleSketchOfAllDurations() {
+        Random random = new Random(23);
+        DurationSketch all = new DurationSketch();
+        DurationSketch merged = new DurationSketch();
+        for (int day = 0; day < 30; day++) {
+            DurationSketch daily = new DurationSketch();
+            for (long seconds : randomDurations(random, 500)) {
+                daily.add(seconds);
+                all.add(seconds);
+            }
+            merged.merge(daily);
+        }
+
+        assertThat(merged.count()).isEqualTo(all.count());
+        for (double q : QUANTILES) {
+            assertThat(merged.quantile(q)).isEqualTo(all.quantile(q));
+        }
+    }
+
+    @Test
+    void bytesRoundTripKeepsCountsAndQuantiles() {
+        DurationSketch sketch = new DurationSketch();
+        sketch.add(0);
+        Arrays.stream(randomDurations(new Random(5), 1_000)).forEach(sketch::add);
+
+        DurationSketch restored = DurationSketch.fromBytes(sketch.toBytes());
+
+        assertThat(restored.count()).isEqualTo(sketch.count());
+        for (double q : QUANTILES) {
+            assertThat(restored.quantile(q)).isEqualTo(sketch.quantile(q));
+        }
+        assertThat(DurationSketch.fromBytes(null).count()).isZero();
+    }
+
+    @Test
+    void subSecondDurationsCountAsZero() {
+        DurationSketch sketch = new DurationSketch();
+        sketch.add(0);
+        sketch.add(0);
+        sketch.add(3_600);
+
+        assertThat(sketch.quantile(0.5)).isZero();
+        assertWithinAccuracy(sketch.quantile(1.0), 3_600);
+    }
+
+    @Test
+    void unknownFormatVersionIsRejected() {
+        assertThatThrownBy(() -> DurationSketch.fromBytes(new byte[]{9, 0, 0}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Entre un minuto y 90 días, con más peso en las duraciones cortas
+    private static long[] randomDurations(Random random, int count) {
+        long[] durations = new long[count];
+        for (int i = 0; i < count; i++) {
+            durations[i] = 60 + (long) (Math.pow(random.nextDouble(), 3) * 90 * 86_400);
+        }
+        return durations;
+    }
+
+    private static long exactQuantile(long[] sorted, double q) {
+        return sorted[(int) Math.ceil(q * sorted.length) - 1];
+    }
+
+    private static void assertWithinAccuracy(long estimated, long exact) {
+        // Más un segundo por el redondeo del valor representativo
+        assertThat((double) estimated).isCloseTo(exact,
+                offset(exact * DurationSketch.RELATIVE_ACCURACY + 1));
+    }
+}
@@ -0,0 +1,96 @@
+package com.insurtech.claim.service.reporting;
+
+import com.insurtech.claim.service.lifecycle.ClaimLifecycleMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba la caché de informes: reutilización por parámetros, invalidación al
+ * confirmarse la transacción y consultas en trozos de 1000 números
+ */
+class ClaimReportingEngineTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private ClaimReportingEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        engine = new ClaimReportingEngine(jdbcTemplate, mock(ClaimLifecycleMetrics.class), Runnable::run);
+        ReflectionTestUtils.setField(engine, "cacheTtlSeconds", 300L);
+        ReflectionTestUtils.setField(engine, "cacheMaxEntries", 500);
+    }
+
+    @Test
+    void statisticsAreCachedUntilInvalidated() {
+        statistics();
+        statistics();
+        verifyQueries(1);
+
+        engine.invalidate();
+        statistics();
+        verifyQueries(2);
+    }
+
+    @Test
+    void invalidateAfterCommitWaitsForTheCommit() {
+        statistics();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            engine.invalidateAfterCommit();
+            // Sin confirmar, la caché sigue siendo válida
+            statistics();
+            verifyQueries(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        statistics();
+        verifyQueries(2);
+    }
+
+    @Test
+    void invalidateAfterCommitWithoutTransactionIsImmediate() {
+        statistics();
+
+        engine.invalidateAfterCommit();
+        statistics();
+
+        verifyQueries(2);
+    }
+
+    @Test
+    void claimNumbersAreQueriedInSlicesOfOneThousand() {
+        List<String> numbers = IntStream.range(0, 2500).mapToObj(i -> "CLM-" + i).toList();
+
+        assertThat(engine.getStatistics(numbers, null, null, null).join()).containsEntry("totalClaims", 0);
+
+        verifyQueries(3);
+    }
+
+    private void statistics() {
+        engine.getStatistics(null, null, null, null).join();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyQueries(int times) {
+        verify(jdbcTemplate, times(times)).query(anyString(), any(SqlParameterSource.class), any(RowMapper.class));
+    }
+}
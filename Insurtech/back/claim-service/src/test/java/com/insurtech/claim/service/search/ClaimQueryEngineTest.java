@@ -0,0 +1,128 @@
+package com.insurtech.claim.service.search;
+
+import com.insurtech.claim.exception.BusinessValidationException;
+import com.insurtech.claim.model.dto.ClaimSearchPageDto;
+import com.insurtech.claim.model.dto.ClaimSearchRequestDto;
+import com.insurtech.claim.model.dto.ClaimSummaryDto;
+import com.insurtech.claim.service.customer.CustomerIdentityResolver;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba la paginación por clave, el límite de tamaño de página y que los criterios
+ * de cliente que no se resuelven no llegan a consultar la base de datos
+ */
+class ClaimQueryEngineTest {
+
+    private EntityManager entityManager;
+    private TypedQuery<Tuple> typedQuery;
+    private CustomerIdentityResolver customerIdentityResolver;
+    private ClaimQueryEngine engine;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        entityManager = mock(EntityManager.class, RETURNS_DEEP_STUBS);
+        typedQuery = mock(TypedQuery.class);
+        when(entityManager.createQuery(any(CriteriaQuery.class))).thenReturn(typedQuery);
+        when(typedQuery.setMaxResults(anyInt())).thenReturn(typedQuery);
+
+        customerIdentityResolver = mock(CustomerIdentityResolver.class);
+        engine = new ClaimQueryEngine(customerIdentityResolver);
+        ReflectionTestUtils.setField(engine, "entityManager", entityManager);
+        ReflectionTestUtils.setField(engine, "defaultPageSize", 3);
+        ReflectionTestUtils.setField(engine, "maxPageSize", 5);
+    }
+
+    @Test
+    void cursorOfAFullPagePointsAtItsLastClaim() {
+        // Se piden 4 filas para una página de 3: hay página siguiente.
+        // Las filas se construyen antes de when(...) porque rows() configura sus propios mocks
+        List<Tuple> firstRows = rows(40, 39, 38, 37);
+        when(typedQuery.getResultList()).thenReturn(firstRows);
+
+        ClaimSearchPageDto first = engine.search(byPolicy(null));
+
+        verify(typedQuery).setMaxResults(4);
+        assertThat(first.getContent()).extracting(ClaimSummaryDto::getId).containsExactly(40L, 39L, 38L);
+        assertThat(first.isHasMore()).isTrue();
+        assertThat(first.getNextCursor()).isNotNull();
+
+        List<Tuple> lastRows = rows(37);
+        when(typedQuery.getResultList()).thenReturn(lastRows);
+        ClaimSearchPageDto last = engine.search(byPolicy(first.getNextCursor()));
+
+        assertThat(last.getContent()).extracting(ClaimSummaryDto::getId).containsExactly(37L);
+        assertThat(last.isHasMore()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsCappedAndMustBePositive() {
+        when(typedQuery.getResultList()).thenReturn(List.of());
+        ClaimSearchRequestDto request = byPolicy(null);
+        request.setPageSize(1_000);
+
+        assertThat(engine.search(request).getSize()).isEqualTo(5);
+        verify(typedQuery).setMaxResults(6);
+
+        request.setPageSize(0);
+        assertThatThrownBy(() -> engine.search(request)).isInstanceOf(BusinessValidationException.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void requestsWithoutCriteriaOrWithABadCursorAreRejected() {
+        assertThatThrownBy(() -> engine.search(new ClaimSearchRequestDto()))
+                .isInstanceOf(BusinessValidationException.class);
+        assertThatThrownBy(() -> engine.search(byPolicy("%%no-es-base64%%")))
+                .isInstanceOf(BusinessValidationException.class);
+        verify(entityManager, never()).createQuery(any(CriteriaQuery.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void unresolvedOrConflictingCustomerReturnsAnEmptyPageWithoutQuerying() {
+        when(customerIdentityResolver.resolveByEmail("nadie@example.com")).thenReturn(Optional.empty());
+        when(customerIdentityResolver.resolveByEmail("ana@example.com")).thenReturn(Optional.of("CUS-1"));
+
+        ClaimSearchRequestDto unknown = new ClaimSearchRequestDto();
+        unknown.setCustomerEmail("nadie@example.com");
+        ClaimSearchRequestDto conflicting = new ClaimSearchRequestDto();
+        conflicting.setCustomerEmail("ana@example.com");
+        conflicting.setCustomerNumber("CUS-2");
+
+        assertThat(engine.search(unknown).getContent()).isEmpty();
+        assertThat(engine.search(conflicting).getContent()).isEmpty();
+        verify(entityManager, never()).createQuery(any(CriteriaQuery.class));
+    }
+
+    private static ClaimSearchRequestDto byPolicy(String cursor) {
+        ClaimSearchRequestDto request = new ClaimSearchRequestDto();
+        request.setPolicyNumber("POL-1");
+        request.setCursor(cursor);
+        return request;
+    }
+
+    private static List<Tuple> rows(long... ids) {
+        return LongStream.of(ids).mapToObj(id -> {
+            Tuple row = mock(Tuple.class);
+            when(row.get("id", Long.class)).thenReturn(id);
+            return row;
+        }).toList();
+    }
+}
@@ -0,0 +1,140 @@
+package com.insurtech.claim.service.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba el índice de búsqueda contra una base de datos H2: reconstrucción y su
+ * reintento, normalización de términos, refresco por marca de agua, reconciliación
+ * de borrados y directorio por instancia
+ */
+class ClaimSearchIndexTest {
+
+    @TempDir
+    Path indexDir;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private ClaimSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE CLAIMS (ID BIGINT PRIMARY KEY, CLAIM_NUMBER VARCHAR(50), " +
+                "POLICY_NUMBER VARCHAR(50), CUSTOMER_NUMBER VARCHAR(50), INCIDENT_DESCRIPTION VARCHAR(2000), " +
+                "STATUS VARCHAR(30), INCIDENT_DATE DATE, CREATED_AT TIMESTAMP, UPDATED_AT TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE CLAIM_NOTES (ID BIGINT AUTO_INCREMENT PRIMARY KEY, CLAIM_ID BIGINT, " +
+                "CONTENT VARCHAR(2000), CREATED_AT TIMESTAMP, UPDATED_AT TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE CLAIM_ITEMS (ID BIGINT AUTO_INCREMENT PRIMARY KEY, CLAIM_ID BIGINT, " +
+                "DESCRIPTION VARCHAR(2000), CREATED_AT TIMESTAMP, UPDATED_AT TIMESTAMP)");
+
+        insertClaim(1, "CLM-0001", "Daños por inundación en la cocina");
+        insertClaim(2, "CLM-0002", "Robo de bicicleta en el garaje");
+        jdbcTemplate.update("INSERT INTO CLAIM_ITEMS (CLAIM_ID, DESCRIPTION, CREATED_AT) VALUES (2, 'Bicicleta eléctrica', CURRENT_TIMESTAMP)");
+
+        index = new ClaimSearchIndex(jdbcTemplate, indexDir.toString(), "instance-a", 60);
+        index.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+        database.shutdown();
+    }
+
+    @Test
+    void rebuildIndexesClaimsWithNormalizedTerms() throws Exception {
+        assertThat(index.isReady()).isTrue();
+        assertThat(Files.isDirectory(indexDir.resolve("instance-a"))).isTrue();
+
+        assertThat(search("inundacion")).containsExactly(1L);
+        assertThat(search("ELÉCTR")).containsExactly(2L);
+        assertThat(search("clm-0002")).containsExactly(2L);
+        assertThat(search("cocina robo")).isEmpty();
+    }
+
+    @Test
+    void catchUpReindexesClaimsChangedSinceTheWatermark() throws Exception {
+        jdbcTemplate.update("INSERT INTO CLAIM_NOTES (CLAIM_ID, CONTENT, CREATED_AT) VALUES (1, 'Granizo en el tejado', CURRENT_TIMESTAMP)");
+        jdbcTemplate.update("UPDATE CLAIMS SET INCIDENT_DESCRIPTION = 'Robo de patinete', UPDATED_AT = CURRENT_TIMESTAMP WHERE ID = 2");
+
+        index.catchUp();
+
+        assertThat(search("granizo")).containsExactly(1L);
+        assertThat(search("patinete")).containsExactly(2L);
+        assertThat(search("garaje")).isEmpty();
+    }
+
+    @Test
+    void reindexRemovesDeletedClaims() throws Exception {
+        jdbcTemplate.update("DELETE FROM CLAIM_ITEMS WHERE CLAIM_ID = 2");
+        jdbcTemplate.update("DELETE FROM CLAIMS WHERE ID = 2");
+
+        index.reindex(List.of(2L));
+
+        assertThat(search("bicicleta")).isEmpty();
+        assertThat(search("inundacion")).containsExactly(1L);
+    }
+
+    @Test
+    void reconciliationRemovesClaimsDeletedOutsideTheWatermark() throws Exception {
+        jdbcTemplate.update("DELETE FROM CLAIM_ITEMS WHERE CLAIM_ID = 2");
+        jdbcTemplate.update("DELETE FROM CLAIMS WHERE ID = 2");
+
+        index.catchUp();
+        assertThat(search("bicicleta")).containsExactly(2L);
+
+        assertThat(index.reconcileDeletions()).isEqualTo(1);
+        assertThat(search("bicicleta")).isEmpty();
+        assertThat(search("inundacion")).containsExactly(1L);
+    }
+
+    @Test
+    void failedRebuildIsRetriedOnTheNextRefresh() throws Exception {
+        ClaimSearchIndex other = new ClaimSearchIndex(jdbcTemplate, indexDir.toString(), "instance-b", 60);
+        try {
+            jdbcTemplate.execute("ALTER TABLE CLAIMS RENAME TO CLAIMS_MOVED");
+            other.rebuild();
+            assertThat(other.isReady()).isFalse();
+
+            jdbcTemplate.execute("ALTER TABLE CLAIMS_MOVED RENAME TO CLAIMS");
+            other.catchUp();
+
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!other.isReady()) {
+                assertThat(System.currentTimeMillis()).isLessThan(deadline);
+                Thread.sleep(10);
+            }
+            assertThat(other.search("inundacion", Sort.unsorted(), 0, 10).claimIds()).containsExactly(1L);
+        } finally {
+            other.close();
+        }
+    }
+
+    private List<Long> search(String term) throws Exception {
+        return index.search(term, Sort.unsorted(), 0, 10).claimIds();
+    }
+
+    private void insertClaim(long id, String claimNumber, String description) {
+        jdbcTemplate.update("INSERT INTO CLAIMS (ID, CLAIM_NUMBER, POLICY_NUMBER, CUSTOMER_NUMBER, INCIDENT_DESCRIPTION, " +
+                        "STATUS, INCIDENT_DATE, CREATED_AT) VALUES (?, ?, 'POL-1', 'CUS-1', ?, 'SUBMITTED', CURRENT_DATE, CURRENT_TIMESTAMP)",
+                id, claimNumber, description);
+    }
+}
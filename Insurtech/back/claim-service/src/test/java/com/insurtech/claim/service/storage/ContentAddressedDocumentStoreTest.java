@@ -0,0 +1,150 @@
+package com.insurtech.claim.service.storage;
+
+import com.insurtech.claim.repository.ClaimDocumentRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba la deduplicación por contenido, la liberación tras el commit respetando
+ * el periodo de gracia y la limpieza periódica de contenidos sin referencias
+ */
+class ContentAddressedDocumentStoreTest {
+
+    private static final String SHA256_HOLA = "b221d9dbb083a7f33428d7c2a3c3198ae925614d70210e28716ccaa7cd4ddb79";
+
+    private ClaimDocumentRepository documentRepository;
+    private Path storageDir;
+    private ContentAddressedDocumentStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // El almacén rechaza el temporal del sistema, así que se usa el directorio de compilación
+        storageDir = Files.createTempDirectory(Files.createDirectories(Paths.get("target")), "document-store-");
+        documentRepository = mock(ClaimDocumentRepository.class);
+        store = new ContentAddressedDocumentStore(documentRepository, storageDir.toString(), 60);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        FileSystemUtils.deleteRecursively(storageDir);
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        ContentAddressedDocumentStore.StoredContent first = store.store(content("hola"));
+        ContentAddressedDocumentStore.StoredContent second = store.store(content("hola"));
+
+        assertThat(first.hash()).isEqualTo(SHA256_HOLA);
+        assertThat(first.filePath()).isEqualTo("sha256/b2/21/" + SHA256_HOLA);
+        assertThat(first.size()).isEqualTo(4);
+        assertThat(first.deduplicated()).isFalse();
+        assertThat(second.deduplicated()).isTrue();
+        assertThat(second.filePath()).isEqualTo(first.filePath());
+
+        assertThat(Files.readString(store.resolve(first.filePath()))).isEqualTo("hola");
+        assertThat(store.hashOf(first.filePath())).isEqualTo(SHA256_HOLA);
+        try (var leftovers = Files.list(storageDir.resolve("tmp"))) {
+            assertThat(leftovers).isEmpty();
+        }
+    }
+
+    @Test
+    void legacyPathsResolveAsGiven() {
+        assertThat(store.resolve("uploads/claims/1/informe.pdf")).isEqualTo(Paths.get("uploads/claims/1/informe.pdf"));
+        assertThat(store.hashOf("uploads/claims/1/informe.pdf")).isNull();
+    }
+
+    @Test
+    void storageUnderTheSystemTempDirectoryIsRejected() {
+        String systemTmp = System.getProperty("java.io.tmpdir");
+
+        assertThatThrownBy(() -> new ContentAddressedDocumentStore(documentRepository, systemTmp, 60))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void releaseWaitsForTheCommitAndKeepsReferencedContent() throws IOException {
+        String filePath = store.store(content("hola")).filePath();
+        age(filePath, Duration.ofHours(2));
+
+        when(documentRepository.countByFilePath(filePath)).thenReturn(1L);
+        store.releaseAfterCommit(filePath);
+        assertThat(Files.exists(store.resolve(filePath))).isTrue();
+
+        when(documentRepository.countByFilePath(filePath)).thenReturn(0L);
+        TransactionSynchronizationManager.initSynchronization();
+        store.releaseAfterCommit(filePath);
+        assertThat(Files.exists(store.resolve(filePath))).isTrue();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(Files.exists(store.resolve(filePath))).isFalse();
+    }
+
+    @Test
+    void recentlyReusedContentSurvivesRelease() throws IOException {
+        String filePath = store.store(content("hola")).filePath();
+        age(filePath, Duration.ofHours(2));
+        // Una subida en curso reutiliza el contenido y renueva su fecha de uso
+        store.store(content("hola"));
+
+        store.releaseAfterCommit(filePath);
+
+        assertThat(Files.exists(store.resolve(filePath))).isTrue();
+        verify(documentRepository, never()).countByFilePath(filePath);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cleanupRemovesOnlyOldUnreferencedContent() throws IOException {
+        String referenced = store.store(content("hola")).filePath();
+        String orphan = store.store(content("adiós")).filePath();
+        String recent = store.store(content("nuevo")).filePath();
+        age(referenced, Duration.ofHours(2));
+        age(orphan, Duration.ofHours(2));
+        when(documentRepository.findReferencedFilePaths(anyCollection())).thenReturn(List.of(referenced));
+
+        store.removeOrphans();
+
+        assertThat(Files.exists(store.resolve(referenced))).isTrue();
+        assertThat(Files.exists(store.resolve(orphan))).isFalse();
+        assertThat(Files.exists(store.resolve(recent))).isTrue();
+        // Los contenidos dentro del periodo de gracia ni siquiera se consultan
+        ArgumentCaptor<Collection<String>> candidates = ArgumentCaptor.forClass(Collection.class);
+        verify(documentRepository).findReferencedFilePaths(candidates.capture());
+        assertThat(candidates.getValue()).containsExactlyInAnyOrder(referenced, orphan);
+    }
+
+    private void age(String filePath, Duration age) throws IOException {
+        Files.setLastModifiedTime(store.resolve(filePath), FileTime.from(Instant.now().minus(age)));
+    }
+
+    private static ByteArrayInputStream content(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
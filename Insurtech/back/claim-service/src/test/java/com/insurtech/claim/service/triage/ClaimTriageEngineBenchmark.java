@@ -0,0 +1,93 @@
+package com.insurtech.claim.service.triage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmark de la evaluación de reglas de triaje
+ *
+ * Evalúa las reglas por defecto sobre un conjunto fijo de reclamaciones sintéticas.
+ * Se ejecuta con {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.insurtech.claim.service.triage.ClaimTriageEngineBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimTriageEngineBenchmark {
+
+    private static final int CLAIMS = 1024;
+    private static final String[] CATEGORIES = {"ELECTRONICS", "JEWELRY", "FURNITURE", "VEHICLE_PARTS", "MEDICAL", null};
+
+    private CompiledTriageRules rules;
+    private Claim[] claims;
+    private List<List<ClaimItem>> items;
+    private long[] customerClaims;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (InputStream in = getClass().getResourceAsStream("/triage/claim-triage-rules.json")) {
+            TriageRule.RuleSet ruleSet = new ObjectMapper().readValue(in, TriageRule.RuleSet.class);
+            rules = CompiledTriageRules.compile(ruleSet, id -> Counter.builder("claims.triage.rule.hits")
+                    .tag("rule", id)
+                    .register(registry));
+        }
+
+        Random random = new Random(42);
+        Claim.ClaimType[] types = Claim.ClaimType.values();
+        claims = new Claim[CLAIMS];
+        items = new ArrayList<>(CLAIMS);
+        customerClaims = new long[CLAIMS];
+        for (int i = 0; i < CLAIMS; i++) {
+            Claim claim = new Claim();
+            claim.setClaimType(types[random.nextInt(types.length)]);
+            claims[i] = claim;
+
+            List<ClaimItem> claimItems = new ArrayList<>();
+            int count = 1 + random.nextInt(5);
+            for (int j = 0; j < count; j++) {
+                ClaimItem item = new ClaimItem();
+                item.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                item.setClaimedAmount(BigDecimal.valueOf(random.nextInt(300_000), 2));
+                item.setCovered(random.nextInt(10) > 0);
+                claimItems.add(item);
+            }
+            items.add(claimItems);
+            customerClaims[i] = 1 + random.nextInt(8);
+        }
+    }
+
+    @Benchmark
+    public TriageResult evaluateClaim() {
+        int i = next++ & (CLAIMS - 1);
+        Claim claim = claims[i];
+        return rules.evaluate(claim.getClaimType(), claim.getEstimatedAmount(), items.get(i), customerClaims[i]);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ClaimTriageEngineBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,164 @@
+package com.insurtech.claim.service.triage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurtech.claim.model.entity.Claim;
+import com.insurtech.claim.model.entity.ClaimItem;
+import com.insurtech.claim.repository.ClaimRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Comprueba las decisiones de triaje con las reglas por defecto, su aplicación a la
+ * reclamación y la recarga del fichero de reglas
+ */
+class ClaimTriageEngineTest {
+
+    private ClaimTriageEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = engine("classpath:triage/claim-triage-rules.json");
+    }
+
+    @Test
+    void smallCoveredItemsAreAutoApproved() {
+        Claim claim = claim(Claim.ClaimType.HOME_DAMAGE, item("ELECTRONICS", "120.00", true), item(null, "80.50", true));
+
+        TriageResult result = engine.evaluate(claim, claim.getItems(), 1);
+
+        assertThat(result.decision()).isEqualTo(TriageResult.Decision.AUTO_APPROVE);
+        assertThat(result.ruleIds()).containsExactly("AUTO_APPROVE_SMALL_COVERED_ITEM");
+        assertThat(result.approvedAmount()).isEqualByComparingTo("200.50");
+    }
+
+    @Test
+    void anUncoveredItemSendsTheClaimToReview() {
+        Claim claim = claim(Claim.ClaimType.HOME_DAMAGE, item(null, "120.00", true), item(null, "90.00", false));
+
+        TriageResult result = engine.evaluate(claim, claim.getItems(), 1);
+
+        assertThat(result.decision()).isEqualTo(TriageResult.Decision.REVIEW);
+        assertThat(result.ruleIds()).containsExactly("REVIEW_UNCOVERED_ITEM");
+    }
+
+    @Test
+    void flagRulesPrevailOverReview() {
+        Claim claim = claim(Claim.ClaimType.HOME_THEFT, item("JEWELRY", "2500.00", false));
+
+        TriageResult result = engine.evaluate(claim, claim.getItems(), 6);
+
+        assertThat(result.decision()).isEqualTo(TriageResult.Decision.FLAG);
+        assertThat(result.ruleIds()).containsExactlyInAnyOrder("FLAG_FREQUENT_CUSTOMER", "FLAG_HIGH_VALUE_THEFT_ITEM");
+    }
+
+    @Test
+    void claimWithoutItemsIsJudgedByItsEstimatedAmount() {
+        Claim claim = claim(Claim.ClaimType.AUTO_ACCIDENT);
+        claim.setEstimatedAmount(new BigDecimal("15000.00"));
+
+        TriageResult result = engine.evaluate(claim, claim.getItems(), 1);
+
+        assertThat(result.decision()).isEqualTo(TriageResult.Decision.REVIEW);
+        assertThat(result.ruleIds()).containsExactly("REVIEW_HIGH_VALUE_CLAIM");
+    }
+
+    @Test
+    void autoApprovalApprovesTheClaimAndEachItem() {
+        Claim claim = claim(Claim.ClaimType.HOME_DAMAGE, item(null, "120.00", true), item(null, "80.00", true));
+        claim.setStatus(Claim.ClaimStatus.SUBMITTED);
+
+        boolean changed = engine.apply(claim, claim.getItems(), engine.evaluate(claim, claim.getItems(), 1));
+
+        assertThat(changed).isTrue();
+        assertThat(claim.getStatus()).isEqualTo(Claim.ClaimStatus.APPROVED);
+        assertThat(claim.getApprovedAmount()).isEqualByComparingTo("200.00");
+        assertThat(claim.getItems()).allSatisfy(item ->
+                assertThat(item.getApprovedAmount()).isEqualByComparingTo(item.getClaimedAmount()));
+        assertThat(claim.getHandlerComments()).contains("AUTO_APPROVE_SMALL_COVERED_ITEM");
+    }
+
+    @Test
+    void approvalBasedOnDeclaredCoverageIsDowngradedToReview() {
+        Claim claim = claim(Claim.ClaimType.HOME_DAMAGE, item(null, "120.00", true));
+        claim.setStatus(Claim.ClaimStatus.SUBMITTED);
+        TriageResult result = engine.evaluate(claim, claim.getItems(), 1);
+
+        assertThat(engine.dependsOnItemCoverage(result)).isTrue();
+        TriageResult unverified = engine.withUnverifiedCoverage(result);
+        engine.apply(claim, claim.getItems(), unverified);
+
+        assertThat(unverified.decision()).isEqualTo(TriageResult.Decision.REVIEW);
+        assertThat(unverified.ruleIds()).containsExactly("AUTO_APPROVE_SMALL_COVERED_ITEM",
+                ClaimTriageEngine.UNVERIFIED_COVERAGE_RULE);
+        assertThat(claim.getStatus()).isEqualTo(Claim.ClaimStatus.UNDER_REVIEW);
+        assertThat(claim.getItems()).allSatisfy(item -> assertThat(item.getApprovedAmount()).isNull());
+    }
+
+    @Test
+    void handlerCommentsKeepTheMostRecentTextWithinTheColumnLength() {
+        Claim claim = claim(Claim.ClaimType.AUTO_ACCIDENT);
+        claim.setEstimatedAmount(new BigDecimal("15000.00"));
+        claim.setHandlerComments("x".repeat(1990));
+
+        engine.apply(claim, claim.getItems(), engine.evaluate(claim, claim.getItems(), 1));
+
+        assertThat(claim.getHandlerComments()).hasSize(2000);
+        assertThat(claim.getHandlerComments()).contains("REVIEW_HIGH_VALUE_CLAIM");
+    }
+
+    @Test
+    void changedRulesFileIsReloaded(@TempDir Path dir) throws Exception {
+        Path rules = dir.resolve("rules.json");
+        Files.writeString(rules, ruleSet(500));
+        engine = engine(rules.toUri().toString());
+        Claim claim = claim(Claim.ClaimType.TRAVEL, item(null, "700.00", true));
+        assertThat(engine.evaluate(claim, claim.getItems(), 1).decision()).isEqualTo(TriageResult.Decision.NONE);
+
+        Files.writeString(rules, ruleSet(1000));
+        Files.setLastModifiedTime(rules, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        engine.reloadIfModified();
+
+        assertThat(engine.evaluate(claim, claim.getItems(), 1).decision()).isEqualTo(TriageResult.Decision.AUTO_APPROVE);
+    }
+
+    private static ClaimTriageEngine engine(String rulesLocation) {
+        ClaimTriageEngine engine = new ClaimTriageEngine(new DefaultResourceLoader(), new ObjectMapper(),
+                new SimpleMeterRegistry(), mock(ClaimRepository.class), rulesLocation, true);
+        engine.init();
+        return engine;
+    }
+
+    private static String ruleSet(int maxAmount) {
+        return """
+                {"rules": [{"id": "AUTO_APPROVE_SMALL", "scope": "ITEM", "action": "AUTO_APPROVE",
+                            "maxAmount": %d, "covered": true}]}
+                """.formatted(maxAmount);
+    }
+
+    private static Claim claim(Claim.ClaimType type, ClaimItem... items) {
+        Claim claim = new Claim();
+        claim.setClaimType(type);
+        claim.getItems().addAll(Set.of(items));
+        return claim;
+    }
+
+    private static ClaimItem item(String category, String amount, boolean covered) {
+        ClaimItem item = new ClaimItem();
+        item.setCategory(category);
+        item.setClaimedAmount(new BigDecimal(amount));
+        item.setCovered(covered);
+        return item;
+    }
+}
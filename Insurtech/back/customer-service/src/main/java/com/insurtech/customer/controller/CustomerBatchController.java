@@ -127,6 +127,17 @@ public class CustomerBatchController {
                 .body(reportContent);
     }
 
+    @PostMapping("/payment-reminders/{jobId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
+    @Operation(summary = "Enviar recordatorios de pago", description = "Entrega un lote de recordatorios de pago a los clientes indicados")
+    public ResponseEntity<Map<String, Object>> dispatchPaymentReminders(
+            @PathVariable String jobId,
+            @RequestBody List<Map<String, Object>> reminders) {
+        log.info("Dispatching {} payment reminders for job ID: {}", reminders.size(), jobId);
+
+        return ResponseEntity.ok(customerBatchService.dispatchPaymentReminders(jobId, reminders));
+    }
+
     @GetMapping("/status/{jobId}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
     @Operation(summary = "Estado de trabajo", description = "Obtiene el estado de un trabajo por lotes")
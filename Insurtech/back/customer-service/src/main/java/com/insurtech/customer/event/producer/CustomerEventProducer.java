@@ -8,9 +8,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -24,12 +27,17 @@ public class CustomerEventProducer {
     private static final String CUSTOMER_CREATED_TOPIC = "customer.created";
     private static final String CUSTOMER_UPDATED_TOPIC = "customer.updated";
     private static final String CUSTOMER_STATUS_CHANGED_TOPIC = "customer.status.changed";
+    // Tema que consume notification-service para los recordatorios de pago
+    private static final String PAYMENT_REMINDER_TOPIC = "payment.reminder";
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
     @Value("${app.events.enabled:false}")
     private boolean eventsEnabled;
 
+    @Value("${app.events.notification-send-timeout-ms:30000}")
+    private long notificationSendTimeoutMs;
+
     @Autowired
     public CustomerEventProducer(KafkaTemplate<String, Object> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
@@ -123,4 +131,49 @@ public class CustomerEventProducer {
             log.error("Error al publicar evento de cambio de estado - continuando sin interrumpir el flujo", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Publica un lote de recordatorios de pago en payment.reminder y espera la confirmación del broker
+     *
+     * @return números de cliente cuyos recordatorios se han publicado; vacío si los eventos
+     *         están desactivados, para que el emisor pueda reintentarlos más tarde
+     */
+    public List<String> publishPaymentReminders(String jobId, List<Map<String, Object>> reminders) {
+        if (!eventsEnabled) {
+            log.warn("Eventos desactivados: no se publican los {} recordatorios del trabajo {}",
+                    reminders.size(), jobId);
+            return List.of();
+        }
+
+        List<String> customerNumbers = new ArrayList<>(reminders.size());
+        List<CompletableFuture<?>> futures = new ArrayList<>(reminders.size());
+        for (Map<String, Object> reminder : reminders) {
+            Map<String, Object> event = new HashMap<>(reminder);
+            event.put("eventId", UUID.randomUUID().toString());
+            event.put("eventType", PAYMENT_REMINDER_TOPIC);
+            event.put("jobId", jobId);
+            event.put("timestamp", System.currentTimeMillis());
+
+            String customerNumber = (String) reminder.get("customerNumber");
+            customerNumbers.add(customerNumber);
+            futures.add(kafkaTemplate.send(PAYMENT_REMINDER_TOPIC, customerNumber, event));
+        }
+        kafkaTemplate.flush();
+
+        List<String> published = new ArrayList<>(reminders.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(notificationSendTimeoutMs);
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                published.add(customerNumbers.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Error al publicar el recordatorio del cliente {} del trabajo {}: {}",
+                        customerNumbers.get(i), jobId, e.getMessage());
+            }
+        }
+        return published;
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,8 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     Optional<Customer> findByCustomerNumber(String customerNumber);
 
+    List<Customer> findByCustomerNumberIn(Collection<String> customerNumbers);
+
     Optional<Customer> findByEmail(String email);
 
     Optional<Customer> findByIdentificationNumberAndIdentificationType(String identificationNumber, String identificationType);
@@ -38,4 +38,12 @@ public interface CustomerBatchService {
      * Genera informes a partir de datos de clientes
      */
     Future<byte[]> generateCustomerReport(String reportType, List<Long> customerIds);
-}
\ No newline at end of file
+
+    /**
+     * Completa con los datos de contacto y publica un lote de recordatorios de pago
+     * generados por payment-service
+     *
+     * @return números de cliente aceptados y rechazados (desconocidos, sin email o no publicados)
+     */
+    Map<String, Object> dispatchPaymentReminders(String jobId, List<Map<String, Object>> reminders);
+}
@@ -1,5 +1,6 @@
 package com.insurtech.customer.service.impl;
 
+import com.insurtech.customer.event.producer.CustomerEventProducer;
 import com.insurtech.customer.model.dto.CustomerDto;
 import com.insurtech.customer.model.entity.Customer;
 import com.insurtech.customer.model.entity.Segment;
@@ -38,17 +39,20 @@ public class CustomerBatchServiceImpl implements CustomerBatchService {
     private final SegmentRepository segmentRepository;
     private final CustomerService customerService;
     private final EntityDtoMapper mapper;
+    private final CustomerEventProducer eventProducer;
 
     @Autowired
     public CustomerBatchServiceImpl(
             CustomerRepository customerRepository,
             SegmentRepository segmentRepository,
             CustomerService customerService,
-            EntityDtoMapper mapper) {
+            EntityDtoMapper mapper,
+            CustomerEventProducer eventProducer) {
         this.customerRepository = customerRepository;
         this.segmentRepository = segmentRepository;
         this.customerService = customerService;
         this.mapper = mapper;
+        this.eventProducer = eventProducer;
     }
 
     @Async
@@ -276,4 +280,64 @@ public class CustomerBatchServiceImpl implements CustomerBatchService {
 
         return new AsyncResult<>(reportContent.toString().getBytes());
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> dispatchPaymentReminders(String jobId, List<Map<String, Object>> reminders) {
+        log.info("Dispatching {} payment reminders for job {}", reminders.size(), jobId);
+
+        Set<String> customerNumbers = reminders.stream()
+                .map(reminder -> (String) reminder.get("customerNumber"))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        // Los IN de Oracle admiten como máximo 1000 elementos
+        Map<String, Customer> customersByNumber = new HashMap<>();
+        List<String> numbers = new ArrayList<>(customerNumbers);
+        for (int start = 0; start < numbers.size(); start += 1000) {
+            for (Customer customer : customerRepository.findByCustomerNumberIn(
+                    numbers.subList(start, Math.min(start + 1000, numbers.size())))) {
+                customersByNumber.put(customer.getCustomerNumber(), customer);
+            }
+        }
+
+        List<Map<String, Object>> deliverable = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        for (Map<String, Object> reminder : reminders) {
+            String customerNumber = (String) reminder.get("customerNumber");
+            Customer customer = customerNumber != null ? customersByNumber.get(customerNumber) : null;
+            if (customer == null || customer.getEmail() == null) {
+                rejected.add(customerNumber);
+                continue;
+            }
+
+            // Campos de contacto que lee el consumidor de payment.reminder en notification-service
+            Map<String, Object> enriched = new HashMap<>(reminder);
+            enriched.put("customerId", customer.getId());
+            enriched.put("customerEmail", customer.getEmail());
+            enriched.put("customerName", customer.getFirstName() + " " + customer.getLastName());
+            deliverable.add(enriched);
+        }
+
+        // Sólo se aceptan los recordatorios que el broker ha confirmado
+        List<String> accepted = eventProducer.publishPaymentReminders(jobId, deliverable);
+        if (accepted.size() < deliverable.size()) {
+            Set<String> acceptedSet = new HashSet<>(accepted);
+            for (Map<String, Object> reminder : deliverable) {
+                String customerNumber = (String) reminder.get("customerNumber");
+                if (!acceptedSet.contains(customerNumber)) {
+                    rejected.add(customerNumber);
+                }
+            }
+        }
+
+        log.info("Payment reminder job {} completed. Accepted {}/{} reminders",
+                jobId, accepted.size(), reminders.size());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("jobId", jobId);
+        result.put("accepted", accepted);
+        result.put("rejected", rejected);
+        return result;
+    }
+}
@@ -0,0 +1,135 @@
+package com.insurtech.payment.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Punto de entrada de los benchmarks de payment-service
+ *
+ * Ejecuta los benchmarks (acepta las opciones habituales de JMH, p. ej. un patrón
+ * para filtrar), guarda los resultados en JSON y los compara con la línea base:
+ * - si no existe línea base, o con -Dbenchmark.update-baseline=true, los resultados
+ *   actuales pasan a ser la nueva línea base
+ * - en otro caso se informa de cada benchmark que empeora más del umbral
+ *   (-Dbenchmark.regression-threshold, 0.10 por defecto) y el proceso termina con
+ *   código 1 salvo que se indique -Dbenchmark.fail-on-regression=false
+ *
+ * Uso: java -jar target/benchmarks.jar [opciones JMH]
+ */
+public final class BenchmarkRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BenchmarkRunner.class);
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path resultFile = Path.of(System.getProperty("benchmark.result", "target/jmh-result.json"));
+        Path baselineFile = Path.of(System.getProperty("benchmark.baseline", "baseline/jmh-baseline.json"));
+        double threshold = Double.parseDouble(System.getProperty("benchmark.regression-threshold", "0.10"));
+        boolean updateBaseline = Boolean.getBoolean("benchmark.update-baseline");
+        boolean failOnRegression = Boolean.parseBoolean(System.getProperty("benchmark.fail-on-regression", "true"));
+
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(BenchmarkRunner.class.getPackageName() + ".*Benchmark");
+        }
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        Options options = builder
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile.toString())
+                .build();
+
+        Collection<RunResult> results = new Runner(options).run();
+
+        if (updateBaseline || !Files.exists(baselineFile)) {
+            Files.createDirectories(baselineFile.toAbsolutePath().getParent());
+            Files.copy(resultFile, baselineFile, StandardCopyOption.REPLACE_EXISTING);
+            log.info("Línea base registrada en {}", baselineFile.toAbsolutePath());
+            return;
+        }
+
+        List<String> regressions = compare(results, readBaseline(baselineFile), threshold);
+        if (regressions.isEmpty()) {
+            log.info("Sin regresiones respecto a {}", baselineFile.toAbsolutePath());
+            return;
+        }
+
+        log.warn("Regresiones respecto a la línea base (umbral {}%):", Math.round(threshold * 100));
+        regressions.forEach(line -> log.warn("  {}", line));
+        if (failOnRegression) {
+            System.exit(1);
+        }
+    }
+
+    private static List<String> compare(Collection<RunResult> results, Map<String, Double> baseline, double threshold) {
+        List<String> regressions = new ArrayList<>();
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            Map<String, String> paramValues = new TreeMap<>();
+            for (String key : params.getParamsKeys()) {
+                paramValues.put(key, params.getParam(key));
+            }
+            String key = key(params.getBenchmark(), params.getMode().shortLabel(), paramValues);
+            Double previous = baseline.get(key);
+            if (previous == null || previous == 0) {
+                continue;
+            }
+
+            double current = result.getPrimaryResult().getScore();
+            // En throughput más es mejor; en el resto de modos (tiempos) menos es mejor
+            double change = params.getMode() == Mode.Throughput
+                    ? (previous - current) / previous
+                    : (current - previous) / previous;
+            if (change > threshold) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s (%.1f%% peor)",
+                        key, previous, current, result.getPrimaryResult().getScoreUnit(), change * 100));
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, Double> readBaseline(Path baselineFile) throws Exception {
+        Map<String, Double> baseline = new TreeMap<>();
+        for (JsonNode node : new ObjectMapper().readTree(baselineFile.toFile())) {
+            Map<String, String> paramValues = new TreeMap<>();
+            JsonNode params = node.path("params");
+            Iterator<String> names = params.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                paramValues.put(name, params.get(name).asText());
+            }
+            String key = key(node.path("benchmark").asText(), node.path("mode").asText(), paramValues);
+            baseline.put(key, node.path("primaryMetric").path("score").asDouble());
+        }
+        return baseline;
+    }
+
+    private static String key(String benchmark, String mode, Map<String, String> params) {
+        return params.isEmpty()
+                ? benchmark + " [" + mode + "]"
+                : benchmark + " " + params + " [" + mode + "]";
+    }
+}
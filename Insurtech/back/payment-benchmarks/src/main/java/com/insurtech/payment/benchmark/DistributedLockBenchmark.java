@@ -0,0 +1,92 @@
+package com.insurtech.payment.benchmark;
+
+import com.insurtech.payment.service.impl.DistributedLockServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.integration.jdbc.lock.DefaultLockRepository;
+import org.springframework.integration.jdbc.lock.JdbcLockRegistry;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adquisición y liberación de bloqueos con DistributedLockServiceImpl
+ *
+ * Usa la misma configuración que DistributedLockConfig (prefijo PAYMENT_LOCK_ y TTL
+ * de 30 segundos) sobre una base de datos H2 embebida. Se mide una clave por hilo,
+ * claves aleatorias y varios hilos compitiendo por la misma clave.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DistributedLockBenchmark {
+
+    private EmbeddedDatabase database;
+    private DistributedLockServiceImpl lockService;
+
+    @Setup
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("classpath:payment-lock-schema.sql")
+                .build();
+
+        DefaultLockRepository lockRepository = new DefaultLockRepository(database);
+        lockRepository.setTimeToLive(30000);
+        lockRepository.setPrefix("PAYMENT_LOCK_");
+        lockRepository.setTransactionManager(new DataSourceTransactionManager(database));
+        lockRepository.afterPropertiesSet();
+        lockRepository.afterSingletonsInstantiated();
+
+        lockService = new DistributedLockServiceImpl(new JdbcLockRegistry(lockRepository));
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+
+        private static final AtomicInteger NEXT = new AtomicInteger();
+
+        private String key;
+
+        @Setup
+        public void setUp() {
+            key = "payment:thread-" + NEXT.incrementAndGet();
+        }
+    }
+
+    @Benchmark
+    public Boolean executeWithLockUncontended(ThreadKey threadKey) {
+        return lockService.executeWithLock(threadKey.key, () -> Boolean.TRUE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Boolean executeWithLockRandomKeys() {
+        String key = "payment:" + ThreadLocalRandom.current().nextInt(1000);
+        return lockService.executeWithLock(key, () -> Boolean.TRUE);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Boolean executeWithLockSameKey() {
+        return lockService.executeWithLock("payment:shared", () -> Boolean.TRUE);
+    }
+
+    @Benchmark
+    public boolean isLocked(ThreadKey threadKey) {
+        return lockService.isLocked(threadKey.key);
+    }
+}
@@ -0,0 +1,57 @@
+package com.insurtech.payment.benchmark;
+
+import com.insurtech.payment.model.dto.PaymentDto;
+import com.insurtech.payment.model.entity.Payment;
+import com.insurtech.payment.util.EntityDtoMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapeo entidad/DTO de pagos con ModelMapper
+ *
+ * El pago incluye método de pago y factura para reproducir el grafo que se mapea
+ * en los endpoints de consulta.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EntityDtoMapperBenchmark {
+
+    private EntityDtoMapper mapper;
+    private Payment payment;
+    private PaymentDto paymentDto;
+    private List<Payment> page;
+
+    @Setup
+    public void setUp() {
+        mapper = new EntityDtoMapper();
+        payment = InMemoryStandIns.payment(1);
+        paymentDto = InMemoryStandIns.paymentDto(1);
+        page = InMemoryStandIns.payments(20);
+    }
+
+    @Benchmark
+    public PaymentDto paymentToDto() {
+        return mapper.toDto(payment);
+    }
+
+    @Benchmark
+    public Payment paymentDtoToEntity() {
+        return mapper.toEntity(paymentDto);
+    }
+
+    @Benchmark
+    public List<PaymentDto> paymentPageToDto() {
+        List<PaymentDto> dtos = new ArrayList<>(page.size());
+        for (Payment entity : page) {
+            dtos.add(mapper.toDto(entity));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,211 @@
+package com.insurtech.payment.benchmark;
+
+import com.insurtech.payment.model.dto.PaymentDto;
+import com.insurtech.payment.model.entity.Invoice;
+import com.insurtech.payment.model.entity.Payment;
+import com.insurtech.payment.model.entity.PaymentMethod;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Sustitutos en memoria y datos de prueba para los benchmarks
+ *
+ * Permiten ejecutar los benchmarks sin base de datos Oracle, broker Kafka ni
+ * servicios remotos: los repositorios y servicios se sustituyen por proxies que
+ * responden sólo a los métodos que usa el camino medido.
+ */
+final class InMemoryStandIns {
+
+    private static final Logger log = LoggerFactory.getLogger(InMemoryStandIns.class);
+
+    private InMemoryStandIns() {
+    }
+
+    /**
+     * Crea un proxy de la interfaz que responde con las funciones indicadas
+     *
+     * Las respuestas se indexan por "nombreMetodo/numeroArgumentos" y se validan contra
+     * la interfaz al crear el proxy, para que un método renombrado falle en el setup.
+     * Las llamadas sin respuesta devuelven un valor neutro (vacío, cero o null), como un
+     * repositorio sin datos, y se avisan una vez por método para que un cambio en el
+     * camino medido no pase desapercibido.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Set<String> declared = new HashSet<>();
+        for (Method method : type.getMethods()) {
+            declared.add(method.getName() + "/" + method.getParameterCount());
+        }
+        for (String key : answers.keySet()) {
+            if (!declared.contains(key)) {
+                throw new IllegalArgumentException("La interfaz " + type.getName() + " no declara " + key);
+            }
+        }
+
+        Set<String> warned = ConcurrentHashMap.newKeySet();
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + "StandIn";
+                };
+            }
+            int arity = args == null ? 0 : args.length;
+            String key = method.getName() + "/" + arity;
+            Function<Object[], Object> answer = answers.get(key);
+            if (answer == null) {
+                if (warned.add(key)) {
+                    log.warn("{}.{} no tiene respuesta en el sustituto; se devuelve un valor vacío",
+                            type.getSimpleName(), key);
+                }
+                return emptyValue(method.getReturnType());
+            }
+            return answer.apply(args);
+        });
+    }
+
+    /**
+     * Valor neutro para el tipo de retorno: lo que devolvería un repositorio sin datos
+     */
+    private static Object emptyValue(Class<?> returnType) {
+        if (returnType == void.class) {
+            return null;
+        }
+        if (returnType == boolean.class) {
+            return false;
+        }
+        if (returnType == char.class) {
+            return '\0';
+        }
+        if (returnType.isPrimitive()) {
+            // El proxy exige el envoltorio exacto de cada primitivo
+            return switch (returnType.getName()) {
+                case "long" -> 0L;
+                case "double" -> 0d;
+                case "float" -> 0f;
+                case "short" -> (short) 0;
+                case "byte" -> (byte) 0;
+                default -> 0;
+            };
+        }
+        if (returnType == Optional.class) {
+            return Optional.empty();
+        }
+        if (returnType == Stream.class) {
+            return Stream.empty();
+        }
+        if (returnType.isAssignableFrom(List.class)) {
+            return new ArrayList<>();
+        }
+        if (returnType.isAssignableFrom(Set.class)) {
+            return new HashSet<>();
+        }
+        if (returnType.isAssignableFrom(Map.class)) {
+            return new HashMap<>();
+        }
+        if (returnType.isAssignableFrom(Page.class)) {
+            return Page.empty();
+        }
+        if (returnType == CompletableFuture.class) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return null;
+    }
+
+    static Payment payment(long id) {
+        PaymentMethod paymentMethod = new PaymentMethod();
+        paymentMethod.setId(id % 50 + 1);
+        paymentMethod.setPaymentMethodNumber("PM-" + (id % 50 + 1));
+        paymentMethod.setCustomerNumber("CUS-" + (id % 200));
+        paymentMethod.setMethodType(PaymentMethod.MethodType.CREDIT_CARD);
+        paymentMethod.setName("Visa " + id % 50);
+        paymentMethod.setCardType("VISA");
+        paymentMethod.setMaskedCardNumber("**** **** **** 4242");
+
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNumber("INV-" + id);
+        invoice.setCustomerNumber(paymentMethod.getCustomerNumber());
+
+        Payment payment = new Payment();
+        payment.setId(id);
+        payment.setPaymentNumber("PAY-20240101-" + String.format("%04d", id % 10000) + "-123");
+        payment.setCustomerNumber(paymentMethod.getCustomerNumber());
+        payment.setPolicyNumber("POL-" + (id % 500));
+        payment.setPaymentType(Payment.PaymentType.PREMIUM);
+        payment.setConcept("Prima mensual");
+        payment.setAmount(new BigDecimal("125.50").add(BigDecimal.valueOf(id % 100)));
+        payment.setCurrency("EUR");
+        payment.setStatus(Payment.PaymentStatus.COMPLETED);
+        payment.setDueDate(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(id % 28));
+        payment.setPaymentDate(payment.getDueDate().minusDays(1));
+        payment.setReference("REF-" + id);
+        payment.setDescription("Pago de prima de la póliza " + payment.getPolicyNumber());
+        payment.setRetryCount(0);
+        payment.setPaymentMethod(paymentMethod);
+        payment.setInvoice(invoice);
+        payment.setCreatedAt(payment.getDueDate().minusDays(2));
+        payment.setUpdatedAt(payment.getPaymentDate());
+        return payment;
+    }
+
+    static List<Payment> payments(int count) {
+        List<Payment> payments = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            payments.add(payment(id));
+        }
+        return payments;
+    }
+
+    static PaymentDto paymentDto(long id) {
+        PaymentDto dto = new PaymentDto();
+        dto.setId(id);
+        dto.setPaymentNumber("PAY-20240101-" + String.format("%04d", id % 10000) + "-123");
+        dto.setCustomerNumber("CUS-" + (id % 200));
+        dto.setPolicyNumber("POL-" + (id % 500));
+        dto.setPaymentType(Payment.PaymentType.PREMIUM);
+        dto.setConcept("Prima mensual");
+        dto.setAmount(new BigDecimal("125.50"));
+        dto.setCurrency("EUR");
+        dto.setStatus(Payment.PaymentStatus.COMPLETED);
+        dto.setPaymentMethodNumber("PM-" + (id % 50 + 1));
+        dto.setInvoiceNumber("INV-" + id);
+        dto.setCreatedAt(LocalDateTime.of(2024, 1, 1, 10, 0));
+        return dto;
+    }
+
+    /**
+     * CSV de importación con las columnas que admite processPaymentsFromCsv
+     */
+    static byte[] importCsv(int rows) {
+        StringBuilder csv = new StringBuilder(rows * 120);
+        csv.append("customerNumber,policyNumber,invoiceNumber,amount,currency,concept,description,paymentMethodNumber,paymentType,dueDate\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append("CUS-").append(i % 200).append(',')
+                    .append("POL-").append(i % 500).append(',')
+                    .append("INV-").append(i).append(',')
+                    .append(100 + i % 100).append(".25,")
+                    .append("EUR,")
+                    .append("Prima mensual,")
+                    .append("\"Pago de prima, cuota ").append(i % 12 + 1).append("\",")
+                    .append("PM-").append(i % 50 + 1).append(',')
+                    .append("PREMIUM,")
+                    .append("2024-01-").append(String.format("%02d", i % 28 + 1)).append("T00:00:00\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,53 @@
+package com.insurtech.payment.benchmark;
+
+import com.insurtech.payment.util.MoneyCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculos monetarios por moneda (redondeo, impuestos, porcentajes y comparación)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyCalculatorBenchmark {
+
+    @Param({"EUR", "JPY"})
+    private String currency;
+
+    private final MoneyCalculator calculator = new MoneyCalculator();
+    private final BigDecimal amount = new BigDecimal("1234.5678");
+    private final BigDecimal otherAmount = new BigDecimal("1234.5649");
+    private final BigDecimal taxRate = new BigDecimal("21");
+    private final BigDecimal percentage = new BigDecimal("12.5");
+
+    @Benchmark
+    public BigDecimal roundAmount() {
+        return calculator.roundAmount(amount, currency);
+    }
+
+    @Benchmark
+    public BigDecimal calculateWithTax() {
+        return calculator.calculateWithTax(amount, taxRate, currency);
+    }
+
+    @Benchmark
+    public BigDecimal calculateTaxAmount() {
+        return calculator.calculateTaxAmount(amount, taxRate, currency);
+    }
+
+    @Benchmark
+    public BigDecimal calculatePercentage() {
+        return calculator.calculatePercentage(amount, percentage, currency);
+    }
+
+    @Benchmark
+    public boolean areEqual() {
+        return calculator.areEqual(amount, otherAmount, currency);
+    }
+}
@@ -0,0 +1,65 @@
+package com.insurtech.payment.benchmark;
+
+import com.insurtech.payment.model.dto.PaymentDto;
+import com.insurtech.payment.model.entity.Payment;
+import com.insurtech.payment.repository.PaymentRepository;
+import com.insurtech.payment.service.PaymentService;
+import com.insurtech.payment.service.impl.PaymentBatchServiceImpl;
+import com.insurtech.payment.util.EntityDtoMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importación y exportación CSV de PaymentBatchServiceImpl
+ *
+ * El servicio se invoca directamente (sin el proxy de @Async), con el repositorio
+ * de pagos y el servicio de pagos sustituidos en memoria, de modo que se mide el
+ * parseo/escritura CSV y la construcción de DTOs sin base de datos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentCsvBenchmark {
+
+    @Param({"100", "5000"})
+    private int rows;
+
+    private PaymentBatchServiceImpl batchService;
+    private byte[] importFile;
+
+    @Setup
+    public void setUp() {
+        List<Payment> completedPayments = InMemoryStandIns.payments(rows);
+
+        PaymentRepository paymentRepository = InMemoryStandIns.stub(PaymentRepository.class, Map.of(
+                "findByStatus/1", args -> completedPayments));
+        PaymentService paymentService = InMemoryStandIns.stub(PaymentService.class, Map.of(
+                "createPayment/1", args -> {
+                    PaymentDto dto = (PaymentDto) args[0];
+                    dto.setStatus(Payment.PaymentStatus.PENDING);
+                    return dto;
+                }));
+
+        // Las dependencias no usadas en los caminos CSV quedan a null
+        batchService = new PaymentBatchServiceImpl(paymentRepository, null, null, paymentService, null, null,
+                new EntityDtoMapper(), null, null);
+        importFile = InMemoryStandIns.importCsv(rows);
+    }
+
+    @Benchmark
+    public List<PaymentDto> importCsv() {
+        return batchService.processPaymentsFromCsv(new ByteArrayInputStream(importFile)).join();
+    }
+
+    @Benchmark
+    public byte[] exportCsv() {
+        return batchService.exportPayments(null, List.of(Payment.PaymentStatus.COMPLETED), null, null, "csv").join();
+    }
+}
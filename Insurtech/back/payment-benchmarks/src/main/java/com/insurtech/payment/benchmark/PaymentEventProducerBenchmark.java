@@ -0,0 +1,112 @@
+package com.insurtech.payment.benchmark;
+
+import com.insurtech.payment.event.producer.PaymentEventProducer;
+import com.insurtech.payment.model.dto.PaymentDto;
+import com.insurtech.payment.model.entity.Payment;
+import com.insurtech.payment.model.event.PaymentCreatedEvent;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publicación de eventos de pago sobre un productor Kafka en memoria
+ *
+ * El MockProducer serializa clave y valor con la misma configuración que KafkaConfig
+ * (StringSerializer + JsonSerializer sin cabeceras de tipo) y confirma cada envío
+ * de inmediato, de modo que se mide la construcción del evento, la serialización
+ * JSON y el camino de KafkaTemplate sin broker.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentEventProducerBenchmark {
+
+    /**
+     * Registros enviados tras los que se vacía el historial del MockProducer
+     */
+    private static final int HISTORY_LIMIT = 10_000;
+
+    private MockProducer<String, Object> mockProducer;
+    private JsonSerializer<Object> valueSerializer;
+    private PaymentEventProducer eventProducer;
+    private PaymentDto paymentDto;
+    private PaymentCreatedEvent event;
+    private int sent;
+
+    @Setup
+    public void setUp() {
+        valueSerializer = new JsonSerializer<>();
+        valueSerializer.setAddTypeInfo(false);
+
+        // KafkaTemplate cierra el productor tras cada envío no transaccional; el sustituto se reutiliza
+        mockProducer = new MockProducer<>(true, new StringSerializer(), valueSerializer) {
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public void close(Duration timeout) {
+            }
+        };
+        KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> mockProducer));
+        eventProducer = new PaymentEventProducer(kafkaTemplate);
+
+        paymentDto = InMemoryStandIns.paymentDto(1);
+
+        event = new PaymentCreatedEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setTimestamp(LocalDateTime.of(2024, 1, 1, 10, 0));
+        event.setPaymentId(paymentDto.getId());
+        event.setPaymentNumber(paymentDto.getPaymentNumber());
+        event.setCustomerNumber(paymentDto.getCustomerNumber());
+        event.setPolicyNumber(paymentDto.getPolicyNumber());
+        event.setPaymentType(Payment.PaymentType.PREMIUM);
+        event.setAmount(paymentDto.getAmount());
+        event.setCurrency(paymentDto.getCurrency());
+        event.setStatus(Payment.PaymentStatus.PENDING);
+    }
+
+    @Benchmark
+    public void publishPaymentCreatedEvent() {
+        eventProducer.publishPaymentCreatedEvent(paymentDto);
+        trimHistory();
+    }
+
+    @Benchmark
+    public void publishPaymentProcessedEvent() {
+        eventProducer.publishPaymentProcessedEvent(paymentDto);
+        trimHistory();
+    }
+
+    @Benchmark
+    public void publishTransactionCompletedEvent() {
+        eventProducer.publishTransactionCompletedEvent("TX-1", paymentDto);
+        trimHistory();
+    }
+
+    /**
+     * Sólo la serialización JSON del evento, para separarla del coste de KafkaTemplate
+     */
+    @Benchmark
+    public byte[] serializePaymentCreatedEvent() {
+        return valueSerializer.serialize("payment.created", event);
+    }
+
+    private void trimHistory() {
+        if (++sent >= HISTORY_LIMIT) {
+            mockProducer.clear();
+            sent = 0;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.insurtech.payment.benchmark;
+
+import com.insurtech.payment.util.PaymentNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generación de números de pago, factura y referencia
+ *
+ * La secuencia y el generador aleatorio son estáticos y compartidos, por lo que
+ * se mide también con varios hilos para detectar contención.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentNumberGeneratorBenchmark {
+
+    private final PaymentNumberGenerator generator = new PaymentNumberGenerator();
+
+    @Benchmark
+    public String generatePaymentNumber() {
+        return generator.generatePaymentNumber();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generatePaymentNumberContended() {
+        return generator.generatePaymentNumber();
+    }
+
+    @Benchmark
+    public String generateInvoiceNumber() {
+        return generator.generateInvoiceNumber();
+    }
+
+    @Benchmark
+    public String generateReferenceNumber() {
+        return generator.generateReferenceNumber("REF");
+    }
+
+    @Benchmark
+    public String generateRefundNumber() {
+        return generator.generateRefundNumber();
+    }
+}
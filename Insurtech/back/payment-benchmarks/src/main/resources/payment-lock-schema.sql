@@ -0,0 +1,8 @@
+-- Tabla de bloqueos de Spring Integration con el prefijo PAYMENT_LOCK_ de DistributedLockConfig
+CREATE TABLE PAYMENT_LOCK_LOCK (
+    LOCK_KEY CHAR(36) NOT NULL,
+    REGION VARCHAR(100) NOT NULL,
+    CLIENT_ID CHAR(36),
+    CREATED_DATE TIMESTAMP NOT NULL,
+    CONSTRAINT PAYMENT_LOCK_LOCK_PK PRIMARY KEY (LOCK_KEY, REGION)
+);
@@ -5,7 +5,6 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
-import java.util.List;
 
 @FeignClient(name = "claim-service", fallback = ClaimServiceFallback.class)
 public interface ClaimServiceClient {
@@ -13,11 +12,18 @@ public interface ClaimServiceClient {
     @GetMapping("/api/claims/number/{claimNumber}")
     Map<String, Object> getClaimByNumber(@PathVariable String claimNumber);
 
+    // Los listados de reclamaciones son paginados: se devuelve la página completa (content, totalElements...)
     @GetMapping("/api/claims/policy/{policyNumber}")
-    List<Map<String, Object>> getClaimsByPolicyNumber(@PathVariable String policyNumber);
+    Map<String, Object> getClaimsByPolicyNumber(
+            @PathVariable String policyNumber,
+            @RequestParam("page") int page,
+            @RequestParam("size") int size);
 
     @GetMapping("/api/claims/customer/{customerNumber}")
-    List<Map<String, Object>> getClaimsByCustomerNumber(@PathVariable String customerNumber);
+    Map<String, Object> getClaimsByCustomerNumber(
+            @PathVariable String customerNumber,
+            @RequestParam("page") int page,
+            @RequestParam("size") int size);
 
     @PatchMapping("/api/claims/number/{claimNumber}/status")
     Map<String, Object> updateClaimStatus(
@@ -4,6 +4,7 @@ import com.insurtech.payment.client.fallback.CustomerServiceFallback;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @FeignClient(name = "customer-service", fallback = CustomerServiceFallback.class)
@@ -22,4 +23,7 @@ public interface CustomerServiceClient {
 
     @PostMapping("/api/customers/batch/status/{jobId}")
     void sendNotification(@PathVariable("jobId") String jobId, @RequestBody Map<String, Object> notification);
+
+    @PostMapping("/api/customers/batch/payment-reminders/{jobId}")
+    Map<String, Object> sendPaymentReminders(@PathVariable("jobId") String jobId, @RequestBody List<Map<String, Object>> reminders);
 }
\ No newline at end of file
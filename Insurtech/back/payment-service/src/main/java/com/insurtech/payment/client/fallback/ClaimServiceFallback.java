@@ -6,7 +6,6 @@ import org.springframework.stereotype.Component;
 
 import java.util.Collections;
 import java.util.Map;
-import java.util.List;
 
 @Slf4j
 @Component
@@ -19,15 +18,15 @@ public class ClaimServiceFallback implements ClaimServiceClient {
     }
 
     @Override
-    public List<Map<String, Object>> getClaimsByPolicyNumber(String policyNumber) {
+    public Map<String, Object> getClaimsByPolicyNumber(String policyNumber, int page, int size) {
         log.error("Fallback: No se pudieron obtener las reclamaciones de la póliza: {}", policyNumber);
-        return Collections.emptyList();
+        return Collections.singletonMap("content", Collections.emptyList());
     }
 
     @Override
-    public List<Map<String, Object>> getClaimsByCustomerNumber(String customerNumber) {
+    public Map<String, Object> getClaimsByCustomerNumber(String customerNumber, int page, int size) {
         log.error("Fallback: No se pudieron obtener las reclamaciones del cliente: {}", customerNumber);
-        return Collections.emptyList();
+        return Collections.singletonMap("content", Collections.emptyList());
     }
 
     @Override
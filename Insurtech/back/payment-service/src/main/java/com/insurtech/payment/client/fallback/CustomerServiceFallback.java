@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
@@ -33,4 +34,11 @@ public class CustomerServiceFallback implements CustomerServiceClient {
     public void sendNotification(String jobId, Map<String, Object> notification) {
         log.error("Fallback: No se pudo enviar la notificación al cliente");
     }
-}
\ No newline at end of file
+
+    @Override
+    public Map<String, Object> sendPaymentReminders(String jobId, List<Map<String, Object>> reminders) {
+        // Sin clientes aceptados el emisor no registra el lote y lo reintenta en la siguiente ejecución
+        log.error("Fallback: No se pudo enviar el lote {} de {} recordatorios de pago", jobId, reminders.size());
+        return Collections.singletonMap("error", "Servicio de clientes no disponible");
+    }
+}
@@ -0,0 +1,79 @@
+package com.insurtech.payment.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Configuración del control de admisión por prioridad de las peticiones HTTP
+ *
+ * El filtro se ejecuta después de la cadena de seguridad, de modo que las peticiones
+ * no autenticadas no consumen presupuesto de ninguna clase.
+ */
+@Configuration
+@ConditionalOnProperty(name = "payment.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlConfig.class);
+
+    @Value("${payment.admission.interactive.max-concurrent:40}")
+    private int interactiveMaxConcurrent;
+
+    @Value("${payment.admission.interactive.max-queue:200}")
+    private int interactiveMaxQueue;
+
+    @Value("${payment.admission.interactive.max-wait-ms:2000}")
+    private int interactiveMaxWaitMs;
+
+    @Value("${payment.admission.standard.max-concurrent:80}")
+    private int standardMaxConcurrent;
+
+    @Value("${payment.admission.standard.max-queue:100}")
+    private int standardMaxQueue;
+
+    @Value("${payment.admission.standard.max-wait-ms:1000}")
+    private int standardMaxWaitMs;
+
+    @Value("${payment.admission.batch.max-concurrent:4}")
+    private int batchMaxConcurrent;
+
+    @Value("${payment.admission.batch.max-queue:10}")
+    private int batchMaxQueue;
+
+    @Value("${payment.admission.batch.max-wait-ms:500}")
+    private int batchMaxWaitMs;
+
+    @Value("${payment.admission.retry-after-seconds:30}")
+    private int retryAfterSeconds;
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(MeterRegistry meterRegistry,
+                                                                                 ObjectMapper objectMapper) {
+        Map<AdmissionControlFilter.PriorityClass, AdmissionControlFilter.LaneLimits> limits =
+                new EnumMap<>(AdmissionControlFilter.PriorityClass.class);
+        limits.put(AdmissionControlFilter.PriorityClass.INTERACTIVE,
+                new AdmissionControlFilter.LaneLimits(interactiveMaxConcurrent, interactiveMaxQueue, interactiveMaxWaitMs));
+        limits.put(AdmissionControlFilter.PriorityClass.STANDARD,
+                new AdmissionControlFilter.LaneLimits(standardMaxConcurrent, standardMaxQueue, standardMaxWaitMs));
+        limits.put(AdmissionControlFilter.PriorityClass.BATCH,
+                new AdmissionControlFilter.LaneLimits(batchMaxConcurrent, batchMaxQueue, batchMaxWaitMs));
+
+        log.info("Control de admisión activo: {}", limits);
+
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(limits, retryAfterSeconds, meterRegistry, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
@@ -0,0 +1,268 @@
+package com.insurtech.payment.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurtech.payment.exception.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Control de admisión por prioridad para los endpoints HTTP de pagos
+ *
+ * Clasifica cada petición en una clase de prioridad, cada una con su propio
+ * presupuesto de concurrencia y su propia cola acotada. Las peticiones por lotes
+ * se rechazan con 503 y Retry-After cuando su cola está llena o cuando hay
+ * peticiones interactivas esperando, de forma que la latencia de creación y
+ * procesamiento de pagos no dependa de las exportaciones o cargas masivas.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * Rutas de creación y procesamiento de pagos (POST)
+     */
+    static final List<String> INTERACTIVE_PATHS = List.of(
+            "/api/payments",
+            "/api/payments/process",
+            "/api/payments/process-async",
+            "/api/payments/number/*/transactions",
+            "/api/refunds",
+            "/api/refunds/number/*/process");
+
+    /**
+     * Rutas de procesos masivos, exportaciones e informes pesados; cada una debe
+     * corresponder a un mapeo de los controladores (lo comprueba el test del filtro)
+     */
+    static final List<String> BATCH_PATHS = List.of(
+            "/api/payments/batch/**",
+            "/api/payments/report",
+            "/api/payments/reconcile",
+            "/api/admin/payments/reprocess-failed",
+            "/api/invoices/batch/**",
+            "/api/invoices/process-overdue",
+            "/api/invoices/sync",
+            "/api/refunds/report",
+            "/api/refunds/process-pending",
+            "/api/refunds/notify-processed",
+            "/api/payment-methods/update-expired",
+            "/api/payment-methods/notify-expiring");
+
+    public enum PriorityClass {
+        INTERACTIVE,
+        STANDARD,
+        BATCH
+    }
+
+    /**
+     * Límites de una clase: peticiones concurrentes, tamaño de cola y espera máxima en cola
+     */
+    public record LaneLimits(int maxConcurrent, int maxQueue, int maxWaitMs) {
+    }
+
+    private final Map<PriorityClass, Lane> lanes = new EnumMap<>(PriorityClass.class);
+    private final ObjectMapper objectMapper;
+    private final int retryAfterSeconds;
+
+    public AdmissionControlFilter(Map<PriorityClass, LaneLimits> limits, int retryAfterSeconds,
+                                  MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.retryAfterSeconds = retryAfterSeconds;
+        for (PriorityClass priorityClass : PriorityClass.values()) {
+            lanes.put(priorityClass, new Lane(priorityClass, limits.get(priorityClass), meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return path.startsWith("/actuator") || path.startsWith("/v3/api-docs") || path.startsWith("/swagger-ui");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        PriorityClass priorityClass = classify(request);
+        Lane lane = lanes.get(priorityClass);
+
+        // Los lotes ceden el paso mientras haya peticiones interactivas en cola
+        if (priorityClass == PriorityClass.BATCH && lanes.get(PriorityClass.INTERACTIVE).waiting.get() > 0) {
+            reject(request, response, lane, "hay peticiones interactivas en espera");
+            return;
+        }
+
+        if (!lane.acquire()) {
+            reject(request, response, lane, "capacidad de la clase " + priorityClass + " agotada");
+            return;
+        }
+
+        AtomicBoolean released = new AtomicBoolean(false);
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                lane.release();
+            }
+        };
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // La respuesta se completa en otro hilo: el permiso se libera al terminar
+                request.getAsyncContext().addListener(new ReleasingAsyncListener(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    PriorityClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        for (String pattern : BATCH_PATHS) {
+            if (PATH_MATCHER.match(pattern, path)) {
+                return PriorityClass.BATCH;
+            }
+        }
+        if ("POST".equalsIgnoreCase(request.getMethod())) {
+            for (String pattern : INTERACTIVE_PATHS) {
+                if (PATH_MATCHER.match(pattern, path)) {
+                    return PriorityClass.INTERACTIVE;
+                }
+            }
+        }
+        return PriorityClass.STANDARD;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, Lane lane, String reason)
+            throws IOException {
+        lane.rejected.increment();
+        log.warn("Petición {} {} rechazada por control de admisión: {}",
+                request.getMethod(), request.getRequestURI(), reason);
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.name(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Servicio saturado, reintente más tarde",
+                request.getRequestURI(),
+                "AdmissionRejected",
+                LocalDateTime.now());
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+
+    /**
+     * Presupuesto de concurrencia y cola de una clase de prioridad
+     */
+    private static class Lane {
+
+        private final Semaphore permits;
+        private final int maxQueue;
+        private final long maxWaitMs;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final Timer queueTime;
+        private final Counter rejected;
+
+        Lane(PriorityClass priorityClass, LaneLimits limits, MeterRegistry meterRegistry) {
+            int maxConcurrent = limits.maxConcurrent();
+            this.permits = new Semaphore(maxConcurrent, true);
+            this.maxQueue = limits.maxQueue();
+            this.maxWaitMs = limits.maxWaitMs();
+            String tag = priorityClass.name().toLowerCase();
+            this.queueTime = Timer.builder("payment.admission.queue.time")
+                    .tag("class", tag)
+                    .description("Tiempo de espera en cola del control de admisión")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("payment.admission.rejected")
+                    .tag("class", tag)
+                    .description("Peticiones rechazadas por el control de admisión")
+                    .register(meterRegistry);
+            meterRegistry.gauge("payment.admission.queue.size", Tags.of("class", tag),
+                    waiting, AtomicInteger::get);
+            meterRegistry.gauge("payment.admission.in.flight", Tags.of("class", tag),
+                    permits, p -> maxConcurrent - p.availablePermits());
+        }
+
+        boolean acquire() {
+            if (permits.tryAcquire()) {
+                queueTime.record(0, TimeUnit.NANOSECONDS);
+                return true;
+            }
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            long start = System.nanoTime();
+            try {
+                return permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                waiting.decrementAndGet();
+                queueTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        void release() {
+            permits.release();
+        }
+    }
+
+    private static class ReleasingAsyncListener implements AsyncListener {
+
+        private final Runnable release;
+
+        ReleasingAsyncListener(Runnable release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // El listener se vuelve a registrar en cada dispatch asíncrono
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -32,6 +32,15 @@ public class AsyncConfig implements AsyncConfigurer {
     @Value("${async.queue-capacity:25}")
     private int queueCapacity;
 
+    @Value("${async.batch.core-pool-size:2}")
+    private int batchCorePoolSize;
+
+    @Value("${async.batch.max-pool-size:4}")
+    private int batchMaxPoolSize;
+
+    @Value("${async.batch.queue-capacity:20}")
+    private int batchQueueCapacity;
+
     /**
      * Configura el executor de tareas asíncronas
      */
@@ -59,6 +68,30 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * Executor dedicado a los procesos por lotes
+     *
+     * Separa exportaciones, cargas y reconciliaciones masivas del executor general, de
+     * modo que no ocupen los hilos del procesamiento asíncrono de pagos interactivos.
+     * Cuando la cola está llena la tarea se rechaza en lugar de ejecutarse en el hilo
+     * de la petición.
+     */
+    @Bean(name = "batchTaskExecutor")
+    public Executor batchTaskExecutor() {
+        log.info("Creando Batch Task Executor con corePoolSize {}, maxPoolSize {}, queueCapacity {}",
+                batchCorePoolSize, batchMaxPoolSize, batchQueueCapacity);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchCorePoolSize);
+        executor.setMaxPoolSize(batchMaxPoolSize);
+        executor.setQueueCapacity(batchQueueCapacity);
+        executor.setThreadNamePrefix("payment-batch-");
+        executor.setThreadPriority(Thread.NORM_PRIORITY - 1);
+        executor.initialize();
+
+        return executor;
+    }
+
     @Override
     public Executor getAsyncExecutor() {
         return taskExecutor();
@@ -24,7 +24,8 @@ public class DistributedLockConfig {
      */
     @Bean
     public LockRepository lockRepository(DataSource dataSource) {
-        DefaultLockRepository lockRepository = new DefaultLockRepository(dataSource);
+        // Los bloqueos siempre se consultan en el primario, nunca en una réplica de lectura
+        DefaultLockRepository lockRepository = new DefaultLockRepository(ReplicaRoutingDataSource.primaryOf(dataSource));
         lockRepository.setTimeToLive(30000); // TTL de 30 segundos para prevenir bloqueos muertos
         lockRepository.setPrefix("PAYMENT_LOCK_");
         return lockRepository;
@@ -0,0 +1,128 @@
+package com.insurtech.payment.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuración de enrutamiento de lecturas hacia una réplica
+ *
+ * Cuando está activa, las transacciones de sólo lectura (informes, estadísticas,
+ * consultas de integración financiera) usan un pool propio contra la réplica, de forma
+ * que no compiten por conexiones con la creación y el procesamiento de pagos.
+ * Cada pool publica sus métricas de utilización con su nombre (hikaricp.connections{pool=...}).
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.read-replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaDataSourceConfig.class);
+
+    @Value("${datasource.read-replica.url}")
+    private String replicaUrl;
+
+    @Value("${datasource.read-replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${datasource.read-replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${datasource.read-replica.driver-class-name:${spring.datasource.driver-class-name}}")
+    private String replicaDriverClassName;
+
+    @Value("${datasource.read-replica.maximum-pool-size:10}")
+    private int replicaMaxPoolSize;
+
+    @Value("${datasource.read-replica.minimum-idle:2}")
+    private int replicaMinIdle;
+
+    @Value("${datasource.primary.maximum-pool-size:20}")
+    private int primaryMaxPoolSize;
+
+    @Value("${datasource.primary.minimum-idle:5}")
+    private int primaryMinIdle;
+
+    @Value("${datasource.read-replica.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    @Value("${datasource.read-replica.lag-query:}")
+    private String lagQuery;
+
+    @Value("${datasource.read-replica.read-your-writes-ms:${datasource.read-replica.max-lag-ms:5000}}")
+    private long readYourWritesMs;
+
+    /**
+     * Pool del primario, usado para escrituras y lecturas read-your-writes
+     */
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("payment-primary");
+        dataSource.setMaximumPoolSize(primaryMaxPoolSize);
+        dataSource.setMinimumIdle(primaryMinIdle);
+        return dataSource;
+    }
+
+    /**
+     * Pool de la réplica, usado para transacciones de sólo lectura
+     */
+    @Bean
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("payment-replica");
+        dataSource.setJdbcUrl(replicaUrl);
+        dataSource.setUsername(replicaUsername);
+        dataSource.setPassword(replicaPassword);
+        dataSource.setDriverClassName(replicaDriverClassName);
+        dataSource.setMaximumPoolSize(replicaMaxPoolSize);
+        dataSource.setMinimumIdle(replicaMinIdle);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("replicaDataSource") DataSource replicaDataSource,
+            MeterRegistry meterRegistry) {
+        log.info("Activando enrutamiento de lecturas a réplica {} (retraso máximo {} ms)", replicaUrl, maxLagMs);
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, maxLagMs, lagQuery,
+                readYourWritesMs, meterRegistry);
+    }
+
+    /**
+     * Mantiene en el primario las lecturas de un cliente durante la ventana read-your-writes
+     * posterior a sus escrituras, también en peticiones posteriores
+     */
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        ReadYourWritesFilter filter = new ReadYourWritesFilter(replicaRoutingDataSource.getReadYourWritesMs());
+        replicaRoutingDataSource.setPrimaryCommitListener(filter::onPrimaryCommit);
+        return filter;
+    }
+
+    /**
+     * DataSource principal de la aplicación
+     *
+     * El proxy perezoso retrasa la obtención de la conexión física hasta la primera sentencia,
+     * cuando ya se conoce si la transacción es de sólo lectura.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
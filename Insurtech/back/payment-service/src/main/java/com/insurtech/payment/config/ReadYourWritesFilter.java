@@ -0,0 +1,94 @@
+package com.insurtech.payment.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Read-your-writes entre peticiones cuando las lecturas se enrutan a la réplica
+ *
+ * Tras confirmar una escritura, {@link ReplicaRoutingDataSource} avisa a este filtro, que
+ * devuelve al cliente una cookie con el instante hasta el que sus lecturas deben ir al
+ * primario. En las peticiones siguientes la cookie vuelve a fijar el hilo al primario,
+ * de modo que el cliente ve sus propias escrituras aunque la réplica vaya retrasada.
+ * La cookie sólo contiene un instante, acotado a la ventana configurada.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "PAYMENT_PRIMARY_UNTIL";
+
+    private final long readYourWritesMs;
+
+    public ReadYourWritesFilter(long readYourWritesMs) {
+        this.readYourWritesMs = readYourWritesMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long pinnedUntil = pinnedUntilFromCookie(request);
+        if (pinnedUntil > 0) {
+            ReplicaRoutingDataSource.pinToPrimaryUntil(pinnedUntil);
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Los hilos del servidor se reutilizan entre clientes
+            ReplicaRoutingDataSource.clearPin();
+        }
+    }
+
+    /**
+     * Devuelve la cookie de read-your-writes en la respuesta de la petición en curso
+     *
+     * Se invoca desde la confirmación de la transacción; fuera de una petición HTTP
+     * (tareas programadas, consumidores) o con la respuesta ya enviada no hace nada.
+     */
+    void onPrimaryCommit(long pinnedUntil) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return;
+        }
+
+        HttpServletResponse response = servletAttributes.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+
+        Cookie cookie = new Cookie(COOKIE_NAME, Long.toString(pinnedUntil));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, (readYourWritesMs + 999) / 1000));
+        response.addCookie(cookie);
+    }
+
+    private long pinnedUntilFromCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    // Un valor manipulado no puede fijar el primario más allá de la ventana
+                    long now = System.currentTimeMillis();
+                    long pinnedUntil = Math.min(Long.parseLong(cookie.getValue()), now + readYourWritesMs);
+                    return pinnedUntil > now ? pinnedUntil : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
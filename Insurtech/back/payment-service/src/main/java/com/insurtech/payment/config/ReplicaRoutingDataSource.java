@@ -0,0 +1,239 @@
+package com.insurtech.payment.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * DataSource que enruta las transacciones de sólo lectura a la réplica
+ *
+ * Las transacciones marcadas con {@code @Transactional(readOnly = true)} se sirven
+ * desde el pool de la réplica salvo que:
+ * - el retraso de replicación medido supere el máximo permitido o no se pueda medir
+ * - el código se ejecute dentro de {@link #runOnPrimary(Supplier)} (lecturas que deben
+ *   ver las escrituras recién confirmadas)
+ * - el hilo haya confirmado una transacción de escritura hace menos de
+ *   {@code readYourWritesMs} (read-your-writes); {@link ReadYourWritesFilter} extiende
+ *   esa ventana a las peticiones siguientes del mismo cliente
+ * En esos casos, y para cualquier transacción de escritura, se usa el primario.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    /** Instante (epoch ms) hasta el que las lecturas del hilo se sirven desde el primario */
+    private static final ThreadLocal<Long> PINNED_UNTIL = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long maxLagMs;
+    private final String lagQuery;
+    private final long readYourWritesMs;
+    private final Map<String, Counter> routeCounters = new HashMap<>();
+
+    private volatile boolean replicaHealthy = true;
+    private volatile long lastMeasuredLagMs = 0;
+    private volatile LongConsumer primaryCommitListener = pinnedUntil -> { };
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLagMs, String lagQuery,
+                                    long readYourWritesMs, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery;
+        this.readYourWritesMs = readYourWritesMs;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        targets.put(REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        routeCounters.put(PRIMARY, Counter.builder("payment.datasource.route")
+                .tag("route", PRIMARY)
+                .description("Conexiones obtenidas por ruta del DataSource")
+                .register(meterRegistry));
+        routeCounters.put(REPLICA, Counter.builder("payment.datasource.route")
+                .tag("route", REPLICA)
+                .description("Conexiones obtenidas por ruta del DataSource")
+                .register(meterRegistry));
+        meterRegistry.gauge("payment.datasource.replica.lag", this, ds -> ds.lastMeasuredLagMs);
+        meterRegistry.gauge("payment.datasource.replica.healthy", this, ds -> ds.replicaHealthy ? 1 : 0);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        boolean forcePrimary = Boolean.TRUE.equals(FORCE_PRIMARY.get()) || isPinnedToPrimary();
+        String route = readOnly && replicaHealthy && !forcePrimary ? REPLICA : PRIMARY;
+        if (!readOnly) {
+            pinAfterCommit();
+        }
+        routeCounters.get(route).increment();
+        return route;
+    }
+
+    /**
+     * Fija las lecturas del hilo al primario cuando la transacción de escritura actual confirma
+     */
+    private void pinAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long pinnedUntil = System.currentTimeMillis() + readYourWritesMs;
+                pinToPrimaryUntil(pinnedUntil);
+                primaryCommitListener.accept(pinnedUntil);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReplicaRoutingDataSource.this);
+            }
+        });
+    }
+
+    /**
+     * Recibe el instante hasta el que se fijan las lecturas al primario tras cada confirmación
+     */
+    public void setPrimaryCommitListener(LongConsumer primaryCommitListener) {
+        this.primaryCommitListener = primaryCommitListener;
+    }
+
+    public long getReadYourWritesMs() {
+        return readYourWritesMs;
+    }
+
+    /**
+     * Sirve desde el primario las lecturas del hilo actual hasta el instante indicado (epoch ms)
+     */
+    public static void pinToPrimaryUntil(long epochMillis) {
+        Long current = PINNED_UNTIL.get();
+        if (current == null || current < epochMillis) {
+            PINNED_UNTIL.set(epochMillis);
+        }
+    }
+
+    /**
+     * Instante hasta el que el hilo actual lee del primario, o 0 si no está fijado
+     */
+    public static long pinnedUntil() {
+        return isPinnedToPrimary() ? PINNED_UNTIL.get() : 0;
+    }
+
+    public static void clearPin() {
+        PINNED_UNTIL.remove();
+    }
+
+    private static boolean isPinnedToPrimary() {
+        Long pinnedUntil = PINNED_UNTIL.get();
+        if (pinnedUntil == null) {
+            return false;
+        }
+        if (pinnedUntil <= System.currentTimeMillis()) {
+            PINNED_UNTIL.remove();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ejecuta la operación leyendo siempre del primario (read-your-writes)
+     */
+    public static <T> T runOnPrimary(Supplier<T> action) {
+        Boolean previous = FORCE_PRIMARY.get();
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                FORCE_PRIMARY.remove();
+            } else {
+                FORCE_PRIMARY.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Mide el retraso de la réplica y la excluye del enrutamiento si supera el umbral
+     */
+    @Scheduled(fixedDelayString = "${datasource.read-replica.lag-check-interval-ms:5000}")
+    public void checkReplicaLag() {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement()) {
+            long lagMs = 0;
+            if (lagQuery != null && !lagQuery.isBlank()) {
+                try (ResultSet rs = statement.executeQuery(lagQuery)) {
+                    lagMs = rs.next() ? rs.getLong(1) : 0;
+                }
+            } else if (!connection.isValid(2)) {
+                throw new IllegalStateException("conexión no válida");
+            }
+            lastMeasuredLagMs = lagMs;
+            updateHealth(lagMs <= maxLagMs, "retraso de " + lagMs + " ms");
+        } catch (Exception e) {
+            updateHealth(false, "error al consultar la réplica: " + e.getMessage());
+        }
+    }
+
+    private void updateHealth(boolean healthy, String detail) {
+        if (healthy != replicaHealthy) {
+            if (healthy) {
+                log.info("Réplica de lectura disponible de nuevo ({})", detail);
+            } else {
+                log.warn("Réplica de lectura excluida del enrutamiento, usando primario ({})", detail);
+            }
+        }
+        replicaHealthy = healthy;
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    /**
+     * Devuelve el DataSource primario cuando el enrutamiento por réplica está activo
+     *
+     * Útil para componentes que nunca deben leer de la réplica (p. ej. bloqueos distribuidos)
+     */
+    public static DataSource primaryOf(DataSource dataSource) {
+        DataSource target = dataSource;
+        if (target instanceof LazyConnectionDataSourceProxy proxy) {
+            target = proxy.getTargetDataSource();
+        }
+        if (target instanceof ReplicaRoutingDataSource routing) {
+            return routing.getPrimary();
+        }
+        return dataSource;
+    }
+}
@@ -25,6 +25,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +40,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class FinancialIntegrationController {
 
+    // Tamaño máximo de página que admite claim-service en sus listados
+    private static final int CLAIMS_PAGE_SIZE = 500;
+    // Límite de páginas por respuesta (10.000 reclamaciones); lo que pase de ahí se indica como truncado
+    private static final int MAX_CLAIMS_PAGES = 20;
+
     private final PaymentService paymentService;
     private final InvoiceService invoiceService;
     private final RefundService refundService;
@@ -114,8 +121,7 @@ public class FinancialIntegrationController {
         history.put("refunds", refunds);
 
         // Reclamaciones de la póliza con pagos asociados
-        List<Map<String, Object>> claims = claimServiceClient.getClaimsByPolicyNumber(policyNumber);
-        history.put("claims", claims);
+        addPolicyClaims(policyNumber, history);
 
         // Calcular totales
         BigDecimal totalPaid = paymentService.calculateTotalPaidForPolicy(policyNumber);
@@ -126,4 +132,38 @@ public class FinancialIntegrationController {
 
         return ResponseEntity.ok(history);
     }
+
+    /**
+     * Recorre todas las páginas de reclamaciones de la póliza
+     *
+     * Si claim-service no responde o se alcanza el límite de páginas, la respuesta lo
+     * indica con claimsTruncated en lugar de presentar una lista parcial como completa.
+     */
+    private void addPolicyClaims(String policyNumber, Map<String, Object> history) {
+        List<Object> claims = new ArrayList<>();
+        Object totalClaims = null;
+        boolean complete = false;
+
+        for (int page = 0; page < MAX_CLAIMS_PAGES; page++) {
+            Map<String, Object> result = claimServiceClient.getClaimsByPolicyNumber(policyNumber, page, CLAIMS_PAGE_SIZE);
+            if (result.get("totalElements") == null) {
+                // Respuesta del fallback: claim-service no disponible
+                break;
+            }
+            totalClaims = result.get("totalElements");
+            List<?> content = result.get("content") instanceof List<?> list ? list : Collections.emptyList();
+            claims.addAll(content);
+            if (Boolean.TRUE.equals(result.get("last")) || content.size() < CLAIMS_PAGE_SIZE) {
+                complete = true;
+                break;
+            }
+        }
+
+        if (!complete) {
+            log.warn("Reclamaciones de la póliza {} incompletas: {} de {}", policyNumber, claims.size(), totalClaims);
+        }
+        history.put("claims", claims);
+        history.put("totalClaims", totalClaims);
+        history.put("claimsTruncated", !complete);
+    }
 }
\ No newline at end of file
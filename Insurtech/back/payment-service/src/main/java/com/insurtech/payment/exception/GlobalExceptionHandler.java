@@ -1,5 +1,6 @@
 package com.insurtech.payment.exception;
 
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -58,6 +59,20 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleTaskRejectedException(
+            TaskRejectedException exception, WebRequest request) {
+
+        ErrorResponse errorResponse = createErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                "Capacidad de procesamiento por lotes agotada, reintente más tarde",
+                request,
+                exception
+        );
+
+        return new ResponseEntity<>(errorResponse, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<ErrorResponse> handleInsufficientFundsException(
             InsufficientFundsException exception, WebRequest request) {
@@ -0,0 +1,51 @@
+package com.insurtech.payment.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Registro de recordatorios de factura enviados, usado para que las
+ * re-ejecuciones del envío de recordatorios no dupliquen notificaciones
+ */
+@Entity
+@Table(name = "INVOICE_REMINDER_LOGS",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"INVOICE_ID", "REMINDER_DATE"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public class InvoiceReminderLog {
+
+    @Id
+    @EqualsAndHashCode.Include
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SEQ_INVOICE_REMINDER_LOGS")
+    @SequenceGenerator(name = "SEQ_INVOICE_REMINDER_LOGS", sequenceName = "SEQ_INVOICE_REMINDER_LOGS", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "INVOICE_ID", nullable = false)
+    private Long invoiceId;
+
+    @Column(name = "INVOICE_NUMBER", nullable = false)
+    private String invoiceNumber;
+
+    @Column(name = "CUSTOMER_NUMBER", nullable = false)
+    private String customerNumber;
+
+    @Column(name = "REMINDER_DATE", nullable = false)
+    private LocalDate reminderDate;
+
+    @Column(name = "DISPATCH_ID", nullable = false)
+    private String dispatchId;
+
+    // Campos de auditoría
+    @CreationTimestamp
+    @Column(name = "CREATED_AT", updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package com.insurtech.payment.repository;
+
+import com.insurtech.payment.model.entity.InvoiceReminderLog;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para los registros de recordatorios de factura enviados
+ */
+@Repository
+public interface InvoiceReminderLogRepository extends JpaRepository<InvoiceReminderLog, Long> {
+
+    /**
+     * Devuelve los IDs de factura, de entre los indicados, que ya recibieron recordatorio en la fecha dada
+     */
+    @Query("SELECT r.invoiceId FROM InvoiceReminderLog r WHERE r.reminderDate = :reminderDate AND r.invoiceId IN :invoiceIds")
+    List<Long> findRemindedInvoiceIds(
+            @Param("reminderDate") LocalDate reminderDate,
+            @Param("invoiceIds") Collection<Long> invoiceIds);
+}
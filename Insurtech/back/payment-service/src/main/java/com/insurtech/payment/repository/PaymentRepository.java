@@ -79,4 +79,27 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      */
     List<Payment> findByStatusAndCreatedAtBetween(
             Payment.PaymentStatus status, LocalDateTime start, LocalDateTime end);
-}
\ No newline at end of file
+
+    /**
+     * Hechos de pago modificados desde la marca de agua (fecha de actualización, id), en orden de actualización
+     *
+     * Columnas: id, importe, estado, tipo, moneda, cliente, fecha de pago, fecha de creación,
+     * tipo de método, proveedor del método, fecha de actualización efectiva
+     */
+    @Query("SELECT p.id, p.amount, p.status, p.paymentType, p.currency, p.customerNumber, p.paymentDate, p.createdAt, " +
+            "pm.methodType, COALESCE(pm.walletProvider, pm.cardType, pm.bankName), COALESCE(p.updatedAt, p.createdAt) " +
+            "FROM Payment p LEFT JOIN p.paymentMethod pm " +
+            "WHERE COALESCE(p.updatedAt, p.createdAt) > :since " +
+            "OR (COALESCE(p.updatedAt, p.createdAt) = :since AND p.id > :lastId) " +
+            "ORDER BY COALESCE(p.updatedAt, p.createdAt) ASC, p.id ASC")
+    List<Object[]> findPaymentFactsUpdatedSince(
+            @Param("since") LocalDateTime since,
+            @Param("lastId") Long lastId,
+            Pageable pageable);
+
+    /**
+     * Ids de pago posteriores al indicado, en orden, para conciliar borrados por páginas
+     */
+    @Query("SELECT p.id FROM Payment p WHERE p.id > :afterId ORDER BY p.id ASC")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+}
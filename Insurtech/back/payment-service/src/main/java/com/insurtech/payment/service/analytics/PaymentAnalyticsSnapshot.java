@@ -0,0 +1,587 @@
+package com.insurtech.payment.service.analytics;
+
+import com.insurtech.payment.model.entity.Payment;
+import com.insurtech.payment.model.entity.PaymentMethod;
+import com.insurtech.payment.repository.PaymentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Instantánea columnar en memoria de los hechos de pago para analítica
+ *
+ * Cada pago ocupa una posición en un conjunto de arrays primitivos (importe, estado,
+ * tipo, método, proveedor, moneda, cliente y fechas); los textos se codifican por
+ * diccionario. La instantánea se actualiza de forma incremental a partir de la marca de
+ * agua de fecha de actualización, y las consultas de agrupación recorren sólo las
+ * columnas necesarias sin hidratar entidades.
+ *
+ * La fecha de actualización se asigna al hacer flush, no al confirmar: una transacción
+ * larga puede confirmar filas con una fecha anterior a la marca de agua. Por eso cada
+ * actualización vuelve a leer una ventana de seguridad anterior a la marca (aplicar una
+ * fila es idempotente). Los pagos borrados no aparecen en esa consulta, así que se
+ * eliminan con una conciliación periódica de ids.
+ */
+@Component
+@Slf4j
+public class PaymentAnalyticsSnapshot {
+
+    /** Escala fija de los importes (4 decimales, igual que la columna AMOUNT) */
+    private static final int AMOUNT_SCALE = 4;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final byte NONE = -1;
+    private static final LocalDateTime INITIAL_WATERMARK = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final Payment.PaymentStatus[] STATUSES = Payment.PaymentStatus.values();
+    private static final Payment.PaymentType[] TYPES = Payment.PaymentType.values();
+    private static final PaymentMethod.MethodType[] METHODS = PaymentMethod.MethodType.values();
+
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${payment.analytics.page-size:5000}")
+    private int pageSize;
+
+    @Value("${payment.analytics.overlap-window-ms:300000}")
+    private long overlapWindowMs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Columnas
+    private int size;
+    private long[] ids = new long[0];
+    private long[] amounts = new long[0];
+    private byte[] statuses = new byte[0];
+    private byte[] paymentTypes = new byte[0];
+    private byte[] methodTypes = new byte[0];
+    private int[] providers = new int[0];
+    private int[] currencies = new int[0];
+    private int[] customers = new int[0];
+    private long[] paymentDates = new long[0];
+    private long[] createdDates = new long[0];
+
+    // Posición de cada pago en las columnas
+    private final LongIntMap rowById = new LongIntMap();
+
+    // Diccionarios
+    private final Dictionary providerDictionary = new Dictionary();
+    private final Dictionary currencyDictionary = new Dictionary();
+    private final Dictionary customerDictionary = new Dictionary();
+
+    // Mayor fecha de actualización aplicada
+    private LocalDateTime watermark = INITIAL_WATERMARK;
+    private volatile boolean loaded = false;
+
+    public PaymentAnalyticsSnapshot(PaymentRepository paymentRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.paymentRepository = paymentRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Aplica los pagos creados o modificados desde la marca de agua menos la ventana de seguridad
+     */
+    @Scheduled(fixedDelayString = "${payment.analytics.refresh-interval-ms:60000}")
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        int applied = 0;
+
+        // Un único hilo de actualización; las consultas sólo esperan mientras se aplica cada página
+        synchronized (this) {
+            // La primera carga parte de cero; las siguientes releen la ventana de seguridad
+            LocalDateTime since = loaded
+                    ? watermark.minus(overlapWindowMs, ChronoUnit.MILLIS)
+                    : INITIAL_WATERMARK;
+            long sinceId = 0L;
+
+            List<Object[]> page;
+            do {
+                LocalDateTime pageSince = since;
+                long pageSinceId = sinceId;
+                page = readOnlyTransaction.execute(status -> paymentRepository.findPaymentFactsUpdatedSince(
+                        pageSince, pageSinceId, PageRequest.of(0, pageSize)));
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+
+                lock.writeLock().lock();
+                try {
+                    for (Object[] row : page) {
+                        apply(row);
+                    }
+                    Object[] last = page.get(page.size() - 1);
+                    since = (LocalDateTime) last[10];
+                    sinceId = ((Number) last[0]).longValue();
+                    if (since.isAfter(watermark)) {
+                        watermark = since;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                applied += page.size();
+            } while (page.size() == pageSize);
+
+            loaded = true;
+        }
+
+        if (applied > 0) {
+            log.info("Instantánea analítica de pagos actualizada con {} filas en {} ms (total {})",
+                    applied, System.currentTimeMillis() - start, size);
+        }
+    }
+
+    /**
+     * Elimina de la instantánea los pagos que ya no existen
+     *
+     * Recorre los ids de la tabla por páginas en orden y compara con los ids cargados; las
+     * filas nuevas que aún no se han aplicado no afectan porque no están en la instantánea.
+     */
+    @Scheduled(fixedDelayString = "${payment.analytics.delete-check-interval-ms:900000}",
+            initialDelayString = "${payment.analytics.delete-check-interval-ms:900000}")
+    public void removeDeleted() {
+        if (!loaded) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int removed = 0;
+        synchronized (this) {
+            BitSet present = new BitSet(size);
+            long afterId = Long.MIN_VALUE;
+            List<Long> page;
+            do {
+                long pageAfterId = afterId;
+                page = readOnlyTransaction.execute(status -> paymentRepository.findIdsAfter(
+                        pageAfterId, PageRequest.of(0, pageSize)));
+                if (page == null || page.isEmpty()) {
+                    break;
+                }
+
+                lock.readLock().lock();
+                try {
+                    for (Long id : page) {
+                        int index = rowById.get(id);
+                        if (index >= 0) {
+                            present.set(index);
+                        }
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                afterId = page.get(page.size() - 1);
+            } while (page.size() == pageSize);
+
+            lock.writeLock().lock();
+            try {
+                // De atrás hacia delante: remove() mueve la última fila al hueco
+                for (int i = size - 1; i >= 0; i--) {
+                    if (!present.get(i)) {
+                        remove(i);
+                        removed++;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        if (removed > 0) {
+            log.info("Eliminados {} pagos borrados de la instantánea analítica en {} ms (total {})",
+                    removed, System.currentTimeMillis() - start, size);
+        }
+    }
+
+    private void remove(int index) {
+        int last = size - 1;
+        rowById.remove(ids[index]);
+        if (index != last) {
+            ids[index] = ids[last];
+            amounts[index] = amounts[last];
+            statuses[index] = statuses[last];
+            paymentTypes[index] = paymentTypes[last];
+            methodTypes[index] = methodTypes[last];
+            providers[index] = providers[last];
+            currencies[index] = currencies[last];
+            customers[index] = customers[last];
+            paymentDates[index] = paymentDates[last];
+            createdDates[index] = createdDates[last];
+            rowById.put(ids[index], index);
+        }
+        size = last;
+    }
+
+    private void apply(Object[] row) {
+        long id = ((Number) row[0]).longValue();
+        int index = rowById.get(id);
+        if (index < 0) {
+            ensureCapacity(size + 1);
+            index = size++;
+            rowById.put(id, index);
+            ids[index] = id;
+        }
+
+        BigDecimal amount = (BigDecimal) row[1];
+        amounts[index] = amount != null ? amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue() : 0L;
+        statuses[index] = row[2] != null ? (byte) ((Payment.PaymentStatus) row[2]).ordinal() : NONE;
+        paymentTypes[index] = row[3] != null ? (byte) ((Payment.PaymentType) row[3]).ordinal() : NONE;
+        currencies[index] = currencyDictionary.encode((String) row[4]);
+        customers[index] = customerDictionary.encode((String) row[5]);
+        paymentDates[index] = toEpochSecond((LocalDateTime) row[6]);
+        createdDates[index] = toEpochSecond((LocalDateTime) row[7]);
+        methodTypes[index] = row[8] != null ? (byte) ((PaymentMethod.MethodType) row[8]).ordinal() : NONE;
+        providers[index] = providerDictionary.encode((String) row[9]);
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= amounts.length) {
+            return;
+        }
+        int capacity = Math.max(1024, Math.max(required, amounts.length + (amounts.length >> 1)));
+        ids = Arrays.copyOf(ids, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        paymentTypes = Arrays.copyOf(paymentTypes, capacity);
+        methodTypes = Arrays.copyOf(methodTypes, capacity);
+        providers = Arrays.copyOf(providers, capacity);
+        currencies = Arrays.copyOf(currencies, capacity);
+        customers = Arrays.copyOf(customers, capacity);
+        paymentDates = Arrays.copyOf(paymentDates, capacity);
+        createdDates = Arrays.copyOf(createdDates, capacity);
+    }
+
+    /**
+     * Agrupa los pagos que cumplen el filtro por la dimensión indicada
+     */
+    public Map<String, GroupStats> aggregate(Dimension dimension, Filter filter) {
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, GroupStats> byCode = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                if (!filter.matches(this, i)) {
+                    continue;
+                }
+                int code = code(dimension, i);
+                GroupStats stats = byCode.get(code);
+                if (stats == null) {
+                    stats = new GroupStats();
+                    byCode.put(code, stats);
+                }
+                stats.add(this, i);
+            }
+
+            Map<String, GroupStats> result = new HashMap<>();
+            for (Map.Entry<Integer, GroupStats> entry : byCode.entrySet()) {
+                result.put(label(dimension, entry.getKey()), entry.getValue());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+        }
+    }
+
+    private int code(Dimension dimension, int i) {
+        switch (dimension) {
+            case STATUS:
+                return statuses[i];
+            case PAYMENT_TYPE:
+                return paymentTypes[i];
+            case METHOD_TYPE:
+                return methodTypes[i];
+            case PROVIDER:
+                return providers[i];
+            case CURRENCY:
+                return currencies[i];
+            case CUSTOMER:
+                return customers[i];
+            default:
+                throw new IllegalArgumentException("Dimensión no soportada: " + dimension);
+        }
+    }
+
+    private String label(Dimension dimension, int code) {
+        if (code < 0) {
+            return null;
+        }
+        switch (dimension) {
+            case STATUS:
+                return STATUSES[code].name();
+            case PAYMENT_TYPE:
+                return TYPES[code].name();
+            case METHOD_TYPE:
+                return METHODS[code].name();
+            case PROVIDER:
+                return providerDictionary.decode(code);
+            case CURRENCY:
+                return currencyDictionary.decode(code);
+            case CUSTOMER:
+                return customerDictionary.decode(code);
+            default:
+                throw new IllegalArgumentException("Dimensión no soportada: " + dimension);
+        }
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toEpochSecond(ZoneOffset.UTC) : NO_DATE;
+    }
+
+    public enum Dimension {
+        STATUS,
+        PAYMENT_TYPE,
+        METHOD_TYPE,
+        PROVIDER,
+        CURRENCY,
+        CUSTOMER
+    }
+
+    /**
+     * Filtro sobre las columnas de la instantánea
+     */
+    public static class Filter {
+
+        private int statusMask = -1;
+        private boolean requirePaymentMethod;
+        private long paymentDateFrom = NO_DATE;
+        private long paymentDateTo = Long.MAX_VALUE;
+
+        public static Filter all() {
+            return new Filter();
+        }
+
+        public Filter statuses(Collection<Payment.PaymentStatus> statuses) {
+            if (statuses != null && !statuses.isEmpty()) {
+                statusMask = 0;
+                for (Payment.PaymentStatus status : statuses) {
+                    statusMask |= 1 << status.ordinal();
+                }
+            }
+            return this;
+        }
+
+        public Filter withPaymentMethod() {
+            this.requirePaymentMethod = true;
+            return this;
+        }
+
+        public Filter paymentDateBetween(LocalDateTime from, LocalDateTime to) {
+            this.paymentDateFrom = from != null ? toEpochSecond(from) : NO_DATE;
+            this.paymentDateTo = to != null ? toEpochSecond(to) : Long.MAX_VALUE;
+            return this;
+        }
+
+        boolean matches(PaymentAnalyticsSnapshot snapshot, int i) {
+            byte status = snapshot.statuses[i];
+            if (statusMask != -1 && (status < 0 || (statusMask & (1 << status)) == 0)) {
+                return false;
+            }
+            if (requirePaymentMethod && snapshot.methodTypes[i] == NONE) {
+                return false;
+            }
+            if (paymentDateFrom != NO_DATE || paymentDateTo != Long.MAX_VALUE) {
+                long paymentDate = snapshot.paymentDates[i];
+                return paymentDate != NO_DATE && paymentDate >= paymentDateFrom && paymentDate <= paymentDateTo;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Acumulados de un grupo
+     */
+    public static class GroupStats {
+
+        private long count;
+        private long amountUnits;
+        private long completedCount;
+        private long completedAmountUnits;
+        private long processingSecondsSum;
+        private long processingSamples;
+
+        void add(PaymentAnalyticsSnapshot snapshot, int i) {
+            count++;
+            amountUnits += snapshot.amounts[i];
+            if (snapshot.statuses[i] == Payment.PaymentStatus.COMPLETED.ordinal()) {
+                completedCount++;
+                completedAmountUnits += snapshot.amounts[i];
+            }
+            long paymentDate = snapshot.paymentDates[i];
+            long createdDate = snapshot.createdDates[i];
+            if (paymentDate != NO_DATE && createdDate != NO_DATE) {
+                processingSecondsSum += paymentDate - createdDate;
+                processingSamples++;
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public BigDecimal getTotalAmount() {
+            return BigDecimal.valueOf(amountUnits, AMOUNT_SCALE);
+        }
+
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        public BigDecimal getCompletedAmount() {
+            return BigDecimal.valueOf(completedAmountUnits, AMOUNT_SCALE);
+        }
+
+        public double getAverageAmount() {
+            return count == 0 ? 0 : getTotalAmount().doubleValue() / count;
+        }
+
+        public double getAverageProcessingSeconds() {
+            return processingSamples == 0 ? 0 : (double) processingSecondsSum / processingSamples;
+        }
+    }
+
+    /**
+     * Diccionario de cadenas a códigos enteros consecutivos
+     */
+    private static class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code < 0 ? null : values.get(code);
+        }
+    }
+
+    /**
+     * Mapa id -> posición con direccionamiento abierto, sin objetos por entrada
+     */
+    private static class LongIntMap {
+
+        private long[] keys = new long[1024];
+        private int[] values = new int[1024];
+        private boolean[] used = new boolean[1024];
+        private int count;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        void put(long key, int value) {
+            if ((count + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            values[slot] = value;
+            count++;
+        }
+
+        /**
+         * Borrado con desplazamiento hacia atrás para no romper las cadenas de sondeo
+         */
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (used[slot] && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (!used[slot]) {
+                return;
+            }
+
+            used[slot] = false;
+            count--;
+            int next = (slot + 1) & mask;
+            while (used[next]) {
+                int home = hash(keys[next]) & mask;
+                // Mover la entrada al hueco si su posición natural no está entre el hueco y ella
+                boolean movable = slot <= next ? (home <= slot || home > next) : (home <= slot && home > next);
+                if (movable) {
+                    keys[slot] = keys[next];
+                    values[slot] = values[next];
+                    used[slot] = true;
+                    used[next] = false;
+                    slot = next;
+                }
+                next = (next + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.insurtech.payment.service.async;
+
+import com.insurtech.payment.client.CustomerServiceClient;
+import com.insurtech.payment.model.entity.Invoice;
+import com.insurtech.payment.model.entity.InvoiceReminderLog;
+import com.insurtech.payment.repository.InvoiceReminderLogRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Productor por lotes de recordatorios de factura
+ *
+ * Agrupa las facturas por cliente para enviar un único resumen por cliente y
+ * envía los resúmenes en lotes al servicio de clientes, que añade los datos de
+ * contacto y los publica en payment.reminder (consumido por notification-service),
+ * respetando un límite de envíos por segundo. Sólo se registran como enviados los
+ * resúmenes cuya publicación ha confirmado el servicio de clientes, para que las
+ * re-ejecuciones del mismo día no los repitan y el resto se reintente.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class InvoiceReminderDispatcher {
+
+    private final CustomerServiceClient customerServiceClient;
+    private final InvoiceReminderLogRepository reminderLogRepository;
+
+    @Value("${payment.reminders.batch-size:500}")
+    private int batchSize;
+
+    @Value("${payment.reminders.max-digests-per-second:1000}")
+    private int maxDigestsPerSecond;
+
+    /**
+     * Envía los recordatorios de las facturas indicadas
+     *
+     * @return número de facturas cubiertas por los resúmenes enviados
+     */
+    public int dispatch(List<Invoice> invoices, LocalDateTime now) {
+        LocalDate reminderDate = now.toLocalDate();
+        List<Invoice> pending = excludeAlreadyReminded(invoices, reminderDate);
+
+        if (pending.isEmpty()) {
+            log.info("No hay recordatorios de factura pendientes para {}", reminderDate);
+            return 0;
+        }
+
+        // Un resumen por cliente, conservando el orden de vencimiento
+        Map<String, List<Invoice>> invoicesByCustomer = pending.stream()
+                .collect(Collectors.groupingBy(Invoice::getCustomerNumber, LinkedHashMap::new, Collectors.toList()));
+
+        List<Map.Entry<String, List<Invoice>>> customers = new ArrayList<>(invoicesByCustomer.entrySet());
+        log.info("Enviando recordatorios de {} facturas agrupadas en {} resúmenes de cliente",
+                pending.size(), customers.size());
+
+        int sentInvoices = 0;
+        for (int start = 0; start < customers.size(); start += batchSize) {
+            List<Map.Entry<String, List<Invoice>>> chunk =
+                    customers.subList(start, Math.min(start + batchSize, customers.size()));
+            long chunkStart = System.nanoTime();
+            String dispatchId = "REMINDER-" + UUID.randomUUID();
+
+            try {
+                List<Map<String, Object>> digests = chunk.stream()
+                        .map(entry -> buildDigest(entry.getKey(), entry.getValue(), now))
+                        .collect(Collectors.toList());
+
+                Set<String> delivered = sendDigests(dispatchId, digests);
+                if (delivered.size() < chunk.size()) {
+                    log.warn("El lote de recordatorios {} sólo entregó {} de {} resúmenes; el resto se reintentará",
+                            dispatchId, delivered.size(), chunk.size());
+                }
+                sentInvoices += recordSent(dispatchId, chunk, delivered, reminderDate);
+            } catch (Exception e) {
+                log.error("Error al enviar lote de recordatorios {}: {}", dispatchId, e.getMessage());
+            }
+
+            throttle(chunk.size(), chunkStart);
+        }
+
+        log.info("Recordatorios enviados para {} de {} facturas pendientes", sentInvoices, pending.size());
+        return sentInvoices;
+    }
+
+    private List<Invoice> excludeAlreadyReminded(List<Invoice> invoices, LocalDate reminderDate) {
+        // Las facturas vencidas y próximas a vencer pueden solaparse entre consultas
+        Map<Long, Invoice> uniqueInvoices = new LinkedHashMap<>();
+        for (Invoice invoice : invoices) {
+            uniqueInvoices.putIfAbsent(invoice.getId(), invoice);
+        }
+
+        Set<Long> reminded = new HashSet<>();
+        List<Long> ids = new ArrayList<>(uniqueInvoices.keySet());
+        // Los IN de Oracle admiten como máximo 1000 elementos
+        for (int start = 0; start < ids.size(); start += 1000) {
+            reminded.addAll(reminderLogRepository.findRemindedInvoiceIds(
+                    reminderDate, ids.subList(start, Math.min(start + 1000, ids.size()))));
+        }
+
+        if (!reminded.isEmpty()) {
+            log.info("Omitiendo {} facturas que ya recibieron recordatorio el {}", reminded.size(), reminderDate);
+        }
+
+        return uniqueInvoices.values().stream()
+                .filter(invoice -> !reminded.contains(invoice.getId()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Construye el evento de recordatorio con el formato que espera el consumidor de payment.reminder
+     */
+    private Map<String, Object> buildDigest(String customerNumber, List<Invoice> invoices, LocalDateTime now) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        StringBuilder message = new StringBuilder();
+        boolean anyOverdue = false;
+        BigDecimal totalOutstanding = BigDecimal.ZERO;
+        Set<String> currencies = new HashSet<>();
+        Invoice earliest = invoices.get(0);
+
+        for (Invoice invoice : invoices) {
+            BigDecimal outstanding = invoice.getTotalAmount()
+                    .subtract(invoice.getPaidAmount() != null ? invoice.getPaidAmount() : BigDecimal.ZERO);
+            boolean overdue = invoice.getDueDate().isBefore(now);
+            anyOverdue |= overdue;
+            totalOutstanding = totalOutstanding.add(outstanding);
+            currencies.add(invoice.getCurrency());
+            if (invoice.getDueDate().isBefore(earliest.getDueDate())) {
+                earliest = invoice;
+            }
+
+            if (message.length() > 0) {
+                message.append("\n");
+            }
+            if (overdue) {
+                message.append(String.format("Factura #%s por %s %s vencida hace %d días.",
+                        invoice.getInvoiceNumber(), outstanding, invoice.getCurrency(),
+                        ChronoUnit.DAYS.between(invoice.getDueDate(), now)));
+            } else {
+                message.append(String.format("Factura #%s por %s %s vence en %d días.",
+                        invoice.getInvoiceNumber(), outstanding, invoice.getCurrency(),
+                        ChronoUnit.DAYS.between(now, invoice.getDueDate())));
+            }
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("invoiceNumber", invoice.getInvoiceNumber());
+            item.put("outstandingAmount", outstanding);
+            item.put("currency", invoice.getCurrency());
+            item.put("dueDate", invoice.getDueDate().toLocalDate().toString());
+            item.put("overdue", overdue);
+            items.add(item);
+        }
+
+        Map<String, Object> additionalDetails = new HashMap<>();
+        additionalDetails.put("customerNumber", customerNumber);
+        additionalDetails.put("title", anyOverdue
+                ? "Recordatorio: Tiene facturas vencidas"
+                : "Recordatorio: Facturas próximas a vencer");
+        additionalDetails.put("invoices", items);
+
+        Map<String, Object> reminder = new HashMap<>();
+        reminder.put("customerNumber", customerNumber);
+        reminder.put("paymentReference", earliest.getInvoiceNumber());
+        reminder.put("dueDate", earliest.getDueDate().toLocalDate().toString());
+        reminder.put("description", message.toString());
+        reminder.put("additionalDetails", additionalDetails);
+        if (anyOverdue) {
+            reminder.put("paymentStatus", "OVERDUE");
+        }
+        // El importe total sólo tiene sentido si todas las facturas comparten divisa
+        if (currencies.size() == 1) {
+            reminder.put("amount", totalOutstanding);
+            reminder.put("currency", currencies.iterator().next());
+        }
+        return reminder;
+    }
+
+    /**
+     * Envía los resúmenes del lote al servicio de clientes
+     *
+     * @return números de cliente cuyos recordatorios se han publicado
+     */
+    private Set<String> sendDigests(String dispatchId, List<Map<String, Object>> digests) {
+        Map<String, Object> response = customerServiceClient.sendPaymentReminders(dispatchId, digests);
+        if (response == null || response.containsKey("error")) {
+            log.error("El servicio de clientes no aceptó el lote de recordatorios {}: {}", dispatchId,
+                    response != null ? response.get("error") : "sin respuesta");
+            return Collections.emptySet();
+        }
+
+        Set<String> accepted = new HashSet<>();
+        if (response.get("accepted") instanceof Collection<?> customers) {
+            customers.forEach(customer -> accepted.add(String.valueOf(customer)));
+        }
+        return accepted;
+    }
+
+    private int recordSent(String dispatchId, List<Map.Entry<String, List<Invoice>>> chunk,
+                           Set<String> delivered, LocalDate reminderDate) {
+        List<InvoiceReminderLog> logs = new ArrayList<>();
+        for (Map.Entry<String, List<Invoice>> entry : chunk) {
+            if (!delivered.contains(entry.getKey())) {
+                continue;
+            }
+            for (Invoice invoice : entry.getValue()) {
+                InvoiceReminderLog reminderLog = new InvoiceReminderLog();
+                reminderLog.setInvoiceId(invoice.getId());
+                reminderLog.setInvoiceNumber(invoice.getInvoiceNumber());
+                reminderLog.setCustomerNumber(entry.getKey());
+                reminderLog.setReminderDate(reminderDate);
+                reminderLog.setDispatchId(dispatchId);
+                logs.add(reminderLog);
+            }
+        }
+        reminderLogRepository.saveAll(logs);
+        return logs.size();
+    }
+
+    /**
+     * Limita el ritmo de envío a {@code maxDigestsPerSecond} resúmenes por segundo
+     */
+    private void throttle(int digestsSent, long chunkStartNanos) {
+        if (maxDigestsPerSecond <= 0) {
+            return;
+        }
+
+        long minimumMillis = digestsSent * 1000L / maxDigestsPerSecond;
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - chunkStartNanos);
+        if (elapsedMillis < minimumMillis) {
+            try {
+                Thread.sleep(minimumMillis - elapsedMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
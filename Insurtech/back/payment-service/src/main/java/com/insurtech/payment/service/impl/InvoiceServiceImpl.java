@@ -11,6 +11,7 @@ import com.insurtech.payment.repository.InvoiceRepository;
 import com.insurtech.payment.repository.PaymentRepository;
 import com.insurtech.payment.service.DistributedLockService;
 import com.insurtech.payment.service.InvoiceService;
+import com.insurtech.payment.service.async.InvoiceReminderDispatcher;
 import com.insurtech.payment.util.EntityDtoMapper;
 import com.insurtech.payment.util.PaymentNumberGenerator;
 import lombok.RequiredArgsConstructor;
@@ -40,6 +41,7 @@ public class InvoiceServiceImpl implements InvoiceService {
     private final DistributedLockService lockService;
     private final CustomerServiceClient customerServiceClient;
     private final PolicyServiceClient policyServiceClient;
+    private final InvoiceReminderDispatcher reminderDispatcher;
 
     @Override
     @Transactional
@@ -152,8 +154,6 @@ public class InvoiceServiceImpl implements InvoiceService {
 
     @Async
     public CompletableFuture<Integer> sendInvoiceReminders(int daysBeforeDue, boolean includeOverdue) {
-        int sentCount = 0;
-
         // Facturas próximas a vencer
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime cutoffDate = now.plusDays(daysBeforeDue);
@@ -166,48 +166,8 @@ public class InvoiceServiceImpl implements InvoiceService {
             invoices.addAll(overdueInvoices);
         }
 
-        for (Invoice invoice : invoices) {
-            try {
-                // Enviar notificación al cliente
-                Map<String, Object> notification = new HashMap<>();
-                notification.put("type", "REMINDER");
-                notification.put("customerNumber", invoice.getCustomerNumber());
-
-                String title;
-                String message;
-
-                if (invoice.getDueDate().isBefore(now)) {
-                    // Factura vencida
-                    long daysOverdue = ChronoUnit.DAYS.between(invoice.getDueDate(), now);
-                    title = "Recordatorio: Factura vencida";
-                    message = String.format("Su factura #%s por %s %s venció hace %d días. Por favor, regularice su pago.",
-                            invoice.getInvoiceNumber(),
-                            invoice.getTotalAmount().subtract(invoice.getPaidAmount() != null ? invoice.getPaidAmount() : BigDecimal.ZERO),
-                            invoice.getCurrency(),
-                            daysOverdue);
-                } else {
-                    // Factura próxima a vencer
-                    long daysRemaining = ChronoUnit.DAYS.between(now, invoice.getDueDate());
-                    title = "Recordatorio: Factura próxima a vencer";
-                    message = String.format("Su factura #%s por %s %s vence en %d días. Por favor, programe su pago.",
-                            invoice.getInvoiceNumber(),
-                            invoice.getTotalAmount().subtract(invoice.getPaidAmount() != null ? invoice.getPaidAmount() : BigDecimal.ZERO),
-                            invoice.getCurrency(),
-                            daysRemaining);
-                }
-
-                notification.put("title", title);
-                notification.put("message", message);
-                notification.put("invoiceNumber", invoice.getInvoiceNumber());
-
-                // Enviar notificación
-                customerServiceClient.sendNotification("REMINDER-" + UUID.randomUUID().toString(), notification);
-                sentCount++;
-
-            } catch (Exception e) {
-                log.error("Error al enviar recordatorio para factura {}: {}", invoice.getInvoiceNumber(), e.getMessage());
-            }
-        }
+        // Envío agrupado por cliente, en lotes y sin repetir recordatorios ya enviados hoy
+        int sentCount = reminderDispatcher.dispatch(invoices, now);
 
         return CompletableFuture.completedFuture(sentCount);
     }
@@ -223,6 +183,7 @@ public class InvoiceServiceImpl implements InvoiceService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<InvoiceDto> getInvoicesByCustomerNumber(String customerNumber) {
         return invoiceRepository.findByCustomerNumber(customerNumber).stream()
                 .map(mapper::toDto)
@@ -230,6 +191,7 @@ public class InvoiceServiceImpl implements InvoiceService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<InvoiceDto> getInvoicesByPolicyNumber(String policyNumber) {
         return invoiceRepository.findByPolicyNumber(policyNumber).stream()
                 .map(mapper::toDto)
@@ -483,6 +445,7 @@ public class InvoiceServiceImpl implements InvoiceService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BigDecimal calculateOutstandingAmountForCustomer(String customerNumber) {
         return invoiceRepository.calculateTotalOutstandingForCustomer(customerNumber);
     }
@@ -17,6 +17,7 @@ import com.insurtech.payment.service.DistributedLockService;
 import com.insurtech.payment.service.PaymentBatchService;
 import com.insurtech.payment.service.PaymentGatewayService;
 import com.insurtech.payment.service.PaymentService;
+import com.insurtech.payment.service.analytics.PaymentAnalyticsSnapshot;
 import com.insurtech.payment.util.EntityDtoMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -35,7 +36,6 @@ import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -54,13 +54,14 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     private final DistributedLockService lockService;
     private final EntityDtoMapper mapper;
     private final PaymentMethodRepository paymentMethodRepository;
+    private final PaymentAnalyticsSnapshot analyticsSnapshot;
 
 
     // Mapa para seguimiento del estado de los trabajos por lotes
     private final Map<String, Map<String, Object>> batchStatus = new ConcurrentHashMap<>();
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<List<PaymentDto>> processBatch(List<PaymentDto> payments) {
         String batchId = UUID.randomUUID().toString();
 
@@ -118,57 +119,40 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
         }
     }
 
-    @Async
+    @Transactional(readOnly = true)
+    @Async("batchTaskExecutor")
     public CompletableFuture<Map<String, Object>> analyzePaymentMethodEffectiveness() {
         Map<String, Object> analysis = new HashMap<>();
 
         try {
-            // Obtener todos los pagos con método de pago asociado
-            List<Payment> payments = paymentRepository.findAll().stream()
-                    .filter(p -> p.getPaymentMethod() != null)
-                    .collect(Collectors.toList());
-
-            // Agrupar por tipo de método de pago
-            Map<PaymentMethod.MethodType, List<Payment>> paymentsByMethodType = payments.stream()
-                    .collect(Collectors.groupingBy(p -> p.getPaymentMethod().getMethodType()));
+            // Agregación sobre la instantánea columnar, sin hidratar entidades
+            Map<String, PaymentAnalyticsSnapshot.GroupStats> statsByMethodType = analyticsSnapshot.aggregate(
+                    PaymentAnalyticsSnapshot.Dimension.METHOD_TYPE,
+                    PaymentAnalyticsSnapshot.Filter.all().withPaymentMethod());
 
             // Calcular estadísticas para cada tipo
             Map<String, Map<String, Object>> effectivenessByType = new HashMap<>();
 
-            for (Map.Entry<PaymentMethod.MethodType, List<Payment>> entry : paymentsByMethodType.entrySet()) {
-                PaymentMethod.MethodType methodType = entry.getKey();
-                List<Payment> methodPayments = entry.getValue();
+            for (Map.Entry<String, PaymentAnalyticsSnapshot.GroupStats> entry : statsByMethodType.entrySet()) {
+                PaymentAnalyticsSnapshot.GroupStats methodStats = entry.getValue();
 
                 Map<String, Object> stats = new HashMap<>();
 
                 // Total de pagos
-                stats.put("totalPayments", methodPayments.size());
-
-                // Pagos exitosos
-                long successfulPayments = methodPayments.stream()
-                        .filter(p -> p.getStatus() == Payment.PaymentStatus.COMPLETED)
-                        .count();
+                stats.put("totalPayments", (int) methodStats.getCount());
 
                 // Tasa de éxito
-                double successRate = methodPayments.isEmpty() ? 0 : (double) successfulPayments / methodPayments.size() * 100;
+                double successRate = methodStats.getCount() == 0 ? 0
+                        : (double) methodStats.getCompletedCount() / methodStats.getCount() * 100;
                 stats.put("successRate", Math.round(successRate * 100) / 100.0);
 
                 // Tiempo promedio de procesamiento
-                OptionalDouble avgProcessingTime = methodPayments.stream()
-                        .filter(p -> p.getPaymentDate() != null && p.getCreatedAt() != null)
-                        .mapToLong(p -> ChronoUnit.SECONDS.between(p.getCreatedAt(), p.getPaymentDate()))
-                        .average();
-
-                stats.put("avgProcessingTimeSeconds", avgProcessingTime.isPresent() ? avgProcessingTime.getAsDouble() : 0);
+                stats.put("avgProcessingTimeSeconds", methodStats.getAverageProcessingSeconds());
 
                 // Monto promedio de pago
-                OptionalDouble avgAmount = methodPayments.stream()
-                        .mapToDouble(p -> p.getAmount().doubleValue())
-                        .average();
+                stats.put("avgAmount", methodStats.getAverageAmount());
 
-                stats.put("avgAmount", avgAmount.isPresent() ? avgAmount.getAsDouble() : 0);
-
-                effectivenessByType.put(methodType.toString(), stats);
+                effectivenessByType.put(entry.getKey(), stats);
             }
 
             analysis.put("effectivenessByMethodType", effectivenessByType);
@@ -224,7 +208,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     /**
      * Procesa un lote de pagos pendientes con un método de pago específico
      */
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<List<PaymentDto>> processPendingPaymentsBatch(PaymentMethodDto paymentMethodDto) {
         log.info("Procesando lote de pagos pendientes con método de pago: {}", paymentMethodDto.getPaymentMethodNumber());
 
@@ -298,7 +282,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<List<PaymentDto>> processPaymentsFromCsv(InputStream inputStream) {
         String batchId = UUID.randomUUID().toString();
 
@@ -387,7 +371,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Integer> batchStatusUpdate(List<String> paymentNumbers, Payment.PaymentStatus status, String reason) {
         String batchId = UUID.randomUUID().toString();
 
@@ -446,7 +430,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Integer> batchCancelPayments(List<String> paymentNumbers, String reason) {
         String batchId = UUID.randomUUID().toString();
 
@@ -505,7 +489,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<byte[]> exportPayments(List<String> paymentNumbers, List<Payment.PaymentStatus> statuses,
                                                     LocalDateTime startDate, LocalDateTime endDate, String format) {
         String batchId = UUID.randomUUID().toString();
@@ -574,7 +558,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Map<String, Object>> batchReconciliation(LocalDateTime cutoffDate) {
         String batchId = UUID.randomUUID().toString();
 
@@ -692,7 +676,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Map<String, Object>> reprocessFailedPayments(LocalDateTime startDate, LocalDateTime endDate) {
         String batchId = UUID.randomUUID().toString();
 
@@ -789,7 +773,8 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Transactional(readOnly = true)
+    @Async("batchTaskExecutor")
     public CompletableFuture<Map<String, Object>> calculateBatchStatistics(List<String> paymentNumbers,
                                                                            List<Payment.PaymentStatus> statuses,
                                                                            LocalDateTime startDate,
@@ -805,72 +790,26 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
         batchStatus.put(batchId, jobStatus);
 
         try {
-            // Preparar filtros
-            List<Payment> payments = new ArrayList<>();
+            Map<String, Object> statistics;
 
             if (paymentNumbers != null && !paymentNumbers.isEmpty()) {
-                // Filtrar por números de pago
+                // Filtrar por números de pago: la lista está acotada por la petición
+                List<Payment> payments = new ArrayList<>();
                 for (String number : paymentNumbers) {
                     paymentRepository.findByPaymentNumber(number).ifPresent(payments::add);
                 }
-            } else if (statuses != null && !statuses.isEmpty()) {
-                // Filtrar por estados
-                for (Payment.PaymentStatus status : statuses) {
-                    payments.addAll(paymentRepository.findByStatus(status));
-                }
-            } else if (startDate != null && endDate != null) {
-                // Filtrar por rango de fechas
-                payments.addAll(paymentRepository.findCompletedPaymentsWithinDateRange(startDate, endDate));
+                statistics = calculateStatistics(payments);
             } else {
-                // Sin filtros, usar todos los pagos
-                payments = paymentRepository.findAll();
-            }
-
-            // Calcular estadísticas
-            Map<String, Object> statistics = new HashMap<>();
-
-            // Total de pagos
-            statistics.put("totalPayments", payments.size());
-
-            // Pagos por estado
-            Map<Payment.PaymentStatus, Long> paymentsByStatus = payments.stream()
-                    .collect(Collectors.groupingBy(Payment::getStatus, Collectors.counting()));
-            statistics.put("paymentsByStatus", paymentsByStatus);
-
-            // Pagos por tipo
-            Map<Payment.PaymentType, Long> paymentsByType = payments.stream()
-                    .collect(Collectors.groupingBy(Payment::getPaymentType, Collectors.counting()));
-            statistics.put("paymentsByType", paymentsByType);
-
-            // Montos totales por moneda
-            Map<String, BigDecimal> totalsByCurrency = payments.stream()
-                    .filter(p -> p.getStatus() == Payment.PaymentStatus.COMPLETED)
-                    .collect(Collectors.groupingBy(
-                            Payment::getCurrency,
-                            Collectors.reducing(BigDecimal.ZERO, Payment::getAmount, BigDecimal::add)
-                    ));
-            statistics.put("totalsByCurrency", totalsByCurrency);
-
-            // Top 10 clientes por monto total
-            Map<String, BigDecimal> totalsByCustomer = payments.stream()
-                    .filter(p -> p.getStatus() == Payment.PaymentStatus.COMPLETED)
-                    .collect(Collectors.groupingBy(
-                            Payment::getCustomerNumber,
-                            Collectors.reducing(BigDecimal.ZERO, Payment::getAmount, BigDecimal::add)
-                    ));
-
-            List<Map.Entry<String, BigDecimal>> topCustomers = totalsByCustomer.entrySet().stream()
-                    .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
-                    .limit(10)
-                    .collect(Collectors.toList());
-
-            Map<String, BigDecimal> top10Customers = new LinkedHashMap<>();
-            for (Map.Entry<String, BigDecimal> entry : topCustomers) {
-                top10Customers.put(entry.getKey(), entry.getValue());
+                // Filtrar por estados, por rango de fechas de pagos completados o sin filtros
+                PaymentAnalyticsSnapshot.Filter filter = PaymentAnalyticsSnapshot.Filter.all();
+                if (statuses != null && !statuses.isEmpty()) {
+                    filter.statuses(statuses);
+                } else if (startDate != null && endDate != null) {
+                    filter.statuses(List.of(Payment.PaymentStatus.COMPLETED)).paymentDateBetween(startDate, endDate);
+                }
+                statistics = calculateStatistics(filter);
             }
 
-            statistics.put("top10Customers", top10Customers);
-
             // Actualizar estado final
             jobStatus.put("endTime", LocalDateTime.now());
             jobStatus.put("status", "COMPLETED");
@@ -889,7 +828,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Integer> processAutoPayments() {
         String batchId = UUID.randomUUID().toString();
 
@@ -957,7 +896,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Map<String, Object>> generatePerformanceReport(LocalDateTime startDate, LocalDateTime endDate) {
         String batchId = UUID.randomUUID().toString();
 
@@ -1019,7 +958,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Integer> updateOverduePayments() {
         String batchId = UUID.randomUUID().toString();
 
@@ -1097,7 +1036,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     public CompletableFuture<Integer> notifyPendingPayments(int daysAhead) {
         String batchId = UUID.randomUUID().toString();
 
@@ -1173,7 +1112,7 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
     }
 
     @Override
-    @Async
+    @Async("batchTaskExecutor")
     @Transactional
     public CompletableFuture<Integer> generateInvoicesForPayments(List<String> paymentNumbers) {
         String batchId = UUID.randomUUID().toString();
@@ -1262,6 +1201,99 @@ public class PaymentBatchServiceImpl implements PaymentBatchService {
 
     // Métodos privados auxiliares
 
+    private Map<String, Object> calculateStatistics(List<Payment> payments) {
+        Map<String, Object> statistics = new HashMap<>();
+
+        // Total de pagos
+        statistics.put("totalPayments", payments.size());
+
+        // Pagos por estado
+        Map<Payment.PaymentStatus, Long> paymentsByStatus = payments.stream()
+                .collect(Collectors.groupingBy(Payment::getStatus, Collectors.counting()));
+        statistics.put("paymentsByStatus", paymentsByStatus);
+
+        // Pagos por tipo
+        Map<Payment.PaymentType, Long> paymentsByType = payments.stream()
+                .collect(Collectors.groupingBy(Payment::getPaymentType, Collectors.counting()));
+        statistics.put("paymentsByType", paymentsByType);
+
+        // Montos totales por moneda
+        Map<String, BigDecimal> totalsByCurrency = payments.stream()
+                .filter(p -> p.getStatus() == Payment.PaymentStatus.COMPLETED)
+                .collect(Collectors.groupingBy(
+                        Payment::getCurrency,
+                        Collectors.reducing(BigDecimal.ZERO, Payment::getAmount, BigDecimal::add)
+                ));
+        statistics.put("totalsByCurrency", totalsByCurrency);
+
+        // Top 10 clientes por monto total
+        Map<String, BigDecimal> totalsByCustomer = payments.stream()
+                .filter(p -> p.getStatus() == Payment.PaymentStatus.COMPLETED)
+                .collect(Collectors.groupingBy(
+                        Payment::getCustomerNumber,
+                        Collectors.reducing(BigDecimal.ZERO, Payment::getAmount, BigDecimal::add)
+                ));
+        statistics.put("top10Customers", top10(totalsByCustomer));
+
+        return statistics;
+    }
+
+    private Map<String, Object> calculateStatistics(PaymentAnalyticsSnapshot.Filter filter) {
+        Map<String, Object> statistics = new HashMap<>();
+
+        Map<String, PaymentAnalyticsSnapshot.GroupStats> byStatus =
+                analyticsSnapshot.aggregate(PaymentAnalyticsSnapshot.Dimension.STATUS, filter);
+
+        // Total de pagos
+        statistics.put("totalPayments", (int) byStatus.values().stream()
+                .mapToLong(PaymentAnalyticsSnapshot.GroupStats::getCount)
+                .sum());
+
+        // Pagos por estado
+        statistics.put("paymentsByStatus", counts(byStatus));
+
+        // Pagos por tipo
+        statistics.put("paymentsByType", counts(
+                analyticsSnapshot.aggregate(PaymentAnalyticsSnapshot.Dimension.PAYMENT_TYPE, filter)));
+
+        // Montos totales por moneda
+        Map<String, BigDecimal> totalsByCurrency = completedAmounts(
+                analyticsSnapshot.aggregate(PaymentAnalyticsSnapshot.Dimension.CURRENCY, filter));
+        statistics.put("totalsByCurrency", totalsByCurrency);
+
+        // Top 10 clientes por monto total
+        Map<String, BigDecimal> totalsByCustomer = completedAmounts(
+                analyticsSnapshot.aggregate(PaymentAnalyticsSnapshot.Dimension.CUSTOMER, filter));
+        statistics.put("top10Customers", top10(totalsByCustomer));
+
+        return statistics;
+    }
+
+    private Map<String, Long> counts(Map<String, PaymentAnalyticsSnapshot.GroupStats> groups) {
+        Map<String, Long> counts = new HashMap<>();
+        groups.forEach((key, stats) -> counts.put(key, stats.getCount()));
+        return counts;
+    }
+
+    private Map<String, BigDecimal> completedAmounts(Map<String, PaymentAnalyticsSnapshot.GroupStats> groups) {
+        Map<String, BigDecimal> amounts = new HashMap<>();
+        groups.forEach((key, stats) -> {
+            if (stats.getCompletedCount() > 0) {
+                amounts.put(key, stats.getCompletedAmount());
+            }
+        });
+        return amounts;
+    }
+
+    private Map<String, BigDecimal> top10(Map<String, BigDecimal> totalsByCustomer) {
+        Map<String, BigDecimal> top10Customers = new LinkedHashMap<>();
+        totalsByCustomer.entrySet().stream()
+                .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
+                .limit(10)
+                .forEach(entry -> top10Customers.put(entry.getKey(), entry.getValue()));
+        return top10Customers;
+    }
+
     private byte[] exportToCsv(List<Payment> payments) throws IOException {
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
 
@@ -394,6 +394,7 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PaymentDto> getPaymentsByCustomerNumber(String customerNumber) {
         return paymentRepository.findByCustomerNumber(customerNumber).stream()
                 .map(mapper::toDto)
@@ -401,6 +402,7 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<PaymentDto> getPaymentsByPolicyNumber(String policyNumber) {
         return paymentRepository.findByPolicyNumber(policyNumber).stream()
                 .map(mapper::toDto)
@@ -544,6 +546,7 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BigDecimal calculateTotalPaidForPolicy(String policyNumber) {
         List<Payment> completedPayments = paymentRepository.findByPolicyNumber(policyNumber).stream()
                 .filter(p -> p.getStatus() == Payment.PaymentStatus.COMPLETED)
@@ -562,6 +565,7 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getPaymentStatistics(String customerNumber) {
         Map<String, Object> statistics = new HashMap<>();
 
@@ -606,6 +610,7 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Map<String, Object> getPaymentStatisticsForPeriod(LocalDateTime startDate, LocalDateTime endDate) {
         Map<String, Object> statistics = new HashMap<>();
 
@@ -694,6 +699,7 @@ public class PaymentServiceImpl implements PaymentService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public byte[] generatePaymentReport(LocalDateTime startDate, LocalDateTime endDate, String format) {
         // Obtener pagos en el rango de fechas
         List<Payment> payments = paymentRepository.findCompletedPaymentsWithinDateRange(startDate, endDate);
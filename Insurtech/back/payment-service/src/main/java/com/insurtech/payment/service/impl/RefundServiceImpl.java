@@ -246,6 +246,7 @@ public class RefundServiceImpl implements RefundService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RefundDto> getRefundsByCustomerNumber(String customerNumber) {
         return refundRepository.findByCustomerNumber(customerNumber).stream()
                 .map(mapper::toDto)
@@ -253,6 +254,7 @@ public class RefundServiceImpl implements RefundService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<RefundDto> getRefundsByPolicyNumber(String policyNumber) {
         return refundRepository.findByPolicyNumber(policyNumber).stream()
                 .map(mapper::toDto)
@@ -424,6 +426,7 @@ public class RefundServiceImpl implements RefundService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public BigDecimal calculateTotalRefundedForPolicy(String policyNumber) {
         List<Refund> completedRefunds = refundRepository.findByPolicyNumber(policyNumber).stream()
                 .filter(r -> r.getStatus() == Refund.RefundStatus.COMPLETED)
@@ -0,0 +1,17 @@
+-- Registro de recordatorios de factura enviados (InvoiceReminderLog)
+-- Evita que las re-ejecuciones del mismo día repitan recordatorios. El INCREMENT BY
+-- debe coincidir con el allocationSize de la entidad, que exige ddl-auto: validate
+CREATE SEQUENCE SEQ_INVOICE_REMINDER_LOGS START WITH 1 INCREMENT BY 50 CACHE 20;
+
+CREATE TABLE INVOICE_REMINDER_LOGS (
+    ID               NUMBER(19)     NOT NULL,
+    INVOICE_ID       NUMBER(19)     NOT NULL,
+    INVOICE_NUMBER   VARCHAR2(255)  NOT NULL,
+    CUSTOMER_NUMBER  VARCHAR2(255)  NOT NULL,
+    REMINDER_DATE    DATE           NOT NULL,
+    DISPATCH_ID      VARCHAR2(255)  NOT NULL,
+    CREATED_AT       TIMESTAMP      DEFAULT SYSTIMESTAMP,
+    CONSTRAINT PK_INVOICE_REMINDER_LOGS PRIMARY KEY (ID),
+    -- También sirve a la consulta de facturas ya recordadas (INVOICE_ID IN ..., REMINDER_DATE)
+    CONSTRAINT UK_INVOICE_REMINDER_LOGS UNIQUE (INVOICE_ID, REMINDER_DATE)
+);
@@ -0,0 +1,197 @@
+package com.insurtech.payment.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba la clasificación de las peticiones, el rechazo con 503 y Retry-After al
+ * agotar una clase, la cesión de los lotes ante peticiones interactivas en cola y la
+ * liberación del permiso al terminar una petición asíncrona; cada ruta clasificada
+ * debe existir en algún controlador
+ */
+class AdmissionControlFilterTest {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new AdmissionControlFilter(Map.of(
+                AdmissionControlFilter.PriorityClass.INTERACTIVE, new AdmissionControlFilter.LaneLimits(1, 5, 5_000),
+                AdmissionControlFilter.PriorityClass.STANDARD, new AdmissionControlFilter.LaneLimits(1, 0, 0),
+                AdmissionControlFilter.PriorityClass.BATCH, new AdmissionControlFilter.LaneLimits(1, 0, 0)),
+                30, meterRegistry, new ObjectMapper().findAndRegisterModules());
+    }
+
+    @Test
+    void requestsAreClassifiedByPathAndMethod() {
+        assertThat(filter.classify(request("POST", "/api/payments/process")))
+                .isEqualTo(AdmissionControlFilter.PriorityClass.INTERACTIVE);
+        assertThat(filter.classify(request("POST", "/api/refunds/number/REF-1/process")))
+                .isEqualTo(AdmissionControlFilter.PriorityClass.INTERACTIVE);
+        assertThat(filter.classify(request("GET", "/api/payments")))
+                .isEqualTo(AdmissionControlFilter.PriorityClass.STANDARD);
+        assertThat(filter.classify(request("POST", "/api/invoices/batch/remind")))
+                .isEqualTo(AdmissionControlFilter.PriorityClass.BATCH);
+        assertThat(filter.classify(request("POST", "/api/payments/reconcile")))
+                .isEqualTo(AdmissionControlFilter.PriorityClass.BATCH);
+    }
+
+    @Test
+    void everyClassifiedPathMatchesAControllerRoute() {
+        List<String> routes = controllerRoutes();
+
+        assertThat(routes).isNotEmpty();
+        assertThat(Stream.concat(AdmissionControlFilter.BATCH_PATHS.stream(),
+                AdmissionControlFilter.INTERACTIVE_PATHS.stream()))
+                .allSatisfy(pattern -> assertThat(routes)
+                        .as("Ruta de controlador para %s", pattern)
+                        .anyMatch(route -> PATH_MATCHER.match(pattern, route)));
+    }
+
+    @Test
+    void exhaustedClassIsRejectedWithRetryAfter() throws Exception {
+        MockHttpServletResponse nested = new MockHttpServletResponse();
+
+        // La segunda petición llega mientras la primera ocupa el único permiso
+        filter.doFilter(request("GET", "/api/payments/report"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(request("GET", "/api/refunds/report"), nested, new MockFilterChain()));
+
+        assertThat(nested.getStatus()).isEqualTo(503);
+        assertThat(nested.getHeader("Retry-After")).isEqualTo("30");
+        assertThat(nested.getContentAsString()).contains("AdmissionRejected");
+        assertThat(meterRegistry.get("payment.admission.rejected").tag("class", "batch").counter().count())
+                .isEqualTo(1);
+
+        MockHttpServletResponse later = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/refunds/report"), later, new MockFilterChain());
+        assertThat(later.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void batchYieldsWhileInteractiveRequestsAreQueued() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain holdPermit = (request, response) -> {
+            holding.countDown();
+            await(release);
+        };
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+                doFilter(request("POST", "/api/payments"), new MockHttpServletResponse(), holdPermit));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+        MockHttpServletResponse queuedResponse = new MockHttpServletResponse();
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() ->
+                doFilter(request("POST", "/api/payments/process"), queuedResponse, new MockFilterChain()));
+        awaitQueueSize("interactive", 1);
+
+        MockHttpServletResponse batch = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/payments/report"), batch, new MockFilterChain());
+        release.countDown();
+        CompletableFuture.allOf(first, queued).get(5, TimeUnit.SECONDS);
+
+        assertThat(batch.getStatus()).isEqualTo(503);
+        assertThat(queuedResponse.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void asyncRequestKeepsItsPermitUntilCompletion() throws Exception {
+        MockHttpServletRequest asyncRequest = request("GET", "/api/payments");
+        asyncRequest.setAsyncSupported(true);
+        filter.doFilter(asyncRequest, new MockHttpServletResponse(), (request, response) -> request.startAsync());
+
+        MockHttpServletResponse whileRunning = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/payments"), whileRunning, new MockFilterChain());
+        assertThat(whileRunning.getStatus()).isEqualTo(503);
+
+        asyncRequest.getAsyncContext().complete();
+
+        MockHttpServletResponse afterCompletion = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/payments"), afterCompletion, new MockFilterChain());
+        assertThat(afterCompletion.getStatus()).isEqualTo(200);
+    }
+
+    private void awaitQueueSize(String priorityClass, double size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get("payment.admission.queue.size").tag("class", priorityClass).gauge().value() < size) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void doFilter(MockHttpServletRequest request, MockHttpServletResponse response, FilterChain chain) {
+        try {
+            filter.doFilter(request, response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rutas de los controladores de pagos, con cada variable sustituida por un valor
+     */
+    private static List<String> controllerRoutes() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(RestController.class));
+
+        List<String> routes = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents("com.insurtech.payment.controller")) {
+            Class<?> controller = ClassUtils.resolveClassName(candidate.getBeanClassName(), null);
+            RequestMapping base = AnnotatedElementUtils.findMergedAnnotation(controller, RequestMapping.class);
+            String[] prefixes = base != null && base.path().length > 0 ? base.path() : new String[]{""};
+            for (Method method : controller.getDeclaredMethods()) {
+                RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+                if (mapping == null) {
+                    continue;
+                }
+                String[] paths = mapping.path().length > 0 ? mapping.path() : new String[]{""};
+                for (String prefix : prefixes) {
+                    for (String path : paths) {
+                        routes.add((prefix + path).replaceAll("\\{[^}]+}", "x"));
+                    }
+                }
+            }
+        }
+        return routes;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri) {
+        return new MockHttpServletRequest(method, uri);
+    }
+}
@@ -0,0 +1,134 @@
+package com.insurtech.payment.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Enrutamiento entre dos bases embebidas: el primario recibe las escrituras y la
+ * réplica no se actualiza, de modo que el número de filas leído indica la ruta usada
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private static final long READ_YOUR_WRITES_MS = 60_000;
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTx;
+    private TransactionTemplate readOnlyTx;
+
+    @BeforeEach
+    void setUp() {
+        primary = database();
+        replica = database();
+        routing = new ReplicaRoutingDataSource(primary, replica, 5000, "", READ_YOUR_WRITES_MS, new SimpleMeterRegistry());
+        routing.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        writeTx = new TransactionTemplate(transactionManager);
+        readOnlyTx = new TransactionTemplate(transactionManager);
+        readOnlyTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.clearPin();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    @Test
+    void readOnlyTransactionsUseReplica() {
+        new JdbcTemplate(primary).update("INSERT INTO PAYMENTS (ID) VALUES (1)");
+
+        assertThat(countInReadOnlyTransaction()).isZero();
+    }
+
+    @Test
+    void readsAfterCommittedWriteUsePrimary() {
+        long[] notifiedUntil = new long[1];
+        routing.setPrimaryCommitListener(until -> notifiedUntil[0] = until);
+
+        writeTx.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO PAYMENTS (ID) VALUES (1)"));
+
+        assertThat(countInReadOnlyTransaction()).isEqualTo(1);
+        assertThat(notifiedUntil[0]).isEqualTo(ReplicaRoutingDataSource.pinnedUntil()).isPositive();
+
+        ReplicaRoutingDataSource.clearPin();
+        assertThat(countInReadOnlyTransaction()).isZero();
+    }
+
+    @Test
+    void rolledBackWriteDoesNotPin() {
+        writeTx.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO PAYMENTS (ID) VALUES (1)");
+            status.setRollbackOnly();
+        });
+        new JdbcTemplate(primary).update("INSERT INTO PAYMENTS (ID) VALUES (2)");
+
+        assertThat(ReplicaRoutingDataSource.pinnedUntil()).isZero();
+        assertThat(countInReadOnlyTransaction()).isZero();
+    }
+
+    @Test
+    void expiredPinFallsBackToReplica() {
+        new JdbcTemplate(primary).update("INSERT INTO PAYMENTS (ID) VALUES (1)");
+        ReplicaRoutingDataSource.pinToPrimaryUntil(System.currentTimeMillis() - 1);
+
+        assertThat(countInReadOnlyTransaction()).isZero();
+    }
+
+    @Test
+    void runOnPrimaryForcesPrimary() {
+        new JdbcTemplate(primary).update("INSERT INTO PAYMENTS (ID) VALUES (1)");
+
+        assertThat(ReplicaRoutingDataSource.runOnPrimary(this::countInReadOnlyTransaction)).isEqualTo(1);
+        assertThat(countInReadOnlyTransaction()).isZero();
+    }
+
+    @Test
+    void laggingReplicaIsExcluded() {
+        ReplicaRoutingDataSource lagging = new ReplicaRoutingDataSource(primary, replica, 5000, "SELECT 10000",
+                READ_YOUR_WRITES_MS, new SimpleMeterRegistry());
+        lagging.afterPropertiesSet();
+        lagging.checkReplicaLag();
+        new JdbcTemplate(primary).update("INSERT INTO PAYMENTS (ID) VALUES (1)");
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(lagging);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(true);
+
+        Integer count = tx.execute(status -> new JdbcTemplate(dataSource)
+                .queryForObject("SELECT COUNT(*) FROM PAYMENTS", Integer.class));
+        assertThat(count).isEqualTo(1);
+    }
+
+    private Integer countInReadOnlyTransaction() {
+        return readOnlyTx.execute(status -> jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PAYMENTS", Integer.class));
+    }
+
+    private static EmbeddedDatabase database() {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("routing-" + UUID.randomUUID())
+                .build();
+        new JdbcTemplate(database).execute("CREATE TABLE PAYMENTS (ID BIGINT PRIMARY KEY)");
+        return database;
+    }
+}
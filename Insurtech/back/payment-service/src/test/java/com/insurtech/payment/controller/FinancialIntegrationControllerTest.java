@@ -0,0 +1,75 @@
+package com.insurtech.payment.controller;
+
+import com.insurtech.payment.client.ClaimServiceClient;
+import com.insurtech.payment.client.CustomerServiceClient;
+import com.insurtech.payment.client.PolicyServiceClient;
+import com.insurtech.payment.service.InvoiceService;
+import com.insurtech.payment.service.PaymentService;
+import com.insurtech.payment.service.RefundService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba que el historial de una póliza incluye todas las páginas de reclamaciones
+ * e indica cuándo la lista está incompleta
+ */
+class FinancialIntegrationControllerTest {
+
+    private ClaimServiceClient claimServiceClient;
+    private FinancialIntegrationController controller;
+
+    @BeforeEach
+    void setUp() {
+        claimServiceClient = mock(ClaimServiceClient.class);
+        PolicyServiceClient policyServiceClient = mock(PolicyServiceClient.class);
+        when(policyServiceClient.getPolicyByNumber(anyString())).thenReturn(Map.of("error", "no disponible"));
+
+        controller = new FinancialIntegrationController(mock(PaymentService.class), mock(InvoiceService.class),
+                mock(RefundService.class), mock(CustomerServiceClient.class), policyServiceClient, claimServiceClient);
+    }
+
+    @Test
+    void readsEveryPageOfClaims() {
+        when(claimServiceClient.getClaimsByPolicyNumber("POL-1", 0, 500)).thenReturn(page(500, 1010, false));
+        when(claimServiceClient.getClaimsByPolicyNumber("POL-1", 1, 500)).thenReturn(page(500, 1010, false));
+        when(claimServiceClient.getClaimsByPolicyNumber("POL-1", 2, 500)).thenReturn(page(10, 1010, true));
+
+        Map<String, Object> history = controller.getPolicyFinancialHistory("POL-1").getBody();
+
+        assertThat((List<?>) history.get("claims")).hasSize(1010);
+        assertThat(history.get("totalClaims")).isEqualTo(1010);
+        assertThat(history.get("claimsTruncated")).isEqualTo(false);
+        verify(claimServiceClient, times(3)).getClaimsByPolicyNumber(eq("POL-1"), anyInt(), eq(500));
+    }
+
+    @Test
+    void reportsTruncationWhenClaimServiceFailsMidway() {
+        when(claimServiceClient.getClaimsByPolicyNumber("POL-1", 0, 500)).thenReturn(page(500, 1010, false));
+        when(claimServiceClient.getClaimsByPolicyNumber("POL-1", 1, 500))
+                .thenReturn(Collections.singletonMap("content", Collections.emptyList()));
+
+        Map<String, Object> history = controller.getPolicyFinancialHistory("POL-1").getBody();
+
+        assertThat((List<?>) history.get("claims")).hasSize(500);
+        assertThat(history.get("totalClaims")).isEqualTo(1010);
+        assertThat(history.get("claimsTruncated")).isEqualTo(true);
+    }
+
+    private static Map<String, Object> page(int size, int total, boolean last) {
+        List<Map<String, Object>> content = IntStream.range(0, size)
+                .mapToObj(i -> Map.<String, Object>of("claimNumber", "CLM-" + i))
+                .toList();
+        return Map.of("content", content, "totalElements", total, "last", last);
+    }
+}
@@ -0,0 +1,137 @@
+package com.insurtech.payment.service.analytics;
+
+import com.insurtech.payment.model.entity.Payment;
+import com.insurtech.payment.model.entity.PaymentMethod;
+import com.insurtech.payment.repository.PaymentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Actualización incremental de la instantánea: filas confirmadas tarde con una fecha
+ * anterior a la marca de agua y pagos borrados
+ */
+class PaymentAnalyticsSnapshotTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    /** Tabla simulada: id -> fila de hechos */
+    private final Map<Long, Object[]> table = new TreeMap<>();
+    private PaymentAnalyticsSnapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        PaymentRepository repository = mock(PaymentRepository.class);
+        when(repository.findPaymentFactsUpdatedSince(any(), anyLong(), any())).thenAnswer(invocation -> {
+            LocalDateTime since = invocation.getArgument(0);
+            long lastId = invocation.getArgument(1);
+            Pageable pageable = invocation.getArgument(2);
+            return table.values().stream()
+                    .filter(row -> ((LocalDateTime) row[10]).isAfter(since)
+                            || (row[10].equals(since) && (Long) row[0] > lastId))
+                    .sorted(Comparator.<Object[], LocalDateTime>comparing(row -> (LocalDateTime) row[10])
+                            .thenComparing(row -> (Long) row[0]))
+                    .limit(pageable.getPageSize())
+                    .collect(Collectors.toList());
+        });
+        when(repository.findIdsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            return table.keySet().stream()
+                    .filter(id -> id > afterId)
+                    .limit(pageable.getPageSize())
+                    .collect(Collectors.toList());
+        });
+
+        snapshot = new PaymentAnalyticsSnapshot(repository, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(snapshot, "pageSize", 3);
+        ReflectionTestUtils.setField(snapshot, "overlapWindowMs", 60_000L);
+    }
+
+    @Test
+    void lateCommitInsideOverlapWindowIsApplied() {
+        put(1L, "10.00", BASE);
+        put(2L, "20.00", BASE.plusSeconds(30));
+        snapshot.refresh();
+
+        // Confirmada después de la actualización anterior, pero con fecha previa a la marca de agua
+        put(3L, "30.00", BASE.plusSeconds(10));
+        snapshot.refresh();
+
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(total()).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void updatesAreAppliedOncePerPayment() {
+        for (long id = 1; id <= 10; id++) {
+            put(id, "1.00", BASE.plusSeconds(id));
+        }
+        snapshot.refresh();
+
+        put(4L, "5.00", BASE.plusSeconds(20));
+        snapshot.refresh();
+        snapshot.refresh();
+
+        assertThat(snapshot.size()).isEqualTo(10);
+        assertThat(total()).isEqualByComparingTo("14.00");
+    }
+
+    @Test
+    void deletedPaymentsAreRemoved() {
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            put(id, "1.00", BASE.plusSeconds(id));
+            ids.add(id);
+        }
+        ReflectionTestUtils.setField(snapshot, "pageSize", 500);
+        snapshot.refresh();
+
+        for (Long id : ids) {
+            if (id % 3 == 0) {
+                table.remove(id);
+            }
+        }
+        snapshot.removeDeleted();
+
+        assertThat(snapshot.size()).isEqualTo(1334);
+        assertThat(total()).isEqualByComparingTo("1334.00");
+
+        // Las filas supervivientes siguen localizables por id tras mover posiciones
+        put(1L, "101.00", BASE.plusSeconds(5000));
+        put(2000L, "101.00", BASE.plusSeconds(5001));
+        snapshot.refresh();
+        assertThat(snapshot.size()).isEqualTo(1334);
+        assertThat(total()).isEqualByComparingTo("1534.00");
+    }
+
+    private BigDecimal total() {
+        return snapshot.aggregate(PaymentAnalyticsSnapshot.Dimension.CURRENCY, PaymentAnalyticsSnapshot.Filter.all())
+                .values().stream()
+                .map(PaymentAnalyticsSnapshot.GroupStats::getTotalAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private void put(long id, String amount, LocalDateTime updatedAt) {
+        table.put(id, new Object[]{id, new BigDecimal(amount), Payment.PaymentStatus.COMPLETED,
+                Payment.PaymentType.PREMIUM, "EUR", "CUS-" + (id % 7), updatedAt, BASE,
+                PaymentMethod.MethodType.CREDIT_CARD, "VISA", updatedAt});
+    }
+}
@@ -0,0 +1,117 @@
+package com.insurtech.payment.service.async;
+
+import com.insurtech.payment.client.CustomerServiceClient;
+import com.insurtech.payment.client.fallback.CustomerServiceFallback;
+import com.insurtech.payment.model.entity.Invoice;
+import com.insurtech.payment.model.entity.InvoiceReminderLog;
+import com.insurtech.payment.repository.InvoiceReminderLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Comprueba que sólo se registran como enviados los recordatorios que el servicio
+ * de clientes ha aceptado, para que el resto se reintente en la siguiente ejecución
+ */
+class InvoiceReminderDispatcherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private CustomerServiceClient customerServiceClient;
+    private InvoiceReminderLogRepository reminderLogRepository;
+    private InvoiceReminderDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        customerServiceClient = mock(CustomerServiceClient.class);
+        reminderLogRepository = mock(InvoiceReminderLogRepository.class);
+        when(reminderLogRepository.findRemindedInvoiceIds(any(), anyList())).thenReturn(List.of());
+
+        dispatcher = new InvoiceReminderDispatcher(customerServiceClient, reminderLogRepository);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 500);
+        ReflectionTestUtils.setField(dispatcher, "maxDigestsPerSecond", 0);
+    }
+
+    @Test
+    void recordsOnlyAcceptedCustomers() {
+        when(customerServiceClient.sendPaymentReminders(anyString(), anyList()))
+                .thenReturn(Map.of("accepted", List.of("CUS-1"), "rejected", List.of("CUS-2")));
+
+        int sent = dispatcher.dispatch(List.of(invoice(1L, "CUS-1"), invoice(2L, "CUS-1"), invoice(3L, "CUS-2")), NOW);
+
+        assertThat(sent).isEqualTo(2);
+        assertThat(savedInvoiceIds()).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void fallbackRecordsNothingAndDoesNotThrow() {
+        CustomerServiceFallback fallback = new CustomerServiceFallback();
+        when(customerServiceClient.sendPaymentReminders(anyString(), anyList()))
+                .thenAnswer(invocation -> fallback.sendPaymentReminders(invocation.getArgument(0), invocation.getArgument(1)));
+
+        int sent = dispatcher.dispatch(List.of(invoice(1L, "CUS-1")), NOW);
+
+        assertThat(sent).isZero();
+        assertThat(savedInvoiceIds()).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void digestFollowsPaymentReminderEventFormat() {
+        when(customerServiceClient.sendPaymentReminders(anyString(), anyList()))
+                .thenReturn(Map.of("accepted", List.of("CUS-1")));
+        Invoice later = invoice(2L, "CUS-1");
+        later.setDueDate(NOW.plusDays(5));
+
+        dispatcher.dispatch(List.of(later, invoice(1L, "CUS-1")), NOW);
+
+        ArgumentCaptor<List<Map<String, Object>>> captor = ArgumentCaptor.forClass(List.class);
+        verify(customerServiceClient).sendPaymentReminders(anyString(), captor.capture());
+        Map<String, Object> reminder = captor.getValue().get(0);
+        assertThat(reminder)
+                .containsEntry("customerNumber", "CUS-1")
+                .containsEntry("paymentStatus", "OVERDUE")
+                .containsEntry("paymentReference", "INV-1")
+                .containsEntry("dueDate", "2024-02-27")
+                .containsEntry("amount", new BigDecimal("200.00"))
+                .containsEntry("currency", "EUR");
+        assertThat((Map<String, Object>) reminder.get("additionalDetails"))
+                .containsKeys("title", "invoices");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Long> savedInvoiceIds() {
+        ArgumentCaptor<Iterable<InvoiceReminderLog>> captor = ArgumentCaptor.forClass(Iterable.class);
+        verify(reminderLogRepository, atMost(1)).saveAll(captor.capture());
+        return captor.getAllValues().stream()
+                .flatMap(logs -> StreamSupport.stream(logs.spliterator(), false))
+                .map(InvoiceReminderLog::getInvoiceId)
+                .collect(Collectors.toList());
+    }
+
+    private static Invoice invoice(Long id, String customerNumber) {
+        Invoice invoice = new Invoice();
+        invoice.setId(id);
+        invoice.setInvoiceNumber("INV-" + id);
+        invoice.setCustomerNumber(customerNumber);
+        invoice.setTotalAmount(new BigDecimal("100.00"));
+        invoice.setPaidAmount(BigDecimal.ZERO);
+        invoice.setCurrency("EUR");
+        invoice.setDueDate(NOW.minusDays(3));
+        return invoice;
+    }
+}
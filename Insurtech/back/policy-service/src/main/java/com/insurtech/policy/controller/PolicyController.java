@@ -24,6 +24,7 @@ import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 @RestController
@@ -75,6 +76,14 @@ public class PolicyController {
                 .orElseThrow(() -> new PolicyNotFoundException("Póliza no encontrada con número: " + policyNumber));
     }
 
+    @PostMapping("/numbers")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT') or hasRole('USER')")
+    @Operation(summary = "Obtener pólizas por números", description = "Obtiene en una sola petición los datos básicos (sin coberturas ni notas) de hasta 500 pólizas; los números inexistentes se omiten")
+    public ResponseEntity<List<PolicyDto>> getPoliciesByNumbers(@RequestBody Set<String> policyNumbers) {
+        log.info("Obteniendo {} pólizas por número", policyNumbers.size());
+        return ResponseEntity.ok(policyService.getPoliciesByNumbers(policyNumbers));
+    }
+
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('AGENT')")
     @Operation(summary = "Buscar pólizas", description = "Busca pólizas por término de búsqueda")
@@ -11,6 +11,7 @@ import com.insurtech.policy.model.entity.Policy;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,8 @@ public interface PolicyRepository extends JpaRepository<Policy, Long> {
 
     Optional<Policy> findByPolicyNumber(String policyNumber);
 
+    List<Policy> findByPolicyNumberIn(Collection<String> policyNumbers);
+
     List<Policy> findByCustomerId(Long customerId);
 
     List<Policy> findByCustomerIdAndStatus(Long customerId, Policy.PolicyStatus status);
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -29,6 +30,12 @@ public interface PolicyService {
      */
     Optional<PolicyDto> getPolicyByNumber(String policyNumber);
 
+    /**
+     * Obtiene varias pólizas por número en una sola consulta, sin coberturas ni notas.
+     * Los números inexistentes se omiten del resultado.
+     */
+    List<PolicyDto> getPoliciesByNumbers(Collection<String> policyNumbers);
+
     /**
      * Busca pólizas por término de búsqueda
      */
@@ -38,6 +38,9 @@ public class PolicyServiceImpl implements PolicyService {
 
     private static final Logger log = LoggerFactory.getLogger(PolicyServiceImpl.class);
 
+    // Límite de números por consulta masiva (también acota la lista IN de Oracle)
+    private static final int MAX_BULK_LOOKUP = 500;
+
     private final PolicyRepository policyRepository;
     private final PolicyNoteRepository policyNoteRepository;
     private final EntityDtoMapper mapper;
@@ -100,6 +103,22 @@ public class PolicyServiceImpl implements PolicyService {
                 .map(mapper::toDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<PolicyDto> getPoliciesByNumbers(Collection<String> policyNumbers) {
+        log.debug("Obteniendo {} pólizas por número", policyNumbers.size());
+        if (policyNumbers.size() > MAX_BULK_LOOKUP) {
+            throw new BusinessValidationException(
+                    "Se pueden consultar como máximo " + MAX_BULK_LOOKUP + " pólizas por petición");
+        }
+        if (policyNumbers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return policyRepository.findByPolicyNumberIn(policyNumbers).stream()
+                .map(mapper::toSummaryDto)
+                .collect(Collectors.toList());
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<PolicyDto> searchPolicies(String searchTerm, Pageable pageable) {
@@ -10,6 +10,30 @@ import java.util.stream.Collectors;
 public class EntityDtoMapper {
 
     public PolicyDto toDto(Policy entity) {
+        PolicyDto dto = toSummaryDto(entity);
+        if (dto == null) return null;
+
+        // Mapear coberturas
+        if (entity.getCoverages() != null) {
+            dto.setCoverages(entity.getCoverages().stream()
+                    .map(this::toDto)
+                    .collect(Collectors.toSet()));
+        }
+
+        // Mapear notas
+        if (entity.getNotes() != null) {
+            dto.setNotes(entity.getNotes().stream()
+                    .map(this::toDto)
+                    .collect(Collectors.toSet()));
+        }
+
+        return dto;
+    }
+
+    /**
+     * Mapea sólo los atributos propios de la póliza, sin inicializar coberturas ni notas
+     */
+    public PolicyDto toSummaryDto(Policy entity) {
         if (entity == null) return null;
 
         PolicyDto dto = new PolicyDto();
@@ -30,20 +54,6 @@ public class EntityDtoMapper {
         dto.setCreatedAt(entity.getCreatedAt());
         dto.setUpdatedAt(entity.getUpdatedAt());
 
-        // Mapear coberturas
-        if (entity.getCoverages() != null) {
-            dto.setCoverages(entity.getCoverages().stream()
-                    .map(this::toDto)
-                    .collect(Collectors.toSet()));
-        }
-
-        // Mapear notas
-        if (entity.getNotes() != null) {
-            dto.setNotes(entity.getNotes().stream()
-                    .map(this::toDto)
-                    .collect(Collectors.toSet()));
-        }
-
         return dto;
     }
 